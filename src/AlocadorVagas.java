@@ -0,0 +1,368 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Listas de vagas livres por categoria e escolha da vaga de cada veículo.
+ *
+ * Cada {@link CategoriaVaga} tem um heap mínimo com os índices das suas vagas livres,
+ * ordenado pela prioridade da {@link EstrategiaAlocacao} (número da vaga ou distância até a
+ * saída), e cada vaga sabe sua posição no heap: escolher a vaga de um veículo custa tempo
+ * constante e ocupar, liberar ou alterar uma vaga custa O(log n), sem percorrer o pátio.
+ * A categoria segue as {@link Regras}: para cada tipo de veículo, as categorias aceitas em
+ * ordem de preferência (ex.: moto procura vaga de moto e, se não houver, de carro).
+ *
+ * Vagas que já têm motos e ainda cabem outra ficam fora dos heaps, em listas encadeadas
+ * separadas por categoria e unidades livres. Dentro de cada categoria aceita, uma moto vai
+ * primeiro para a vaga parcial com menos unidades livres (best-fit, consultando no máximo
+ * {@link Vaga#CAPACIDADE_MAXIMA} listas) e só então ocupa uma vaga vazia da categoria.
+ *
+ * O alocador é estado derivado das vagas; o estacionamento o reconstrói após um
+ * carregamento e o mantém a cada alteração de vaga.
+ */
+public class AlocadorVagas {
+
+    private static final CategoriaVaga[] CATEGORIAS = CategoriaVaga.values();
+    private static final int FORA_DO_HEAP = -1;
+    private static final int NENHUM = -1;
+
+    /**
+     * Categorias aceitas por tipo de veículo, em ordem de preferência.
+     * Padrão: moto em vaga de moto ou de carro; carro em vaga de carro; caminhão em vaga de
+     * caminhão ou de carro. Vagas VIP só entram se forem incluídas explicitamente.
+     */
+    public static final class Regras {
+        private CategoriaVaga[][] ordem;
+
+        /**
+         * Cria as regras padrão.
+         */
+        public Regras() {
+            ordem = new CategoriaVaga[TipoVeiculo.values().length][];
+            ordem[TipoVeiculo.MOTO.ordinal()] = new CategoriaVaga[]{CategoriaVaga.MOTO, CategoriaVaga.CARRO};
+            ordem[TipoVeiculo.CARRO.ordinal()] = new CategoriaVaga[]{CategoriaVaga.CARRO};
+            ordem[TipoVeiculo.CAMINHAO.ordinal()] = new CategoriaVaga[]{CategoriaVaga.CAMINHAO, CategoriaVaga.CARRO};
+        }
+
+        /**
+         * Cria uma cópia das regras.
+         * @param outras Regras de origem.
+         */
+        public Regras(Regras outras) {
+            ordem = new CategoriaVaga[outras.ordem.length][];
+            for (int i = 0; i < ordem.length; i++) {
+                ordem[i] = outras.ordem[i].clone();
+            }
+        }
+
+        /**
+         * Obtém as categorias aceitas por um tipo de veículo.
+         * @param tipo O tipo do veículo.
+         * @return Categorias em ordem de preferência (cópia).
+         */
+        public CategoriaVaga[] getOrdem(TipoVeiculo tipo) {
+            return ordem[tipo.ordinal()].clone();
+        }
+
+        /**
+         * Define as categorias aceitas por um tipo de veículo.
+         * @param tipo O tipo do veículo.
+         * @param categorias Categorias em ordem de preferência, sem repetição.
+         * @throws IllegalArgumentException Se a lista for vazia ou tiver categorias nulas ou repetidas.
+         */
+        public void setOrdem(TipoVeiculo tipo, CategoriaVaga... categorias) {
+            if (tipo == null || categorias == null || categorias.length == 0) {
+                throw new IllegalArgumentException("Informe ao menos uma categoria de vaga para o tipo de veículo.");
+            }
+            boolean[] vistas = new boolean[CATEGORIAS.length];
+            for (CategoriaVaga c : categorias) {
+                if (c == null || vistas[c.ordinal()]) {
+                    throw new IllegalArgumentException("Categorias de vaga nulas ou repetidas para " + tipo + ".");
+                }
+                vistas[c.ordinal()] = true;
+            }
+            ordem[tipo.ordinal()] = categorias.clone();
+        }
+
+        // Vetor interno, sem cópia, para o caminho de alocação
+        CategoriaVaga[] ordem(TipoVeiculo tipo) {
+            return ordem[((tipo != null) ? tipo : TipoVeiculo.CARRO).ordinal()];
+        }
+
+        /**
+         * Lê uma lista de categorias separadas por vírgula (ex.: "MOTO, CARRO").
+         * @param texto O texto.
+         * @return As categorias na ordem informada.
+         * @throws IllegalArgumentException Se alguma categoria não existir.
+         */
+        public static CategoriaVaga[] interpretar(String texto) {
+            if (texto == null || texto.trim().isEmpty()) {
+                return new CategoriaVaga[0];
+            }
+            String[] partes = texto.split(",");
+            CategoriaVaga[] categorias = new CategoriaVaga[partes.length];
+            for (int i = 0; i < partes.length; i++) {
+                String nome = partes[i].trim();
+                for (CategoriaVaga c : CATEGORIAS) {
+                    if (c.name().equalsIgnoreCase(nome) || c.getDescricao().equalsIgnoreCase(nome)) {
+                        categorias[i] = c;
+                    }
+                }
+                if (categorias[i] == null) {
+                    throw new IllegalArgumentException("Categoria de vaga desconhecida: " + nome);
+                }
+            }
+            return categorias;
+        }
+
+        /**
+         * Escreve uma lista de categorias no formato aceito por {@link #interpretar(String)}.
+         * @param categorias As categorias.
+         * @return Texto separado por vírgulas.
+         */
+        public static String formatar(CategoriaVaga[] categorias) {
+            StringBuilder sb = new StringBuilder();
+            for (CategoriaVaga c : categorias) {
+                if (sb.length() > 0) sb.append(", ");
+                sb.append(c.name());
+            }
+            return sb.toString();
+        }
+    }
+
+    private final List<Vaga> vagas;
+    private final EstrategiaAlocacao estrategia;
+    // Um heap mínimo por categoria, com os índices das vagas livres
+    private final int[][] heaps;
+    private final int[] tamanhos;
+    // Posição de cada vaga no heap da sua categoria (ou FORA_DO_HEAP)
+    private final int[] posicoes;
+    // Prioridade e categoria com que cada vaga entrou no heap (a vaga pode mudar depois)
+    private final long[] prioridades;
+    private final byte[] categoriaEmpilhada;
+    // Vagas parciais: listas duplamente encadeadas por (categoria, unidades livres)
+    private final int[] inicioParciais;
+    private final int[] proximaParcial;
+    private final int[] anteriorParcial;
+    private final int[] listaParcial;
+
+    /**
+     * Monta as listas de vagas livres com a estratégia padrão (primeira vaga livre).
+     * @param vagas Vagas do estacionamento, na ordem de número.
+     */
+    public AlocadorVagas(List<Vaga> vagas) {
+        this(vagas, EstrategiaAlocacao.PRIMEIRA_LIVRE);
+    }
+
+    /**
+     * Monta as listas de vagas livres.
+     * @param vagas Vagas do estacionamento, na ordem de número.
+     * @param estrategia Estratégia que ordena as vagas livres de cada categoria.
+     */
+    public AlocadorVagas(List<Vaga> vagas, EstrategiaAlocacao estrategia) {
+        this.vagas = vagas;
+        this.estrategia = estrategia;
+        int total = vagas.size();
+        this.heaps = new int[CATEGORIAS.length][total];
+        this.tamanhos = new int[CATEGORIAS.length];
+        this.posicoes = new int[total];
+        this.prioridades = new long[total];
+        this.categoriaEmpilhada = new byte[total];
+        this.inicioParciais = new int[CATEGORIAS.length * Vaga.CAPACIDADE_MAXIMA];
+        this.proximaParcial = new int[total];
+        this.anteriorParcial = new int[total];
+        this.listaParcial = new int[total];
+        Arrays.fill(posicoes, FORA_DO_HEAP);
+        Arrays.fill(inicioParciais, NENHUM);
+        Arrays.fill(listaParcial, NENHUM);
+        for (int i = 0; i < total; i++) {
+            Vaga vaga = vagas.get(i);
+            if (vaga.isParcial()) {
+                encadear(i, vaga);
+            } else if (!vaga.isOcupada()) {
+                int c = vaga.getCategoria().ordinal();
+                prioridades[i] = estrategia.prioridade(vaga);
+                categoriaEmpilhada[i] = (byte) c;
+                posicoes[i] = tamanhos[c];
+                heaps[c][tamanhos[c]++] = i;
+            }
+        }
+        // Heapify de baixo para cima: O(n) em vez de n inserções
+        for (int c = 0; c < CATEGORIAS.length; c++) {
+            for (int p = tamanhos[c] / 2 - 1; p >= 0; p--) {
+                descer(c, p);
+            }
+        }
+    }
+
+    /**
+     * Obtém a estratégia em uso.
+     * @return A estratégia.
+     */
+    public EstrategiaAlocacao getEstrategia() {
+        return estrategia;
+    }
+
+    /**
+     * Escolhe a vaga para um veículo, sem ocupá-la.
+     * @param tipo Tipo do veículo.
+     * @param regras Regras de alocação.
+     * @return Na primeira categoria aceita que tiver lugar: para motos, a vaga parcial com menos
+     *         unidades livres e, sem parcial, a vaga livre de maior preferência; ou null.
+     *         A preferência de categoria vem antes do best-fit: uma moto não completa uma
+     *         vaga de carro enquanto houver vaga de moto vazia.
+     */
+    public Vaga buscar(TipoVeiculo tipo, Regras regras) {
+        for (CategoriaVaga categoria : regras.ordem(tipo)) {
+            int c = categoria.ordinal();
+            if (tipo == TipoVeiculo.MOTO) {
+                for (int livres = Vaga.UNIDADES_MOTO; livres < Vaga.CAPACIDADE_MAXIMA; livres++) {
+                    int inicio = inicioParciais[lista(c, livres)];
+                    if (inicio != NENHUM) {
+                        return vagas.get(inicio);
+                    }
+                }
+            }
+            if (tamanhos[c] > 0) {
+                return vagas.get(heaps[c][0]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retira uma vaga das listas antes de alterá-la.
+     * @param vaga A vaga.
+     */
+    public void retirar(Vaga vaga) {
+        int i = vaga.getNumero() - 1;
+        if (listaParcial[i] != NENHUM) {
+            desencadear(i);
+            return;
+        }
+        int posicao = posicoes[i];
+        if (posicao == FORA_DO_HEAP) {
+            return;
+        }
+        int c = categoriaEmpilhada[i];
+        posicoes[i] = FORA_DO_HEAP;
+        int ultimo = heaps[c][--tamanhos[c]];
+        if (ultimo != i) {
+            // O último ocupa o buraco e desce ou sobe até o lugar certo
+            colocar(c, posicao, ultimo);
+            descer(c, posicao);
+            subir(c, posicoes[ultimo]);
+        }
+    }
+
+    /**
+     * Recoloca uma vaga nas listas após alterá-la (se estiver livre ou parcial).
+     * A prioridade é recalculada, então mudanças de distância passam a valer aqui.
+     * @param vaga A vaga.
+     */
+    public void devolver(Vaga vaga) {
+        int i = vaga.getNumero() - 1;
+        if (posicoes[i] != FORA_DO_HEAP || listaParcial[i] != NENHUM) {
+            return;
+        }
+        if (vaga.isParcial()) {
+            encadear(i, vaga);
+        } else if (!vaga.isOcupada()) {
+            int c = vaga.getCategoria().ordinal();
+            prioridades[i] = estrategia.prioridade(vaga);
+            categoriaEmpilhada[i] = (byte) c;
+            colocar(c, tamanhos[c]++, i);
+            subir(c, posicoes[i]);
+        }
+    }
+
+    /**
+     * Obtém a quantidade de vagas livres de uma categoria.
+     * @param categoria A categoria.
+     * @return Vagas livres.
+     */
+    public int getLivres(CategoriaVaga categoria) {
+        return tamanhos[categoria.ordinal()];
+    }
+
+    /**
+     * Obtém a quantidade de vagas livres que um tipo de veículo pode ocupar.
+     * @param tipo Tipo do veículo.
+     * @param regras Regras de alocação.
+     * @return Soma das vagas livres das categorias aceitas.
+     */
+    public int getLivres(TipoVeiculo tipo, Regras regras) {
+        int total = 0;
+        for (CategoriaVaga categoria : regras.ordem(tipo)) {
+            total += tamanhos[categoria.ordinal()];
+        }
+        return total;
+    }
+
+    // --- Listas de vagas parciais ---
+
+    private static int lista(int categoria, int livres) {
+        return categoria * Vaga.CAPACIDADE_MAXIMA + livres;
+    }
+
+    private void encadear(int i, Vaga vaga) {
+        int l = lista(vaga.getCategoria().ordinal(), vaga.getUnidadesLivres());
+        int inicio = inicioParciais[l];
+        proximaParcial[i] = inicio;
+        anteriorParcial[i] = NENHUM;
+        if (inicio != NENHUM) {
+            anteriorParcial[inicio] = i;
+        }
+        inicioParciais[l] = i;
+        listaParcial[i] = l;
+    }
+
+    private void desencadear(int i) {
+        int anterior = anteriorParcial[i];
+        int proxima = proximaParcial[i];
+        if (anterior != NENHUM) {
+            proximaParcial[anterior] = proxima;
+        } else {
+            inicioParciais[listaParcial[i]] = proxima;
+        }
+        if (proxima != NENHUM) {
+            anteriorParcial[proxima] = anterior;
+        }
+        listaParcial[i] = NENHUM;
+    }
+
+    // --- Heap indexado ---
+
+    private void colocar(int c, int posicao, int i) {
+        heaps[c][posicao] = i;
+        posicoes[i] = posicao;
+    }
+
+    private void subir(int c, int posicao) {
+        int[] heap = heaps[c];
+        int i = heap[posicao];
+        long prioridade = prioridades[i];
+        while (posicao > 0) {
+            int pai = (posicao - 1) >>> 1;
+            if (prioridades[heap[pai]] <= prioridade) break;
+            colocar(c, posicao, heap[pai]);
+            posicao = pai;
+        }
+        colocar(c, posicao, i);
+    }
+
+    private void descer(int c, int posicao) {
+        int[] heap = heaps[c];
+        int tamanho = tamanhos[c];
+        int i = heap[posicao];
+        long prioridade = prioridades[i];
+        while (true) {
+            int filho = 2 * posicao + 1;
+            if (filho >= tamanho) break;
+            if (filho + 1 < tamanho && prioridades[heap[filho + 1]] < prioridades[heap[filho]]) filho++;
+            if (prioridades[heap[filho]] >= prioridade) break;
+            colocar(c, posicao, heap[filho]);
+            posicao = filho;
+        }
+        colocar(c, posicao, i);
+    }
+}
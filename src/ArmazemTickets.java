@@ -0,0 +1,421 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Armazém colunar de tickets fechados em memória.
+ *
+ * Em vez de um objeto {@link Ticket} (mais {@link Veiculo} e strings) por linha, cada campo
+ * fica em uma coluna de primitivos: ids, horários e valores em {@code long}, a placa como
+ * código de um dicionário e o tipo em um byte. As colunas crescem em blocos de tamanho fixo,
+ * então acrescentar linhas nunca copia o que já foi gravado e o custo de memória por ticket
+ * é previsível (cerca de 40 bytes). Cada bloco guarda o menor e o maior horário de saída,
+ * o que permite pular blocos inteiros em consultas por período.
+ *
+ * Objetos só são criados sob demanda: {@link Linha} é um cursor reutilizável sobre as
+ * colunas e {@link #getTicket(int)} reconstrói um {@link Ticket} completo.
+ *
+ * No {@link Estacionamento} o armazém é mantido ao lado da lista de tickets, como índice para
+ * as agregações; a economia de memória só existe onde ele é o único depósito (ex.: dados
+ * importados com {@link #adicionar(int, String, TipoVeiculo, long, long, long)}).
+ */
+public class ArmazemTickets {
+
+    /** Linhas por bloco de cada coluna. */
+    public static final int LINHAS_POR_BLOCO = 4096;
+
+    private static final int DESLOCAMENTO_BLOCO = 12;
+    private static final int MASCARA_LINHA = LINHAS_POR_BLOCO - 1;
+    private static final TipoVeiculo[] TIPOS = TipoVeiculo.values();
+
+    private int[][] ids = new int[0][];
+    private long[][] entradas = new long[0][];
+    private long[][] saidas = new long[0][];
+    private long[][] valores = new long[0][];
+    private int[][] placas = new int[0][];
+    private byte[][] tipos = new byte[0][];
+    // Desconto em centésimos de ponto percentual (0 a 10000)
+    private short[][] descontos = new short[0][];
+    private long[] menorSaida = new long[0];
+    private long[] maiorSaida = new long[0];
+    private int tamanho;
+
+    // Dicionário de placas: cada veículo distinto aparece uma única vez, indexado pelo código da placa
+    private final IndicePlacas codigos = new IndicePlacas();
+    private final List<String> dicionarioPlacas = new ArrayList<>();
+    private final List<String> modelos = new ArrayList<>();
+    private final List<String> cores = new ArrayList<>();
+    // Veículo de cada placa do dicionário, criado na primeira reconstrução de ticket e reaproveitado
+    private final List<Veiculo> veiculos = new ArrayList<>();
+
+    /**
+     * Cursor sobre uma linha do armazém. Um mesmo cursor é reposicionado durante uma
+     * varredura, sem criar objetos por linha.
+     *
+     * Ao ser posicionado (sob a trava do armazém) o cursor guarda os vetores do bloco da
+     * linha. Blocos nunca são realocados e uma linha não muda depois de gravada, então os
+     * getters leem sem trava mesmo com inclusões acontecendo em paralelo.
+     */
+    public final class Linha {
+        private int posicao;
+        private int indice = -1;
+        private int[] blocoIds;
+        private long[] blocoEntradas;
+        private long[] blocoSaidas;
+        private long[] blocoValores;
+        private int[] blocoPlacas;
+        private byte[] blocoTipos;
+        private short[] blocoDescontos;
+
+        /**
+         * Posiciona o cursor em uma linha.
+         * @param indice Índice da linha, na ordem de inclusão.
+         * @return O próprio cursor.
+         * @throws IndexOutOfBoundsException Se a linha não existir.
+         */
+        public Linha posicionar(int indice) {
+            synchronized (ArmazemTickets.this) {
+                if (indice < 0 || indice >= tamanho) {
+                    throw new IndexOutOfBoundsException("Linha inexistente: " + indice);
+                }
+                fixar(indice >>> DESLOCAMENTO_BLOCO, indice & MASCARA_LINHA);
+            }
+            return this;
+        }
+
+        // Chamado com a trava do armazém
+        private void fixar(int bloco, int posicao) {
+            this.indice = (bloco << DESLOCAMENTO_BLOCO) | posicao;
+            this.posicao = posicao;
+            if (blocoIds != ids[bloco]) {
+                blocoIds = ids[bloco];
+                blocoEntradas = entradas[bloco];
+                blocoSaidas = saidas[bloco];
+                blocoValores = valores[bloco];
+                blocoPlacas = placas[bloco];
+                blocoTipos = tipos[bloco];
+                blocoDescontos = descontos[bloco];
+            }
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        public int getId() {
+            return blocoIds[posicao];
+        }
+
+        public long getEntradaEpoch() {
+            return blocoEntradas[posicao];
+        }
+
+        public long getSaidaEpoch() {
+            return blocoSaidas[posicao];
+        }
+
+        public long getValorPagoCentavos() {
+            return blocoValores[posicao];
+        }
+
+        /** @return Posição da placa no dicionário do armazém. */
+        public int getIndicePlaca() {
+            return blocoPlacas[posicao];
+        }
+
+        /** @return A placa (string do dicionário, sem cópia). */
+        public String getPlaca() {
+            return placaDoDicionario(getIndicePlaca());
+        }
+
+        public TipoVeiculo getTipo() {
+            byte tipo = blocoTipos[posicao];
+            return (tipo >= 0) ? TIPOS[tipo] : null;
+        }
+
+        public double getDesconto() {
+            return blocoDescontos[posicao] / 100.0;
+        }
+
+        /**
+         * Cria o {@link Ticket} correspondente à linha. Linhas da mesma placa (e do mesmo
+         * tipo) compartilham o objeto {@link Veiculo}.
+         * @return Um novo ticket fechado.
+         */
+        public Ticket criarTicket() {
+            Veiculo veiculo = veiculoDoDicionario(getIndicePlaca(), getTipo());
+            return new Ticket(getId(), veiculo, getEntradaEpoch(), getSaidaEpoch(), getValorPagoCentavos(), getDesconto());
+        }
+    }
+
+    /**
+     * Cria um armazém com os tickets fechados de uma lista (os abertos são ignorados).
+     * @param tickets Tickets de origem.
+     * @return O armazém preenchido.
+     */
+    public static ArmazemTickets de(List<Ticket> tickets) {
+        ArmazemTickets armazem = new ArmazemTickets();
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket t = tickets.get(i);
+            if (t.isFechado()) {
+                armazem.adicionar(t);
+            }
+        }
+        return armazem;
+    }
+
+    /**
+     * Acrescenta um ticket fechado.
+     * @param ticket O ticket.
+     * @throws IllegalArgumentException Se o ticket estiver em aberto.
+     */
+    public synchronized void adicionar(Ticket ticket) {
+        if (!ticket.isFechado()) {
+            throw new IllegalArgumentException("Somente tickets fechados podem ser arquivados.");
+        }
+        Veiculo v = ticket.getVeiculo();
+        int codigo = codificarPlaca(v.getCodigoPlaca(), v.getPlaca(), v.getModelo(), v.getCor());
+        adicionar(ticket.getId(), codigo, v.getTipo(), ticket.getEntradaEpoch(), ticket.getSaidaEpoch(),
+                ticket.getValorPagoCentavos(), ticket.getDesconto());
+    }
+
+    /**
+     * Acrescenta uma linha a partir dos campos (ex.: dados importados).
+     * @param id ID do ticket.
+     * @param placa Placa do veículo.
+     * @param tipo Tipo do veículo (pode ser null).
+     * @param entradaEpoch Entrada em segundos desde a época (horário local).
+     * @param saidaEpoch Saída em segundos desde a época (horário local).
+     * @param valorCentavos Valor pago em centavos.
+     * @throws IllegalArgumentException Se a placa for inválida ou a saída for anterior à entrada.
+     */
+    public synchronized void adicionar(int id, String placa, TipoVeiculo tipo, long entradaEpoch, long saidaEpoch, long valorCentavos) {
+        long codigoPlaca = CodecPlaca.codificar(placa);
+        if (codigoPlaca == CodecPlaca.INVALIDA) {
+            throw new IllegalArgumentException("Placa inválida: " + placa);
+        }
+        adicionar(id, codificarPlaca(codigoPlaca, null, null, null), tipo, entradaEpoch, saidaEpoch, valorCentavos, 0.0);
+    }
+
+    private void adicionar(int id, int codigoPlaca, TipoVeiculo tipo, long entradaEpoch, long saidaEpoch, long valorCentavos, double desconto) {
+        if (saidaEpoch < entradaEpoch) {
+            throw new IllegalArgumentException("A saída não pode ser anterior à entrada.");
+        }
+        int bloco = tamanho >>> DESLOCAMENTO_BLOCO;
+        int posicao = tamanho & MASCARA_LINHA;
+        if (posicao == 0) {
+            novoBloco();
+        }
+        ids[bloco][posicao] = id;
+        entradas[bloco][posicao] = entradaEpoch;
+        saidas[bloco][posicao] = saidaEpoch;
+        valores[bloco][posicao] = valorCentavos;
+        placas[bloco][posicao] = codigoPlaca;
+        tipos[bloco][posicao] = (byte) ((tipo != null) ? tipo.ordinal() : -1);
+        descontos[bloco][posicao] = (short) Math.round(desconto * 100);
+        menorSaida[bloco] = Math.min(menorSaida[bloco], saidaEpoch);
+        maiorSaida[bloco] = Math.max(maiorSaida[bloco], saidaEpoch);
+        tamanho++;
+    }
+
+    // Só o vetor de blocos é copiado; as linhas gravadas permanecem onde estão
+    private void novoBloco() {
+        int n = ids.length + 1;
+        ids = Arrays.copyOf(ids, n);
+        entradas = Arrays.copyOf(entradas, n);
+        saidas = Arrays.copyOf(saidas, n);
+        valores = Arrays.copyOf(valores, n);
+        placas = Arrays.copyOf(placas, n);
+        tipos = Arrays.copyOf(tipos, n);
+        descontos = Arrays.copyOf(descontos, n);
+        menorSaida = Arrays.copyOf(menorSaida, n);
+        maiorSaida = Arrays.copyOf(maiorSaida, n);
+        ids[n - 1] = new int[LINHAS_POR_BLOCO];
+        entradas[n - 1] = new long[LINHAS_POR_BLOCO];
+        saidas[n - 1] = new long[LINHAS_POR_BLOCO];
+        valores[n - 1] = new long[LINHAS_POR_BLOCO];
+        placas[n - 1] = new int[LINHAS_POR_BLOCO];
+        tipos[n - 1] = new byte[LINHAS_POR_BLOCO];
+        descontos[n - 1] = new short[LINHAS_POR_BLOCO];
+        menorSaida[n - 1] = Long.MAX_VALUE;
+        maiorSaida[n - 1] = Long.MIN_VALUE;
+    }
+
+    private int codificarPlaca(long codigoPlaca, String placa, String modelo, String cor) {
+        int codigo = codigos.get(codigoPlaca);
+        if (codigo == IndicePlacas.AUSENTE) {
+            codigo = dicionarioPlacas.size();
+            codigos.put(codigoPlaca, codigo);
+            dicionarioPlacas.add((placa != null) ? placa : CodecPlaca.decodificar(codigoPlaca));
+            modelos.add(modelo);
+            cores.add(cor);
+            veiculos.add(null);
+        } else if (modelo != null && (!modelo.equals(modelos.get(codigo)) || !Objects.equals(cor, cores.get(codigo)))) {
+            // Mantém os dados mais recentes do veículo; o objeto compartilhado é recriado
+            modelos.set(codigo, modelo);
+            cores.set(codigo, cor);
+            veiculos.set(codigo, null);
+        }
+        return codigo;
+    }
+
+    private synchronized String placaDoDicionario(int codigo) {
+        return dicionarioPlacas.get(codigo);
+    }
+
+    private synchronized Veiculo veiculoDoDicionario(int codigo, TipoVeiculo tipo) {
+        Veiculo veiculo = veiculos.get(codigo);
+        if (veiculo == null || veiculo.getTipo() != tipo) {
+            Veiculo novo = new Veiculo(dicionarioPlacas.get(codigo), modelos.get(codigo), cores.get(codigo), tipo);
+            // Uma placa que já apareceu com outro tipo não desaloja o veículo em cache
+            if (veiculo != null) {
+                return novo;
+            }
+            veiculos.set(codigo, novo);
+            veiculo = novo;
+        }
+        return veiculo;
+    }
+
+    /**
+     * Obtém a quantidade de tickets armazenados.
+     * @return Total de linhas.
+     */
+    public synchronized int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Obtém a quantidade de placas distintas.
+     * @return Tamanho do dicionário de placas.
+     */
+    public synchronized int getTotalPlacas() {
+        return dicionarioPlacas.size();
+    }
+
+    /**
+     * Cria um cursor para percorrer as linhas.
+     * @return Cursor ainda não posicionado.
+     */
+    public Linha criarLinha() {
+        return new Linha();
+    }
+
+    /**
+     * Reconstrói o ticket de uma linha.
+     * @param indice Índice da linha.
+     * @return Um novo {@link Ticket} fechado.
+     */
+    public Ticket getTicket(int indice) {
+        return new Linha().posicionar(indice).criarTicket();
+    }
+
+    /**
+     * Soma os valores pagos nas saídas dentro do período.
+     * @param saidaDe Menor saída aceita (epoch em segundos, horário local), inclusive.
+     * @param saidaAte Maior saída aceita (epoch em segundos, horário local), inclusive.
+     * @return Total em centavos.
+     */
+    public synchronized long somarCentavos(long saidaDe, long saidaAte) {
+        long total = 0;
+        for (int b = 0; b < ids.length; b++) {
+            if (maiorSaida[b] < saidaDe || menorSaida[b] > saidaAte) continue;
+            long[] s = saidas[b];
+            long[] v = valores[b];
+            int n = linhasNoBloco(b);
+            if (menorSaida[b] >= saidaDe && maiorSaida[b] <= saidaAte) {
+                for (int i = 0; i < n; i++) total += v[i];
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (s[i] >= saidaDe && s[i] <= saidaAte) total += v[i];
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Conta as saídas de cada tipo de veículo dentro do período.
+     * @param saidaDe Menor saída aceita (epoch em segundos, horário local), inclusive.
+     * @param saidaAte Maior saída aceita (epoch em segundos, horário local), inclusive.
+     * @return Quantidades indexadas por {@link TipoVeiculo#ordinal()}.
+     */
+    public synchronized int[] contarPorTipo(long saidaDe, long saidaAte) {
+        int[] contagem = new int[TIPOS.length];
+        for (int b = 0; b < ids.length; b++) {
+            if (maiorSaida[b] < saidaDe || menorSaida[b] > saidaAte) continue;
+            long[] s = saidas[b];
+            byte[] t = tipos[b];
+            int n = linhasNoBloco(b);
+            for (int i = 0; i < n; i++) {
+                if (s[i] >= saidaDe && s[i] <= saidaAte && t[i] >= 0) contagem[t[i]]++;
+            }
+        }
+        return contagem;
+    }
+
+    /**
+     * Localiza as linhas de uma placa comparando apenas códigos inteiros.
+     * @param placa A placa procurada.
+     * @return Índices das linhas, em ordem de inclusão.
+     */
+    public synchronized int[] buscarPorPlaca(String placa) {
+        int procurado = codigos.get(CodecPlaca.codificar(placa));
+        if (procurado == IndicePlacas.AUSENTE) {
+            return new int[0];
+        }
+        int[] encontrados = new int[8];
+        int n = 0;
+        for (int b = 0; b < ids.length; b++) {
+            int[] p = placas[b];
+            int linhas = linhasNoBloco(b);
+            for (int i = 0; i < linhas; i++) {
+                if (p[i] == procurado) {
+                    if (n == encontrados.length) encontrados = Arrays.copyOf(encontrados, n * 2);
+                    encontrados[n++] = (b << DESLOCAMENTO_BLOCO) | i;
+                }
+            }
+        }
+        return Arrays.copyOf(encontrados, n);
+    }
+
+    /**
+     * Percorre as linhas com saída dentro do período, entregando sempre o mesmo cursor.
+     * O cursor não deve ser guardado após a chamada.
+     * @param saidaDe Menor saída aceita (epoch em segundos, horário local), inclusive.
+     * @param saidaAte Maior saída aceita (epoch em segundos, horário local), inclusive.
+     * @param consumidor Recebe o cursor posicionado em cada linha selecionada.
+     * @return Quantidade de linhas entregues.
+     */
+    public synchronized int varrer(long saidaDe, long saidaAte, Consumer<Linha> consumidor) {
+        Linha linha = new Linha();
+        int entregues = 0;
+        for (int b = 0; b < ids.length; b++) {
+            if (maiorSaida[b] < saidaDe || menorSaida[b] > saidaAte) continue;
+            long[] s = saidas[b];
+            int n = linhasNoBloco(b);
+            for (int i = 0; i < n; i++) {
+                if (s[i] >= saidaDe && s[i] <= saidaAte) {
+                    linha.fixar(b, i);
+                    consumidor.accept(linha);
+                    entregues++;
+                }
+            }
+        }
+        return entregues;
+    }
+
+    /**
+     * Estima a memória ocupada pelas colunas (sem o dicionário de placas).
+     * @return Bytes alocados nos blocos.
+     */
+    public synchronized long getBytesColunas() {
+        return (long) ids.length * LINHAS_POR_BLOCO * (Integer.BYTES * 2 + Long.BYTES * 3 + Short.BYTES + 1);
+    }
+
+    private int linhasNoBloco(int bloco) {
+        return (bloco == ids.length - 1) ? tamanho - (bloco << DESLOCAMENTO_BLOCO) : LINHAS_POR_BLOCO;
+    }
+}
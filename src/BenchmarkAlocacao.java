@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Compara o custo de escolher vagas com varredura linear (a busca original de
+ * {@code buscarVagaLivre}) e com o {@link AlocadorVagas} (heaps por categoria).
+ *
+ * O pátio é preenchido até a ocupação pedida e então cada operação libera uma vaga ocupada
+ * ao acaso e estaciona um carro na vaga escolhida, como numa hora de movimento constante.
+ * As distâncias simulam uma garagem de vários andares com o elevador no meio de cada andar
+ * (subir um andar custa tanto quanto andar 20 vagas).
+ *
+ * O preenchimento fica fora do tempo medido; cada estratégia é medida pela {@link Medicao}.
+ *
+ * Uso: java BenchmarkAlocacao [vagas] [operações] [ocupação %]
+ */
+public class BenchmarkAlocacao {
+
+    private static final int VAGAS_POR_ANDAR = 50;
+
+    /**
+     * Forma de escolher a vaga avaliada pelo benchmark.
+     */
+    private interface Escolha {
+        Vaga escolher();
+
+        default void ocupar(Vaga vaga, Veiculo veiculo) {
+            vaga.ocuparVaga(veiculo);
+        }
+
+        default void liberar(Vaga vaga) {
+            vaga.liberarVaga();
+        }
+    }
+
+    /**
+     * Escolha feita pelo alocador, mantido a cada alteração como faz o estacionamento.
+     */
+    private static final class EscolhaAlocador implements Escolha {
+        private final AlocadorVagas alocador;
+        private final AlocadorVagas.Regras regras = new AlocadorVagas.Regras();
+
+        EscolhaAlocador(List<Vaga> vagas, EstrategiaAlocacao estrategia) {
+            this.alocador = new AlocadorVagas(vagas, estrategia);
+        }
+
+        @Override
+        public Vaga escolher() {
+            return alocador.buscar(TipoVeiculo.CARRO, regras);
+        }
+
+        @Override
+        public void ocupar(Vaga vaga, Veiculo veiculo) {
+            alocador.retirar(vaga);
+            vaga.ocuparVaga(veiculo);
+            alocador.devolver(vaga);
+        }
+
+        @Override
+        public void liberar(Vaga vaga) {
+            alocador.retirar(vaga);
+            vaga.liberarVaga();
+            alocador.devolver(vaga);
+        }
+    }
+
+    public static void main(String[] args) {
+        int total = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        int operacoes = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+        double ocupacao = (args.length > 2) ? Double.parseDouble(args[2]) / 100.0 : 0.9;
+
+        System.out.printf("Vagas: %d | Operações: %d | Ocupação: %.0f%%%n%n", total, operacoes, ocupacao * 100);
+        System.out.printf("%-34s %12s %14s%n", "Estratégia", "ns/operação", "distância média");
+
+        medir("Varredura: primeira livre", total, operacoes, ocupacao, vagas -> () -> {
+            for (Vaga v : vagas) {
+                if (!v.isOcupada()) return v;
+            }
+            return null;
+        });
+        medir("Varredura: mais próxima", total, operacoes, ocupacao, vagas -> () -> {
+            Vaga melhor = null;
+            for (Vaga v : vagas) {
+                if (!v.isOcupada() && (melhor == null || v.getDistancia() < melhor.getDistancia())) melhor = v;
+            }
+            return melhor;
+        });
+        medir("Heap: primeira livre", total, operacoes, ocupacao,
+                vagas -> new EscolhaAlocador(vagas, EstrategiaAlocacao.PRIMEIRA_LIVRE));
+        medir("Heap: mais próxima", total, operacoes, ocupacao,
+                vagas -> new EscolhaAlocador(vagas, EstrategiaAlocacao.MAIS_PROXIMA));
+    }
+
+    private static void medir(String nome, int total, int operacoes, double ocupacao,
+                              Function<List<Vaga>, Escolha> fabrica) {
+        // Mesma semente em todas as rodadas: a soma das distâncias é igual em cada uma
+        long[] somaDistancias = new long[1];
+        long nanos = Medicao.melhorNanosComPreparo(() -> preparar(total, operacoes, ocupacao, fabrica, somaDistancias));
+        System.out.printf("%-34s %12.0f %14.1f%n", nome, (double) nanos / operacoes, (double) somaDistancias[0] / operacoes);
+    }
+
+    // Monta e preenche o pátio (fora da medição) e devolve as operações medidas
+    private static LongSupplier preparar(int total, int operacoes, double ocupacao,
+                                         Function<List<Vaga>, Escolha> fabrica, long[] somaDistancias) {
+        List<Vaga> vagas = new ArrayList<>(total);
+        for (int i = 1; i <= total; i++) {
+            Vaga v = new Vaga(i);
+            int andar = (i - 1) / VAGAS_POR_ANDAR;
+            int posicao = (i - 1) % VAGAS_POR_ANDAR;
+            v.setDistancia(andar * 20 + Math.abs(posicao - VAGAS_POR_ANDAR / 2));
+            vagas.add(v);
+        }
+        Escolha escolha = fabrica.apply(vagas);
+        Veiculo veiculo = new Veiculo("BEN1A23", "Gol", "Prata", TipoVeiculo.CARRO);
+
+        // Ocupadas guardadas num vetor para sortear a próxima saída em tempo constante
+        Vaga[] ocupadas = new Vaga[total];
+        int quantidade = 0;
+        int alvo = (int) (total * ocupacao);
+        while (quantidade < alvo) {
+            Vaga v = escolha.escolher();
+            escolha.ocupar(v, veiculo);
+            ocupadas[quantidade++] = v;
+        }
+
+        int preenchidas = quantidade;
+        return () -> {
+            Random aleatorio = new Random(42);
+            int n = preenchidas;
+            long soma = 0;
+            for (int op = 0; op < operacoes && n > 0; op++) {
+                int sorteada = aleatorio.nextInt(n);
+                escolha.liberar(ocupadas[sorteada]);
+                ocupadas[sorteada] = ocupadas[--n];
+
+                Vaga v = escolha.escolher();
+                escolha.ocupar(v, veiculo);
+                ocupadas[n++] = v;
+                soma += v.getDistancia();
+            }
+            somaDistancias[0] = soma;
+            return soma;
+        };
+    }
+}
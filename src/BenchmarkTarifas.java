@@ -0,0 +1,90 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Medição simples do custo do cálculo de valores: a regra antiga (hora cheia calculada a cada
+ * chamada) contra a {@link Tarifa} compilada, com e sem regras adicionais.
+ *
+ * Cada cenário é medido pela {@link Medicao} (aquecimento e melhor de várias rodadas);
+ * é impresso o melhor tempo médio por cálculo. Uso: java BenchmarkTarifas
+ */
+public class BenchmarkTarifas {
+
+    private static final int CALCULOS = 1 << 20;
+
+    public static void main(String[] args) {
+        long[] minutos = new long[CALCULOS];
+        int[] horas = new int[CALCULOS];
+        TipoVeiculo[] tipos = new TipoVeiculo[CALCULOS];
+        LocalDateTime[] entradas = new LocalDateTime[CALCULOS];
+        LocalDateTime[] saidas = new LocalDateTime[CALCULOS];
+        java.util.Random rnd = new java.util.Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < CALCULOS; i++) {
+            entradas[i] = base.plusMinutes(rnd.nextInt(7 * 24 * 60));
+            minutos[i] = rnd.nextInt(10) == 0 ? rnd.nextInt(30 * 24 * 60) : rnd.nextInt(8 * 60);
+            saidas[i] = entradas[i].plusMinutes(minutos[i]);
+            horas[i] = Tarifa.horaDaSemana(entradas[i]);
+            tipos[i] = TipoVeiculo.values()[rnd.nextInt(TipoVeiculo.values().length)];
+        }
+
+        Tarifa simples = Tarifa.compilar(1000, new Tarifa.Regras());
+        Tarifa.Regras regras = new Tarifa.Regras();
+        regras.setToleranciaMinutos(15);
+        regras.setFracaoPrimeiraHoraMinutos(15);
+        regras.setTetoDiarioCentavos(6000);
+        regras.setAdicionalNoturno(20);
+        regras.setAdicionalFimDeSemana(10);
+        Tarifa completa = Tarifa.compilar(1000, regras);
+
+        System.out.println("=== Benchmark de Tarifas (" + CALCULOS + " cálculos por rodada) ===");
+        medir("Regra antiga (hora cheia)", () -> {
+            long soma = 0;
+            for (int i = 0; i < CALCULOS; i++) {
+                soma += Math.round(valorAntigo(tipos[i], entradas[i], saidas[i], 10.0) * 100);
+            }
+            return soma;
+        });
+        medir("Tarifa compilada (padrão)", () -> {
+            long soma = 0;
+            for (int i = 0; i < CALCULOS; i++) {
+                soma += simples.calcularCentavos(tipos[i], minutos[i], horas[i]);
+            }
+            return soma;
+        });
+        medir("Tarifa compilada (completa)", () -> {
+            long soma = 0;
+            for (int i = 0; i < CALCULOS; i++) {
+                soma += completa.calcularCentavos(tipos[i], minutos[i], horas[i]);
+            }
+            return soma;
+        });
+        medir("Compilação da tarifa", () -> {
+            long soma = 0;
+            for (int i = 0; i < 256; i++) {
+                soma += Tarifa.compilar(1000 + i, regras).calcularCentavos(TipoVeiculo.CARRO, 60, 0);
+            }
+            return soma;
+        }, 256);
+        System.out.println("(resultado acumulado: " + Medicao.getSumidouro() + ")");
+    }
+
+    // Cálculo anterior à tarifa compilada, mantido aqui apenas como referência
+    private static double valorAntigo(TipoVeiculo tipo, LocalDateTime entrada, LocalDateTime saida, double valorHora) {
+        long minutos = Duration.between(entrada, saida).toMinutes();
+        long horasCobrar = (long) Math.ceil(minutos / 60.0);
+        if (horasCobrar == 0 && minutos > 0) {
+            horasCobrar = 1;
+        }
+        return horasCobrar * valorHora * tipo.getFator();
+    }
+
+    private static void medir(String nome, java.util.function.LongSupplier cenario) {
+        medir(nome, cenario, CALCULOS);
+    }
+
+    private static void medir(String nome, java.util.function.LongSupplier cenario, int operacoes) {
+        long melhor = Medicao.melhorNanos(cenario);
+        System.out.println(String.format("  %-30s %10.1f ns/op", nome, (double) melhor / operacoes));
+    }
+}
@@ -0,0 +1,149 @@
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache de relatórios já gerados, com política LRU e tamanho limitado.
+ * Cada entrada é identificada por (tipo de relatório, período, formato) e marcada
+ * com a versão de estado do estacionamento no momento em que foi gerada.
+ * Entradas de períodos históricos fechados continuam válidas até o cache ser limpo
+ * (o estacionamento o limpa ao restaurar outro estado);
+ * as demais são recalculadas assim que a versão do estado muda.
+ */
+public class CacheRelatorios {
+
+    /** Quantidade padrão de relatórios mantidos em memória. */
+    public static final int CAPACIDADE_PADRAO = 64;
+
+    private final int capacidade;
+    private final LinkedHashMap<Chave, Entrada> entradas;
+    private long acertos;
+    private long falhas;
+
+    /**
+     * Cria um cache com a capacidade padrão.
+     */
+    public CacheRelatorios() {
+        this(CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * Cria um cache com capacidade definida.
+     * @param capacidade Número máximo de relatórios mantidos.
+     * @throws IllegalArgumentException Se a capacidade não for positiva.
+     */
+    public CacheRelatorios(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser positiva.");
+        }
+        this.capacidade = capacidade;
+        // accessOrder = true transforma o LinkedHashMap em uma lista LRU
+        this.entradas = new LinkedHashMap<Chave, Entrada>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Entrada> maisAntiga) {
+                return size() > CacheRelatorios.this.capacidade;
+            }
+        };
+    }
+
+    /**
+     * Obtém um relatório do cache ou o gera caso não exista entrada válida.
+     *
+     * @param tipo Tipo do relatório (ex.: "GERAL", "AVANCADO").
+     * @param inicio Data inicial do período ou null para todo o histórico.
+     * @param fim Data final do período ou null para todo o histórico.
+     * @param formato Formato de saída (ex.: "TXT", "EXCEL").
+     * @param versaoAtual Versão atual do estado do estacionamento.
+     * @param periodoFechado Indica, no momento da geração, se o período já está encerrado.
+     * @param gerador Função que produz o conteúdo do relatório.
+     * @return O conteúdo do relatório.
+     */
+    public synchronized String obter(String tipo, LocalDate inicio, LocalDate fim, String formato,
+                                     long versaoAtual, BooleanSupplier periodoFechado, Supplier<String> gerador) {
+        Chave chave = new Chave(tipo, inicio, fim, formato);
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null && (entrada.periodoFechado || entrada.versao == versaoAtual)) {
+            acertos++;
+            return entrada.conteudo;
+        }
+
+        falhas++;
+        String conteudo = gerador.get();
+        entradas.put(chave, new Entrada(conteudo, versaoAtual, periodoFechado.getAsBoolean()));
+        return conteudo;
+    }
+
+    /**
+     * Remove todas as entradas do cache.
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    /**
+     * Obtém a quantidade de relatórios armazenados.
+     * @return Número de entradas.
+     */
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Obtém o número de consultas atendidas pelo cache.
+     * @return Total de acertos.
+     */
+    public synchronized long getAcertos() {
+        return acertos;
+    }
+
+    /**
+     * Obtém o número de consultas que precisaram gerar o relatório.
+     * @return Total de falhas.
+     */
+    public synchronized long getFalhas() {
+        return falhas;
+    }
+
+    private static final class Chave {
+        private final String tipo;
+        private final LocalDate inicio;
+        private final LocalDate fim;
+        private final String formato;
+
+        Chave(String tipo, LocalDate inicio, LocalDate fim, String formato) {
+            this.tipo = tipo;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.formato = formato;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave)) return false;
+            Chave outra = (Chave) o;
+            return Objects.equals(tipo, outra.tipo) && Objects.equals(inicio, outra.inicio)
+                    && Objects.equals(fim, outra.fim) && Objects.equals(formato, outra.formato);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tipo, inicio, fim, formato);
+        }
+    }
+
+    private static final class Entrada {
+        private final String conteudo;
+        private final long versao;
+        private final boolean periodoFechado;
+
+        Entrada(String conteudo, long versao, boolean periodoFechado) {
+            this.conteudo = conteudo;
+            this.versao = versao;
+            this.periodoFechado = periodoFechado;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Enumeração das categorias de vaga (porte do espaço ou reserva).
+ * Cada categoria tem sua própria lista de vagas livres no estacionamento; as regras de
+ * {@link AlocadorVagas.Regras} dizem em quais categorias cada tipo de veículo pode parar.
+ */
+public enum CategoriaVaga {
+    /** Vagas pequenas, para motocicletas */
+    MOTO("Moto"),
+    /** Vagas comuns, para carros de passeio */
+    CARRO("Carro"),
+    /** Vagas largas, para caminhões e veículos pesados */
+    CAMINHAO("Caminhão"),
+    /** Vagas reservadas (não são oferecidas a avulsos, salvo regra em contrário) */
+    VIP("VIP");
+
+    private final String descricao;
+
+    /**
+     * Construtor do enum.
+     * @param descricao Nome exibido na interface.
+     */
+    CategoriaVaga(String descricao) {
+        this.descricao = descricao;
+    }
+
+    /**
+     * Obtém o nome da categoria para exibição.
+     * @return A descrição.
+     */
+    public String getDescricao() {
+        return descricao;
+    }
+}
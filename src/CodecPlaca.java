@@ -0,0 +1,132 @@
+/**
+ * Validação e codificação de placas em um {@code long}.
+ *
+ * Aceita o padrão antigo (ABC1234) e o Mercosul (ABC1D23), sem diferenciar maiúsculas e
+ * ignorando espaços nas pontas. A validação é feita caractere a caractere, sem expressões
+ * regulares nem cópias da string. O código guarda os sete caracteres em maiúsculas, um por
+ * byte, do mais significativo ao menos significativo: dois códigos se comparam na mesma
+ * ordem que as placas e a conversão de volta é exata.
+ */
+public final class CodecPlaca {
+
+    /** Código devolvido para placas inválidas (nenhuma placa válida codifica para zero). */
+    public static final long INVALIDA = 0L;
+
+    /** Quantidade de caracteres de uma placa. */
+    public static final int TAMANHO = 7;
+
+    private CodecPlaca() {
+    }
+
+    /**
+     * Valida e codifica uma placa.
+     * @param placa Texto da placa (maiúsculas ou minúsculas, com ou sem espaços nas pontas).
+     * @return O código ou {@link #INVALIDA} se o texto não for uma placa válida.
+     */
+    public static long codificar(CharSequence placa) {
+        if (placa == null) {
+            return INVALIDA;
+        }
+        int inicio = 0;
+        int fim = placa.length();
+        while (inicio < fim && placa.charAt(inicio) <= ' ') inicio++;
+        while (fim > inicio && placa.charAt(fim - 1) <= ' ') fim--;
+        if (fim - inicio != TAMANHO) {
+            return INVALIDA;
+        }
+
+        long codigo = 0;
+        for (int i = 0; i < TAMANHO; i++) {
+            char c = placa.charAt(inicio + i);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            boolean letra = c >= 'A' && c <= 'Z';
+            boolean digito = c >= '0' && c <= '9';
+            // Posições 0-2: letras; 3, 5 e 6: dígitos; 4: dígito (antiga) ou letra (Mercosul)
+            boolean aceito = (i < 3) ? letra : (i == 4) ? (letra || digito) : digito;
+            if (!aceito) {
+                return INVALIDA;
+            }
+            codigo = (codigo << 8) | c;
+        }
+        return codigo;
+    }
+
+    /**
+     * Verifica se o texto é uma placa válida.
+     * @param placa Texto da placa.
+     * @return true se seguir o padrão antigo ou o Mercosul.
+     */
+    public static boolean isValida(CharSequence placa) {
+        return codificar(placa) != INVALIDA;
+    }
+
+    /**
+     * Verifica se um código corresponde a uma placa no padrão Mercosul.
+     * @param codigo Código válido.
+     * @return true para ABC1D23, false para ABC1234.
+     */
+    public static boolean isMercosul(long codigo) {
+        return caractere(codigo, 4) >= 'A';
+    }
+
+    /**
+     * Obtém um caractere da placa codificada.
+     * @param codigo Código válido.
+     * @param posicao Posição entre 0 e 6.
+     * @return O caractere em maiúscula.
+     */
+    public static char caractere(long codigo, int posicao) {
+        return (char) ((codigo >>> (8 * (TAMANHO - 1 - posicao))) & 0xFF);
+    }
+
+    /**
+     * Converte um código de volta na placa em maiúsculas.
+     * @param codigo Código válido.
+     * @return A placa.
+     * @throws IllegalArgumentException Se o código for {@link #INVALIDA}.
+     */
+    public static String decodificar(long codigo) {
+        if (codigo == INVALIDA) {
+            throw new IllegalArgumentException("Código de placa inválido.");
+        }
+        char[] placa = new char[TAMANHO];
+        for (int i = 0; i < TAMANHO; i++) {
+            placa[i] = caractere(codigo, i);
+        }
+        return new String(placa);
+    }
+
+    /**
+     * Escreve a placa de um código em um buffer, sem criar strings.
+     * @param sb Destino.
+     * @param codigo Código válido.
+     * @return O próprio buffer.
+     */
+    public static StringBuilder anexar(StringBuilder sb, long codigo) {
+        for (int i = 0; i < TAMANHO; i++) {
+            sb.append(caractere(codigo, i));
+        }
+        return sb;
+    }
+
+    /**
+     * Verifica se o texto já está na forma canônica do código (sem espaços, em maiúsculas),
+     * caso em que pode ser guardado sem conversão.
+     * @param placa Texto validado.
+     * @param codigo Código do texto.
+     * @return true se o texto for idêntico à placa decodificada.
+     */
+    static boolean isCanonica(CharSequence placa, long codigo) {
+        if (placa.length() != TAMANHO) {
+            return false;
+        }
+        for (int i = 0; i < TAMANHO; i++) {
+            if (placa.charAt(i) != caractere(codigo, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
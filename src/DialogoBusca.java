@@ -1,12 +1,12 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class DialogoBusca extends JDialog {
 
@@ -17,12 +17,28 @@ public class DialogoBusca extends JDialog {
     private JButton btnDetalhes;
     private JButton btnSaida;
 
+    // Espera após a última tecla antes de disparar a busca
+    private static final int ATRASO_BUSCA_MS = 250;
+    private static final String[] COLUNAS = {"Placa", "Modelo", "Cor", "Vaga", "Tempo Estacionado"};
+
+    // Uma única thread de busca compartilhada (o diálogo é reaproveitado entre aberturas)
+    private static final ExecutorService executorBusca = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "busca-veiculos");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Timer timerBusca;
+    private Future<?> buscaAtual;
+    private long geracaoBusca;
+
     public DialogoBusca(Frame parent, Estacionamento estacionamento) {
         super(parent, "Buscar Veículo", true);
         this.estacionamento = estacionamento;
 
         setSize(600, 400);
         setLocationRelativeTo(parent);
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
         setLayout(new BorderLayout());
 
         // Painel de Busca
@@ -32,15 +48,14 @@ public class DialogoBusca extends JDialog {
         txtBusca = new JTextField(20);
         JButton btnBuscar = new JButton("Buscar");
         
-        painelBusca.add(new JLabel("Placa:"));
+        painelBusca.add(new JLabel("Placa, modelo ou cor:"));
         painelBusca.add(txtBusca);
         painelBusca.add(btnBuscar);
 
         add(painelBusca, BorderLayout.NORTH);
 
         // Tabela de Resultados
-        String[] colunas = {"Placa", "Modelo", "Cor", "Vaga", "Tempo Estacionado"};
-        modeloTabela = new DefaultTableModel(colunas, 0) {
+        modeloTabela = new DefaultTableModel(COLUNAS, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -69,15 +84,31 @@ public class DialogoBusca extends JDialog {
 
         add(painelAcoes, BorderLayout.SOUTH);
 
-        // Listeners
-        txtBusca.addKeyListener(new KeyAdapter() {
+        // Busca: a digitação só reinicia o timer; a consulta roda fora da thread da interface
+        timerBusca = new Timer(ATRASO_BUSCA_MS, e -> filtrarResultados(txtBusca.getText()));
+        timerBusca.setRepeats(false);
+
+        txtBusca.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                timerBusca.restart();
+            }
+
             @Override
-            public void keyReleased(KeyEvent e) {
-                filtrarResultados(txtBusca.getText());
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                timerBusca.restart();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                timerBusca.restart();
             }
         });
 
-        btnBuscar.addActionListener(e -> filtrarResultados(txtBusca.getText()));
+        btnBuscar.addActionListener(e -> {
+            timerBusca.stop();
+            filtrarResultados(txtBusca.getText());
+        });
 
         tabelaResultados.getSelectionModel().addListSelectionListener(e -> {
             boolean selecionado = tabelaResultados.getSelectedRow() != -1;
@@ -97,47 +128,60 @@ public class DialogoBusca extends JDialog {
         btnDetalhes.addActionListener(e -> mostrarDetalhes());
         btnSaida.addActionListener(e -> registrarSaida());
         btnFechar.addActionListener(e -> dispose());
+    }
 
-        // Carrega todos os veículos inicialmente
+    @Override
+    public void dispose() {
+        timerBusca.stop();
+        if (buscaAtual != null) {
+            buscaAtual.cancel(true);
+        }
+        super.dispose();
+    }
+
+    /**
+     * Abre o diálogo com a lista atual de veículos. A mesma instância é reaproveitada a cada abertura.
+     */
+    public void exibir() {
+        txtBusca.setText("");
+        timerBusca.stop();
         filtrarResultados("");
+        setVisible(true);
     }
 
+    /**
+     * Dispara a busca em segundo plano. Uma busca ainda em andamento é cancelada e,
+     * se mesmo assim terminar, seu resultado é descartado pela geração.
+     */
     private void filtrarResultados(String termo) {
-        modeloTabela.setRowCount(0);
-        String termoBusca = termo.toUpperCase().trim();
-
-        List<Vaga> vagasOcupadas = estacionamento.getVagas().stream()
-            .filter(Vaga::isOcupada)
-            .collect(Collectors.toList());
-
-        for (Vaga vaga : vagasOcupadas) {
-            Veiculo v = vaga.getVeiculo();
-            if (termoBusca.isEmpty() || v.getPlaca().contains(termoBusca)) {
-                // Busca o ticket ativo para calcular o tempo
-                Ticket ticket = buscarTicketAtivo(v.getPlaca());
-                String tempo = (ticket != null) ? ticket.formatarDuracao() : "N/A";
-
-                Object[] linha = {
+        if (buscaAtual != null) {
+            buscaAtual.cancel(true);
+        }
+        final long geracao = ++geracaoBusca;
+        buscaAtual = executorBusca.submit(() -> {
+            List<IndiceVeiculos.Registro> encontrados = estacionamento.pesquisarVeiculos(termo);
+            Object[][] linhas = new Object[encontrados.size()][];
+            for (int i = 0; i < linhas.length; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                IndiceVeiculos.Registro r = encontrados.get(i);
+                Veiculo v = r.getVeiculo();
+                linhas[i] = new Object[]{
                     v.getPlaca(),
                     v.getModelo(),
                     v.getCor(),
-                    vaga.getNumero(),
-                    tempo
+                    r.getNumeroVaga(),
+                    r.getDuracao()
                 };
-                modeloTabela.addRow(linha);
             }
-        }
-    }
-
-    private Ticket buscarTicketAtivo(String placa) {
-        // Método auxiliar pois o Estacionamento.buscarTicketAtivo é privado
-        // Vamos iterar sobre os tickets do estacionamento
-        for (Ticket t : estacionamento.getTickets()) {
-            if (t.getVeiculo().getPlaca().equalsIgnoreCase(placa) && t.getHoraSaida() == null) {
-                return t;
-            }
-        }
-        return null;
+            SwingUtilities.invokeLater(() -> {
+                // Só o resultado da busca mais recente chega à tabela
+                if (geracao == geracaoBusca && isDisplayable()) {
+                    modeloTabela.setDataVector(linhas, COLUNAS);
+                }
+            });
+        });
     }
 
     private void mostrarDetalhes() {
@@ -160,7 +204,7 @@ public class DialogoBusca extends JDialog {
         if (row == -1) return;
 
         String placa = (String) modeloTabela.getValueAt(row, 0);
-        Ticket ticket = buscarTicketAtivo(placa);
+        Ticket ticket = estacionamento.buscarTicketAtivo(placa);
 
         if (ticket != null) {
             DialogoSaida dialogo = new DialogoSaida((Frame) getOwner(), ticket, estacionamento);
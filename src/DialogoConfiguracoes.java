@@ -8,6 +8,21 @@ public class DialogoConfiguracoes extends JDialog {
     private Estacionamento estacionamento;
     private JSpinner spinValorHora;
     private JSpinner spinQtdVagas;
+    private JSpinner spinTolerancia;
+    private JComboBox<Integer> comboFracao;
+    private JSpinner spinTetoDiario;
+    private JSpinner spinAdicionalNoturno;
+    private JSpinner spinAdicionalFimDeSemana;
+    private JSpinner spinVagasMoto;
+    private JSpinner spinVagasCaminhao;
+    private JSpinner spinVagasVip;
+    private JTextField[] txtOrdemAlocacao;
+    private int[] vagasPorCategoria;
+    private JComboBox<EstrategiaAlocacao> comboEstrategia;
+    private JSpinner spinVagaSaida;
+    private int vagaSaida;
+    private JSpinner spinMotosPorVaga;
+    private int motosPorVaga;
     private JCheckBox chkSons;
     private JCheckBox chkModoEscuro;
     private JCheckBox chkAutoUpdate;
@@ -17,11 +32,16 @@ public class DialogoConfiguracoes extends JDialog {
 
     private static final String CONFIG_FILE = "config.properties";
 
+    /** Cores padrão das vagas, usadas quando não há configuração salva. */
+    public static final Color COR_LIVRE_PADRAO = Color.GREEN;
+    public static final Color COR_OCUPADA_PADRAO = Color.RED;
+    public static final Color COR_VIP_PADRAO = Color.YELLOW;
+
     public DialogoConfiguracoes(Frame parent, Estacionamento estacionamento) {
         super(parent, "Configurações do Sistema", true);
         this.estacionamento = estacionamento;
 
-        setSize(500, 600);
+        setSize(500, 1040);
         setLocationRelativeTo(parent);
         setLayout(new BorderLayout());
 
@@ -39,19 +59,88 @@ public class DialogoConfiguracoes extends JDialog {
 
         panelNumeros.add(new JLabel("Quantidade de Vagas:"));
         // Nota: A alteração da quantidade de vagas geralmente requer reinicialização ou lógica complexa
-        spinQtdVagas = new JSpinner(new SpinnerNumberModel(estacionamento.getVagas().size(), 5, 100, 1));
+        spinQtdVagas = new JSpinner(new SpinnerNumberModel(estacionamento.getVagas().size(), 5, Estacionamento.MAX_VAGAS, 1));
         panelNumeros.add(spinQtdVagas);
 
         mainPanel.add(panelNumeros);
         mainPanel.add(Box.createVerticalStrut(20));
 
+        // --- Tarifa (aplicada na hora, sem reiniciar) ---
+        JPanel panelTarifa = new JPanel(new GridLayout(5, 2, 10, 10));
+        panelTarifa.setBorder(BorderFactory.createTitledBorder("Tarifa"));
+
+        panelTarifa.add(new JLabel("Tolerância (min):"));
+        spinTolerancia = new JSpinner(new SpinnerNumberModel(0, 0, 24 * 60, 1));
+        panelTarifa.add(spinTolerancia);
+
+        panelTarifa.add(new JLabel("Fração da 1ª hora (min):"));
+        comboFracao = new JComboBox<>(new Integer[]{5, 10, 15, 20, 30, 60});
+        panelTarifa.add(comboFracao);
+
+        panelTarifa.add(new JLabel("Teto diário (R$, 0 = sem):"));
+        spinTetoDiario = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 10000.0, 1.0));
+        panelTarifa.add(spinTetoDiario);
+
+        panelTarifa.add(new JLabel("Adicional noturno (%):"));
+        spinAdicionalNoturno = new JSpinner(new SpinnerNumberModel(0.0, -100.0, 500.0, 5.0));
+        panelTarifa.add(spinAdicionalNoturno);
+
+        panelTarifa.add(new JLabel("Adicional fim de semana (%):"));
+        spinAdicionalFimDeSemana = new JSpinner(new SpinnerNumberModel(0.0, -100.0, 500.0, 5.0));
+        panelTarifa.add(spinAdicionalFimDeSemana);
+
+        mainPanel.add(panelTarifa);
+        mainPanel.add(Box.createVerticalStrut(20));
+
+        // --- Vagas por categoria e ordem de alocação (aplicadas na hora) ---
+        TipoVeiculo[] tipos = TipoVeiculo.values();
+        JPanel panelCategorias = new JPanel(new GridLayout(6 + tipos.length, 2, 10, 10));
+        panelCategorias.setBorder(BorderFactory.createTitledBorder("Vagas por Categoria"));
+
+        int totalVagas = estacionamento.getVagas().size();
+        panelCategorias.add(new JLabel("Vagas de moto (últimas):"));
+        spinVagasMoto = new JSpinner(new SpinnerNumberModel(0, 0, totalVagas, 1));
+        panelCategorias.add(spinVagasMoto);
+
+        panelCategorias.add(new JLabel("Vagas de caminhão:"));
+        spinVagasCaminhao = new JSpinner(new SpinnerNumberModel(0, 0, totalVagas, 1));
+        panelCategorias.add(spinVagasCaminhao);
+
+        panelCategorias.add(new JLabel("Vagas VIP (primeiras):"));
+        spinVagasVip = new JSpinner(new SpinnerNumberModel(0, 0, totalVagas, 1));
+        panelCategorias.add(spinVagasVip);
+
+        txtOrdemAlocacao = new JTextField[tipos.length];
+        for (TipoVeiculo tipo : tipos) {
+            panelCategorias.add(new JLabel("Ordem para " + tipo + ":"));
+            txtOrdemAlocacao[tipo.ordinal()] = new JTextField();
+            txtOrdemAlocacao[tipo.ordinal()].setToolTipText("Categorias aceitas em ordem de preferência, ex.: MOTO, CARRO");
+            panelCategorias.add(txtOrdemAlocacao[tipo.ordinal()]);
+        }
+
+        panelCategorias.add(new JLabel("Motos por vaga de carro:"));
+        spinMotosPorVaga = new JSpinner(new SpinnerNumberModel(Vaga.CAPACIDADE_PADRAO, 1, Vaga.CAPACIDADE_MAXIMA, 1));
+        panelCategorias.add(spinMotosPorVaga);
+
+        panelCategorias.add(new JLabel("Escolha da vaga:"));
+        comboEstrategia = new JComboBox<>(EstrategiaAlocacao.values());
+        panelCategorias.add(comboEstrategia);
+
+        panelCategorias.add(new JLabel("Vaga junto à saída:"));
+        spinVagaSaida = new JSpinner(new SpinnerNumberModel(1, 1, totalVagas, 1));
+        spinVagaSaida.setToolTipText("Com \"Mais próxima da saída\", as vagas são oferecidas a partir desta");
+        panelCategorias.add(spinVagaSaida);
+
+        mainPanel.add(panelCategorias);
+        mainPanel.add(Box.createVerticalStrut(20));
+
         // --- Cores ---
         JPanel panelCores = new JPanel(new GridLayout(3, 2, 10, 10));
         panelCores.setBorder(BorderFactory.createTitledBorder("Personalização de Cores"));
 
-        btnCorLivre = createColorButton("Vaga Livre", Color.GREEN);
-        btnCorOcupada = createColorButton("Vaga Ocupada", Color.RED);
-        btnCorVip = createColorButton("Vaga VIP", Color.YELLOW);
+        btnCorLivre = createColorButton("Vaga Livre", COR_LIVRE_PADRAO);
+        btnCorOcupada = createColorButton("Vaga Ocupada", COR_OCUPADA_PADRAO);
+        btnCorVip = createColorButton("Vaga VIP", COR_VIP_PADRAO);
 
         panelCores.add(new JLabel("Vaga Livre:"));
         panelCores.add(btnCorLivre);
@@ -98,6 +187,14 @@ public class DialogoConfiguracoes extends JDialog {
         carregarConfiguracoes();
     }
 
+    /**
+     * Abre o diálogo com as configurações salvas. A mesma instância é reaproveitada a cada abertura.
+     */
+    public void exibir() {
+        carregarConfiguracoes();
+        setVisible(true);
+    }
+
     private JButton createColorButton(String label, Color initialColor) {
         JButton btn = new JButton("   ");
         btn.setBackground(initialColor);
@@ -126,8 +223,25 @@ public class DialogoConfiguracoes extends JDialog {
         props.setProperty("corOcupada", String.valueOf(btnCorOcupada.getBackground().getRGB()));
         props.setProperty("corVip", String.valueOf(btnCorVip.getBackground().getRGB()));
 
+        // Valida as categorias antes de gravar qualquer coisa
+        AlocadorVagas.Regras regrasAlocacao;
+        try {
+            regrasAlocacao = lerRegrasAlocacao();
+            aplicarCategorias();
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Vagas por Categoria", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
         // Atualiza o modelo em tempo real
         estacionamento.setValorHora((Double) spinValorHora.getValue());
+        estacionamento.setRegrasTarifa(lerTarifa());
+        estacionamento.setRegrasAlocacao(regrasAlocacao);
+        estacionamento.setEstrategiaAlocacao((EstrategiaAlocacao) comboEstrategia.getSelectedItem());
+        aplicarVagaSaida();
+        if ((Integer) spinMotosPorVaga.getValue() != motosPorVaga) {
+            estacionamento.setCapacidadeVagas(CategoriaVaga.CARRO, (Integer) spinMotosPorVaga.getValue());
+        }
 
         try (FileOutputStream out = new FileOutputStream(CONFIG_FILE)) {
             props.store(out, "Configurações do Sistema de Estacionamento");
@@ -142,8 +256,12 @@ public class DialogoConfiguracoes extends JDialog {
         File f = new File(CONFIG_FILE);
         if (!f.exists()) {
             restaurarPadroes();
+            preencherTarifa(estacionamento.getRegrasTarifa());
+            preencherCategorias(estacionamento.getRegrasAlocacao());
             return;
         }
+        preencherTarifa(estacionamento.getRegrasTarifa());
+        preencherCategorias(estacionamento.getRegrasAlocacao());
 
         try (FileInputStream in = new FileInputStream(f)) {
             Properties props = new Properties();
@@ -160,9 +278,9 @@ public class DialogoConfiguracoes extends JDialog {
                 chkModoEscuro.setSelected(Boolean.parseBoolean(props.getProperty("modoEscuro", "false")));
                 chkAutoUpdate.setSelected(Boolean.parseBoolean(props.getProperty("autoUpdate", "true")));
 
-                btnCorLivre.setBackground(new Color(Integer.parseInt(props.getProperty("corLivre", String.valueOf(Color.GREEN.getRGB())))));
-                btnCorOcupada.setBackground(new Color(Integer.parseInt(props.getProperty("corOcupada", String.valueOf(Color.RED.getRGB())))));
-                btnCorVip.setBackground(new Color(Integer.parseInt(props.getProperty("corVip", String.valueOf(Color.YELLOW.getRGB())))));
+                btnCorLivre.setBackground(lerCor(props, "corLivre", COR_LIVRE_PADRAO));
+                btnCorOcupada.setBackground(lerCor(props, "corOcupada", COR_OCUPADA_PADRAO));
+                btnCorVip.setBackground(lerCor(props, "corVip", COR_VIP_PADRAO));
 
             } catch (NumberFormatException e) {
                 // Ignora erros de conversão e mantém valores atuais/padrão
@@ -178,8 +296,126 @@ public class DialogoConfiguracoes extends JDialog {
         chkSons.setSelected(true);
         chkModoEscuro.setSelected(false);
         chkAutoUpdate.setSelected(true);
-        btnCorLivre.setBackground(Color.GREEN);
-        btnCorOcupada.setBackground(Color.RED);
-        btnCorVip.setBackground(Color.YELLOW);
+        btnCorLivre.setBackground(COR_LIVRE_PADRAO);
+        btnCorOcupada.setBackground(COR_OCUPADA_PADRAO);
+        btnCorVip.setBackground(COR_VIP_PADRAO);
+        preencherTarifa(new Tarifa.Regras());
+        preencherCategorias(new AlocadorVagas.Regras());
+    }
+
+    // As quantidades vêm sempre do pátio atual; "Restaurar Padrões" só mexe na ordem de alocação
+    private void preencherCategorias(AlocadorVagas.Regras regras) {
+        vagasPorCategoria = new int[CategoriaVaga.values().length];
+        for (CategoriaVaga c : CategoriaVaga.values()) {
+            vagasPorCategoria[c.ordinal()] = estacionamento.contarVagas(c);
+        }
+        spinVagasMoto.setValue(vagasPorCategoria[CategoriaVaga.MOTO.ordinal()]);
+        spinVagasCaminhao.setValue(vagasPorCategoria[CategoriaVaga.CAMINHAO.ordinal()]);
+        spinVagasVip.setValue(vagasPorCategoria[CategoriaVaga.VIP.ordinal()]);
+        for (TipoVeiculo tipo : TipoVeiculo.values()) {
+            txtOrdemAlocacao[tipo.ordinal()].setText(AlocadorVagas.Regras.formatar(regras.getOrdem(tipo)));
+        }
+        comboEstrategia.setSelectedItem(estacionamento.getEstrategiaAlocacao());
+        // A vaga de menor distância indica onde a saída foi posicionada
+        vagaSaida = 1;
+        int menor = Integer.MAX_VALUE;
+        for (Vaga v : estacionamento.getVagas()) {
+            if (v.getDistancia() < menor) {
+                menor = v.getDistancia();
+                vagaSaida = v.getNumero();
+            }
+        }
+        spinVagaSaida.setValue(vagaSaida);
+        motosPorVaga = Vaga.CAPACIDADE_PADRAO;
+        for (Vaga v : estacionamento.getVagas()) {
+            if (v.getCategoria() == CategoriaVaga.CARRO) {
+                motosPorVaga = v.getCapacidade();
+                break;
+            }
+        }
+        spinMotosPorVaga.setValue(motosPorVaga);
+    }
+
+    // Distância de cada vaga = quantas vagas a separam da saída, na ordem de número
+    private void aplicarVagaSaida() {
+        int saida = (Integer) spinVagaSaida.getValue();
+        if (saida != vagaSaida) {
+            int[] distancias = new int[estacionamento.getVagas().size()];
+            for (int i = 0; i < distancias.length; i++) {
+                distancias[i] = Math.abs(i + 1 - saida);
+            }
+            estacionamento.setDistanciasVagas(distancias);
+        }
+    }
+
+    private AlocadorVagas.Regras lerRegrasAlocacao() {
+        AlocadorVagas.Regras regras = new AlocadorVagas.Regras();
+        for (TipoVeiculo tipo : TipoVeiculo.values()) {
+            regras.setOrdem(tipo, AlocadorVagas.Regras.interpretar(txtOrdemAlocacao[tipo.ordinal()].getText()));
+        }
+        return regras;
+    }
+
+    // Redistribui só se as quantidades mudaram, preservando vagas VIP marcadas uma a uma
+    private void aplicarCategorias() {
+        int motos = (Integer) spinVagasMoto.getValue();
+        int caminhoes = (Integer) spinVagasCaminhao.getValue();
+        int vips = (Integer) spinVagasVip.getValue();
+        if (motos != vagasPorCategoria[CategoriaVaga.MOTO.ordinal()]
+                || caminhoes != vagasPorCategoria[CategoriaVaga.CAMINHAO.ordinal()]
+                || vips != vagasPorCategoria[CategoriaVaga.VIP.ordinal()]) {
+            estacionamento.distribuirCategorias(vips, caminhoes, motos);
+        }
+    }
+
+    private void preencherTarifa(Tarifa.Regras regras) {
+        spinTolerancia.setValue(regras.getToleranciaMinutos());
+        comboFracao.setSelectedItem(regras.getFracaoPrimeiraHoraMinutos());
+        spinTetoDiario.setValue(Dinheiro.paraReais(regras.getTetoDiarioCentavos()));
+        spinAdicionalNoturno.setValue(regras.getAdicionalNoturno());
+        spinAdicionalFimDeSemana.setValue(regras.getAdicionalFimDeSemana());
+    }
+
+    // Parte das regras atuais para preservar o que não é editado aqui (horário noturno)
+    private Tarifa.Regras lerTarifa() {
+        Tarifa.Regras regras = estacionamento.getRegrasTarifa();
+        regras.setToleranciaMinutos((Integer) spinTolerancia.getValue());
+        regras.setFracaoPrimeiraHoraMinutos((Integer) comboFracao.getSelectedItem());
+        regras.setTetoDiarioCentavos(Dinheiro.deReais((Double) spinTetoDiario.getValue()));
+        regras.setAdicionalNoturno((Double) spinAdicionalNoturno.getValue());
+        regras.setAdicionalFimDeSemana((Double) spinAdicionalFimDeSemana.getValue());
+        return regras;
+    }
+
+    /**
+     * Lê o arquivo de configurações salvo.
+     * @return As propriedades salvas ou um conjunto vazio se o arquivo não existir ou for ilegível.
+     */
+    public static Properties lerConfiguracoes() {
+        Properties props = new Properties();
+        File f = new File(CONFIG_FILE);
+        if (f.exists()) {
+            try (FileInputStream in = new FileInputStream(f)) {
+                props.load(in);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return props;
+    }
+
+    /**
+     * Lê uma cor salva nas configurações.
+     * @param props Propriedades carregadas.
+     * @param chave Nome da propriedade (ex.: "corLivre").
+     * @param padrao Cor usada se a propriedade não existir ou for inválida.
+     * @return A cor configurada.
+     */
+    public static Color lerCor(Properties props, String chave, Color padrao) {
+        try {
+            return new Color(Integer.parseInt(props.getProperty(chave, String.valueOf(padrao.getRGB()))));
+        } catch (NumberFormatException e) {
+            return padrao;
+        }
     }
 }
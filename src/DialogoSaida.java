@@ -1,16 +1,13 @@
 import javax.swing.*;
 import java.awt.*;
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
-public class DialogoSaida extends JDialog {
+public class DialogoSaida extends JDialog implements RelogioCentral.Assinante {
 
     private Ticket ticket;
     private Estacionamento estacionamento;
     private JLabel lblTempo;
     private JLabel lblValor;
-    private Timer timer;
     private boolean confirmado;
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
@@ -75,12 +72,15 @@ public class DialogoSaida extends JDialog {
 
         add(painelBotoes, BorderLayout.SOUTH);
 
-        // Timer para atualizar tempo e valor a cada segundo
-        timer = new Timer(1000, e -> atualizarValores());
-        timer.start();
-        
-        // Atualização inicial imediata
-        atualizarValores();
+        // Tempo e valor ao vivo vêm do relógio compartilhado (o primeiro aviso é imediato)
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        RelogioCentral.getInstancia().inscrever(this, ticket, estacionamento);
+    }
+
+    @Override
+    public void dispose() {
+        RelogioCentral.getInstancia().cancelar(this);
+        super.dispose();
     }
 
     private void adicionarSecao(JPanel painel, String titulo, String valor) {
@@ -103,33 +103,10 @@ public class DialogoSaida extends JDialog {
         painel.add(Box.createRigidArea(new Dimension(0, 15)));
     }
 
-    private void atualizarValores() {
-        // Simula o cálculo sem fechar o ticket
-        Duration duracao = Duration.between(ticket.getHoraEntrada(), LocalDateTime.now());
-        long totalMinutos = duracao.toMinutes();
-        long horas = totalMinutos / 60;
-        long minutos = totalMinutos % 60;
-        
-        lblTempo.setText(String.format("%d horas e %d minutos", horas, minutos));
-
-        // Cálculo estimado (duplicando lógica do Ticket para visualização)
-        long horasCobrar = (long) Math.ceil(totalMinutos / 60.0);
-        if (horasCobrar == 0 && totalMinutos > 0) horasCobrar = 1;
-        
-        double valorBase = horasCobrar * estacionamento.getValorHora();
-        if (ticket.getVeiculo().getTipo() != null) {
-            valorBase *= ticket.getVeiculo().getTipo().getFator();
-        }
-        
-        // Como o desconto é aplicado no ticket apenas ao fechar ou via método específico,
-        // aqui teríamos que saber se já foi aplicado. 
-        // O método aplicarDesconto do Estacionamento altera o estado interno do ticket se implementado assim.
-        // Vamos assumir que o ticket tem um método getDesconto() ou similar, mas na classe Ticket original
-        // o desconto é privado e usado apenas no calcularValor.
-        // Para simplificar a visualização, mostramos o valor base.
-        // Se o desconto for aplicado, ele será refletido no valor final ao confirmar.
-        
-        lblValor.setText(String.format("R$ %.2f", valorBase));
+    @Override
+    public void tempoAtualizado(Ticket ticket, long minutosDecorridos, long valorEstimadoCentavos) {
+        lblTempo.setText(String.format("%d horas e %d minutos", minutosDecorridos / 60, minutosDecorridos % 60));
+        lblValor.setText(Dinheiro.formatar(valorEstimadoCentavos));
     }
 
     private void aplicarDesconto() {
@@ -141,12 +118,12 @@ public class DialogoSaida extends JDialog {
                     throw new NumberFormatException();
                 }
                 
-                // Aplica no ticket
-                ticket.aplicarDesconto(percentual);
+                // Aplica no ticket pelo estacionamento (invalida relatórios em cache)
+                estacionamento.aplicarDesconto(ticket.getVeiculo().getPlaca(), percentual);
                 JOptionPane.showMessageDialog(this, "Desconto de " + percentual + "% aplicado!");
                 
-                // Força atualização visual (embora o cálculo exato dependa do fechar ticket)
-                atualizarValores();
+                // O valor estimado já considera o desconto
+                RelogioCentral.getInstancia().recalcular(this);
                 
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Valor inválido.", "Erro", JOptionPane.ERROR_MESSAGE);
@@ -157,8 +134,6 @@ public class DialogoSaida extends JDialog {
     }
 
     private void confirmarSaida() {
-        timer.stop();
-        
         // O processamento real da saída é feito pelo Estacionamento
         // Aqui apenas confirmamos a intenção
         this.confirmado = true;
@@ -169,7 +144,6 @@ public class DialogoSaida extends JDialog {
     }
 
     private void cancelar() {
-        timer.stop();
         this.confirmado = false;
         dispose();
     }
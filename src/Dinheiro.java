@@ -0,0 +1,107 @@
+/**
+ * Valores monetários representados como centavos em um {@code long}.
+ *
+ * Somas em centavos são exatas (sem o acúmulo de erro de {@code double}) e não exigem
+ * objetos. A formatação escreve os dígitos diretamente, sem {@code String.format}; a
+ * variante com {@link StringBuilder} não cria objetos além do próprio buffer.
+ */
+public final class Dinheiro {
+
+    private Dinheiro() {
+    }
+
+    /**
+     * Converte reais em centavos, arredondando para o centavo mais próximo.
+     * @param reais Valor em reais.
+     * @return Valor em centavos.
+     */
+    public static long deReais(double reais) {
+        return Math.round(reais * 100);
+    }
+
+    /**
+     * Converte centavos em reais (apenas para exibição ou estatísticas aproximadas).
+     * @param centavos Valor em centavos.
+     * @return Valor em reais.
+     */
+    public static double paraReais(long centavos) {
+        return centavos / 100.0;
+    }
+
+    /**
+     * Aplica um desconto percentual, arredondando o desconto para o centavo mais próximo.
+     * @param centavos Valor original.
+     * @param percentual Desconto entre 0 e 100 (aceita até duas casas decimais).
+     * @return Valor com desconto.
+     */
+    public static long aplicarDesconto(long centavos, double percentual) {
+        long centesimos = Math.round(percentual * 100);
+        return centavos - (centavos * centesimos + 5_000) / 10_000;
+    }
+
+    /**
+     * Formata no padrão brasileiro, ex.: "R$ 1.234,56".
+     * @param centavos Valor em centavos.
+     * @return Texto formatado.
+     */
+    public static String formatar(long centavos) {
+        return formatar(new StringBuilder(24), centavos).toString();
+    }
+
+    /**
+     * Acrescenta o valor no padrão brasileiro, ex.: "R$ 1.234,56".
+     * @param destino Buffer de saída.
+     * @param centavos Valor em centavos.
+     * @return O próprio buffer.
+     */
+    public static StringBuilder formatar(StringBuilder destino, long centavos) {
+        if (centavos < 0) {
+            destino.append('-');
+        }
+        destino.append("R$ ");
+        return escrever(destino, centavos, ',', '.');
+    }
+
+    /**
+     * Formata sem símbolo nem separador de milhar, para arquivos (ex.: "1234,56" em CSV).
+     * @param centavos Valor em centavos.
+     * @param separadorDecimal Separador das casas decimais ('.' ou ',').
+     * @return Texto formatado.
+     */
+    public static String formatarDecimal(long centavos, char separadorDecimal) {
+        StringBuilder sb = new StringBuilder(21);
+        if (centavos < 0) {
+            sb.append('-');
+        }
+        return escrever(sb, centavos, separadorDecimal, (char) 0).toString();
+    }
+
+    // Escreve o valor absoluto; separadorMilhar 0 omite o agrupamento
+    private static StringBuilder escrever(StringBuilder destino, long centavos, char separadorDecimal, char separadorMilhar) {
+        // Divide antes do valor absoluto: Long.MIN_VALUE não tem valor absoluto em long
+        long inteiro = Math.abs(centavos / 100);
+        int fracao = (int) Math.abs(centavos % 100);
+
+        int inicio = destino.length();
+        int digitos = 0;
+        do {
+            if (separadorMilhar != 0 && digitos > 0 && digitos % 3 == 0) {
+                destino.append(separadorMilhar);
+            }
+            destino.append((char) ('0' + inteiro % 10));
+            inteiro /= 10;
+            digitos++;
+        } while (inteiro != 0);
+        // Os dígitos foram escritos do menos para o mais significativo
+        for (int i = inicio, j = destino.length() - 1; i < j; i++, j--) {
+            char c = destino.charAt(i);
+            destino.setCharAt(i, destino.charAt(j));
+            destino.setCharAt(j, c);
+        }
+
+        destino.append(separadorDecimal);
+        destino.append((char) ('0' + fracao / 10));
+        destino.append((char) ('0' + fracao % 10));
+        return destino;
+    }
+}
@@ -1,26 +1,65 @@
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Classe principal que gerencia o estacionamento.
  * Controla vagas, tickets, entradas, saídas e relatórios.
  */
 public class Estacionamento {
+    /** Quantidade máxima de vagas suportada. */
+    public static final int MAX_VAGAS = 10000;
+
     private String nome;
     private ArrayList<Vaga> vagas;
     private ArrayList<Ticket> tickets;
-    private double valorHora;
+    private long valorHoraCentavos;
+    // Legado: snapshots antigos gravavam o valor da hora em reais; convertido na primeira leitura
+    private Double valorHora;
     private int proximoIdTicket;
+    private EstatisticasQuantis estatisticasQuantis;
+    private EstatisticasVisitantes estatisticasVisitantes;
+    private SerieOcupacao serieOcupacao;
+    private Tarifa.Regras regrasTarifa;
+    private RegistroVeiculos registroVeiculos;
+    private AlocadorVagas.Regras regrasAlocacao;
+    private EstrategiaAlocacao estrategiaAlocacao;
+
+    // Estado derivado: não é persistido e é recriado sob demanda após o carregamento
+    // Lida sem trava pelas threads de relatório; incrementada sob a trava do estacionamento
+    private transient volatile long versaoEstado;
+    private transient CacheRelatorios cacheRelatorios;
+    private transient ArrayList<Ticket> ticketsPorSaida;
+    private transient long ultimaSequenciaFechamento;
+    // Espelho colunar dos tickets fechados para as agregações (os objetos continuam em tickets)
+    private transient ArmazemTickets armazemFechados;
+    private transient CopyOnWriteArrayList<OuvinteEstacionamento> ouvintes;
+    private transient IndiceVeiculos indiceVeiculos;
+    private transient AlocadorVagas alocador;
+    private transient boolean contadoresValidos;
+    private transient int totalOcupadas;
+    private transient int totalVipLivres;
+    private transient int totalUnidades;
+    private transient int totalUnidadesLivres;
+    private transient long totalArrecadadoCentavos;
+    // Tarifa compilada em uso; trocada por inteiro (leitores nunca veem uma tabela pela metade)
+    private transient volatile Tarifa tarifa;
+    private transient volatile Relogio relogio;
+    private transient volatile Consumer<String> avisos;
 
     /**
      * Construtor da classe Estacionamento.
      * Inicializa as vagas e listas de controle.
      * 
      * @param nome Nome do estacionamento.
-     * @param quantidadeVagas Número total de vagas (1 a 100).
+     * @param quantidadeVagas Número total de vagas (1 a {@value #MAX_VAGAS}).
      * @param valorHora Valor cobrado por hora.
      * @throws IllegalArgumentException Se os parâmetros forem inválidos.
      */
@@ -28,8 +67,8 @@ public class Estacionamento {
         if (nome == null || nome.trim().isEmpty()) {
             throw new IllegalArgumentException("Nome do estacionamento não pode ser nulo ou vazio.");
         }
-        if (quantidadeVagas <= 0 || quantidadeVagas > 100) {
-            throw new IllegalArgumentException("A quantidade de vagas deve ser entre 1 e 100.");
+        if (quantidadeVagas <= 0 || quantidadeVagas > MAX_VAGAS) {
+            throw new IllegalArgumentException("A quantidade de vagas deve ser entre 1 e " + MAX_VAGAS + ".");
         }
         if (valorHora < 0) {
             throw new IllegalArgumentException("O valor por hora não pode ser negativo.");
@@ -41,43 +80,362 @@ public class Estacionamento {
             this.vagas.add(new Vaga(i));
         }
         this.tickets = new ArrayList<>();
-        this.valorHora = valorHora;
+        this.valorHoraCentavos = Dinheiro.deReais(valorHora);
         this.proximoIdTicket = 1;
+        this.estatisticasQuantis = new EstatisticasQuantis();
+        this.estatisticasVisitantes = new EstatisticasVisitantes();
+        this.serieOcupacao = new SerieOcupacao();
+        this.regrasTarifa = new Tarifa.Regras();
+        this.regrasAlocacao = new AlocadorVagas.Regras();
+        this.estrategiaAlocacao = EstrategiaAlocacao.PRIMEIRA_LIVRE;
     }
 
     /**
-     * Calcula a quantidade de vagas livres no momento.
+     * Obtém a quantidade de vagas livres no momento.
+     * Os contadores são mantidos a cada entrada, saída e reserva (custo constante).
      * @return Número de vagas livres.
      */
-    public int getVagasLivres() {
-        int livre = 0;
-        for (Vaga v : vagas) {
-            if (!v.isOcupada()) {
-                livre++;
-            }
-        }
-        return livre;
+    public synchronized int getVagasLivres() {
+        garantirContadores();
+        return vagas.size() - totalOcupadas;
     }
 
     /**
-     * Calcula a quantidade de vagas ocupadas no momento.
+     * Obtém a quantidade de vagas ocupadas no momento.
      * @return Número de vagas ocupadas.
      */
-    public int getVagasOcupadas() {
-        return vagas.size() - getVagasLivres();
+    public synchronized int getVagasOcupadas() {
+        garantirContadores();
+        return totalOcupadas;
+    }
+
+    /**
+     * Obtém a capacidade total em unidades (uma moto ocupa uma unidade).
+     * @return Soma das capacidades das vagas.
+     */
+    public synchronized int getUnidadesTotais() {
+        garantirContadores();
+        return totalUnidades;
+    }
+
+    /**
+     * Obtém as unidades livres no momento: a capacidade das vagas vazias mais o espaço
+     * restante nas vagas divididas por motos. Mantido como os demais contadores.
+     * @return Unidades livres.
+     */
+    public synchronized int getUnidadesLivres() {
+        garantirContadores();
+        return totalUnidadesLivres;
+    }
+
+    /**
+     * Obtém a quantidade de vagas VIP livres no momento.
+     * @return Número de vagas VIP livres.
+     */
+    public synchronized int getVagasVipLivres() {
+        garantirContadores();
+        return totalVipLivres;
+    }
+
+    /**
+     * Obtém o total arrecadado com os tickets fechados.
+     * Mantido a cada saída, sem percorrer os tickets.
+     * @return Soma exata dos valores pagos, em centavos.
+     */
+    public synchronized long getTotalArrecadadoCentavos() {
+        garantirContadores();
+        return totalArrecadadoCentavos;
+    }
+
+    private void garantirContadores() {
+        if (contadoresValidos) {
+            return;
+        }
+        // Recontagem completa só após um carregamento (campos transientes não são persistidos)
+        totalOcupadas = 0;
+        totalVipLivres = 0;
+        totalUnidades = 0;
+        totalUnidadesLivres = 0;
+        for (Vaga v : vagas) {
+            contabilizar(v, 1);
+        }
+        totalArrecadadoCentavos = getArmazemFechados().somarCentavos(Long.MIN_VALUE, Long.MAX_VALUE);
+        contadoresValidos = true;
+    }
+
+    // Soma (sinal 1) ou retira (sinal -1) a contribuição de uma vaga nos contadores
+    private synchronized void contabilizar(Vaga vaga, int sinal) {
+        totalUnidades += sinal * vaga.getCapacidade();
+        totalUnidadesLivres += sinal * vaga.getUnidadesLivres();
+        if (vaga.isOcupada()) {
+            totalOcupadas += sinal;
+        } else if (vaga.isVip()) {
+            totalVipLivres += sinal;
+        }
+    }
+
+    // Sem contadores válidos a recontagem futura já incluirá o ticket
+    private synchronized void contabilizarArrecadacao(Ticket ticket) {
+        if (contadoresValidos) {
+            totalArrecadadoCentavos += ticket.getValorPagoCentavos();
+        }
+    }
+
+    private synchronized void alterarVaga(Vaga vaga, Runnable alteracao) {
+        garantirContadores();
+        AlocadorVagas livres = getAlocador();
+        contabilizar(vaga, -1);
+        livres.retirar(vaga);
+        alteracao.run();
+        livres.devolver(vaga);
+        contabilizar(vaga, 1);
+    }
+
+    // Listas de vagas livres por categoria; reconstruídas após um carregamento
+    private synchronized AlocadorVagas getAlocador() {
+        if (alocador == null) {
+            alocador = new AlocadorVagas(vagas, getEstrategiaAlocacao());
+        }
+        return alocador;
     }
 
     /**
-     * Busca a primeira vaga livre disponível.
+     * Busca uma vaga livre para um carro.
      * @return Objeto Vaga livre ou null se estiver lotado.
      */
     public Vaga buscarVagaLivre() {
-        for (Vaga v : vagas) {
-            if (!v.isOcupada()) {
-                return v;
+        return buscarVagaLivre(TipoVeiculo.CARRO);
+    }
+
+    /**
+     * Busca uma vaga livre para o tipo de veículo, seguindo as regras de alocação
+     * (categorias aceitas em ordem de preferência) e a estratégia de escolha dentro de cada
+     * categoria. Custo constante.
+     * @param tipo Tipo do veículo.
+     * @return Objeto Vaga livre ou null se não houver vaga em nenhuma categoria aceita.
+     */
+    public synchronized Vaga buscarVagaLivre(TipoVeiculo tipo) {
+        return getAlocador().buscar(tipo, getRegrasAlocacaoInterno());
+    }
+
+    /**
+     * Obtém a quantidade de vagas livres de uma categoria.
+     * @param categoria A categoria.
+     * @return Vagas livres da categoria.
+     */
+    public synchronized int getVagasLivres(CategoriaVaga categoria) {
+        return getAlocador().getLivres(categoria);
+    }
+
+    /**
+     * Obtém as regras de alocação de vagas por tipo de veículo.
+     * @return Cópia das regras em uso.
+     */
+    public synchronized AlocadorVagas.Regras getRegrasAlocacao() {
+        return new AlocadorVagas.Regras(getRegrasAlocacaoInterno());
+    }
+
+    /**
+     * Troca as regras de alocação; valem para as próximas entradas.
+     * @param regras Novas regras.
+     */
+    public void setRegrasAlocacao(AlocadorVagas.Regras regras) {
+        synchronized (this) {
+            this.regrasAlocacao = new AlocadorVagas.Regras(regras);
+        }
+        registrarMutacao();
+    }
+
+    /**
+     * Obtém a estratégia de escolha da vaga dentro de cada categoria.
+     * @return A estratégia em uso.
+     */
+    public synchronized EstrategiaAlocacao getEstrategiaAlocacao() {
+        // Snapshots antigos não têm estratégia
+        if (estrategiaAlocacao == null) {
+            estrategiaAlocacao = EstrategiaAlocacao.PRIMEIRA_LIVRE;
+        }
+        return estrategiaAlocacao;
+    }
+
+    /**
+     * Troca a estratégia de escolha da vaga; vale para as próximas entradas.
+     * @param estrategia Nova estratégia.
+     * @throws IllegalArgumentException Se a estratégia for nula.
+     */
+    public void setEstrategiaAlocacao(EstrategiaAlocacao estrategia) {
+        if (estrategia == null) {
+            throw new IllegalArgumentException("A estratégia de alocação é obrigatória.");
+        }
+        synchronized (this) {
+            if (estrategia == getEstrategiaAlocacao()) return;
+            this.estrategiaAlocacao = estrategia;
+            this.alocador = null;
+        }
+        registrarMutacao();
+    }
+
+    /**
+     * Define a distância de uma vaga até a saída (ou elevador).
+     * @param numero Número da vaga.
+     * @param distancia Distância não negativa.
+     * @return true se sucesso, false se número inválido.
+     * @throws IllegalArgumentException Se a distância for negativa.
+     */
+    public boolean setDistanciaVaga(int numero, int distancia) {
+        if (numero < 1 || numero > vagas.size()) return false;
+        if (distancia < 0) {
+            throw new IllegalArgumentException("A distância da vaga não pode ser negativa.");
+        }
+        Vaga vaga = vagas.get(numero - 1);
+        alterarVaga(vaga, () -> vaga.setDistancia(distancia));
+        registrarMutacao();
+        return true;
+    }
+
+    /**
+     * Define as distâncias de todas as vagas até a saída (ou elevador) de uma vez.
+     * @param distancias Distância de cada vaga, na ordem de número.
+     * @throws IllegalArgumentException Se o tamanho não corresponder ao total de vagas ou houver distância negativa.
+     */
+    public void setDistanciasVagas(int[] distancias) {
+        if (distancias == null || distancias.length != vagas.size()) {
+            throw new IllegalArgumentException("Informe uma distância para cada uma das " + vagas.size() + " vagas.");
+        }
+        for (int d : distancias) {
+            if (d < 0) {
+                throw new IllegalArgumentException("A distância da vaga não pode ser negativa.");
+            }
+        }
+        synchronized (this) {
+            for (int i = 0; i < distancias.length; i++) {
+                vagas.get(i).setDistancia(distancias[i]);
+            }
+            // Reconstruir os heaps de uma vez sai mais barato que reposicionar vaga a vaga
+            alocador = null;
+        }
+        registrarMutacao();
+    }
+
+    // Snapshots antigos não têm regras de alocação
+    private AlocadorVagas.Regras getRegrasAlocacaoInterno() {
+        if (regrasAlocacao == null) {
+            regrasAlocacao = new AlocadorVagas.Regras();
+        }
+        return regrasAlocacao;
+    }
+
+    /**
+     * Define a categoria de uma vaga. Um veículo já estacionado permanece nela.
+     * @param numero Número da vaga.
+     * @param categoria Nova categoria.
+     * @return true se sucesso, false se número inválido.
+     * @throws IllegalArgumentException Se a categoria for nula.
+     */
+    public boolean setCategoriaVaga(int numero, CategoriaVaga categoria) {
+        if (numero < 1 || numero > vagas.size()) return false;
+        if (categoria == null) {
+            throw new IllegalArgumentException("A categoria da vaga é obrigatória.");
+        }
+        Vaga vaga = vagas.get(numero - 1);
+        if (vaga.getCategoria() != categoria) {
+            alterarVaga(vaga, () -> vaga.setCategoria(categoria));
+            notificarVaga(vaga);
+            registrarMutacao();
+        }
+        return true;
+    }
+
+    /**
+     * Define a capacidade de uma vaga em unidades (quantas motos ela comporta).
+     * @param numero Número da vaga.
+     * @param unidades Capacidade entre 1 e {@link Vaga#CAPACIDADE_MAXIMA}.
+     * @return true se sucesso, false se número inválido.
+     * @throws IllegalArgumentException Se a capacidade estiver fora do intervalo.
+     */
+    public boolean setCapacidadeVaga(int numero, int unidades) {
+        if (numero < 1 || numero > vagas.size()) return false;
+        if (unidades < 1 || unidades > Vaga.CAPACIDADE_MAXIMA) {
+            throw new IllegalArgumentException("A capacidade da vaga deve ficar entre 1 e " + Vaga.CAPACIDADE_MAXIMA + " unidades.");
+        }
+        Vaga vaga = vagas.get(numero - 1);
+        alterarVaga(vaga, () -> vaga.setCapacidade(unidades));
+        notificarVaga(vaga);
+        registrarMutacao();
+        return true;
+    }
+
+    /**
+     * Define a capacidade de todas as vagas de uma categoria.
+     * @param categoria A categoria.
+     * @param unidades Capacidade entre 1 e {@link Vaga#CAPACIDADE_MAXIMA}.
+     * @throws IllegalArgumentException Se a capacidade estiver fora do intervalo.
+     */
+    public void setCapacidadeVagas(CategoriaVaga categoria, int unidades) {
+        if (unidades < 1 || unidades > Vaga.CAPACIDADE_MAXIMA) {
+            throw new IllegalArgumentException("A capacidade da vaga deve ficar entre 1 e " + Vaga.CAPACIDADE_MAXIMA + " unidades.");
+        }
+        for (Vaga vaga : vagas) {
+            if (vaga.getCategoria() == categoria && vaga.getCapacidade() != unidades) {
+                setCapacidadeVaga(vaga.getNumero(), unidades);
+            }
+        }
+    }
+
+    /**
+     * Redistribui as categorias das vagas: VIP nas primeiras, moto nas últimas, caminhão
+     * logo antes das de moto e carro no restante.
+     * @param vips Quantidade de vagas VIP.
+     * @param caminhoes Quantidade de vagas de caminhão.
+     * @param motos Quantidade de vagas de moto.
+     * @throws IllegalArgumentException Se alguma quantidade for negativa ou a soma exceder o total de vagas.
+     */
+    public void distribuirCategorias(int vips, int caminhoes, int motos) {
+        synchronized (this) {
+            int total = vagas.size();
+            if (vips < 0 || caminhoes < 0 || motos < 0 || vips + caminhoes + motos > total) {
+                throw new IllegalArgumentException("As quantidades por categoria devem somar no máximo " + total + " vagas.");
             }
+            garantirContadores();
+            boolean alterada = false;
+            for (int numero = 1; numero <= total; numero++) {
+                CategoriaVaga categoria;
+                if (numero <= vips) {
+                    categoria = CategoriaVaga.VIP;
+                } else if (numero > total - motos) {
+                    categoria = CategoriaVaga.MOTO;
+                } else if (numero > total - motos - caminhoes) {
+                    categoria = CategoriaVaga.CAMINHAO;
+                } else {
+                    categoria = CategoriaVaga.CARRO;
+                }
+                Vaga vaga = vagas.get(numero - 1);
+                if (vaga.getCategoria() != categoria) {
+                    contabilizar(vaga, -1);
+                    vaga.setCategoria(categoria);
+                    contabilizar(vaga, 1);
+                    alterada = true;
+                }
+            }
+            if (!alterada) return;
+            // Reconstruir os heaps de uma vez sai mais barato que reposicionar vaga a vaga
+            alocador = null;
+        }
+        // Uma única notificação: o mapa de vagas se sincroniza por diferença (atualizarVagas)
+        registrarMutacao();
+    }
+
+    /**
+     * Conta as vagas de uma categoria (livres e ocupadas).
+     * @param categoria A categoria.
+     * @return Total de vagas da categoria.
+     */
+    public synchronized int contarVagas(CategoriaVaga categoria) {
+        int total = 0;
+        for (Vaga v : vagas) {
+            if (v.getCategoria() == categoria) total++;
         }
-        return null;
+        return total;
     }
 
     public String getNome() {
@@ -85,14 +443,118 @@ public class Estacionamento {
     }
 
     public double getValorHora() {
-        return valorHora;
+        return Dinheiro.paraReais(getValorHoraCentavos());
+    }
+
+    /**
+     * Obtém o valor base da hora.
+     * @return Valor em centavos.
+     */
+    public synchronized long getValorHoraCentavos() {
+        if (valorHora != null) {
+            valorHoraCentavos = Dinheiro.deReais(valorHora);
+            valorHora = null;
+        }
+        return valorHoraCentavos;
     }
 
     public void setValorHora(double valorHora) {
         if (valorHora < 0) {
             throw new IllegalArgumentException("O valor por hora não pode ser negativo.");
         }
-        this.valorHora = valorHora;
+        synchronized (this) {
+            this.valorHoraCentavos = Dinheiro.deReais(valorHora);
+            this.valorHora = null;
+            this.tarifa = Tarifa.compilar(valorHoraCentavos, getRegrasTarifa());
+        }
+        registrarMutacao();
+    }
+
+    /**
+     * Obtém o relógio usado em entradas, saídas e na série de ocupação.
+     * @return O relógio (o do sistema, salvo se outro tiver sido definido).
+     */
+    public Relogio getRelogio() {
+        Relogio atual = relogio;
+        return (atual != null) ? atual : Relogio.SISTEMA;
+    }
+
+    /**
+     * Troca o relógio (testes e simulações). Não é persistido.
+     * @param relogio O novo relógio ou null para voltar ao do sistema.
+     */
+    public void setRelogio(Relogio relogio) {
+        this.relogio = relogio;
+    }
+
+    /**
+     * Obtém o destino dos avisos de operações recusadas (veículo já estacionado, sem vaga,
+     * ticket inexistente).
+     * @return O destino definido ou null se os avisos vão para o console.
+     */
+    public Consumer<String> getAvisos() {
+        return avisos;
+    }
+
+    /**
+     * Troca o destino dos avisos (ex.: silenciar durante simulações). Não é persistido.
+     * @param avisos O novo destino ou null para voltar ao console.
+     */
+    public void setAvisos(Consumer<String> avisos) {
+        this.avisos = avisos;
+    }
+
+    private void avisar(String mensagem) {
+        Consumer<String> destino = avisos;
+        if (destino != null) {
+            destino.accept(mensagem);
+        } else {
+            System.out.println(mensagem);
+        }
+    }
+
+    /**
+     * Obtém a tarifa compilada em uso.
+     * @return A tarifa vigente.
+     */
+    public Tarifa getTarifa() {
+        Tarifa atual = tarifa;
+        if (atual == null) {
+            synchronized (this) {
+                if (tarifa == null) {
+                    tarifa = Tarifa.compilar(getValorHoraCentavos(), getRegrasTarifa());
+                }
+                atual = tarifa;
+            }
+        }
+        return atual;
+    }
+
+    /**
+     * Obtém uma cópia das regras de tarifa configuradas.
+     * Snapshots antigos, sem regras, usam as regras padrão (hora cheia).
+     * @return As regras de tarifa.
+     */
+    public synchronized Tarifa.Regras getRegrasTarifa() {
+        if (regrasTarifa == null) {
+            regrasTarifa = new Tarifa.Regras();
+        }
+        return new Tarifa.Regras(regrasTarifa);
+    }
+
+    /**
+     * Troca as regras de tarifa sem reiniciar o sistema.
+     * A nova tabela é compilada antes da troca; saídas em andamento usam a antiga ou a nova, nunca uma mistura.
+     * @param regras As novas regras.
+     * @throws IllegalArgumentException Se as regras forem nulas.
+     */
+    public void setRegrasTarifa(Tarifa.Regras regras) {
+        synchronized (this) {
+            Tarifa nova = Tarifa.compilar(getValorHoraCentavos(), regras);
+            this.regrasTarifa = new Tarifa.Regras(regras);
+            this.tarifa = nova;
+        }
+        registrarMutacao();
     }
 
     public List<Vaga> getVagas() {
@@ -107,6 +569,397 @@ public class Estacionamento {
         return proximoIdTicket;
     }
 
+    /**
+     * Obtém os resumos de quantis de permanência e valor pago.
+     * Snapshots antigos, sem os resumos, são reconstruídos a partir dos tickets fechados.
+     * @return As estatísticas de quantis.
+     */
+    public synchronized EstatisticasQuantis getEstatisticasQuantis() {
+        if (estatisticasQuantis == null) {
+            EstatisticasQuantis novas = new EstatisticasQuantis();
+            getArmazemFechados().varrer(Long.MIN_VALUE, Long.MAX_VALUE, linha -> novas.registrarSaida(
+                    linha.getTipo(), linha.getEntradaEpoch(), linha.getSaidaEpoch(), linha.getValorPagoCentavos()));
+            estatisticasQuantis = novas;
+        }
+        return estatisticasQuantis;
+    }
+
+    /**
+     * Obtém o armazém colunar dos tickets fechados, usado nas agregações (totais, quantis,
+     * relatórios por período) sem percorrer os objetos {@link Ticket}.
+     *
+     * É uma cópia derivada: a lista de tickets continua sendo a fonte da persistência e da
+     * tabela de histórico, então o armazém não reduz a memória, acrescenta cerca de 40 bytes
+     * por ticket fechado. O ganho está nas varreduras, que leem só colunas de primitivos.
+     * Após um carregamento é reconstruído a partir da lista de tickets.
+     * @return O armazém, atualizado a cada saída.
+     */
+    public synchronized ArmazemTickets getArmazemFechados() {
+        if (armazemFechados == null) {
+            armazemFechados = ArmazemTickets.de(tickets);
+        }
+        return armazemFechados;
+    }
+
+    /**
+     * Soma o valor arrecadado com as saídas de um período.
+     * @param inicio Primeiro dia (por data de saída) ou null para todo o histórico.
+     * @param fim Último dia ou null para todo o histórico.
+     * @return Total em centavos.
+     */
+    public long somarArrecadado(LocalDate inicio, LocalDate fim) {
+        return getArmazemFechados().somarCentavos(inicioPeriodo(inicio), fimPeriodo(fim));
+    }
+
+    /**
+     * Conta as saídas de um período por tipo de veículo.
+     * @param inicio Primeiro dia (por data de saída) ou null para todo o histórico.
+     * @param fim Último dia ou null para todo o histórico.
+     * @return Quantidades indexadas por {@link TipoVeiculo#ordinal()}.
+     */
+    public int[] contarSaidasPorTipo(LocalDate inicio, LocalDate fim) {
+        return getArmazemFechados().contarPorTipo(inicioPeriodo(inicio), fimPeriodo(fim));
+    }
+
+    private static long inicioPeriodo(LocalDate inicio) {
+        return (inicio != null) ? inicio.toEpochDay() * 86400L : Long.MIN_VALUE;
+    }
+
+    private static long fimPeriodo(LocalDate fim) {
+        return (fim != null) ? (fim.toEpochDay() + 1) * 86400L - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Obtém o cadastro de veículos (um objeto compartilhado por placa).
+     * @return O cadastro, criado vazio se ainda não existir.
+     */
+    public synchronized RegistroVeiculos getRegistroVeiculos() {
+        if (registroVeiculos == null) {
+            registroVeiculos = new RegistroVeiculos();
+        }
+        return registroVeiculos;
+    }
+
+    /**
+     * Liga tickets e vagas carregados de um snapshot aos veículos do cadastro.
+     * Referências gravadas só pela placa passam a apontar para o veículo compartilhado e
+     * cópias com os mesmos dados são unificadas; snapshots antigos, sem cadastro, têm o
+     * cadastro montado a partir dos tickets.
+     */
+    public synchronized void vincularVeiculos() {
+        boolean migrar = (registroVeiculos == null);
+        RegistroVeiculos registro = getRegistroVeiculos();
+        // Versões anteriores dos dados de um veículo (tickets antigos), uma por placa
+        MapaPlacas<Veiculo> anteriores = new MapaPlacas<>();
+        for (Ticket t : tickets) {
+            Veiculo v = t.getVeiculo();
+            Veiculo unico = migrar ? registro.registrar(v) : unificar(registro, anteriores, v);
+            if (unico != v) {
+                t.substituirVeiculo(unico);
+            }
+        }
+        for (Vaga vaga : vagas) {
+            for (Veiculo v : vaga.getVeiculos()) {
+                Veiculo unico = unificar(registro, anteriores, v);
+                if (unico != v) {
+                    vaga.substituirVeiculo(unico);
+                }
+            }
+        }
+        indiceVeiculos = null;
+    }
+
+    private static Veiculo unificar(RegistroVeiculos registro, MapaPlacas<Veiculo> anteriores, Veiculo v) {
+        Veiculo cadastrado = registro.buscar(v.getCodigoPlaca());
+        // Gravado só pela placa: chega sem os demais dados
+        boolean referencia = v.getModelo() == null && v.getCor() == null && v.getTipo() == null;
+        if (cadastrado != null && (referencia || RegistroVeiculos.mesmosDados(cadastrado, v))) {
+            return cadastrado;
+        }
+        Veiculo anterior = anteriores.get(v.getCodigoPlaca());
+        if (anterior != null && RegistroVeiculos.mesmosDados(anterior, v)) {
+            return anterior;
+        }
+        anteriores.put(v.getCodigoPlaca(), v);
+        return v;
+    }
+
+    /**
+     * Obtém as estatísticas de veículos distintos e placas recorrentes.
+     * Snapshots antigos, sem os resumos, são reconstruídos a partir dos tickets.
+     * @return As estatísticas de visitantes.
+     */
+    public synchronized EstatisticasVisitantes getEstatisticasVisitantes() {
+        if (estatisticasVisitantes == null) {
+            estatisticasVisitantes = new EstatisticasVisitantes();
+            for (Ticket t : tickets) {
+                estatisticasVisitantes.registrarEntrada(t.getVeiculo().getPlaca(), Ticket.diaEpoch(t.getEntradaEpoch()));
+            }
+        }
+        return estatisticasVisitantes;
+    }
+
+    /**
+     * Obtém a versão atual do estado do estacionamento.
+     * O valor cresce monotonicamente a cada alteração (entrada, saída, desconto, configuração).
+     * @return Versão do estado.
+     */
+    public long getVersaoEstado() {
+        return versaoEstado;
+    }
+
+    /**
+     * Obtém o cache de relatórios associado a este estacionamento.
+     * @return O cache de relatórios.
+     */
+    public synchronized CacheRelatorios getCacheRelatorios() {
+        if (cacheRelatorios == null) {
+            cacheRelatorios = new CacheRelatorios();
+        }
+        return cacheRelatorios;
+    }
+
+    /**
+     * Obtém um relatório do cache, gerando-o apenas se a entrada estiver desatualizada.
+     * @param tipo Tipo do relatório.
+     * @param inicio Data inicial ou null para todo o histórico.
+     * @param fim Data final ou null para todo o histórico.
+     * @param formato Formato de saída.
+     * @param gerador Função que produz o conteúdo.
+     * @return O conteúdo do relatório.
+     */
+    public String obterRelatorio(String tipo, LocalDate inicio, LocalDate fim, String formato, Supplier<String> gerador) {
+        return getCacheRelatorios().obter(tipo, inicio, fim, formato, versaoEstado,
+                () -> isPeriodoFechado(inicio, fim), gerador);
+    }
+
+    /**
+     * Verifica se um período é histórico e não pode mais ser alterado.
+     * Um período está fechado quando termina antes de hoje e não possui tickets em aberto.
+     * @param inicio Data inicial ou null.
+     * @param fim Data final ou null (período em aberto).
+     * @return true se o período estiver encerrado.
+     */
+    public boolean isPeriodoFechado(LocalDate inicio, LocalDate fim) {
+        if (fim == null || fim.toEpochDay() >= Ticket.diaEpoch(getRelogio().agoraEpoch())) {
+            return false;
+        }
+        long ultimoDia = fim.toEpochDay();
+        for (Ticket t : tickets) {
+            if (!t.isFechado() && Ticket.diaEpoch(t.getEntradaEpoch()) <= ultimoDia) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Obtém os tickets fechados após um ponto de controle, na ordem de fechamento.
+     *
+     * O ponto de controle guarda a sequência do último ticket processado e, para conferência,
+     * o horário de saída e o ID dele. Quando o ticket daquela sequência é o mesmo, a busca é
+     * binária e o custo é proporcional apenas ao número de tickets retornados. Se não for
+     * (snapshot mais antigo recarregado, queda antes de salvar, outro estacionamento), as
+     * sequências não valem para estes dados e a seleção volta a ser pela ordem de saída.
+     *
+     * @param sequencia Sequência de fechamento do último ticket processado (0 se nenhum).
+     * @param saida Horário de saída do último ticket processado ou null se nenhum foi.
+     * @param id ID do último ticket processado.
+     * @return Lista de tickets fechados depois do ponto de controle.
+     */
+    public synchronized List<Ticket> getTicketsFechadosApos(long sequencia, LocalDateTime saida, int id) {
+        List<Ticket> fechados = getTicketsPorSaida();
+        long saidaEpoch = (saida != null) ? Ticket.paraEpoch(saida) : Ticket.SEM_SAIDA;
+        int inicio = posicaoAposSequencia(fechados, sequencia);
+        Ticket ultimoProcessado = (inicio > 0) ? fechados.get(inicio - 1) : null;
+        boolean confere = saida == null || (ultimoProcessado != null
+                && ultimoProcessado.getSequenciaFechamento() == sequencia
+                && compararSaida(ultimoProcessado, saidaEpoch, id) == 0);
+        if (confere) {
+            return new ArrayList<>(fechados.subList(inicio, fechados.size()));
+        }
+        List<Ticket> novos = new ArrayList<>();
+        for (Ticket t : fechados) {
+            if (compararSaida(t, saidaEpoch, id) > 0) {
+                novos.add(t);
+            }
+        }
+        return novos;
+    }
+
+    // Primeira posição com sequência maior que a informada (busca binária)
+    private static int posicaoAposSequencia(List<Ticket> fechados, long sequencia) {
+        int baixo = 0;
+        int alto = fechados.size();
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (fechados.get(meio).getSequenciaFechamento() <= sequencia) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    // Tickets fechados em ordem de sequência de fechamento
+    private List<Ticket> getTicketsPorSaida() {
+        if (ticketsPorSaida == null) {
+            // Reconstrói o índice após um carregamento (campos transientes não são persistidos)
+            ticketsPorSaida = new ArrayList<>();
+            List<Ticket> semSequencia = new ArrayList<>();
+            for (Ticket t : tickets) {
+                if (!t.isFechado()) {
+                    continue;
+                }
+                if (t.getSequenciaFechamento() > 0) {
+                    ticketsPorSaida.add(t);
+                } else {
+                    semSequencia.add(t);
+                }
+            }
+            ticketsPorSaida.sort(Comparator.comparingLong(Ticket::getSequenciaFechamento));
+            ultimaSequenciaFechamento = ticketsPorSaida.isEmpty()
+                    ? 0 : ticketsPorSaida.get(ticketsPorSaida.size() - 1).getSequenciaFechamento();
+            // Snapshots antigos não têm sequência: numera pela ordem de saída (desempate pelo ID)
+            semSequencia.sort((a, b) -> compararSaida(a, b.getSaidaEpoch(), b.getId()));
+            for (Ticket t : semSequencia) {
+                t.setSequenciaFechamento(++ultimaSequenciaFechamento);
+                ticketsPorSaida.add(t);
+            }
+        }
+        return ticketsPorSaida;
+    }
+
+    private synchronized void adicionarTicketFechado(Ticket ticket) {
+        if (armazemFechados != null) {
+            armazemFechados.adicionar(ticket);
+        }
+        if (ticketsPorSaida == null) {
+            // A reconstrução já inclui (e numera) o ticket recém-fechado
+            getTicketsPorSaida();
+            return;
+        }
+        ticket.setSequenciaFechamento(++ultimaSequenciaFechamento);
+        ticketsPorSaida.add(ticket);
+    }
+
+    private static int compararSaida(Ticket t, long saidaEpoch, int id) {
+        int cmp = Long.compare(t.getSaidaEpoch(), saidaEpoch);
+        return (cmp != 0) ? cmp : Integer.compare(t.getId(), id);
+    }
+
+    /**
+     * Obtém a série histórica de ocupação já estendida até o minuto atual.
+     * A leitura não registra amostra (as médias não dependem de quantas vezes o relatório
+     * é aberto); só uma série ainda vazia recebe a ocupação atual como ponto de partida.
+     * @return A série (criada vazia se o estado salvo ainda não a tinha).
+     */
+    public synchronized SerieOcupacao getSerieOcupacao() {
+        if (serieOcupacao == null || serieOcupacao.isVazia()) {
+            registrarOcupacao();
+        } else {
+            serieOcupacao.estender(Math.floorDiv(getRelogio().agoraEpoch(), 60));
+        }
+        return serieOcupacao;
+    }
+
+    /**
+     * Converte um horário local em minutos desde a época, no mesmo eixo usado pela série.
+     * @param dataHora Horário local.
+     * @return Minutos desde 1970-01-01T00:00 (horário local).
+     */
+    public static long paraMinutoSerie(LocalDateTime dataHora) {
+        return dataHora.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private synchronized void registrarOcupacao() {
+        if (serieOcupacao == null) {
+            serieOcupacao = new SerieOcupacao();
+        }
+        serieOcupacao.registrar(Math.floorDiv(getRelogio().agoraEpoch(), 60), getVagasOcupadas());
+    }
+
+    /**
+     * Obtém o índice dos veículos estacionados (por placa e por trechos de placa, modelo e cor).
+     * @return O índice, reconstruído a partir das vagas quando necessário.
+     */
+    public synchronized IndiceVeiculos getIndiceVeiculos() {
+        if (indiceVeiculos == null) {
+            IndiceVeiculos indice = new IndiceVeiculos();
+            MapaPlacas<Vaga> vagaPorPlaca = new MapaPlacas<>();
+            for (Vaga v : vagas) {
+                for (Veiculo veiculo : v.getVeiculos()) {
+                    vagaPorPlaca.put(veiculo.getCodigoPlaca(), v);
+                }
+            }
+            for (Ticket t : tickets) {
+                if (!t.isFechado()) {
+                    Vaga vaga = vagaPorPlaca.get(t.getVeiculo().getCodigoPlaca());
+                    if (vaga != null) {
+                        indice.adicionar(vaga, t);
+                    }
+                }
+            }
+            indiceVeiculos = indice;
+        }
+        return indiceVeiculos;
+    }
+
+    /**
+     * Pesquisa veículos estacionados por trecho da placa, modelo ou cor.
+     * Pode ser chamado fora da thread da interface: o número da vaga e a duração vêm
+     * copiados nos registros, lidos sob a trava do estacionamento.
+     * @param termo Trecho procurado; vazio lista todos.
+     * @return Veículos encontrados com vaga e ticket ativo.
+     */
+    public synchronized List<IndiceVeiculos.Registro> pesquisarVeiculos(String termo) {
+        List<IndiceVeiculos.Registro> encontrados = getIndiceVeiculos().pesquisar(termo);
+        long agora = getRelogio().agoraEpoch();
+        for (int i = 0; i < encontrados.size(); i++) {
+            encontrados.set(i, encontrados.get(i).fotografar(agora));
+        }
+        return encontrados;
+    }
+
+    /**
+     * Registra um observador para mudanças de estado.
+     * @param ouvinte O observador.
+     */
+    public void adicionarOuvinte(OuvinteEstacionamento ouvinte) {
+        getOuvintes().add(ouvinte);
+    }
+
+    /**
+     * Remove um observador registrado.
+     * @param ouvinte O observador.
+     */
+    public void removerOuvinte(OuvinteEstacionamento ouvinte) {
+        getOuvintes().remove(ouvinte);
+    }
+
+    private synchronized CopyOnWriteArrayList<OuvinteEstacionamento> getOuvintes() {
+        if (ouvintes == null) {
+            ouvintes = new CopyOnWriteArrayList<>();
+        }
+        return ouvintes;
+    }
+
+    private void notificarVaga(Vaga vaga) {
+        for (OuvinteEstacionamento ouvinte : getOuvintes()) {
+            ouvinte.vagaAlterada(vaga);
+        }
+    }
+
+    private void registrarMutacao() {
+        synchronized (this) {
+            versaoEstado++;
+        }
+        for (OuvinteEstacionamento ouvinte : getOuvintes()) {
+            ouvinte.estadoAlterado();
+        }
+    }
+
     /**
      * Gera o próximo ID sequencial para tickets.
      * @return Próximo ID disponível.
@@ -119,27 +972,35 @@ public class Estacionamento {
      * Registra a entrada de um veículo no estacionamento.
      * Verifica disponibilidade de vagas e se o veículo já está estacionado.
      * 
-     * @param v O veículo a ser estacionado.
+     * @param informado O veículo a ser estacionado.
      * @return O Ticket gerado ou null em caso de erro (lotado ou já estacionado).
      */
-    public Ticket registrarEntrada(Veiculo v) {
-        if (v == null) return null;
+    public Ticket registrarEntrada(Veiculo informado) {
+        if (informado == null) return null;
         
         // Verifica se já está estacionado
-        if (buscarTicketAtivo(v.getPlaca()) != null) {
-            System.out.println("Veículo já está no estacionamento.");
+        if (getIndiceVeiculos().buscar(informado.getCodigoPlaca()) != null) {
+            avisar("Veículo já está no estacionamento.");
             return null; 
         }
 
-        Vaga vagaLivre = buscarVagaLivre();
+        Vaga vagaLivre = buscarVagaLivre(informado.getTipo());
         if (vagaLivre == null) {
-            System.out.println("Estacionamento lotado.");
+            avisar((getVagasLivres() == 0) ? "Estacionamento lotado." : "Nenhuma vaga livre para " + informado.getTipo() + ".");
             return null; 
         }
 
-        vagaLivre.ocuparVaga(v);
-        Ticket novoTicket = new Ticket(gerarProximoIdTicket(), v);
+        // Clientes recorrentes reaproveitam o veículo já cadastrado
+        Veiculo v = getRegistroVeiculos().registrar(informado);
+
+        alterarVaga(vagaLivre, () -> vagaLivre.ocuparVaga(v));
+        registrarOcupacao();
+        Ticket novoTicket = new Ticket(gerarProximoIdTicket(), v, getRelogio().agoraEpoch());
         tickets.add(novoTicket);
+        getIndiceVeiculos().adicionar(vagaLivre, novoTicket);
+        notificarVaga(vagaLivre);
+        getEstatisticasVisitantes().registrarEntrada(v.getPlaca(), Ticket.diaEpoch(novoTicket.getEntradaEpoch()));
+        registrarMutacao();
         return novoTicket;
     }
 
@@ -153,40 +1014,41 @@ public class Estacionamento {
     public Ticket registrarSaida(String placa) {
         if (placa == null || placa.trim().isEmpty()) return null;
 
-        Ticket ticket = buscarTicketAtivo(placa);
-        if (ticket == null) {
-            System.out.println("Ticket não encontrado para a placa informada.");
+        long codigo = CodecPlaca.codificar(placa);
+        IndiceVeiculos.Registro registro = getIndiceVeiculos().buscar(codigo);
+        if (registro == null) {
+            avisar("Ticket não encontrado para a placa informada.");
             return null; 
         }
+        Ticket ticket = registro.getTicket();
 
-        ticket.registrarSaida();
-        ticket.calcularValor(this.valorHora);
+        ticket.registrarSaida(getRelogio().agoraEpoch());
+        ticket.calcularValor(getTarifa());
+        adicionarTicketFechado(ticket);
+        contabilizarArrecadacao(ticket);
+        getEstatisticasQuantis().registrarSaida(ticket);
 
-        Vaga vaga = buscarVagaPorPlaca(placa);
+        Vaga vaga = registro.getVaga();
+        getIndiceVeiculos().remover(codigo);
         if (vaga != null) {
-            vaga.liberarVaga();
+            // Motos que dividem a vaga continuam nela
+            alterarVaga(vaga, () -> vaga.liberarVaga(ticket.getVeiculo()));
+            registrarOcupacao();
+            notificarVaga(vaga);
         }
 
+        registrarMutacao();
         return ticket;
     }
 
-    private Ticket buscarTicketAtivo(String placa) {
-        for (Ticket t : tickets) {
-            // Considera ativo se horaSaida for null
-            if (t.getVeiculo().getPlaca().equalsIgnoreCase(placa) && t.getHoraSaida() == null) {
-                return t;
-            }
-        }
-        return null;
-    }
-
-    private Vaga buscarVagaPorPlaca(String placa) {
-        for (Vaga v : vagas) {
-            if (v.isOcupada() && v.getVeiculo() != null && v.getVeiculo().getPlaca().equalsIgnoreCase(placa)) {
-                return v;
-            }
-        }
-        return null;
+    /**
+     * Busca o ticket em aberto de um veículo.
+     * @param placa A placa do veículo (sem diferenciar maiúsculas).
+     * @return O ticket ativo ou null se o veículo não estiver estacionado.
+     */
+    public Ticket buscarTicketAtivo(String placa) {
+        IndiceVeiculos.Registro registro = getIndiceVeiculos().buscar(placa);
+        return (registro != null) ? registro.getTicket() : null;
     }
 
     /**
@@ -206,8 +1068,8 @@ public class Estacionamento {
         System.out.println("\n--- Veículos Estacionados ---");
         boolean encontrou = false;
         for (Vaga v : vagas) {
-            if (v.isOcupada()) {
-                System.out.println("Vaga " + v.getNumero() + ": " + v.getVeiculo());
+            for (Veiculo veiculo : v.getVeiculos()) {
+                System.out.println("Vaga " + v.getNumero() + ": " + veiculo);
                 encontrou = true;
             }
         }
@@ -222,8 +1084,8 @@ public class Estacionamento {
      * @return O objeto Veiculo ou null se não encontrado.
      */
     public Veiculo buscarVeiculoPorPlaca(String placa) {
-        Vaga vaga = buscarVagaPorPlaca(placa);
-        return (vaga != null) ? vaga.getVeiculo() : null;
+        IndiceVeiculos.Registro registro = getIndiceVeiculos().buscar(placa);
+        return (registro != null && registro.getVaga() != null) ? registro.getVeiculo() : null;
     }
 
     /**
@@ -231,19 +1093,15 @@ public class Estacionamento {
      */
     public void gerarRelatorio() {
         System.out.println("\n=== RELATÓRIO DO ESTACIONAMENTO: " + nome.toUpperCase() + " ===");
-        System.out.println("Valor Hora: R$ " + String.format("%.2f", valorHora));
+        System.out.println("Valor Hora: " + Dinheiro.formatar(getValorHoraCentavos()));
         System.out.println("Total de Vagas: " + vagas.size());
-        System.out.println("Vagas Livres: " + getVagasLivres());
+        System.out.println("Vagas Livres: " + getVagasLivres() + " (" + getUnidadesLivres() + " de " + getUnidadesTotais() + " unidades)");
         System.out.println("Vagas Ocupadas: " + getVagasOcupadas());
         
         System.out.println("\n--- Financeiro ---");
         System.out.println("Total de Tickets Emitidos: " + tickets.size());
         
-        double totalArrecadado = 0;
-        for (Ticket t : tickets) {
-            totalArrecadado += t.getValorPago();
-        }
-        System.out.println("Total Arrecadado: R$ " + String.format("%.2f", totalArrecadado));
+        System.out.println("Total Arrecadado: " + Dinheiro.formatar(getTotalArrecadadoCentavos()));
 
         System.out.println("\n--- Últimos 5 Tickets ---");
         int totalTickets = tickets.size();
@@ -267,13 +1125,16 @@ public class Estacionamento {
      * @return Lista de tickets no período.
      */
     public List<Ticket> buscarTicketsPorPeriodo(LocalDate inicio, LocalDate fim) {
-        return tickets.stream()
-            .filter(t -> {
-                LocalDate dataTicket = t.getHoraEntrada().toLocalDate();
-                return (dataTicket.isEqual(inicio) || dataTicket.isAfter(inicio)) &&
-                       (dataTicket.isEqual(fim) || dataTicket.isBefore(fim));
-            })
-            .collect(Collectors.toList());
+        long primeiroDia = inicio.toEpochDay();
+        long ultimoDia = fim.toEpochDay();
+        List<Ticket> resultado = new ArrayList<>();
+        for (Ticket t : tickets) {
+            long dia = Ticket.diaEpoch(t.getEntradaEpoch());
+            if (dia >= primeiroDia && dia <= ultimoDia) {
+                resultado.add(t);
+            }
+        }
+        return resultado;
     }
 
     /**
@@ -286,6 +1147,7 @@ public class Estacionamento {
         Ticket ticket = buscarTicketAtivo(placa);
         if (ticket != null) {
             ticket.aplicarDesconto(percentual);
+            registrarMutacao();
             return true;
         }
         return false;
@@ -299,7 +1161,9 @@ public class Estacionamento {
     public boolean reservarVaga(int numero) {
         if (numero < 1 || numero > vagas.size()) return false;
         Vaga vaga = vagas.get(numero - 1);
-        vaga.setVip(true);
+        alterarVaga(vaga, () -> vaga.setVip(true));
+        notificarVaga(vaga);
+        registrarMutacao();
         return true;
     }
 
@@ -313,11 +1177,25 @@ public class Estacionamento {
         this.vagas = new ArrayList<>(vagas);
         this.tickets = new ArrayList<>(tickets);
         this.proximoIdTicket = proximoIdTicket;
+        this.ticketsPorSaida = null;
+        this.armazemFechados = null;
+        this.indiceVeiculos = null;
+        this.alocador = null;
+        this.contadoresValidos = false;
+        registrarOcupacao();
+        this.estatisticasQuantis = null;
+        this.estatisticasVisitantes = null;
+        // Relatórios de períodos fechados não expiram pela versão; outro estado invalida todos
+        getCacheRelatorios().limpar();
+        registrarMutacao();
+        for (Vaga vaga : this.vagas) {
+            notificarVaga(vaga);
+        }
     }
 
     @Override
     public String toString() {
-        return String.format("Estacionamento '%s' - Vagas: %d (Livres: %d, Ocupadas: %d) - Valor/h: R$ %.2f",
-                nome, vagas.size(), getVagasLivres(), getVagasOcupadas(), valorHora);
+        return String.format("Estacionamento '%s' - Vagas: %d (Livres: %d, Ocupadas: %d) - Valor/h: %s",
+                nome, vagas.size(), getVagasLivres(), getVagasOcupadas(), Dinheiro.formatar(getValorHoraCentavos()));
     }
 }
@@ -2,18 +2,36 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 public class EstacionamentoGUI extends JFrame {
 
+    private static final String ARQUIVO_DADOS = "estacionamento.json";
+
     private Estacionamento estacionamento;
     private PainelVagas painelVagas;
     private PainelControles painelControles;
     private JLabel lblInfo;
 
+    // Janelas pesadas: criadas no primeiro uso e reaproveitadas
+    private TelaRelatorio telaRelatorio;
+    private DialogoBusca dialogoBusca;
+    private DialogoConfiguracoes dialogoConfiguracoes;
+
     public EstacionamentoGUI() {
-        // Inicialização do Estacionamento
-        // Em um cenário real, carregaríamos de um arquivo ou banco de dados
-        this.estacionamento = new Estacionamento("Estacionamento Central", 20, 10.0);
+        this(new Estacionamento("Estacionamento Central", 20, 10.0), DialogoConfiguracoes.lerConfiguracoes());
+    }
+
+    /**
+     * Cria a janela principal para um estado já carregado.
+     * @param estacionamento O estacionamento a gerenciar.
+     * @param configuracoes Configurações lidas na inicialização (cores do mapa de vagas).
+     */
+    public EstacionamentoGUI(Estacionamento estacionamento, Properties configuracoes) {
+        this.estacionamento = estacionamento;
 
         // Configurações da Janela Principal
         setTitle("Sistema de Estacionamento");
@@ -22,13 +40,6 @@ public class EstacionamentoGUI extends JFrame {
         setLayout(new BorderLayout());
         setLocationRelativeTo(null);
 
-        // Look and Feel
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
         // --- Painel Superior ---
         JPanel painelSuperior = new JPanel();
         painelSuperior.setBackground(new Color(60, 63, 65));
@@ -56,7 +67,7 @@ public class EstacionamentoGUI extends JFrame {
         painelCentral.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         // Painel Esquerdo: Grid de Vagas (Usando a classe PainelVagas criada anteriormente)
-        painelVagas = new PainelVagas(estacionamento);
+        painelVagas = new PainelVagas(estacionamento, configuracoes);
         
         // Painel Direito: Controles e Estatísticas (Usando a classe PainelControles criada anteriormente)
         painelControles = new PainelControles(estacionamento);
@@ -101,7 +112,8 @@ public class EstacionamentoGUI extends JFrame {
             if (novoVeiculo != null) {
                 Ticket ticket = estacionamento.registrarEntrada(novoVeiculo);
                 if (ticket != null) {
-                    SistemaNotificacoes.exibirNotificacao("Entrada registrada: " + novoVeiculo.getPlaca(), SistemaNotificacoes.TipoNotificacao.SUCESSO);
+                    SistemaNotificacoes.exibirNotificacaoAgrupada("ENTRADA", "Entrada registrada: " + novoVeiculo.getPlaca(),
+                            "%d entradas registradas", SistemaNotificacoes.TipoNotificacao.SUCESSO);
                     atualizarInterface();
                 } else {
                     SistemaNotificacoes.exibirNotificacao("Erro ao registrar entrada. Estacionamento lotado ou veículo já presente.", SistemaNotificacoes.TipoNotificacao.ERRO);
@@ -111,28 +123,22 @@ public class EstacionamentoGUI extends JFrame {
 
         // Botão Saída (Abre busca para selecionar qual sair)
         btnSaida.addActionListener(e -> {
-            DialogoBusca dialogo = new DialogoBusca(this, estacionamento);
-            dialogo.setVisible(true);
+            getDialogoBusca().exibir();
             atualizarInterface(); // Atualiza após fechar o diálogo de busca/saída
         });
 
         // Botão Buscar
-        btnBuscar.addActionListener(e -> {
-            DialogoBusca dialogo = new DialogoBusca(this, estacionamento);
-            dialogo.setVisible(true);
-        });
+        btnBuscar.addActionListener(e -> getDialogoBusca().exibir());
 
         // Botão Relatórios
-        btnRelatorio.addActionListener(e -> {
-            TelaRelatorio tela = new TelaRelatorio(estacionamento);
-            tela.setVisible(true);
-        });
+        btnRelatorio.addActionListener(e -> getTelaRelatorio().exibir());
 
         // Botão Configurações
         btnConfig.addActionListener(e -> {
-            DialogoConfiguracoes config = new DialogoConfiguracoes(this, estacionamento);
-            config.setVisible(true);
-            atualizarInterface(); // Configurações podem mudar cores ou valores
+            getDialogoConfiguracoes().exibir();
+            // Configurações podem mudar cores ou valores
+            painelVagas.aplicarConfiguracoes(DialogoConfiguracoes.lerConfiguracoes());
+            atualizarInterface();
         });
 
         // Window Listener para salvar ao fechar
@@ -149,30 +155,106 @@ public class EstacionamentoGUI extends JFrame {
     }
 
     public void atualizarInterface() {
+        // O mapa de vagas se atualiza pelas notificações do Estacionamento;
+        // aqui só é preciso sincronizar (diff) sem forçar novo layout
         painelVagas.atualizarVagas();
         lblInfo.setText(estacionamento.toString());
-        // PainelControles tem seu próprio timer, mas podemos forçar atualização se necessário
-        // painelControles.atualizar(); 
-        painelVagas.revalidate();
-        painelVagas.repaint();
+        // PainelControles se atualiza pelas notificações do Estacionamento
+    }
+
+    private TelaRelatorio getTelaRelatorio() {
+        if (telaRelatorio == null) {
+            telaRelatorio = new TelaRelatorio(estacionamento);
+        }
+        return telaRelatorio;
+    }
+
+    private DialogoBusca getDialogoBusca() {
+        if (dialogoBusca == null) {
+            dialogoBusca = new DialogoBusca(this, estacionamento);
+        }
+        return dialogoBusca;
+    }
+
+    private DialogoConfiguracoes getDialogoConfiguracoes() {
+        if (dialogoConfiguracoes == null) {
+            dialogoConfiguracoes = new DialogoConfiguracoes(this, estacionamento);
+        }
+        return dialogoConfiguracoes;
     }
 
     private void salvarDados() {
-        // Implementação futura de persistência de dados (JSON, Banco, etc)
         System.out.println("Salvando dados do sistema...");
+        try {
+            PersistenciaDados.salvarEstado(estacionamento, ARQUIVO_DADOS);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Carrega o estado salvo, se existir, e já monta os índices derivados fora da thread da interface.
+     * @return O estacionamento carregado ou null se não houver estado salvo válido.
+     */
+    private static Estacionamento carregarEstadoSalvo() {
+        if (!new File(ARQUIVO_DADOS).exists()) {
+            return null;
+        }
+        try {
+            Estacionamento est = PersistenciaDados.carregarEstado(ARQUIVO_DADOS);
+            est.getVagasLivres();
+            est.getIndiceVeiculos();
+            return est;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+    }
+
+    // Estacionamento novo com os parâmetros das configurações salvas
+    private static Estacionamento criarEstacionamentoPadrao(Properties props) {
+        try {
+            double valorHora = Double.parseDouble(props.getProperty("valorHora", "10.0"));
+            int vagas = Integer.parseInt(props.getProperty("qtdVagas", "20"));
+            return new Estacionamento("Estacionamento Central", vagas, valorHora);
+        } catch (IllegalArgumentException e) {
+            return new Estacionamento("Estacionamento Central", 20, 10.0);
+        }
     }
 
     public static void main(String[] args) {
+        LinhaDoTempoInicializacao linhaDoTempo = new LinhaDoTempoInicializacao();
+
+        // Estado e configurações são lidos em paralelo enquanto a thread da interface prepara o Look and Feel
+        CompletableFuture<Properties> configuracoes = CompletableFuture.supplyAsync(
+                () -> linhaDoTempo.medir("Leitura das configurações", DialogoConfiguracoes::lerConfiguracoes));
+        CompletableFuture<Estacionamento> estadoSalvo = CompletableFuture.supplyAsync(
+                () -> linhaDoTempo.medir("Carregamento do estado", EstacionamentoGUI::carregarEstadoSalvo));
+
         SwingUtilities.invokeLater(() -> {
-            try {
-                // Tenta aplicar o Look and Feel do sistema ou Nimbus se preferir
-                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            
-            EstacionamentoGUI gui = new EstacionamentoGUI();
+            linhaDoTempo.medir("Look and Feel", () -> {
+                try {
+                    // Tenta aplicar o Look and Feel do sistema ou Nimbus se preferir
+                    UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+
+            linhaDoTempo.medir("Espera dos carregamentos", () -> CompletableFuture.allOf(configuracoes, estadoSalvo).join());
+            Properties props = configuracoes.join();
+            Estacionamento carregado = estadoSalvo.join();
+            Estacionamento est = (carregado != null) ? carregado : criarEstacionamentoPadrao(props);
+
+            EstacionamentoGUI gui = linhaDoTempo.medir("Construção da janela", () -> new EstacionamentoGUI(est, props));
             gui.setVisible(true);
+            linhaDoTempo.marcar("Janela visível");
+
+            // Executa depois dos eventos de pintura já enfileirados
+            SwingUtilities.invokeLater(() -> {
+                linhaDoTempo.marcar("Janela utilizável");
+                linhaDoTempo.imprimir();
+            });
         });
     }
 }
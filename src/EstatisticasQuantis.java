@@ -0,0 +1,147 @@
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantém resumos de quantis do tempo de permanência (em minutos) e do valor pago (em reais),
+ * separados por tipo de veículo e por dia de saída.
+ * Os resumos são atualizados a cada saída; os totais gerais ficam prontos para consulta
+ * imediata e os de um período são obtidos mesclando os resumos diários.
+ */
+public class EstatisticasQuantis {
+
+    private ResumoDia total;
+    private TreeMap<Long, ResumoDia> porDia;
+
+    /**
+     * Cria o conjunto de estatísticas vazio.
+     */
+    public EstatisticasQuantis() {
+        this.total = new ResumoDia();
+        this.porDia = new TreeMap<>();
+    }
+
+    /**
+     * Registra um ticket fechado nas estatísticas.
+     * @param ticket Ticket com saída registrada e valor calculado.
+     */
+    public void registrarSaida(Ticket ticket) {
+        if (!ticket.isFechado()) {
+            return;
+        }
+        registrarSaida(ticket.getVeiculo().getTipo(), ticket.getEntradaEpoch(), ticket.getSaidaEpoch(),
+                ticket.getValorPagoCentavos());
+    }
+
+    /**
+     * Registra uma saída a partir dos campos do ticket (usado na reconstrução a partir das
+     * colunas do {@link ArmazemTickets}, sem criar objetos {@link Ticket}).
+     * @param tipo Tipo do veículo.
+     * @param entradaEpoch Entrada em segundos da época.
+     * @param saidaEpoch Saída em segundos da época.
+     * @param valorCentavos Valor pago em centavos.
+     */
+    public void registrarSaida(TipoVeiculo tipo, long entradaEpoch, long saidaEpoch, long valorCentavos) {
+        double minutos = (saidaEpoch - entradaEpoch) / 60.0;
+        double valor = Dinheiro.paraReais(valorCentavos);
+        long dia = Ticket.diaEpoch(saidaEpoch);
+
+        total.registrar(tipo, minutos, valor);
+        porDia.computeIfAbsent(dia, d -> new ResumoDia()).registrar(tipo, minutos, valor);
+    }
+
+    /**
+     * Obtém o resumo do tempo de permanência (minutos).
+     * @param tipo Tipo de veículo ou null para todos.
+     * @param inicio Primeiro dia (por data de saída) ou null para todo o histórico.
+     * @param fim Último dia ou null para todo o histórico.
+     * @return Resumo de quantis.
+     */
+    public SketchQuantis getPermanencia(TipoVeiculo tipo, LocalDate inicio, LocalDate fim) {
+        return selecionar(inicio, fim).permanencia(tipo);
+    }
+
+    /**
+     * Obtém o resumo do valor pago (reais).
+     * @param tipo Tipo de veículo ou null para todos.
+     * @param inicio Primeiro dia (por data de saída) ou null para todo o histórico.
+     * @param fim Último dia ou null para todo o histórico.
+     * @return Resumo de quantis.
+     */
+    public SketchQuantis getValor(TipoVeiculo tipo, LocalDate inicio, LocalDate fim) {
+        return selecionar(inicio, fim).valor(tipo);
+    }
+
+    /**
+     * Formata p50, p90 e p99 de um resumo em uma linha.
+     * @param sketch O resumo.
+     * @param formato Formato de cada valor (ex.: "%.0f min").
+     * @return Texto pronto para exibição.
+     */
+    public static String formatarQuantis(SketchQuantis sketch, String formato) {
+        if (sketch.getTotal() == 0) {
+            return "sem dados";
+        }
+        return String.format("p50 " + formato + " | p90 " + formato + " | p99 " + formato,
+                sketch.getQuantil(0.50), sketch.getQuantil(0.90), sketch.getQuantil(0.99));
+    }
+
+    private ResumoDia selecionar(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            return total;
+        }
+        ResumoDia periodo = new ResumoDia();
+        for (Map.Entry<Long, ResumoDia> dia : porDia.subMap(inicio.toEpochDay(), true, fim.toEpochDay(), true).entrySet()) {
+            periodo.mesclar(dia.getValue());
+        }
+        return periodo;
+    }
+
+    // Resumos de um dia (ou do total): um par de sketches por tipo de veículo
+    private static class ResumoDia {
+        private SketchQuantis[] permanencia;
+        private SketchQuantis[] valor;
+
+        ResumoDia() {
+            int tipos = TipoVeiculo.values().length;
+            permanencia = new SketchQuantis[tipos];
+            valor = new SketchQuantis[tipos];
+            for (int i = 0; i < tipos; i++) {
+                permanencia[i] = new SketchQuantis();
+                valor[i] = new SketchQuantis();
+            }
+        }
+
+        void registrar(TipoVeiculo tipo, double minutos, double valorPago) {
+            int i = (tipo != null) ? tipo.ordinal() : TipoVeiculo.CARRO.ordinal();
+            permanencia[i].adicionar(minutos);
+            valor[i].adicionar(valorPago);
+        }
+
+        void mesclar(ResumoDia outro) {
+            for (int i = 0; i < permanencia.length; i++) {
+                permanencia[i].mesclar(outro.permanencia[i]);
+                valor[i].mesclar(outro.valor[i]);
+            }
+        }
+
+        SketchQuantis permanencia(TipoVeiculo tipo) {
+            return combinar(permanencia, tipo);
+        }
+
+        SketchQuantis valor(TipoVeiculo tipo) {
+            return combinar(valor, tipo);
+        }
+
+        private static SketchQuantis combinar(SketchQuantis[] sketches, TipoVeiculo tipo) {
+            if (tipo != null) {
+                return sketches[tipo.ordinal()];
+            }
+            SketchQuantis todos = new SketchQuantis();
+            for (SketchQuantis s : sketches) {
+                todos.mesclar(s);
+            }
+            return todos;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Estatísticas probabilísticas de visitantes: veículos distintos (HyperLogLog) e placas
+ * mais recorrentes (Space-Saving), alimentadas a cada entrada.
+ * Os resumos são mantidos por dia de entrada e podem ser mesclados para qualquer período,
+ * sem guardar o conjunto de todas as placas já vistas.
+ */
+public class EstatisticasVisitantes {
+
+    private ResumoVisitantes total;
+    private TreeMap<Long, ResumoVisitantes> porDia;
+
+    /**
+     * Cria as estatísticas vazias.
+     */
+    public EstatisticasVisitantes() {
+        this.total = new ResumoVisitantes();
+        this.porDia = new TreeMap<>();
+    }
+
+    /**
+     * Registra a entrada de um veículo.
+     * @param placa Placa do veículo.
+     * @param dia Data da entrada.
+     */
+    public void registrarEntrada(String placa, LocalDate dia) {
+        registrarEntrada(placa, dia.toEpochDay());
+    }
+
+    /**
+     * Registra a entrada de uma placa em um dia, informado como dias desde a época.
+     * @param placa Placa do veículo.
+     * @param diaEpoch Dia da entrada ({@link LocalDate#toEpochDay()}).
+     */
+    public void registrarEntrada(String placa, long diaEpoch) {
+        long hash = HyperLogLog.hash(placa);
+        total.registrar(placa, hash);
+        porDia.computeIfAbsent(diaEpoch, d -> new ResumoVisitantes()).registrar(placa, hash);
+    }
+
+    /**
+     * Estima a quantidade de veículos distintos no período.
+     * @param inicio Primeiro dia ou null para todo o histórico.
+     * @param fim Último dia ou null para todo o histórico.
+     * @return Estimativa de veículos únicos.
+     */
+    public long estimarVeiculosUnicos(LocalDate inicio, LocalDate fim) {
+        return selecionar(inicio, fim).unicos.estimar();
+    }
+
+    /**
+     * Obtém as placas mais recorrentes do período.
+     * @param inicio Primeiro dia ou null para todo o histórico.
+     * @param fim Último dia ou null para todo o histórico.
+     * @param limite Quantidade máxima de placas.
+     * @return Contadores em ordem decrescente de visitas.
+     */
+    public List<TopFrequentes.Contador> getPlacasRecorrentes(LocalDate inicio, LocalDate fim, int limite) {
+        return selecionar(inicio, fim).frequentes.getMaisFrequentes(limite);
+    }
+
+    private ResumoVisitantes selecionar(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            return total;
+        }
+        ResumoVisitantes periodo = new ResumoVisitantes();
+        for (Map.Entry<Long, ResumoVisitantes> dia : porDia.subMap(inicio.toEpochDay(), true, fim.toEpochDay(), true).entrySet()) {
+            periodo.mesclar(dia.getValue());
+        }
+        return periodo;
+    }
+
+    private static class ResumoVisitantes {
+        private HyperLogLog unicos;
+        private TopFrequentes frequentes;
+
+        ResumoVisitantes() {
+            this.unicos = new HyperLogLog();
+            this.frequentes = new TopFrequentes();
+        }
+
+        void registrar(String placa, long hash) {
+            unicos.adicionarHash(hash);
+            frequentes.adicionar(placa);
+        }
+
+        void mesclar(ResumoVisitantes outro) {
+            unicos.mesclar(outro.unicos);
+            frequentes.mesclar(outro.frequentes);
+        }
+    }
+}
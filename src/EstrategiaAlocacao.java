@@ -0,0 +1,47 @@
+/**
+ * Enumeração das estratégias de escolha de vaga.
+ * Cada estratégia dá uma prioridade a cada vaga livre; o {@link AlocadorVagas} oferece,
+ * dentro de cada categoria, a vaga de menor prioridade.
+ */
+public enum EstrategiaAlocacao {
+    /** Vaga livre de menor número (comportamento original) */
+    PRIMEIRA_LIVRE("Primeira vaga livre") {
+        @Override
+        long prioridade(Vaga vaga) {
+            return vaga.getNumero();
+        }
+    },
+    /** Vaga livre mais próxima da saída (ou elevador); empate pelo menor número */
+    MAIS_PROXIMA("Mais próxima da saída") {
+        @Override
+        long prioridade(Vaga vaga) {
+            return ((long) vaga.getDistancia() << 32) | vaga.getNumero();
+        }
+    };
+
+    private final String descricao;
+
+    /**
+     * Construtor do enum.
+     * @param descricao Nome exibido na interface.
+     */
+    EstrategiaAlocacao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    /**
+     * Obtém o nome da estratégia para exibição.
+     * @return A descrição.
+     */
+    public String getDescricao() {
+        return descricao;
+    }
+
+    // Menor valor = vaga oferecida primeiro
+    abstract long prioridade(Vaga vaga);
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
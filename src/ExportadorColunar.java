@@ -0,0 +1,139 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Exporta o histórico de tickets em um formato binário orientado a colunas.
+ *
+ * Estrutura do arquivo (inteiros em big-endian, como no DataOutputStream):
+ * <pre>
+ * cabeçalho : "SECOL" | versão (int) | total de linhas (int) | linhas por bloco (int)
+ * blocos    : quantidade (int) | para cada bloco: linhas (int) | 6 colunas
+ * coluna    : id (byte) | mínimo (long) | máximo (long) | tamanho em bytes (int) | valores
+ * </pre>
+ * As estatísticas de mínimo e máximo permitem que o leitor descarte blocos inteiros
+ * sem decodificar os valores. Tickets em aberto têm saída igual a {@link #SEM_SAIDA}.
+ *
+ * A coluna de placas guarda o código de {@link CodecPlaca} ({@code long}), que preserva a
+ * ordem das placas; a versão 1 do formato usava um dicionário de strings antes dos blocos.
+ * Desde a versão 3 os horários são gravados como em {@link Ticket#getEntradaEpoch()}
+ * (segundos desde a época no horário local); as versões 1 e 2 gravavam instantes no fuso
+ * do sistema.
+ */
+public class ExportadorColunar {
+
+    /** Assinatura gravada no início do arquivo. */
+    public static final String ASSINATURA = "SECOL";
+    /** Versão do formato. */
+    public static final int VERSAO = 3;
+    /** Quantidade de linhas por bloco de colunas. */
+    public static final int LINHAS_POR_BLOCO = 4096;
+    /** Valor gravado na coluna de saída para tickets ainda em aberto. */
+    public static final long SEM_SAIDA = -1L;
+
+    /** Identificadores das colunas, na ordem em que aparecem em cada bloco. */
+    public static final byte COLUNA_ID = 0;
+    public static final byte COLUNA_PLACA = 1;
+    public static final byte COLUNA_TIPO = 2;
+    public static final byte COLUNA_ENTRADA = 3;
+    public static final byte COLUNA_SAIDA = 4;
+    public static final byte COLUNA_VALOR = 5;
+
+    private ExportadorColunar() {
+    }
+
+    /**
+     * Grava os tickets no arquivo informado.
+     * @param tickets Tickets a exportar.
+     * @param arquivo Caminho do arquivo de destino.
+     * @throws IOException Se ocorrer erro na escrita.
+     */
+    public static void exportar(List<Ticket> tickets, String arquivo) throws IOException {
+        int total = tickets.size();
+        int[] ids = new int[total];
+        long[] placas = new long[total];
+        byte[] tipos = new byte[total];
+        long[] entradas = new long[total];
+        long[] saidas = new long[total];
+        long[] valores = new long[total];
+
+        for (int i = 0; i < total; i++) {
+            Ticket t = tickets.get(i);
+            ids[i] = t.getId();
+            placas[i] = t.getVeiculo().getCodigoPlaca();
+            tipos[i] = (byte) (t.getVeiculo().getTipo() != null ? t.getVeiculo().getTipo().ordinal() : -1);
+            entradas[i] = t.getEntradaEpoch();
+            saidas[i] = t.isFechado() ? t.getSaidaEpoch() : SEM_SAIDA;
+            valores[i] = t.getValorPagoCentavos();
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(arquivo)))) {
+            out.writeBytes(ASSINATURA);
+            out.writeInt(VERSAO);
+            out.writeInt(total);
+            out.writeInt(LINHAS_POR_BLOCO);
+
+            int blocos = (total + LINHAS_POR_BLOCO - 1) / LINHAS_POR_BLOCO;
+            out.writeInt(blocos);
+            for (int b = 0; b < blocos; b++) {
+                int de = b * LINHAS_POR_BLOCO;
+                int ate = Math.min(total, de + LINHAS_POR_BLOCO);
+                out.writeInt(ate - de);
+                escreverColunaInt(out, COLUNA_ID, ids, de, ate);
+                escreverColunaLong(out, COLUNA_PLACA, placas, de, ate);
+                escreverColunaByte(out, COLUNA_TIPO, tipos, de, ate);
+                escreverColunaLong(out, COLUNA_ENTRADA, entradas, de, ate);
+                escreverColunaLong(out, COLUNA_SAIDA, saidas, de, ate);
+                escreverColunaLong(out, COLUNA_VALOR, valores, de, ate);
+            }
+        }
+    }
+
+    private static void escreverColunaInt(DataOutputStream out, byte coluna, int[] valores, int de, int ate) throws IOException {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = de; i < ate; i++) {
+            min = Math.min(min, valores[i]);
+            max = Math.max(max, valores[i]);
+        }
+        escreverCabecalhoColuna(out, coluna, min, max, (ate - de) * Integer.BYTES);
+        for (int i = de; i < ate; i++) {
+            out.writeInt(valores[i]);
+        }
+    }
+
+    private static void escreverColunaByte(DataOutputStream out, byte coluna, byte[] valores, int de, int ate) throws IOException {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = de; i < ate; i++) {
+            min = Math.min(min, valores[i]);
+            max = Math.max(max, valores[i]);
+        }
+        escreverCabecalhoColuna(out, coluna, min, max, ate - de);
+        out.write(valores, de, ate - de);
+    }
+
+    private static void escreverColunaLong(DataOutputStream out, byte coluna, long[] valores, int de, int ate) throws IOException {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = de; i < ate; i++) {
+            // O marcador de ticket em aberto não entra nas estatísticas
+            if (coluna == COLUNA_SAIDA && valores[i] == SEM_SAIDA) continue;
+            min = Math.min(min, valores[i]);
+            max = Math.max(max, valores[i]);
+        }
+        escreverCabecalhoColuna(out, coluna, min, max, (ate - de) * Long.BYTES);
+        for (int i = de; i < ate; i++) {
+            out.writeLong(valores[i]);
+        }
+    }
+
+    private static void escreverCabecalhoColuna(DataOutputStream out, byte coluna, long min, long max, int tamanho) throws IOException {
+        out.writeByte(coluna);
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeInt(tamanho);
+    }
+}
@@ -0,0 +1,201 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Fila de notificações pendentes, segura para uso por várias threads.
+ *
+ * Notificações com a mesma chave são agrupadas em uma única entrada (ex.: "12 entradas
+ * registradas"). A fila tem capacidade limitada: quando cheia, descarta a entrada mais antiga
+ * de menor prioridade (erros são os últimos a sair). A retirada para exibição é limitada por
+ * taxa (balde de fichas), evitando rajadas de janelas.
+ */
+public class FilaNotificacoes {
+
+    /** Capacidade padrão (entradas distintas pendentes). */
+    public static final int CAPACIDADE_PADRAO = 20;
+    /** Exibições novas permitidas por segundo. */
+    public static final int MAX_POR_SEGUNDO_PADRAO = 4;
+
+    /**
+     * Notificação (ou grupo de notificações agrupadas).
+     */
+    public static final class Notificacao {
+        private final String chave;
+        private final SistemaNotificacoes.TipoNotificacao tipo;
+        private final String formatoResumo;
+        private String mensagem;
+        private int quantidade;
+
+        /**
+         * Cria uma notificação.
+         * @param chave Chave de agrupamento.
+         * @param mensagem Texto exibido quando houver uma única ocorrência.
+         * @param formatoResumo Texto com "%d" para várias ocorrências, ou null para repetir a mensagem com contador.
+         * @param tipo Tipo visual.
+         */
+        public Notificacao(String chave, String mensagem, String formatoResumo, SistemaNotificacoes.TipoNotificacao tipo) {
+            this.chave = chave;
+            this.mensagem = mensagem;
+            this.formatoResumo = formatoResumo;
+            this.tipo = tipo;
+            this.quantidade = 1;
+        }
+
+        /**
+         * Agrupa outra ocorrência da mesma chave nesta notificação.
+         * @param outra Notificação agrupada.
+         */
+        public void mesclar(Notificacao outra) {
+            quantidade += outra.quantidade;
+            mensagem = outra.mensagem;
+        }
+
+        public String getChave() {
+            return chave;
+        }
+
+        public SistemaNotificacoes.TipoNotificacao getTipo() {
+            return tipo;
+        }
+
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        /**
+         * Obtém o texto a exibir, já considerando o agrupamento.
+         * @return Mensagem única ou resumo do grupo.
+         */
+        public String getTexto() {
+            if (quantidade == 1) {
+                return mensagem;
+            }
+            return (formatoResumo != null) ? String.format(formatoResumo, quantidade) : mensagem + " (x" + quantidade + ")";
+        }
+    }
+
+    private final int capacidade;
+    private final int maxPorSegundo;
+    private final LinkedHashMap<String, Notificacao> pendentes = new LinkedHashMap<>();
+    private double fichas;
+    private long ultimaRecargaNs;
+    private long descartadas;
+
+    /**
+     * Cria uma fila com os limites padrão.
+     */
+    public FilaNotificacoes() {
+        this(CAPACIDADE_PADRAO, MAX_POR_SEGUNDO_PADRAO);
+    }
+
+    /**
+     * Cria uma fila com limites definidos.
+     * @param capacidade Máximo de entradas distintas pendentes.
+     * @param maxPorSegundo Máximo de retiradas por segundo.
+     * @throws IllegalArgumentException Se algum limite for menor que 1.
+     */
+    public FilaNotificacoes(int capacidade, int maxPorSegundo) {
+        if (capacidade < 1 || maxPorSegundo < 1) {
+            throw new IllegalArgumentException("Capacidade e taxa da fila devem ser positivas.");
+        }
+        this.capacidade = capacidade;
+        this.maxPorSegundo = maxPorSegundo;
+        this.fichas = maxPorSegundo;
+        this.ultimaRecargaNs = System.nanoTime();
+    }
+
+    /**
+     * Enfileira uma notificação, agrupando com uma pendente de mesma chave.
+     * @param notificacao A notificação.
+     */
+    public synchronized void publicar(Notificacao notificacao) {
+        Notificacao existente = pendentes.get(notificacao.chave);
+        if (existente != null) {
+            existente.mesclar(notificacao);
+            return;
+        }
+        if (pendentes.size() >= capacidade) {
+            Notificacao vitima = menosPrioritaria();
+            if (prioridade(notificacao) < prioridade(vitima)) {
+                descartadas += notificacao.quantidade;
+                return;
+            }
+            pendentes.remove(vitima.chave);
+            descartadas += vitima.quantidade;
+        }
+        pendentes.put(notificacao.chave, notificacao);
+    }
+
+    /**
+     * Retira a próxima notificação para exibição, respeitando o limite de taxa.
+     * @param agoraNs Instante atual (System.nanoTime).
+     * @return A notificação ou null se a fila estiver vazia ou a taxa esgotada.
+     */
+    public synchronized Notificacao retirar(long agoraNs) {
+        recarregar(agoraNs);
+        if (pendentes.isEmpty() || fichas < 1) {
+            return null;
+        }
+        fichas -= 1;
+        Iterator<Notificacao> it = pendentes.values().iterator();
+        Notificacao proxima = it.next();
+        it.remove();
+        return proxima;
+    }
+
+    /**
+     * Retira a pendência de uma chave (para agrupar em uma notificação já exibida).
+     * Não consome a taxa, pois não abre janela nova.
+     * @param chave Chave de agrupamento.
+     * @return A notificação pendente ou null.
+     */
+    public synchronized Notificacao retirarChave(String chave) {
+        return pendentes.remove(chave);
+    }
+
+    /**
+     * Verifica se há notificações pendentes.
+     * @return true se vazia.
+     */
+    public synchronized boolean isVazia() {
+        return pendentes.isEmpty();
+    }
+
+    /**
+     * Obtém o total de ocorrências descartadas por falta de espaço.
+     * @return Ocorrências descartadas.
+     */
+    public synchronized long getDescartadas() {
+        return descartadas;
+    }
+
+    private void recarregar(long agoraNs) {
+        double decorrido = (agoraNs - ultimaRecargaNs) / 1e9;
+        if (decorrido > 0) {
+            fichas = Math.min(maxPorSegundo, fichas + decorrido * maxPorSegundo);
+            ultimaRecargaNs = agoraNs;
+        }
+    }
+
+    // Mais antiga entre as de menor prioridade
+    private Notificacao menosPrioritaria() {
+        Notificacao vitima = null;
+        for (Notificacao n : pendentes.values()) {
+            if (vitima == null || prioridade(n) < prioridade(vitima)) {
+                vitima = n;
+            }
+        }
+        return vitima;
+    }
+
+    private static int prioridade(Notificacao n) {
+        switch (n.tipo) {
+            case ERRO:
+                return 3;
+            case AVISO:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+}
@@ -1,166 +1,241 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
 import java.text.DecimalFormat;
 
-public class GraficoOcupacao extends JPanel {
-
-    private Estacionamento estacionamento;
-    private int targetLivres;
-    private int targetOcupadas;
-    private int targetVip;
-    
-    private int currentLivres;
-    private int currentOcupadas;
-    private int currentVip;
-    
-    private Timer animationTimer;
+/**
+ * Gráfico de barras com a distribuição das vagas (livres, ocupadas e VIP livres).
+ *
+ * Os totais vêm dos contadores mantidos pelo {@link Estacionamento}, sem percorrer as vagas.
+ * As partes fixas (fundo, título, eixo e legendas) ficam em uma imagem fora da tela, refeita
+ * apenas quando o tamanho muda. Durante a animação só as colunas das barras que mudaram são
+ * repintadas, o passo se ajusta para respeitar o orçamento de tempo por quadro e o timer para
+ * assim que os valores chegam ao alvo.
+ */
+public class GraficoOcupacao extends JPanel implements OuvinteEstacionamento {
+
+    private static final int INTERVALO_QUADRO_MS = 16;
+    // Tempo máximo de pintura por quadro; acima disso a animação dá passos maiores
+    private static final long ORCAMENTO_QUADRO_NS = 8_000_000L;
+    // Quantidade aproximada de quadros para uma barra chegar ao alvo
+    private static final int QUADROS_ANIMACAO = 20;
+    private static final int PADDING = 50;
+
+    private static final String[] ROTULOS = {"Livres", "Ocupadas", "VIP Livres"};
+    private static final Color[] CORES = {Color.GREEN, Color.RED, Color.ORANGE};
+    private static final Color COR_SOMBRA = new Color(200, 200, 200);
+    private static final Font FONTE_TITULO = new Font("Segoe UI", Font.BOLD, 18);
+    private static final Font FONTE_VALOR = new Font("Segoe UI", Font.BOLD, 14);
+    private static final Font FONTE_PERCENTUAL = new Font("Segoe UI", Font.PLAIN, 12);
+
+    private final Estacionamento estacionamento;
+    private final int[] alvo = new int[3];
+    private final int[] atual = new int[3];
+    private final DecimalFormat formatoPercentual = new DecimalFormat("#0.0%");
+
+    private final Timer animationTimer;
+    private BufferedImage camadaEstatica;
+    private int multiplicadorPasso = 1;
+    private long ultimaPinturaNs;
 
     public GraficoOcupacao(Estacionamento estacionamento) {
         this.estacionamento = estacionamento;
-        this.currentLivres = 0;
-        this.currentOcupadas = 0;
-        this.currentVip = 0;
 
         setBackground(Color.WHITE);
-        
-        // Timer para animação suave
-        animationTimer = new Timer(15, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                boolean updated = false;
-                if (currentLivres != targetLivres) {
-                    currentLivres = approach(currentLivres, targetLivres);
-                    updated = true;
-                }
-                if (currentOcupadas != targetOcupadas) {
-                    currentOcupadas = approach(currentOcupadas, targetOcupadas);
-                    updated = true;
-                }
-                if (currentVip != targetVip) {
-                    currentVip = approach(currentVip, targetVip);
-                    updated = true;
-                }
-                
-                if (updated) {
-                    repaint();
-                } else {
-                    animationTimer.stop();
-                }
-            }
-        });
+        setOpaque(true);
 
-        // Listener para redimensionamento
+        // Timer para animação suave (só roda enquanto alguma barra não chegou ao alvo)
+        animationTimer = new Timer(INTERVALO_QUADRO_MS, e -> avancarQuadro());
+        animationTimer.setCoalesce(true);
+
+        // Redimensionamento invalida a camada estática
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
+                camadaEstatica = null;
                 repaint();
             }
         });
-        
+
         atualizarDados();
     }
 
-    private int approach(int current, int target) {
-        if (current < target) return current + 1;
-        if (current > target) return current - 1;
-        return current;
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        estacionamento.adicionarOuvinte(this);
+        atualizarDados();
     }
 
-    public void atualizarDados() {
-        // Calcula os totais reais
-        int totalVip = 0;
-        int totalOcupadas = 0;
-        int totalLivres = 0;
-
-        for (Vaga v : estacionamento.getVagas()) {
-            if (v.isOcupada()) {
-                totalOcupadas++;
-            } else if (v.isVip()) {
-                totalVip++;
-            } else {
-                totalLivres++;
-            }
+    @Override
+    public void removeNotify() {
+        estacionamento.removerOuvinte(this);
+        animationTimer.stop();
+        super.removeNotify();
+    }
+
+    @Override
+    public void vagaAlterada(Vaga vaga) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            atualizarDados();
+        } else {
+            SwingUtilities.invokeLater(this::atualizarDados);
         }
+    }
 
-        this.targetLivres = totalLivres;
-        this.targetOcupadas = totalOcupadas;
-        this.targetVip = totalVip;
+    /**
+     * Lê os totais atuais e inicia a animação se algum valor mudou.
+     */
+    public void atualizarDados() {
+        int ocupadas = estacionamento.getVagasOcupadas();
+        int vipLivres = estacionamento.getVagasVipLivres();
+        alvo[0] = estacionamento.getVagasLivres() - vipLivres;
+        alvo[1] = ocupadas;
+        alvo[2] = vipLivres;
 
-        if (!animationTimer.isRunning()) {
+        if (!noAlvo() && !animationTimer.isRunning()) {
             animationTimer.start();
         }
     }
 
+    private boolean noAlvo() {
+        for (int i = 0; i < alvo.length; i++) {
+            if (atual[i] != alvo[i]) return false;
+        }
+        return true;
+    }
+
+    private void avancarQuadro() {
+        // Pintura acima do orçamento: dobra o passo para terminar em menos quadros
+        if (ultimaPinturaNs > ORCAMENTO_QUADRO_NS) {
+            multiplicadorPasso = Math.min(multiplicadorPasso * 2, 64);
+        } else if (multiplicadorPasso > 1 && ultimaPinturaNs < ORCAMENTO_QUADRO_NS / 2) {
+            multiplicadorPasso /= 2;
+        }
+
+        for (int i = 0; i < atual.length; i++) {
+            if (atual[i] != alvo[i]) {
+                int diferenca = alvo[i] - atual[i];
+                int passo = Math.max(1, Math.abs(diferenca) / QUADROS_ANIMACAO) * multiplicadorPasso;
+                atual[i] += (diferenca > 0) ? Math.min(passo, diferenca) : Math.max(-passo, diferenca);
+                repaint(areaColuna(i));
+            }
+        }
+
+        if (noAlvo()) {
+            animationTimer.stop();
+            multiplicadorPasso = 1;
+        }
+    }
+
+    // Região da coluna de uma barra: do texto do valor acima da barra até o percentual abaixo
+    private Rectangle areaColuna(int indice) {
+        int larguraBarra = larguraBarra();
+        int x = PADDING * (indice + 1) + larguraBarra * indice;
+        return new Rectangle(x - 2, 40, larguraBarra + 10, getHeight() - 40);
+    }
+
+    private int larguraBarra() {
+        return Math.max(1, (getWidth() - (4 * PADDING)) / 3);
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        long inicio = System.nanoTime();
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) return;
+
+        if (camadaEstatica == null || camadaEstatica.getWidth() != width || camadaEstatica.getHeight() != height) {
+            camadaEstatica = criarCamadaEstatica(width, height);
+        }
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, width, height);
+        // Copia só o trecho da camada estática que precisa ser repintado
+        g.drawImage(camadaEstatica, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+
         Graphics2D g2d = (Graphics2D) g;
-        
-        // Anti-aliasing para melhor qualidade
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        int width = getWidth();
-        int height = getHeight();
-        int padding = 50;
-        int barWidth = (width - (4 * padding)) / 3;
-        int maxBarHeight = height - (2 * padding) - 40; // Espaço para texto
-
-        int totalVagas = estacionamento.getVagas().size();
-        if (totalVagas == 0) totalVagas = 1; // Evita divisão por zero
-
-        // Desenha as barras
-        desenharBarra(g2d, "Livres", currentLivres, totalVagas, Color.GREEN, padding, height - padding, barWidth, maxBarHeight);
-        desenharBarra(g2d, "Ocupadas", currentOcupadas, totalVagas, Color.RED, padding * 2 + barWidth, height - padding, barWidth, maxBarHeight);
-        desenharBarra(g2d, "VIP Livres", currentVip, totalVagas, Color.ORANGE, padding * 3 + barWidth * 2, height - padding, barWidth, maxBarHeight);
-        
-        // Título
-        g2d.setColor(Color.BLACK);
-        g2d.setFont(new Font("Segoe UI", Font.BOLD, 18));
-        String titulo = "Distribuição de Vagas";
-        FontMetrics fm = g2d.getFontMetrics();
-        g2d.drawString(titulo, (width - fm.stringWidth(titulo)) / 2, 30);
+        int totalVagas = Math.max(1, estacionamento.getVagas().size());
+        int maxBarHeight = height - (2 * PADDING) - 40; // Espaço para texto
+        for (int i = 0; i < atual.length; i++) {
+            if (areaColuna(i).intersects(clip)) {
+                desenharBarra(g2d, i, totalVagas, height - PADDING, maxBarHeight);
+            }
+        }
+        ultimaPinturaNs = System.nanoTime() - inicio;
     }
 
-    private void desenharBarra(Graphics2D g2d, String label, int valor, int total, Color cor, int x, int yBase, int largura, int alturaMax) {
+    private BufferedImage criarCamadaEstatica(int width, int height) {
+        BufferedImage imagem = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = imagem.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, width, height);
+
+            // Título
+            g2d.setColor(Color.BLACK);
+            g2d.setFont(FONTE_TITULO);
+            String titulo = "Distribuição de Vagas";
+            FontMetrics fm = g2d.getFontMetrics();
+            g2d.drawString(titulo, (width - fm.stringWidth(titulo)) / 2, 30);
+
+            // Eixo base e legendas das barras
+            int yBase = height - PADDING;
+            g2d.setColor(Color.LIGHT_GRAY);
+            g2d.drawLine(PADDING / 2, yBase, width - PADDING / 2, yBase);
+
+            int larguraBarra = larguraBarra();
+            g2d.setColor(Color.BLACK);
+            g2d.setFont(FONTE_VALOR);
+            fm = g2d.getFontMetrics();
+            for (int i = 0; i < ROTULOS.length; i++) {
+                int x = PADDING * (i + 1) + larguraBarra * i;
+                g2d.drawString(ROTULOS[i], x + (larguraBarra - fm.stringWidth(ROTULOS[i])) / 2, yBase + 20);
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return imagem;
+    }
+
+    private void desenharBarra(Graphics2D g2d, int indice, int total, int yBase, int alturaMax) {
+        int valor = atual[indice];
+        int largura = larguraBarra();
+        int x = PADDING * (indice + 1) + largura * indice;
         double percentual = (double) valor / total;
         int alturaBarra = (int) (percentual * alturaMax);
-        
+
         // Sombra
-        g2d.setColor(new Color(200, 200, 200));
+        g2d.setColor(COR_SOMBRA);
         g2d.fillRect(x + 5, yBase - alturaBarra + 5, largura, alturaBarra);
 
         // Barra
-        g2d.setColor(cor);
+        g2d.setColor(CORES[indice]);
         g2d.fillRect(x, yBase - alturaBarra, largura, alturaBarra);
-        
+
         // Borda
         g2d.setColor(Color.DARK_GRAY);
         g2d.drawRect(x, yBase - alturaBarra, largura, alturaBarra);
 
-        // Texto (Valor e Percentual)
+        // Valor acima da barra
         g2d.setColor(Color.BLACK);
-        g2d.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        
-        String textoValor = String.valueOf(valor);
-        String textoPercent = new DecimalFormat("#0.0%").format(percentual);
-        
+        g2d.setFont(FONTE_VALOR);
         FontMetrics fm = g2d.getFontMetrics();
-        
-        // Centraliza texto na barra
-        int textX = x + (largura - fm.stringWidth(textoValor)) / 2;
-        g2d.drawString(textoValor, textX, yBase - alturaBarra - 5);
-        
-        // Legenda abaixo da barra
-        int labelX = x + (largura - fm.stringWidth(label)) / 2;
-        g2d.drawString(label, labelX, yBase + 20);
-        
+        String textoValor = String.valueOf(valor);
+        g2d.drawString(textoValor, x + (largura - fm.stringWidth(textoValor)) / 2, yBase - alturaBarra - 5);
+
         // Percentual abaixo da legenda
-        g2d.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        int perX = x + (largura - fm.stringWidth(textoPercent)) / 2;
+        g2d.setFont(FONTE_PERCENTUAL);
+        String textoPercent = formatoPercentual.format(percentual);
+        int perX = x + (largura - g2d.getFontMetrics().stringWidth(textoPercent)) / 2;
         g2d.drawString(textoPercent, perX, yBase + 40);
     }
 }
@@ -0,0 +1,157 @@
+import java.util.Base64;
+
+/**
+ * Estimador de cardinalidade (quantidade de elementos distintos) com memória fixa.
+ * Usa 2^precisao registradores de um byte; com a precisão padrão (11) ocupa 2 KB e
+ * o erro típico fica em torno de 2,3%. Dois estimadores com a mesma precisão são
+ * mesclados tomando o máximo de cada registrador.
+ */
+public class HyperLogLog {
+
+    /** Precisão padrão (2048 registradores). */
+    public static final int PRECISAO_PADRAO = 11;
+
+    private final int precisao;
+    private final byte[] registradores;
+
+    /**
+     * Cria um estimador com a precisão padrão.
+     */
+    public HyperLogLog() {
+        this(PRECISAO_PADRAO);
+    }
+
+    /**
+     * Cria um estimador com a precisão informada.
+     * @param precisao Bits usados para escolher o registrador (4 a 16).
+     * @throws IllegalArgumentException Se a precisão estiver fora da faixa.
+     */
+    public HyperLogLog(int precisao) {
+        this(precisao, new byte[1 << validarPrecisao(precisao)]);
+    }
+
+    private HyperLogLog(int precisao, byte[] registradores) {
+        this.precisao = precisao;
+        this.registradores = registradores;
+    }
+
+    private static int validarPrecisao(int precisao) {
+        if (precisao < 4 || precisao > 16) {
+            throw new IllegalArgumentException("A precisão do HyperLogLog deve estar entre 4 e 16.");
+        }
+        return precisao;
+    }
+
+    /**
+     * Registra um elemento a partir do seu hash de 64 bits.
+     * @param hash Hash bem distribuído do elemento (ver {@link #hash(String)}).
+     */
+    public void adicionarHash(long hash) {
+        int indice = (int) (hash >>> (64 - precisao));
+        // Posição do primeiro bit 1 nos bits restantes (o bit sentinela limita o resultado)
+        long resto = (hash << precisao) | (1L << (precisao - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(resto) + 1);
+        if (rank > registradores[indice]) {
+            registradores[indice] = rank;
+        }
+    }
+
+    /**
+     * Registra um texto (ex.: uma placa).
+     * @param valor O texto.
+     */
+    public void adicionar(String valor) {
+        adicionarHash(hash(valor));
+    }
+
+    /**
+     * Incorpora outro estimador ao atual.
+     * @param outro Estimador com a mesma precisão.
+     * @throws IllegalArgumentException Se as precisões forem diferentes.
+     */
+    public void mesclar(HyperLogLog outro) {
+        if (outro.precisao != precisao) {
+            throw new IllegalArgumentException("Só é possível mesclar estimadores com a mesma precisão.");
+        }
+        for (int i = 0; i < registradores.length; i++) {
+            if (outro.registradores[i] > registradores[i]) {
+                registradores[i] = outro.registradores[i];
+            }
+        }
+    }
+
+    /**
+     * Estima a quantidade de elementos distintos registrados.
+     * @return A estimativa.
+     */
+    public long estimar() {
+        int m = registradores.length;
+        double soma = 0;
+        int zeros = 0;
+        for (byte r : registradores) {
+            soma += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double alfa = 0.7213 / (1 + 1.079 / m);
+        double estimativa = alfa * m * m / soma;
+        // Correção para cardinalidades pequenas (contagem linear)
+        if (estimativa <= 2.5 * m && zeros > 0) {
+            estimativa = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimativa);
+    }
+
+    /**
+     * Serializa os registradores em texto compacto (usado pelo snapshot JSON).
+     * @return Texto no formato "precisao:base64".
+     */
+    public String paraTexto() {
+        return precisao + ":" + Base64.getEncoder().encodeToString(registradores);
+    }
+
+    /**
+     * Reconstrói um estimador a partir de {@link #paraTexto()}.
+     * @param texto O texto serializado.
+     * @return O estimador.
+     * @throws IllegalArgumentException Se o texto for inválido.
+     */
+    public static HyperLogLog deTexto(String texto) {
+        int separador = texto.indexOf(':');
+        if (separador < 0) {
+            throw new IllegalArgumentException("HyperLogLog serializado inválido.");
+        }
+        int precisao = validarPrecisao(Integer.parseInt(texto.substring(0, separador)));
+        byte[] registradores = Base64.getDecoder().decode(texto.substring(separador + 1));
+        if (registradores.length != (1 << precisao)) {
+            throw new IllegalArgumentException("HyperLogLog serializado inválido.");
+        }
+        return new HyperLogLog(precisao, registradores);
+    }
+
+    /**
+     * Calcula um hash de 64 bits bem distribuído para um texto.
+     * @param valor O texto.
+     * @return O hash.
+     */
+    public static long hash(String valor) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < valor.length(); i++) {
+            h = 31 * h + valor.charAt(i);
+        }
+        return misturar(h);
+    }
+
+    /**
+     * Finalizador do MurmurHash3: espalha os bits de um valor de 64 bits.
+     * @param h Valor de entrada.
+     * @return Valor misturado.
+     */
+    public static long misturar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
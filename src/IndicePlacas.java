@@ -0,0 +1,98 @@
+/**
+ * Mapa de placas codificadas ({@link CodecPlaca}) para posições inteiras.
+ *
+ * Mesma organização de {@link MapaPlacas} (endereçamento aberto, sondagem linear), mas com
+ * os valores num vetor de {@code int}: inclusões e consultas não criam {@code Integer}.
+ * Serve a índices que só crescem (dicionários), por isso não há remoção.
+ */
+public class IndicePlacas {
+
+    /** Valor devolvido por {@link #get(long)} quando a placa não está no índice. */
+    public static final int AUSENTE = -1;
+
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    private long[] chaves;
+    private int[] valores;
+    private int tamanho;
+    private int mascara;
+
+    /**
+     * Cria um índice vazio.
+     */
+    public IndicePlacas() {
+        chaves = new long[CAPACIDADE_INICIAL];
+        valores = new int[CAPACIDADE_INICIAL];
+        mascara = CAPACIDADE_INICIAL - 1;
+    }
+
+    /**
+     * Obtém a posição associada a uma placa.
+     * @param codigo Código da placa.
+     * @return A posição ou {@link #AUSENTE}.
+     */
+    public int get(long codigo) {
+        if (codigo == CodecPlaca.INVALIDA) {
+            return AUSENTE;
+        }
+        for (int i = posicao(codigo); ; i = (i + 1) & mascara) {
+            long chave = chaves[i];
+            if (chave == codigo) return valores[i];
+            if (chave == CodecPlaca.INVALIDA) return AUSENTE;
+        }
+    }
+
+    /**
+     * Associa uma posição a uma placa.
+     * @param codigo Código da placa.
+     * @param valor Posição (não negativa).
+     * @throws IllegalArgumentException Se o código for inválido ou a posição negativa.
+     */
+    public void put(long codigo, int valor) {
+        if (codigo == CodecPlaca.INVALIDA || valor < 0) {
+            throw new IllegalArgumentException("Placa e posição são obrigatórias.");
+        }
+        int i = posicao(codigo);
+        while (chaves[i] != CodecPlaca.INVALIDA) {
+            if (chaves[i] == codigo) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = codigo;
+        valores[i] = valor;
+        if (++tamanho * 4 > chaves.length * 3) {
+            redimensionar(chaves.length * 2);
+        }
+    }
+
+    /**
+     * Obtém a quantidade de placas no índice.
+     * @return Total de entradas.
+     */
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    private int posicao(long codigo) {
+        long h = codigo * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void redimensionar(int capacidade) {
+        long[] antigasChaves = chaves;
+        int[] antigosValores = valores;
+        chaves = new long[capacidade];
+        valores = new int[capacidade];
+        mascara = capacidade - 1;
+        for (int i = 0; i < antigasChaves.length; i++) {
+            if (antigasChaves[i] != CodecPlaca.INVALIDA) {
+                int j = posicao(antigasChaves[i]);
+                while (chaves[j] != CodecPlaca.INVALIDA) j = (j + 1) & mascara;
+                chaves[j] = antigasChaves[i];
+                valores[j] = antigosValores[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice em memória dos veículos estacionados.
+ * Guarda o acesso direto por placa (ticket ativo e vaga) e um índice de n-gramas
+ * (1 a 3 caracteres) sobre placa, modelo e cor, permitindo buscas por trecho sem
+ * percorrer todas as vagas. As placas entram codificadas ({@link CodecPlaca}): a consulta
+ * por placa, usada em toda entrada e saída, não cria objetos.
+ *
+ * Cada n-grama vira um {@code int} (tamanho e até três caracteres de 10 bits) e aponta para
+ * um vetor ordenado de códigos de placa: incluir e retirar um veículo não cria strings,
+ * {@code Long} nem conjuntos por n-grama, e a interseção de uma busca longa é feita por
+ * busca binária nos vetores. Caracteres fora da faixa de 10 bits compartilham um código,
+ * por isso termos com eles sempre são confirmados no texto.
+ *
+ * Os métodos são sincronizados: o índice é alterado pela thread que registra entradas
+ * e saídas e pode ser consultado em paralelo por uma thread de busca.
+ */
+public class IndiceVeiculos {
+
+    private static final int TAMANHO_GRAMA = 3;
+    private static final int BITS_CARACTERE = 10;
+    // Código comum dos caracteres que não cabem em BITS_CARACTERE
+    private static final int CARACTERE_RARO = (1 << BITS_CARACTERE) - 1;
+
+    /**
+     * Veículo estacionado: a vaga ocupada e o ticket em aberto.
+     * Os registros devolvidos por {@link Estacionamento#pesquisarVeiculos} trazem também o
+     * número da vaga e a duração copiados sob a trava do estacionamento, para exibição fora dela.
+     */
+    public static final class Registro {
+        private final Veiculo veiculo;
+        private final Vaga vaga;
+        private final Ticket ticket;
+        private final int numeroVaga;
+        private final String duracao;
+
+        Registro(Veiculo veiculo, Vaga vaga, Ticket ticket) {
+            this(veiculo, vaga, ticket, null);
+        }
+
+        private Registro(Veiculo veiculo, Vaga vaga, Ticket ticket, String duracao) {
+            this.veiculo = veiculo;
+            this.vaga = vaga;
+            this.ticket = ticket;
+            this.numeroVaga = (vaga != null) ? vaga.getNumero() : 0;
+            this.duracao = duracao;
+        }
+
+        // Cópia com a duração calculada no instante informado
+        Registro fotografar(long agoraEpoch) {
+            return new Registro(veiculo, vaga, ticket, ticket.formatarDuracao(agoraEpoch));
+        }
+
+        public Veiculo getVeiculo() {
+            return veiculo;
+        }
+
+        public Vaga getVaga() {
+            return vaga;
+        }
+
+        public Ticket getTicket() {
+            return ticket;
+        }
+
+        /** @return Número da vaga (0 se o veículo não ocupa vaga). */
+        public int getNumeroVaga() {
+            return numeroVaga;
+        }
+
+        /** @return Duração da estadia no momento da pesquisa ou null fora de uma pesquisa. */
+        public String getDuracao() {
+            return duracao;
+        }
+    }
+
+    /**
+     * Mapa de n-gramas (codificados em {@code int}) para vetores ordenados de códigos de placa.
+     * Endereçamento aberto; n-gramas que ficam sem placas continuam no mapa com lista vazia
+     * (o alfabeto de n-gramas é limitado).
+     */
+    private static final class MapaGramas {
+        private static final long[] VAZIO = new long[0];
+
+        private int[] chaves = new int[64];
+        private long[][] placas = new long[64][];
+        private int[] tamanhos = new int[64];
+        private int ocupadas;
+
+        // Posição do n-grama ou -1; o código 0 nunca é um n-grama (tamanho mínimo 1)
+        int posicao(int grama) {
+            int mascara = chaves.length - 1;
+            for (int i = espalhar(grama) & mascara; ; i = (i + 1) & mascara) {
+                if (chaves[i] == grama) return i;
+                if (chaves[i] == 0) return -1;
+            }
+        }
+
+        int tamanho(int posicao) {
+            return (posicao < 0) ? 0 : tamanhos[posicao];
+        }
+
+        long[] placas(int posicao) {
+            return (posicao < 0) ? VAZIO : placas[posicao];
+        }
+
+        void adicionar(int grama, long placa) {
+            int p = posicao(grama);
+            if (p < 0) {
+                p = inserir(grama);
+            }
+            long[] lista = placas[p];
+            int n = tamanhos[p];
+            int i = Arrays.binarySearch(lista, 0, n, placa);
+            if (i >= 0) {
+                return; // o mesmo n-grama em outro campo do veículo
+            }
+            i = -i - 1;
+            if (n == lista.length) {
+                lista = placas[p] = Arrays.copyOf(lista, Math.max(4, n * 2));
+            }
+            System.arraycopy(lista, i, lista, i + 1, n - i);
+            lista[i] = placa;
+            tamanhos[p] = n + 1;
+        }
+
+        void remover(int grama, long placa) {
+            int p = posicao(grama);
+            if (p < 0) {
+                return;
+            }
+            long[] lista = placas[p];
+            int n = tamanhos[p];
+            int i = Arrays.binarySearch(lista, 0, n, placa);
+            if (i >= 0) {
+                System.arraycopy(lista, i + 1, lista, i, n - i - 1);
+                tamanhos[p] = n - 1;
+            }
+        }
+
+        private int inserir(int grama) {
+            if ((ocupadas + 1) * 4 > chaves.length * 3) {
+                redimensionar();
+            }
+            int mascara = chaves.length - 1;
+            int i = espalhar(grama) & mascara;
+            while (chaves[i] != 0) i = (i + 1) & mascara;
+            chaves[i] = grama;
+            placas[i] = VAZIO;
+            ocupadas++;
+            return i;
+        }
+
+        private void redimensionar() {
+            int[] antigasChaves = chaves;
+            long[][] antigasPlacas = placas;
+            int[] antigosTamanhos = tamanhos;
+            chaves = new int[antigasChaves.length * 2];
+            placas = new long[chaves.length][];
+            tamanhos = new int[chaves.length];
+            int mascara = chaves.length - 1;
+            for (int j = 0; j < antigasChaves.length; j++) {
+                if (antigasChaves[j] == 0) continue;
+                int i = espalhar(antigasChaves[j]) & mascara;
+                while (chaves[i] != 0) i = (i + 1) & mascara;
+                chaves[i] = antigasChaves[j];
+                placas[i] = antigasPlacas[j];
+                tamanhos[i] = antigosTamanhos[j];
+            }
+        }
+
+        private static int espalhar(int grama) {
+            int h = grama * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private final MapaPlacas<Registro> porPlaca = new MapaPlacas<>();
+    private final MapaGramas gramas = new MapaGramas();
+
+    /**
+     * Inclui um veículo estacionado no índice.
+     * @param vaga Vaga ocupada pelo veículo.
+     * @param ticket Ticket em aberto do veículo.
+     */
+    public synchronized void adicionar(Vaga vaga, Ticket ticket) {
+        Veiculo v = ticket.getVeiculo();
+        long placa = v.getCodigoPlaca();
+        remover(placa);
+        porPlaca.put(placa, new Registro(v, vaga, ticket));
+        indexar(v, placa, true);
+    }
+
+    /**
+     * Retira um veículo do índice (na saída).
+     * @param placa Placa do veículo.
+     */
+    public synchronized void remover(String placa) {
+        remover(CodecPlaca.codificar(placa));
+    }
+
+    /**
+     * Retira um veículo do índice (na saída).
+     * @param placa Código da placa.
+     */
+    public synchronized void remover(long placa) {
+        Registro registro = porPlaca.remover(placa);
+        if (registro != null) {
+            indexar(registro.veiculo, placa, false);
+        }
+    }
+
+    /**
+     * Obtém o registro de um veículo estacionado.
+     * @param placa Placa (sem diferenciar maiúsculas).
+     * @return O registro ou null se o veículo não estiver estacionado.
+     */
+    public synchronized Registro buscar(String placa) {
+        return porPlaca.get(CodecPlaca.codificar(placa));
+    }
+
+    /**
+     * Obtém o registro de um veículo estacionado.
+     * @param placa Código da placa.
+     * @return O registro ou null se o veículo não estiver estacionado.
+     */
+    public synchronized Registro buscar(long placa) {
+        return porPlaca.get(placa);
+    }
+
+    /**
+     * Pesquisa veículos cuja placa, modelo ou cor contenham o termo.
+     * Termos com até três caracteres são respondidos direto pelo índice; termos maiores
+     * usam a interseção dos trigramas e depois confirmam o trecho completo.
+     * @param termo Trecho procurado; vazio lista todos os veículos.
+     * @return Registros encontrados, na ordem de entrada.
+     */
+    public synchronized List<Registro> pesquisar(String termo) {
+        String busca = normalizar(termo);
+        if (busca.isEmpty()) {
+            List<Registro> todos = porPlaca.valores();
+            todos.sort((a, b) -> Integer.compare(a.ticket.getId(), b.ticket.getId()));
+            return todos;
+        }
+
+        long[] candidatos;
+        int quantidade;
+        boolean confirmar;
+        if (busca.length() <= TAMANHO_GRAMA) {
+            int p = gramas.posicao(codificar(busca, 0, busca.length()));
+            candidatos = gramas.placas(p);
+            quantidade = gramas.tamanho(p);
+            confirmar = temCaractereRaro(busca);
+        } else {
+            // Começa pelo menor vetor e mantém só as placas presentes em todos os trigramas
+            int trigramas = busca.length() - TAMANHO_GRAMA + 1;
+            int[] posicoes = new int[trigramas];
+            int menor = 0;
+            for (int i = 0; i < trigramas; i++) {
+                posicoes[i] = gramas.posicao(codificar(busca, i, TAMANHO_GRAMA));
+                if (gramas.tamanho(posicoes[i]) == 0) {
+                    return new ArrayList<>();
+                }
+                if (gramas.tamanho(posicoes[i]) < gramas.tamanho(posicoes[menor])) menor = i;
+            }
+            candidatos = Arrays.copyOf(gramas.placas(posicoes[menor]), gramas.tamanho(posicoes[menor]));
+            quantidade = candidatos.length;
+            for (int i = 0; i < trigramas && quantidade > 0; i++) {
+                if (i == menor) continue;
+                long[] outras = gramas.placas(posicoes[i]);
+                int tamanhoOutras = gramas.tamanho(posicoes[i]);
+                int mantidos = 0;
+                for (int j = 0; j < quantidade; j++) {
+                    if (Arrays.binarySearch(outras, 0, tamanhoOutras, candidatos[j]) >= 0) {
+                        candidatos[mantidos++] = candidatos[j];
+                    }
+                }
+                quantidade = mantidos;
+            }
+            confirmar = true;
+        }
+
+        // Só os candidatos são visitados; a ordem de entrada vem do ID do ticket
+        List<Registro> resultado = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Registro registro = porPlaca.get(candidatos[i]);
+            if (!confirmar || contem(registro.veiculo, busca)) {
+                resultado.add(registro);
+            }
+        }
+        resultado.sort((a, b) -> Integer.compare(a.ticket.getId(), b.ticket.getId()));
+        return resultado;
+    }
+
+    /**
+     * Obtém a quantidade de veículos indexados.
+     * @return Total de veículos estacionados.
+     */
+    public synchronized int getTamanho() {
+        return porPlaca.getTamanho();
+    }
+
+    // Inclui (ou retira) a placa em todos os n-gramas de placa, modelo e cor
+    private void indexar(Veiculo v, long placa, boolean incluir) {
+        for (String campo : campos(v)) {
+            for (int tamanho = 1; tamanho <= TAMANHO_GRAMA; tamanho++) {
+                for (int i = 0; i + tamanho <= campo.length(); i++) {
+                    int grama = codificar(campo, i, tamanho);
+                    if (incluir) {
+                        gramas.adicionar(grama, placa);
+                    } else {
+                        gramas.remover(grama, placa);
+                    }
+                }
+            }
+        }
+    }
+
+    // Tamanho nos 2 bits altos e os caracteres em blocos de 10 bits
+    private static int codificar(String texto, int inicio, int tamanho) {
+        int codigo = tamanho;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            codigo = (codigo << BITS_CARACTERE) | Math.min(texto.charAt(i), CARACTERE_RARO);
+        }
+        return codigo << (BITS_CARACTERE * (TAMANHO_GRAMA - tamanho));
+    }
+
+    private static boolean temCaractereRaro(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= CARACTERE_RARO) return true;
+        }
+        return false;
+    }
+
+    private static boolean contem(Veiculo v, String busca) {
+        for (String campo : campos(v)) {
+            if (campo.contains(busca)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] campos(Veiculo v) {
+        return new String[]{normalizar(v.getPlaca()), normalizar(v.getModelo()), normalizar(v.getCor())};
+    }
+
+    private static String normalizar(String texto) {
+        return (texto == null) ? "" : texto.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+/**
+ * Leitor do formato colunar gerado por {@link ExportadorColunar}.
+ * Percorre o arquivo bloco a bloco e usa as estatísticas de mínimo/máximo de cada coluna
+ * para descartar blocos que não podem conter linhas do filtro, sem decodificar os valores.
+ * As placas são comparadas pelo código de {@link CodecPlaca}; arquivos da versão 1, com
+ * dicionário de strings, têm o dicionário convertido em códigos na abertura. Horários de
+ * arquivos anteriores à versão 3 (instantes no fuso do sistema) são convertidos para o eixo
+ * local de {@link Ticket#paraEpoch}, o mesmo dos filtros e dos arquivos atuais.
+ *
+ * Uso pela linha de comando:
+ * <pre>
+ * java LeitorColunar arquivo.col [placa|*] [dataInicio dataFim]
+ * </pre>
+ */
+public class LeitorColunar {
+
+    /**
+     * Recebe as linhas que passaram pelo filtro.
+     */
+    public interface ConsumidorLinha {
+        /**
+         * @param placa Código da placa ({@link CodecPlaca#decodificar(long)} obtém o texto).
+         */
+        void aceitar(int id, long placa, TipoVeiculo tipo, long entrada, long saida, long valorCentavos);
+    }
+
+    private final String arquivo;
+    private int totalLinhas;
+    private int blocosLidos;
+    private int blocosDescartados;
+
+    /**
+     * Cria um leitor para o arquivo informado.
+     * @param arquivo Caminho do arquivo colunar.
+     */
+    public LeitorColunar(String arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    /**
+     * Percorre o arquivo aplicando os filtros informados.
+     *
+     * @param entradaDe Menor horário de entrada aceito (epoch em segundos, horário local), inclusive.
+     * @param entradaAte Maior horário de entrada aceito (epoch em segundos, horário local), inclusive.
+     * @param placa Placa a filtrar ou null para todas.
+     * @param consumidor Destino das linhas selecionadas.
+     * @return Quantidade de linhas entregues ao consumidor.
+     * @throws IOException Se o arquivo não puder ser lido ou estiver em formato inválido.
+     */
+    public long varrer(long entradaDe, long entradaAte, String placa, ConsumidorLinha consumidor) throws IOException {
+        long entregues = 0;
+        blocosLidos = 0;
+        blocosDescartados = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(arquivo)))) {
+            byte[] assinatura = new byte[ExportadorColunar.ASSINATURA.length()];
+            in.readFully(assinatura);
+            if (!ExportadorColunar.ASSINATURA.equals(new String(assinatura, "US-ASCII"))) {
+                throw new IOException("Arquivo não está no formato colunar.");
+            }
+            int versao = in.readInt();
+            if (versao < 1 || versao > ExportadorColunar.VERSAO) {
+                throw new IOException("Versão do formato não suportada: " + versao);
+            }
+            // Versões 1 e 2: horários gravados como instantes no fuso do sistema
+            ZoneRules fuso = (versao < 3) ? ZoneId.systemDefault().getRules() : null;
+            totalLinhas = in.readInt();
+            in.readInt(); // linhas por bloco
+
+            long codigoPlaca = CodecPlaca.codificar(placa);
+            if (placa != null && codigoPlaca == CodecPlaca.INVALIDA) {
+                return 0; // Nenhum ticket pode ter uma placa inválida
+            }
+
+            // Versão 1: a coluna guarda a posição da placa em um dicionário de strings
+            long[] dicionario = null;
+            if (versao == 1) {
+                dicionario = new long[in.readInt()];
+                for (int i = 0; i < dicionario.length; i++) {
+                    dicionario[i] = CodecPlaca.codificar(in.readUTF());
+                }
+            }
+
+            TipoVeiculo[] tipos = TipoVeiculo.values();
+            int blocos = in.readInt();
+            Coluna[] colunas = new Coluna[6];
+            for (int c = 0; c < colunas.length; c++) {
+                colunas[c] = new Coluna();
+            }
+
+            for (int b = 0; b < blocos; b++) {
+                int linhas = in.readInt();
+                for (Coluna coluna : colunas) {
+                    coluna.ler(in);
+                }
+                blocosLidos++;
+
+                Coluna colPlaca = colunas[ExportadorColunar.COLUNA_PLACA];
+                Coluna colEntrada = colunas[ExportadorColunar.COLUNA_ENTRADA];
+                // Na conversão de instantes, trocas de horário de verão deslocam a ordem em até 1 hora
+                long folga = (fuso != null) ? 3600 : 0;
+                boolean descartar = paraLocal(colEntrada.max, fuso) + folga < entradaDe
+                        || paraLocal(colEntrada.min, fuso) - folga > entradaAte
+                        || (placa != null && dicionario == null && (codigoPlaca < colPlaca.min || codigoPlaca > colPlaca.max));
+                if (descartar) {
+                    blocosDescartados++;
+                    continue;
+                }
+
+                ByteBuffer ids = colunas[ExportadorColunar.COLUNA_ID].valores();
+                ByteBuffer placas = colPlaca.valores();
+                ByteBuffer tiposCol = colunas[ExportadorColunar.COLUNA_TIPO].valores();
+                ByteBuffer entradas = colEntrada.valores();
+                ByteBuffer saidas = colunas[ExportadorColunar.COLUNA_SAIDA].valores();
+                ByteBuffer valores = colunas[ExportadorColunar.COLUNA_VALOR].valores();
+
+                for (int i = 0; i < linhas; i++) {
+                    long entrada = paraLocal(entradas.getLong(i * Long.BYTES), fuso);
+                    long codigo = (dicionario != null) ? dicionario[placas.getInt(i * Integer.BYTES)] : placas.getLong(i * Long.BYTES);
+                    if (entrada < entradaDe || entrada > entradaAte || (placa != null && codigo != codigoPlaca)) {
+                        continue;
+                    }
+                    byte tipo = tiposCol.get(i);
+                    consumidor.aceitar(
+                        ids.getInt(i * Integer.BYTES),
+                        codigo,
+                        (tipo >= 0 && tipo < tipos.length) ? tipos[tipo] : null,
+                        entrada,
+                        paraSaidaLocal(saidas.getLong(i * Long.BYTES), fuso),
+                        valores.getLong(i * Long.BYTES)
+                    );
+                    entregues++;
+                }
+            }
+        }
+        return entregues;
+    }
+
+    // Instante (arquivos antigos) para o eixo local; sem fuso o valor já está no eixo local
+    private static long paraLocal(long epoch, ZoneRules fuso) {
+        if (fuso == null) {
+            return epoch;
+        }
+        return epoch + fuso.getOffset(Instant.ofEpochSecond(epoch)).getTotalSeconds();
+    }
+
+    private static long paraSaidaLocal(long saida, ZoneRules fuso) {
+        return (saida == ExportadorColunar.SEM_SAIDA) ? saida : paraLocal(saida, fuso);
+    }
+
+    /**
+     * Obtém o total de linhas declarado no arquivo (disponível após {@link #varrer}).
+     * @return Total de linhas.
+     */
+    public int getTotalLinhas() {
+        return totalLinhas;
+    }
+
+    /**
+     * Obtém quantos blocos foram lidos na última varredura.
+     * @return Blocos lidos.
+     */
+    public int getBlocosLidos() {
+        return blocosLidos;
+    }
+
+    /**
+     * Obtém quantos blocos foram descartados pelas estatísticas na última varredura.
+     * @return Blocos descartados.
+     */
+    public int getBlocosDescartados() {
+        return blocosDescartados;
+    }
+
+    // Bloco de uma coluna: o conteúdo bruto é lido, mas só é decodificado se o bloco for usado
+    private static final class Coluna {
+        private long min;
+        private long max;
+        private byte[] dados = new byte[0];
+        private int tamanho;
+
+        void ler(DataInputStream in) throws IOException {
+            in.readByte();
+            min = in.readLong();
+            max = in.readLong();
+            tamanho = in.readInt();
+            if (dados.length < tamanho) {
+                dados = new byte[tamanho];
+            }
+            in.readFully(dados, 0, tamanho);
+        }
+
+        ByteBuffer valores() {
+            return ByteBuffer.wrap(dados, 0, tamanho);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Uso: java LeitorColunar arquivo.col [placa|*] [dataInicio dataFim]");
+            return;
+        }
+        String placa = (args.length > 1 && !args[1].equals("*")) ? args[1].toUpperCase() : null;
+        long de = Long.MIN_VALUE;
+        long ate = Long.MAX_VALUE;
+        if (args.length > 3) {
+            de = Ticket.paraEpoch(LocalDate.parse(args[2]).atStartOfDay());
+            ate = Ticket.paraEpoch(LocalDate.parse(args[3]).plusDays(1).atStartOfDay()) - 1;
+        }
+
+        LeitorColunar leitor = new LeitorColunar(args[0]);
+        long[] totalCentavos = {0};
+        long linhas = leitor.varrer(de, ate, placa, (id, p, tipo, entrada, saida, valor) -> totalCentavos[0] += valor);
+
+        System.out.println("Linhas no arquivo:   " + leitor.getTotalLinhas());
+        System.out.println("Linhas selecionadas: " + linhas);
+        System.out.println("Blocos lidos:        " + leitor.getBlocosLidos() + " (descartados: " + leitor.getBlocosDescartados() + ")");
+        System.out.println("Total arrecadado:    " + Dinheiro.formatar(totalCentavos[0]));
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Registra a duração de cada fase da inicialização e imprime a linha do tempo no console.
+ * As fases podem ser medidas em threads diferentes (carregamentos paralelos).
+ */
+public class LinhaDoTempoInicializacao {
+
+    private final long inicioNs;
+    private final List<String> fases = new ArrayList<>();
+    // {início, fim, 1 se medido na thread da interface}
+    private final List<long[]> tempos = new ArrayList<>();
+
+    /**
+     * Começa a contar a partir de agora.
+     */
+    public LinhaDoTempoInicializacao() {
+        this.inicioNs = System.nanoTime();
+    }
+
+    /**
+     * Executa e mede uma fase.
+     * @param fase Nome da fase.
+     * @param acao Trabalho da fase.
+     * @param <T> Tipo do resultado.
+     * @return O resultado da fase.
+     */
+    public <T> T medir(String fase, Supplier<T> acao) {
+        long inicio = System.nanoTime();
+        try {
+            return acao.get();
+        } finally {
+            registrar(fase, inicio, System.nanoTime());
+        }
+    }
+
+    /**
+     * Executa e mede uma fase sem resultado.
+     * @param fase Nome da fase.
+     * @param acao Trabalho da fase.
+     */
+    public void medir(String fase, Runnable acao) {
+        medir(fase, () -> {
+            acao.run();
+            return null;
+        });
+    }
+
+    /**
+     * Registra um marco (fase instantânea), como "janela visível".
+     * @param fase Nome do marco.
+     */
+    public void marcar(String fase) {
+        long agora = System.nanoTime();
+        registrar(fase, agora, agora);
+    }
+
+    /**
+     * Imprime as fases em ordem de início, com o instante (desde o início) e a duração.
+     */
+    public synchronized void imprimir() {
+        System.out.println("=== Inicialização ===");
+        List<Integer> ordem = new ArrayList<>();
+        for (int i = 0; i < fases.size(); i++) ordem.add(i);
+        ordem.sort((a, b) -> Long.compare(tempos.get(a)[0], tempos.get(b)[0]));
+        for (int i : ordem) {
+            long[] t = tempos.get(i);
+            System.out.println(String.format("  +%6.1f ms  %-28s %7.1f ms  [%s]",
+                    (t[0] - inicioNs) / 1e6, fases.get(i), (t[1] - t[0]) / 1e6, (t[2] == 1) ? "EDT" : "fundo"));
+        }
+        System.out.println(String.format("  Total até agora: %.1f ms", (System.nanoTime() - inicioNs) / 1e6));
+    }
+
+    private synchronized void registrar(String fase, long inicio, long fim) {
+        fases.add(fase);
+        tempos.add(new long[]{inicio, fim, javax.swing.SwingUtilities.isEventDispatchThread() ? 1 : 0});
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mapa de placas codificadas ({@link CodecPlaca}) para valores.
+ *
+ * Endereçamento aberto com sondagem linear sobre um vetor de {@code long}: consultas não
+ * criam objetos (sem {@code Long} como chave) e removem-se entradas deslocando as seguintes
+ * para trás, sem marcadores de remoção. O código {@link CodecPlaca#INVALIDA} marca posição
+ * livre e não pode ser usado como chave.
+ *
+ * @param <V> Tipo dos valores.
+ */
+public class MapaPlacas<V> {
+
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    private long[] chaves;
+    private Object[] valores;
+    private int tamanho;
+    private int mascara;
+
+    /**
+     * Cria um mapa vazio.
+     */
+    public MapaPlacas() {
+        chaves = new long[CAPACIDADE_INICIAL];
+        valores = new Object[CAPACIDADE_INICIAL];
+        mascara = CAPACIDADE_INICIAL - 1;
+    }
+
+    /**
+     * Obtém o valor associado a uma placa.
+     * @param codigo Código da placa.
+     * @return O valor ou null se a placa não estiver no mapa.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long codigo) {
+        if (codigo == CodecPlaca.INVALIDA) {
+            return null;
+        }
+        for (int i = posicao(codigo); ; i = (i + 1) & mascara) {
+            long chave = chaves[i];
+            if (chave == codigo) return (V) valores[i];
+            if (chave == CodecPlaca.INVALIDA) return null;
+        }
+    }
+
+    /**
+     * Verifica se a placa está no mapa.
+     * @param codigo Código da placa.
+     * @return true se houver valor associado.
+     */
+    public boolean contem(long codigo) {
+        return get(codigo) != null;
+    }
+
+    /**
+     * Associa um valor a uma placa.
+     * @param codigo Código da placa.
+     * @param valor Valor (não nulo).
+     * @return O valor anterior ou null.
+     * @throws IllegalArgumentException Se o código for inválido ou o valor for nulo.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long codigo, V valor) {
+        if (codigo == CodecPlaca.INVALIDA || valor == null) {
+            throw new IllegalArgumentException("Placa e valor são obrigatórios.");
+        }
+        int i = posicao(codigo);
+        while (chaves[i] != CodecPlaca.INVALIDA) {
+            if (chaves[i] == codigo) {
+                V anterior = (V) valores[i];
+                valores[i] = valor;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = codigo;
+        valores[i] = valor;
+        if (++tamanho * 4 > chaves.length * 3) {
+            redimensionar(chaves.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Remove uma placa.
+     * @param codigo Código da placa.
+     * @return O valor removido ou null se a placa não estava no mapa.
+     */
+    @SuppressWarnings("unchecked")
+    public V remover(long codigo) {
+        if (codigo == CodecPlaca.INVALIDA) {
+            return null;
+        }
+        int i = posicao(codigo);
+        while (chaves[i] != codigo) {
+            if (chaves[i] == CodecPlaca.INVALIDA) return null;
+            i = (i + 1) & mascara;
+        }
+        V removido = (V) valores[i];
+
+        // Puxa para trás as entradas seguintes que dependiam desta posição para serem achadas
+        int livre = i;
+        for (int j = (i + 1) & mascara; chaves[j] != CodecPlaca.INVALIDA; j = (j + 1) & mascara) {
+            int ideal = posicao(chaves[j]);
+            if (((j - ideal) & mascara) >= ((j - livre) & mascara)) {
+                chaves[livre] = chaves[j];
+                valores[livre] = valores[j];
+                livre = j;
+            }
+        }
+        chaves[livre] = CodecPlaca.INVALIDA;
+        valores[livre] = null;
+        tamanho--;
+        return removido;
+    }
+
+    /**
+     * Obtém a quantidade de placas no mapa.
+     * @return Total de entradas.
+     */
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Remove todas as entradas.
+     */
+    public void limpar() {
+        Arrays.fill(chaves, CodecPlaca.INVALIDA);
+        Arrays.fill(valores, null);
+        tamanho = 0;
+    }
+
+    /**
+     * Copia os valores do mapa (ordem não definida).
+     * @return Nova lista com os valores.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> valores() {
+        List<V> lista = new ArrayList<>(tamanho);
+        for (int i = 0; i < chaves.length; i++) {
+            if (chaves[i] != CodecPlaca.INVALIDA) {
+                lista.add((V) valores[i]);
+            }
+        }
+        return lista;
+    }
+
+    private int posicao(long codigo) {
+        // Espalha os bits: placas parecidas diferem só nos bytes finais
+        long h = codigo * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void redimensionar(int capacidade) {
+        long[] antigasChaves = chaves;
+        Object[] antigosValores = valores;
+        chaves = new long[capacidade];
+        valores = new Object[capacidade];
+        mascara = capacidade - 1;
+        for (int i = 0; i < antigasChaves.length; i++) {
+            if (antigasChaves[i] != CodecPlaca.INVALIDA) {
+                int j = posicao(antigasChaves[i]);
+                while (chaves[j] != CodecPlaca.INVALIDA) j = (j + 1) & mascara;
+                chaves[j] = antigasChaves[i];
+                valores[j] = antigosValores[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Laço de medição usado pelos benchmarks ({@link BenchmarkTarifas}, {@link BenchmarkAlocacao}).
+ *
+ * Cada cenário roda algumas vezes só para aquecer o JIT e depois é medido em várias rodadas;
+ * vale o melhor tempo, o menos afetado por coleta de lixo e outros processos. O preparo de
+ * cada rodada (montar o pátio, sortear dados) fica fora do tempo medido.
+ */
+public final class Medicao {
+
+    /** Rodadas de aquecimento e, depois, de medição. */
+    public static final int RODADAS = 5;
+
+    // Acumula os resultados dos cenários para o JIT não descartar o trabalho medido
+    private static long sumidouro;
+
+    private Medicao() {
+    }
+
+    /**
+     * Mede um cenário sem preparo.
+     * @param cenario Trabalho medido; o valor devolvido só serve para não ser descartado.
+     * @return Melhor tempo de uma rodada, em nanossegundos.
+     */
+    public static long melhorNanos(LongSupplier cenario) {
+        return melhorNanosComPreparo(() -> cenario);
+    }
+
+    /**
+     * Mede um cenário que precisa de preparo a cada rodada.
+     * @param preparo Monta o estado da rodada (não medido) e devolve o trabalho medido.
+     * @return Melhor tempo de uma rodada, em nanossegundos.
+     */
+    public static long melhorNanosComPreparo(Supplier<LongSupplier> preparo) {
+        for (int i = 0; i < RODADAS; i++) {
+            sumidouro += preparo.get().getAsLong();
+        }
+        long melhor = Long.MAX_VALUE;
+        for (int i = 0; i < RODADAS; i++) {
+            LongSupplier cenario = preparo.get();
+            long inicio = System.nanoTime();
+            sumidouro += cenario.getAsLong();
+            melhor = Math.min(melhor, System.nanoTime() - inicio);
+        }
+        return melhor;
+    }
+
+    /**
+     * Obtém a soma dos resultados dos cenários (imprimi-la garante que foram calculados).
+     * @return Valor acumulado.
+     */
+    public static long getSumidouro() {
+        return sumidouro;
+    }
+}
@@ -124,7 +124,8 @@ public class Menu {
 
     private static void registrarEntrada() {
         System.out.println("\n--- Registrar Entrada ---");
-        if (estacionamento.getVagasLivres() == 0) {
+        // Sem vaga vazia ainda pode haver lugar para moto numa vaga dividida
+        if (estacionamento.getUnidadesLivres() == 0) {
             System.out.println("Não há vagas disponíveis no momento.");
             return;
         }
@@ -164,11 +165,9 @@ public class Menu {
                 System.out.println(ANSI_GREEN + "✓ Entrada registrada com sucesso!" + ANSI_RESET);
                 
                 // Busca a vaga onde o veículo foi estacionado para exibir o número
-                for (Vaga v : estacionamento.getVagas()) {
-                    if (v.isOcupada() && v.getVeiculo().getPlaca().equals(placa)) {
-                        System.out.println("Vaga: " + v.getNumero());
-                        break;
-                    }
+                IndiceVeiculos.Registro registro = estacionamento.getIndiceVeiculos().buscar(placa);
+                if (registro != null && registro.getVaga() != null) {
+                    System.out.println("Vaga: " + registro.getVaga().getNumero());
                 }
                 
                 System.out.println("Horário: " + ticket.getHoraEntrada().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
@@ -204,7 +203,7 @@ public class Menu {
                 long minutos = totalMinutos % 60;
                 System.out.println(String.format("Tempo Total: %dh %dmin", horas, minutos));
                 
-                System.out.println(String.format("VALOR A PAGAR: R$ %.2f", ticket.getValorPago()));
+                System.out.println("VALOR A PAGAR: " + formatarMoeda(ticket.getValorPagoCentavos()));
                 System.out.println("=======================");
             }
         } catch (Exception e) {
@@ -227,7 +226,7 @@ public class Menu {
             
             Ticket ticketAtivo = null;
             for(Ticket t : estacionamento.getTickets()) {
-                if(t.getVeiculo().getPlaca().equals(placa) && t.getHoraSaida() == null) {
+                if(t.getVeiculo().getPlaca().equals(placa) && !t.isFechado()) {
                     ticketAtivo = t;
                     break;
                 }
@@ -245,7 +244,7 @@ public class Menu {
     private static void consultarVagas() {
         limparTela();
         exibirCabecalho("Status das Vagas");
-        System.out.println("Vagas Livres: " + estacionamento.getVagasLivres());
+        System.out.println("Vagas Livres: " + estacionamento.getVagasLivres() + " (" + estacionamento.getUnidadesLivres() + " unidades)");
         System.out.println("Vagas Ocupadas: " + estacionamento.getVagasOcupadas());
         exibirLinha();
         estacionamento.listarVagas();
@@ -259,8 +258,7 @@ public class Menu {
         exibirLinha();
         boolean encontrou = false;
         for (Vaga v : estacionamento.getVagas()) {
-            if (v.isOcupada()) {
-                Veiculo veic = v.getVeiculo();
+            for (Veiculo veic : v.getVeiculos()) {
                 System.out.printf("%-5d | %-10s | %-15s | %-10s%n", 
                     v.getNumero(), veic.getPlaca(), veic.getModelo(), veic.getCor());
                 encontrou = true;
@@ -286,8 +284,8 @@ public class Menu {
         System.out.println("--------------------------------------------------");
     }
 
-    private static String formatarMoeda(double valor) {
-        return String.format("R$ %.2f", valor);
+    private static String formatarMoeda(long centavos) {
+        return Dinheiro.formatar(centavos);
     }
 
     private static void pausar() {
@@ -323,14 +321,14 @@ public class Menu {
 
             for (Ticket t : tickets) {
                 // Contabiliza hora de entrada para pico
-                entradasPorHora[t.getHoraEntrada().getHour()]++;
+                entradasPorHora[Ticket.horaDoDia(t.getEntradaEpoch())]++;
 
-                if (t.getHoraSaida() != null) {
-                    long minutos = t.getTempoEstacionado().toMinutes();
+                if (t.isFechado()) {
+                    long minutos = (t.getSaidaEpoch() - t.getEntradaEpoch()) / 60;
                     somaMinutos += minutos;
                     ticketsFechados++;
 
-                    if (ticketMaiorValor == null || t.getValorPago() > ticketMaiorValor.getValorPago()) {
+                    if (ticketMaiorValor == null || t.getValorPagoCentavos() > ticketMaiorValor.getValorPagoCentavos()) {
                         ticketMaiorValor = t;
                     }
                 }
@@ -341,9 +339,15 @@ public class Menu {
                 System.out.printf("Tempo Médio de Permanência: %d min%n", mediaMinutos);
                 
                 if (ticketMaiorValor != null) {
-                    System.out.printf("Ticket de Maior Valor: %s (R$ %.2f)%n", 
-                        ticketMaiorValor.getVeiculo().getPlaca(), ticketMaiorValor.getValorPago());
+                    System.out.printf("Ticket de Maior Valor: %s (%s)%n", 
+                        ticketMaiorValor.getVeiculo().getPlaca(), formatarMoeda(ticketMaiorValor.getValorPagoCentavos()));
                 }
+
+                EstatisticasQuantis quantis = estacionamento.getEstatisticasQuantis();
+                System.out.println("Permanência (min): " 
+                    + EstatisticasQuantis.formatarQuantis(quantis.getPermanencia(null, null, null), "%.0f"));
+                System.out.println("Valor Pago (R$):   " 
+                    + EstatisticasQuantis.formatarQuantis(quantis.getValor(null, null, null), "%.2f"));
             } else {
                 System.out.println("Nenhum ticket finalizado para cálculo de médias.");
             }
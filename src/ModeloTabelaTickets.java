@@ -0,0 +1,221 @@
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Modelo de tabela virtual para o histórico de tickets.
+ * Lê as linhas diretamente da lista de tickets do estacionamento, formatando apenas as
+ * células que a JTable pede (as visíveis). Filtro e ordenação produzem um vetor de índices
+ * sobre a lista original, sem copiar tickets nem montar linhas.
+ */
+public class ModeloTabelaTickets extends AbstractTableModel {
+
+    private static final String[] COLUNAS = {"ID", "Placa", "Entrada", "Saída", "Valor Pago", "Status"};
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /** Comparador de posições na lista de tickets (evita boxing de Integer). */
+    private interface ComparadorIndices {
+        int comparar(int a, int b);
+    }
+
+    private final Estacionamento estacionamento;
+    private int linhasConhecidas;
+
+    // null significa "todas as linhas na ordem natural"
+    private int[] visao;
+    private String filtro = "";
+    private int colunaOrdenacao = 0;
+    private boolean ascendente = true;
+
+    /**
+     * Cria o modelo ligado ao estacionamento.
+     * @param estacionamento Fonte dos tickets.
+     */
+    public ModeloTabelaTickets(Estacionamento estacionamento) {
+        this.estacionamento = estacionamento;
+        this.linhasConhecidas = estacionamento.getTickets().size();
+    }
+
+    @Override
+    public int getRowCount() {
+        return (visao != null) ? visao.length : estacionamento.getTickets().size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return COLUNAS[coluna];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int coluna) {
+        return (coluna == 0) ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        Ticket t = getTicket(linha);
+        switch (coluna) {
+            case 0:
+                return t.getId();
+            case 1:
+                return t.getVeiculo().getPlaca();
+            case 2:
+                return t.getHoraEntrada().format(FORMATTER);
+            case 3:
+                return t.isFechado() ? t.getHoraSaida().format(FORMATTER) : "-";
+            case 4:
+                return Dinheiro.formatar(t.getValorPagoCentavos());
+            default:
+                return t.isFechado() ? "Fechado" : "Aberto";
+        }
+    }
+
+    /**
+     * Obtém o ticket exibido em uma linha da tabela.
+     * @param linha Índice da linha na visão atual.
+     * @return O ticket correspondente.
+     */
+    public Ticket getTicket(int linha) {
+        int indice = (visao != null) ? visao[linha] : linha;
+        return estacionamento.getTickets().get(indice);
+    }
+
+    /**
+     * Sincroniza o modelo com novos tickets e saídas registradas.
+     * Sem filtro nem ordenação, apenas as linhas novas são anunciadas à tabela.
+     */
+    public void sincronizar() {
+        int total = estacionamento.getTickets().size();
+        if (visao == null) {
+            int anteriores = linhasConhecidas;
+            linhasConhecidas = total;
+            if (total > anteriores) {
+                fireTableRowsInserted(anteriores, total - 1);
+            }
+            // Saídas alteram linhas existentes; a tabela só repinta as visíveis
+            if (anteriores > 0) {
+                fireTableRowsUpdated(0, Math.min(anteriores, total) - 1);
+            }
+            return;
+        }
+        linhasConhecidas = total;
+        reconstruirVisao();
+    }
+
+    /**
+     * Filtra as linhas pela placa ou status (aberto/fechado).
+     * @param texto Trecho procurado; vazio remove o filtro.
+     */
+    public void filtrar(String texto) {
+        this.filtro = (texto == null) ? "" : texto.trim().toUpperCase();
+        reconstruirVisao();
+    }
+
+    /**
+     * Ordena pela coluna indicada; repetir a mesma coluna inverte a ordem.
+     * @param coluna Índice da coluna.
+     */
+    public void ordenarPor(int coluna) {
+        if (coluna == colunaOrdenacao) {
+            ascendente = !ascendente;
+        } else {
+            colunaOrdenacao = coluna;
+            ascendente = true;
+        }
+        reconstruirVisao();
+    }
+
+    private void reconstruirVisao() {
+        List<Ticket> tickets = estacionamento.getTickets();
+        int total = tickets.size();
+        linhasConhecidas = total;
+
+        // A lista já está em ordem de ID (emissão): sem filtro, não há o que indexar
+        if (filtro.isEmpty() && colunaOrdenacao == 0 && ascendente) {
+            visao = null;
+            fireTableDataChanged();
+            return;
+        }
+
+        int[] indices = new int[total];
+        int n = 0;
+        for (int i = 0; i < total; i++) {
+            if (aceita(tickets.get(i))) {
+                indices[n++] = i;
+            }
+        }
+
+        if (colunaOrdenacao != 0) {
+            ComparadorIndices cmp = comparador(tickets, colunaOrdenacao);
+            ordenar(indices, n, ascendente ? cmp : (a, b) -> cmp.comparar(b, a));
+        } else if (!ascendente) {
+            inverter(indices, n);
+        }
+
+        visao = (n == indices.length) ? indices : java.util.Arrays.copyOf(indices, n);
+        fireTableDataChanged();
+    }
+
+    private boolean aceita(Ticket t) {
+        if (filtro.isEmpty()) {
+            return true;
+        }
+        String status = t.isFechado() ? "FECHADO" : "ABERTO";
+        return t.getVeiculo().getPlaca().contains(filtro) || status.equals(filtro);
+    }
+
+    private static ComparadorIndices comparador(List<Ticket> tickets, int coluna) {
+        switch (coluna) {
+            case 1:
+                return (a, b) -> tickets.get(a).getVeiculo().getPlaca().compareTo(tickets.get(b).getVeiculo().getPlaca());
+            case 2:
+                return (a, b) -> Long.compare(tickets.get(a).getEntradaEpoch(), tickets.get(b).getEntradaEpoch());
+            case 3:
+                return (a, b) -> {
+                    // Tickets em aberto ficam por último
+                    Ticket ta = tickets.get(a);
+                    Ticket tb = tickets.get(b);
+                    if (!ta.isFechado()) return tb.isFechado() ? 1 : 0;
+                    if (!tb.isFechado()) return -1;
+                    return Long.compare(ta.getSaidaEpoch(), tb.getSaidaEpoch());
+                };
+            case 4:
+                return (a, b) -> Long.compare(tickets.get(a).getValorPagoCentavos(), tickets.get(b).getValorPagoCentavos());
+            case 5:
+                return (a, b) -> Boolean.compare(tickets.get(a).isFechado(), tickets.get(b).isFechado());
+            default:
+                return (a, b) -> Integer.compare(a, b);
+        }
+    }
+
+    // Merge sort estável sobre os índices primitivos
+    private static void ordenar(int[] indices, int n, ComparadorIndices cmp) {
+        int[] aux = new int[n];
+        for (int largura = 1; largura < n; largura *= 2) {
+            for (int inicio = 0; inicio < n - largura; inicio += 2 * largura) {
+                int meio = inicio + largura;
+                int fim = Math.min(inicio + 2 * largura, n);
+                int i = inicio, j = meio, k = inicio;
+                while (i < meio && j < fim) {
+                    aux[k++] = (cmp.comparar(indices[j], indices[i]) < 0) ? indices[j++] : indices[i++];
+                }
+                while (i < meio) aux[k++] = indices[i++];
+                while (j < fim) aux[k++] = indices[j++];
+                System.arraycopy(aux, inicio, indices, inicio, fim - inicio);
+            }
+        }
+    }
+
+    private static void inverter(int[] indices, int n) {
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            int tmp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * Observador de mudanças no estado do estacionamento.
+ * As notificações são disparadas na thread que alterou o estado; componentes Swing
+ * devem repassar o trabalho para a EDT quando necessário.
+ */
+public interface OuvinteEstacionamento {
+
+    /**
+     * Chamado quando uma vaga muda de estado (ocupada, liberada ou marcada como VIP).
+     * @param vaga A vaga alterada.
+     */
+    void vagaAlterada(Vaga vaga);
+
+    /**
+     * Chamado após qualquer alteração de estado (entrada, saída, desconto, tarifa, carregamento).
+     * Útil para quem exibe agregados e não precisa saber qual vaga mudou.
+     */
+    default void estadoAlterado() {
+    }
+}
@@ -2,13 +2,28 @@ import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class PainelControles extends JPanel {
+/**
+ * Painel lateral com estatísticas em tempo real e ações rápidas.
+ *
+ * As estatísticas são atualizadas pelas notificações do {@link Estacionamento} (sem timer):
+ * rajadas de alterações viram uma única atualização na thread da interface, os valores vêm
+ * dos contadores já mantidos pelo estacionamento e o texto só é refeito quando algum muda.
+ */
+public class PainelControles extends JPanel implements OuvinteEstacionamento {
 
     private Estacionamento estacionamento;
     private JTextArea areaEstatisticas;
-    private Timer timerAtualizacao;
+    private final AtomicBoolean atualizacaoPendente = new AtomicBoolean();
+
+    // Últimos valores exibidos (-1 força a primeira exibição)
+    private int ultimoTotalVagas = -1;
+    private int ultimasLivres = -1;
+    private int ultimasUnidadesLivres = -1;
+    private int ultimasOcupadas = -1;
+    private int ultimosTickets = -1;
+    private long ultimoArrecadado = -1;
 
     public PainelControles(Estacionamento estacionamento) {
         this.estacionamento = estacionamento;
@@ -48,14 +63,43 @@ public class PainelControles extends JPanel {
         adicionarBotao("Configurações", e -> mostrarConfiguracoes());
         adicionarBotao("Limpar Histórico", e -> limparHistorico());
 
-        // Timer de atualização
-        timerAtualizacao = new Timer(2000, e -> atualizarEstatisticas());
-        timerAtualizacao.start();
-        
         // Primeira atualização
         atualizarEstatisticas();
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        estacionamento.adicionarOuvinte(this);
+        atualizarEstatisticas();
+    }
+
+    @Override
+    public void removeNotify() {
+        estacionamento.removerOuvinte(this);
+        super.removeNotify();
+    }
+
+    @Override
+    public void vagaAlterada(Vaga vaga) {
+        agendarAtualizacao();
+    }
+
+    @Override
+    public void estadoAlterado() {
+        agendarAtualizacao();
+    }
+
+    // Agrupa várias notificações seguidas em uma única atualização na thread da interface
+    private void agendarAtualizacao() {
+        if (atualizacaoPendente.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                atualizacaoPendente.set(false);
+                atualizarEstatisticas();
+            });
+        }
+    }
+
     private void adicionarBotao(String texto, ActionListener acao) {
         JButton btn = new JButton(texto);
         btn.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -67,18 +111,32 @@ public class PainelControles extends JPanel {
     }
 
     private void atualizarEstatisticas() {
+        int totalVagas = estacionamento.getVagas().size();
+        int livres = estacionamento.getVagasLivres();
+        int unidadesLivres = estacionamento.getUnidadesLivres();
+        int ocupadas = estacionamento.getVagasOcupadas();
+        int tickets = estacionamento.getTickets().size();
+        long arrecadado = estacionamento.getTotalArrecadadoCentavos();
+
+        if (totalVagas == ultimoTotalVagas && livres == ultimasLivres && unidadesLivres == ultimasUnidadesLivres && ocupadas == ultimasOcupadas
+                && tickets == ultimosTickets && arrecadado == ultimoArrecadado) {
+            return;
+        }
+        ultimoTotalVagas = totalVagas;
+        ultimasLivres = livres;
+        ultimasUnidadesLivres = unidadesLivres;
+        ultimasOcupadas = ocupadas;
+        ultimosTickets = tickets;
+        ultimoArrecadado = arrecadado;
+
         StringBuilder sb = new StringBuilder();
         sb.append("--- Status em Tempo Real ---\n");
-        sb.append(String.format("Total de Vagas:   %d\n", estacionamento.getVagas().size()));
-        sb.append(String.format("Vagas Livres:     %d\n", estacionamento.getVagasLivres()));
-        sb.append(String.format("Vagas Ocupadas:   %d\n", estacionamento.getVagasOcupadas()));
-        sb.append(String.format("Tickets Emitidos: %d\n", estacionamento.getTickets().size()));
-        
-        double totalArrecadado = 0;
-        for (Ticket t : estacionamento.getTickets()) {
-            totalArrecadado += t.getValorPago();
-        }
-        sb.append(String.format("Total Arrecadado: R$ %.2f", totalArrecadado));
+        sb.append(String.format("Total de Vagas:   %d\n", totalVagas));
+        sb.append(String.format("Vagas Livres:     %d (%d unidades)\n", livres, unidadesLivres));
+        sb.append(String.format("Vagas Ocupadas:   %d\n", ocupadas));
+        sb.append(String.format("Tickets Emitidos: %d\n", tickets));
+        sb.append("Total Arrecadado: ");
+        Dinheiro.formatar(sb, arrecadado);
 
         areaEstatisticas.setText(sb.toString());
     }
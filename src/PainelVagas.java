@@ -3,67 +3,312 @@ import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
 
-public class PainelVagas extends JPanel {
+/**
+ * Mapa de vagas desenhado diretamente em um único componente.
+ * O estado de cada vaga fica em um vetor compacto; apenas as células dentro da área
+ * visível (clip) são pintadas, e os cliques são convertidos em número de vaga por cálculo
+ * de posição. Escala para milhares de vagas dentro de um JScrollPane.
+ */
+public class PainelVagas extends JPanel implements OuvinteEstacionamento, Scrollable {
+
+    private static final Font FONTE_TITULO = new Font("Segoe UI", Font.BOLD, 12);
+    private static final Font FONTE_DETALHE = new Font("Segoe UI", Font.PLAIN, 11);
+    private static final int LARGURA_CELULA = 110;
+    private static final int ALTURA_CELULA = 60;
+    private static final int ESPACO = 10;
+    private static final int COLUNAS_PREFERIDAS = 5;
+
+    // Bits do vetor de estados
+    private static final byte OCUPADA = 1;
+    private static final byte VIP = 2;
+    // Bits 2 e 3: categoria da vaga (ordinal de CategoriaVaga)
+    private static final int DESLOCAMENTO_CATEGORIA = 2;
+    // Bits 4 a 6: quantidade de veículos (motos dividindo a vaga); bit 7: ainda cabe moto
+    private static final int DESLOCAMENTO_QUANTIDADE = 4;
+    private static final int PARCIAL = 0x80;
+    private static final CategoriaVaga[] CATEGORIAS = CategoriaVaga.values();
 
     private Estacionamento estacionamento;
+    private byte[] estados = new byte[0];
+    private String[] rotulos = new String[0];
+
+    private Color corLivre;
+    private Color corOcupada;
+    private Color corVip;
+    private Color corBorda;
 
     public PainelVagas(Estacionamento estacionamento) {
+        this(estacionamento, DialogoConfiguracoes.lerConfiguracoes());
+    }
+
+    /**
+     * Cria o mapa com configurações já carregadas (evita reler o arquivo na inicialização).
+     * @param estacionamento O estacionamento exibido.
+     * @param configuracoes Configurações com as cores das vagas.
+     */
+    public PainelVagas(Estacionamento estacionamento, Properties configuracoes) {
         this.estacionamento = estacionamento;
-        setLayout(new GridLayout(0, 5, 10, 10)); // Grid com 5 colunas
+        setBackground(Color.WHITE);
         setBorder(BorderFactory.createTitledBorder(
             BorderFactory.createEtchedBorder(), "Mapa de Vagas", TitledBorder.CENTER, TitledBorder.TOP, new Font("Segoe UI", Font.BOLD, 14)
         ));
+        aplicarCores(configuracoes);
         atualizarVagas();
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int indice = vagaNaPosicao(e.getX(), e.getY());
+                if (indice < 0) return;
+                Vaga vaga = estacionamento.getVagas().get(indice);
+                if (vaga.isOcupada()) {
+                    mostrarOpcoesSaida(vaga);
+                } else {
+                    mostrarFormularioEntrada(vaga);
+                }
+            }
+        });
+
+        estacionamento.adicionarOuvinte(this);
     }
 
+    /**
+     * Aplica as cores das configurações, repintando o mapa se alguma mudou.
+     * @param configuracoes Configurações com as cores das vagas.
+     */
+    public void aplicarConfiguracoes(Properties configuracoes) {
+        if (aplicarCores(configuracoes)) {
+            repaint();
+        }
+    }
+
+    /**
+     * Sincroniza o vetor de estados com todas as vagas.
+     * Só repinta as células cujo estado mudou, exceto quando a quantidade de vagas muda.
+     */
     public void atualizarVagas() {
-        removeAll(); // Limpa os componentes anteriores
         List<Vaga> vagas = estacionamento.getVagas();
 
+        if (vagas.size() != estados.length) {
+            estados = new byte[vagas.size()];
+            rotulos = new String[vagas.size()];
+            for (Vaga vaga : vagas) {
+                estados[vaga.getNumero() - 1] = codificar(vaga);
+            }
+            revalidate();
+            repaint();
+            return;
+        }
         for (Vaga vaga : vagas) {
-            JButton btnVaga = criarBotaoVaga(vaga);
-            add(btnVaga);
+            atualizarEstado(vaga, false);
         }
+    }
+
+    /**
+     * Atualiza somente a célula da vaga notificada.
+     * @param vaga A vaga alterada.
+     */
+    @Override
+    public void vagaAlterada(Vaga vaga) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> vagaAlterada(vaga));
+            return;
+        }
+        if (vaga.getNumero() > estados.length) {
+            atualizarVagas();
+            return;
+        }
+        // A notificação já indica mudança (inclusive troca de placa com o mesmo estado)
+        atualizarEstado(vaga, true);
+    }
 
-        revalidate();
-        repaint();
+    private void atualizarEstado(Vaga vaga, boolean forcar) {
+        int i = vaga.getNumero() - 1;
+        byte novo = codificar(vaga);
+        if (forcar || novo != estados[i]) {
+            estados[i] = novo;
+            repaint(retanguloCelula(i));
+        }
     }
 
-    private JButton criarBotaoVaga(Vaga vaga) {
-        JButton btn = new JButton();
-        btn.setFont(new Font("Segoe UI", Font.BOLD, 12));
-        btn.setFocusPainted(false);
+    private static byte codificar(Vaga vaga) {
+        byte estado = 0;
+        if (vaga.isOcupada()) estado |= OCUPADA;
+        if (vaga.isVip()) estado |= VIP;
+        estado |= vaga.getCategoria().ordinal() << DESLOCAMENTO_CATEGORIA;
+        estado |= Math.min(vaga.getQuantidadeVeiculos(), 7) << DESLOCAMENTO_QUANTIDADE;
+        if (vaga.isParcial()) estado |= PARCIAL;
+        return estado;
+    }
 
-        // Configuração do texto e cor baseada no estado
-        if (vaga.isOcupada()) {
-            btn.setBackground(new Color(255, 102, 102)); // Vermelho claro
-            String placa = vaga.getVeiculo().getPlaca();
-            btn.setText("<html><center>Vaga " + vaga.getNumero() + "<br>OCUPADA<br>" + placa + "</center></html>");
-        } else {
-            if (vaga.isVip()) {
-                btn.setBackground(new Color(255, 215, 0)); // Gold
-                btn.setText("<html><center>Vaga " + vaga.getNumero() + "<br>LIVRE (VIP)</center></html>");
-            } else {
-                btn.setBackground(new Color(144, 238, 144)); // Verde claro
-                btn.setText("<html><center>Vaga " + vaga.getNumero() + "<br>LIVRE</center></html>");
-            }
+    private boolean aplicarCores(Properties props) {
+        Color livre = DialogoConfiguracoes.lerCor(props, "corLivre", DialogoConfiguracoes.COR_LIVRE_PADRAO);
+        Color ocupada = DialogoConfiguracoes.lerCor(props, "corOcupada", DialogoConfiguracoes.COR_OCUPADA_PADRAO);
+        Color vip = DialogoConfiguracoes.lerCor(props, "corVip", DialogoConfiguracoes.COR_VIP_PADRAO);
+        boolean mudou = !livre.equals(corLivre) || !ocupada.equals(corOcupada) || !vip.equals(corVip);
+        corLivre = livre;
+        corOcupada = ocupada;
+        corVip = vip;
+        corBorda = Color.GRAY;
+        return mudou;
+    }
+
+    // --- Geometria ---
+
+    private int colunas() {
+        Insets in = getInsets();
+        int larguraUtil = getWidth() - in.left - in.right - ESPACO;
+        return Math.max(1, larguraUtil / (LARGURA_CELULA + ESPACO));
+    }
+
+    private Rectangle retanguloCelula(int indice) {
+        Insets in = getInsets();
+        int cols = colunas();
+        int x = in.left + ESPACO + (indice % cols) * (LARGURA_CELULA + ESPACO);
+        int y = in.top + ESPACO + (indice / cols) * (ALTURA_CELULA + ESPACO);
+        return new Rectangle(x, y, LARGURA_CELULA, ALTURA_CELULA);
+    }
+
+    private int vagaNaPosicao(int x, int y) {
+        Insets in = getInsets();
+        int relX = x - in.left - ESPACO;
+        int relY = y - in.top - ESPACO;
+        if (relX < 0 || relY < 0) return -1;
+        int col = relX / (LARGURA_CELULA + ESPACO);
+        int lin = relY / (ALTURA_CELULA + ESPACO);
+        // Clique no espaço entre as células
+        if (relX % (LARGURA_CELULA + ESPACO) >= LARGURA_CELULA || relY % (ALTURA_CELULA + ESPACO) >= ALTURA_CELULA) return -1;
+        int cols = colunas();
+        if (col >= cols) return -1;
+        int indice = lin * cols + col;
+        return (indice < estados.length) ? indice : -1;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets in = getInsets();
+        int cols = (getWidth() > 0) ? colunas() : COLUNAS_PREFERIDAS;
+        int linhas = (estados.length + cols - 1) / cols;
+        int largura = in.left + in.right + ESPACO + COLUNAS_PREFERIDAS * (LARGURA_CELULA + ESPACO);
+        int altura = in.top + in.bottom + ESPACO + linhas * (ALTURA_CELULA + ESPACO);
+        return new Dimension(largura, altura);
+    }
+
+    @Override
+    public void setBounds(int x, int y, int largura, int altura) {
+        int colunasAntes = colunas();
+        super.setBounds(x, y, largura, altura);
+        // Mudar o número de colunas altera a altura necessária
+        if (colunas() != colunasAntes) {
+            revalidate();
         }
+    }
 
-        // Adiciona o listener de clique
-        btn.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                if (vaga.isOcupada()) {
-                    mostrarOpcoesSaida(vaga);
-                } else {
-                    mostrarFormularioEntrada(vaga);
-                }
+    // --- Pintura ---
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (estados.length == 0) return;
+
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        Insets in = getInsets();
+        int cols = colunas();
+        int passoY = ALTURA_CELULA + ESPACO;
+        int primeiraLinha = Math.max(0, (clip.y - in.top - ESPACO) / passoY);
+        int ultimaLinha = (clip.y + clip.height - in.top - ESPACO) / passoY;
+
+        FontMetrics fmTitulo = g2d.getFontMetrics(FONTE_TITULO);
+        FontMetrics fmDetalhe = g2d.getFontMetrics(FONTE_DETALHE);
+        List<Vaga> vagas = estacionamento.getVagas();
+
+        for (int lin = primeiraLinha; lin <= ultimaLinha; lin++) {
+            for (int col = 0; col < cols; col++) {
+                int i = lin * cols + col;
+                if (i >= estados.length) return;
+                Rectangle r = retanguloCelula(i);
+                if (!r.intersects(clip)) continue;
+                pintarCelula(g2d, vagas.get(i), i, r, fmTitulo, fmDetalhe);
             }
-        });
+        }
+    }
+
+    private void pintarCelula(Graphics2D g2d, Vaga vaga, int i, Rectangle r, FontMetrics fmTitulo, FontMetrics fmDetalhe) {
+        byte estado = estados[i];
+        boolean ocupada = (estado & OCUPADA) != 0;
+        boolean vip = (estado & VIP) != 0;
 
-        return btn;
+        g2d.setColor(ocupada ? corOcupada : (vip ? corVip : corLivre));
+        g2d.fillRect(r.x, r.y, r.width, r.height);
+        g2d.setColor(corBorda);
+        g2d.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+
+        if (rotulos[i] == null) {
+            rotulos[i] = "Vaga " + (i + 1);
+        }
+        CategoriaVaga categoria = CATEGORIAS[(estado >> DESLOCAMENTO_CATEGORIA) & 3];
+        int quantidade = (estado >> DESLOCAMENTO_QUANTIDADE) & 7;
+        String status;
+        if ((estado & PARCIAL) != 0) {
+            status = "PARCIAL (" + quantidade + "/" + vaga.getCapacidade() + ")";
+        } else if (ocupada) {
+            status = "OCUPADA";
+        } else {
+            status = (categoria == CategoriaVaga.CARRO) ? "LIVRE" : "LIVRE (" + categoria.getDescricao() + ")";
+        }
+        Veiculo primeiro = ocupada ? vaga.getVeiculo() : null;
+        String placa = (primeiro != null) ? primeiro.getPlaca() + ((quantidade > 1) ? " +" + (quantidade - 1) : "") : null;
+
+        g2d.setColor(Color.BLACK);
+        int linhas = (placa != null) ? 3 : 2;
+        int alturaTexto = fmTitulo.getHeight() + (linhas - 1) * fmDetalhe.getHeight();
+        int y = r.y + (r.height - alturaTexto) / 2 + fmTitulo.getAscent();
+
+        g2d.setFont(FONTE_TITULO);
+        g2d.drawString(rotulos[i], r.x + (r.width - fmTitulo.stringWidth(rotulos[i])) / 2, y);
+        g2d.setFont(FONTE_DETALHE);
+        y += fmDetalhe.getHeight();
+        g2d.drawString(status, r.x + (r.width - fmDetalhe.stringWidth(status)) / 2, y);
+        if (placa != null) {
+            y += fmDetalhe.getHeight();
+            g2d.drawString(placa, r.x + (r.width - fmDetalhe.stringWidth(placa)) / 2, y);
+        }
+    }
+
+    // --- Scrollable ---
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visivel, int orientacao, int direcao) {
+        return (orientacao == SwingConstants.VERTICAL) ? ALTURA_CELULA + ESPACO : LARGURA_CELULA + ESPACO;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visivel, int orientacao, int direcao) {
+        return (orientacao == SwingConstants.VERTICAL) ? visivel.height : visivel.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
     }
 
     private void mostrarFormularioEntrada(Vaga vaga) {
@@ -107,7 +352,6 @@ public class PainelVagas extends JPanel {
                 
                 if (ticket != null) {
                     JOptionPane.showMessageDialog(this, "Entrada registrada com sucesso!\nTicket #" + ticket.getId());
-                    atualizarVagas();
                 } else {
                     JOptionPane.showMessageDialog(this, "Não foi possível registrar a entrada. Verifique se o veículo já está no pátio.", "Erro", JOptionPane.ERROR_MESSAGE);
                 }
@@ -122,6 +366,18 @@ public class PainelVagas extends JPanel {
 
     private void mostrarOpcoesSaida(Vaga vaga) {
         Veiculo v = vaga.getVeiculo();
+        // Motos dividindo a vaga: pergunta qual está saindo
+        List<Veiculo> veiculos = vaga.getVeiculos();
+        if (veiculos.size() > 1) {
+            String[] placas = new String[veiculos.size()];
+            for (int i = 0; i < placas.length; i++) {
+                placas[i] = veiculos.get(i).getPlaca();
+            }
+            Object escolhida = JOptionPane.showInputDialog(this, "Veículos na vaga " + vaga.getNumero() + ":",
+                    "Vaga Compartilhada", JOptionPane.QUESTION_MESSAGE, null, placas, placas[0]);
+            if (escolhida == null) return;
+            v = veiculos.get(Arrays.asList(placas).indexOf(escolhida));
+        }
         String mensagem = String.format(
             "Vaga: %d\nPlaca: %s\nModelo: %s\nCor: %s\nTipo: %s",
             vaga.getNumero(), v.getPlaca(), v.getModelo(), v.getCor(), v.getTipo()
@@ -141,11 +397,10 @@ public class PainelVagas extends JPanel {
             Ticket ticket = estacionamento.registrarSaida(v.getPlaca());
             if (ticket != null) {
                 String msgSaida = String.format(
-                    "Saída registrada!\n\nTempo: %s\nValor a Pagar: R$ %.2f",
-                    ticket.formatarDuracao(), ticket.getValorPago()
+                    "Saída registrada!\n\nTempo: %s\nValor a Pagar: %s",
+                    ticket.formatarDuracao(), Dinheiro.formatar(ticket.getValorPagoCentavos())
                 );
                 JOptionPane.showMessageDialog(this, msgSaida, "Saída Confirmada", JOptionPane.INFORMATION_MESSAGE);
-                atualizarVagas();
             } else {
                 JOptionPane.showMessageDialog(this, "Erro ao registrar saída.", "Erro", JOptionPane.ERROR_MESSAGE);
             }
@@ -1,22 +1,38 @@
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Properties;
 
 public class PersistenciaDados {
 
     private static final Gson gson;
 
+    private static final String CABECALHO_CSV = "ID;Placa;Modelo;Cor;Tipo;Entrada;Saida;Valor Pago;Status";
+    private static final String ARQUIVO_INCREMENTAL = "tickets_incremental.csv";
+    private static final String ARQUIVO_CHECKPOINT = "exportacao_incremental.properties";
+    private static final String ARQUIVO_MANIFESTO = "exportacao_manifesto.csv";
+
+    // Cadastro de veículos do estacionamento sendo gravado (veículos cadastrados vão só pela placa)
+    private static final ThreadLocal<RegistroVeiculos> REGISTRO_EM_GRAVACAO = new ThreadLocal<>();
+
     static {
         GsonBuilder builder = new GsonBuilder();
         builder.setPrettyPrinting();
         builder.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter());
+        builder.registerTypeAdapter(HyperLogLog.class, new HyperLogLogAdapter());
+        builder.registerTypeAdapterFactory(new VeiculoAdapterFactory());
         gson = builder.create();
     }
 
@@ -27,10 +43,15 @@ public class PersistenciaDados {
      * @throws IOException Se ocorrer erro na escrita.
      */
     public static void salvarEstado(Estacionamento est, String arquivo) throws IOException {
+        RegistroVeiculos registro = est.getRegistroVeiculos();
+        registro.compactar();
+        REGISTRO_EM_GRAVACAO.set(registro);
         try (Writer writer = new FileWriter(arquivo)) {
             gson.toJson(est, writer);
         } catch (IOException e) {
             throw new IOException("Erro ao salvar dados: " + e.getMessage(), e);
+        } finally {
+            REGISTRO_EM_GRAVACAO.remove();
         }
     }
 
@@ -51,7 +72,9 @@ public class PersistenciaDados {
             // Como Estacionamento não tem construtor padrão, o Gson usa UnsafeAllocator se disponível.
             // Caso contrário, pode falhar. Se falhar, precisaríamos de um InstanceCreator.
             // Mas geralmente funciona em JVMs padrão.
-            return gson.fromJson(reader, Estacionamento.class);
+            Estacionamento est = gson.fromJson(reader, Estacionamento.class);
+            est.vincularVeiculos();
+            return est;
         } catch (Exception e) {
             throw new IOException("Erro ao carregar dados (formato inválido ou corrompido): " + e.getMessage(), e);
         }
@@ -60,11 +83,27 @@ public class PersistenciaDados {
     /**
      * Exporta um relatório do estacionamento para o formato especificado.
      * @param est O estacionamento.
-     * @param formato O formato desejado ("TXT", "EXCEL", "PDF").
+     * @param formato O formato desejado ("TXT", "EXCEL", "EXCEL_INCREMENTAL", "COLUNAR", "PDF").
      * @return O caminho absoluto do arquivo gerado.
      * @throws IOException Se ocorrer erro na exportação.
      */
     public static String exportarRelatorio(Estacionamento est, String formato) throws IOException {
+        return exportarRelatorio(est, formato, null, null);
+    }
+
+    /**
+     * Exporta um relatório restrito a um período.
+     * A listagem de tickets é escrita direto no arquivo, sem montar o conteúdo em memória.
+     *
+     * @param est O estacionamento.
+     * @param formato O formato desejado ("TXT", "EXCEL", "EXCEL_INCREMENTAL", "COLUNAR", "PDF").
+     *                O modo incremental ignora o período e usa o ponto de controle salvo.
+     * @param inicio Data inicial ou null para todo o histórico.
+     * @param fim Data final ou null para todo o histórico.
+     * @return O caminho absoluto do arquivo gerado.
+     * @throws IOException Se ocorrer erro na exportação.
+     */
+    public static String exportarRelatorio(Estacionamento est, String formato, LocalDate inicio, LocalDate fim) throws IOException {
         // Cria diretório de relatórios se não existir
         File dirRelatorios = new File("relatorios");
         if (!dirRelatorios.exists()) {
@@ -73,20 +112,28 @@ public class PersistenciaDados {
 
         String nomeArquivo = "relatorio_" + System.currentTimeMillis();
         String caminhoArquivo = "";
+        String formatoNormalizado = formato.toUpperCase();
         
-        switch (formato.toUpperCase()) {
+        switch (formatoNormalizado) {
             case "TXT":
                 caminhoArquivo = new File(dirRelatorios, nomeArquivo + ".txt").getPath();
-                exportarTXT(est, caminhoArquivo);
+                exportarTXT(est, caminhoArquivo, ticketsDoPeriodo(est, inicio, fim));
                 break;
             case "EXCEL":
                 caminhoArquivo = new File(dirRelatorios, nomeArquivo + ".csv").getPath();
-                exportarCSV(est, caminhoArquivo);
+                exportarCSV(caminhoArquivo, ticketsDoPeriodo(est, inicio, fim));
+                break;
+            case "EXCEL_INCREMENTAL":
+                caminhoArquivo = exportarCSVIncremental(est, dirRelatorios);
+                break;
+            case "COLUNAR":
+                caminhoArquivo = new File(dirRelatorios, nomeArquivo + ".col").getPath();
+                ExportadorColunar.exportar(ticketsDoPeriodo(est, inicio, fim), caminhoArquivo);
                 break;
             case "PDF":
                 // Como não temos biblioteca de PDF, exportamos para HTML que pode ser impresso/salvo como PDF
                 caminhoArquivo = new File(dirRelatorios, nomeArquivo + ".html").getPath();
-                exportarHTML(est, caminhoArquivo);
+                exportarHTML(est, caminhoArquivo, ticketsDoPeriodo(est, inicio, fim));
                 break;
             default:
                 throw new IllegalArgumentException("Formato não suportado: " + formato);
@@ -94,7 +141,16 @@ public class PersistenciaDados {
         return new File(caminhoArquivo).getAbsolutePath();
     }
 
-    private static void exportarHTML(Estacionamento est, String arquivo) throws IOException {
+    private static List<Ticket> ticketsDoPeriodo(Estacionamento est, LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            return est.getTickets();
+        }
+        return est.buscarTicketsPorPeriodo(inicio, fim);
+    }
+
+    // Exportações escrevem os tickets direto no arquivo: com o histórico inteiro o conteúdo
+    // chega a megabytes e não é montado em memória antes da gravação
+    private static void exportarHTML(Estacionamento est, String arquivo, List<Ticket> tickets) throws IOException {
         try (PrintWriter out = new PrintWriter(new FileWriter(arquivo))) {
             out.println("<html><head><title>Relatório de Estacionamento</title>");
             out.println("<style>");
@@ -115,30 +171,10 @@ public class PersistenciaDados {
             out.println("<ul>");
             out.println("<li><strong>Vagas Totais:</strong> " + est.getVagas().size() + "</li>");
             out.println("<li><strong>Vagas Ocupadas:</strong> " + est.getVagasOcupadas() + "</li>");
-            out.println("<li><strong>Vagas Livres:</strong> " + est.getVagasLivres() + "</li>");
+            out.println("<li><strong>Vagas Livres:</strong> " + est.getVagasLivres() + " (" + est.getUnidadesLivres() + " unidades)</li>");
             out.println("</ul>");
 
-            out.println("<h2>Histórico de Tickets</h2>");
-            out.println("<table>");
-            out.println("<tr><th>ID</th><th>Placa</th><th>Veículo</th><th>Entrada</th><th>Saída</th><th>Valor Pago</th><th>Status</th></tr>");
-            
-            DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-            for (Ticket t : est.getTickets()) {
-                String saida = (t.getHoraSaida() != null) ? t.getHoraSaida().format(fmt) : "-";
-                String status = (t.getHoraSaida() != null) ? "FECHADO" : "ABERTO";
-                String valor = String.format("R$ %.2f", t.getValorPago());
-                
-                out.println("<tr>");
-                out.println("<td>" + t.getId() + "</td>");
-                out.println("<td>" + t.getVeiculo().getPlaca() + "</td>");
-                out.println("<td>" + t.getVeiculo().getModelo() + " (" + t.getVeiculo().getCor() + ")</td>");
-                out.println("<td>" + t.getHoraEntrada().format(fmt) + "</td>");
-                out.println("<td>" + saida + "</td>");
-                out.println("<td>" + valor + "</td>");
-                out.println("<td>" + status + "</td>");
-                out.println("</tr>");
-            }
-            out.println("</table>");
+            escreverTicketsHTML(out, tickets);
             
             out.println("<div style='margin-top: 30px; font-size: 0.8em; color: #666;'>");
             out.println("<p>Sistema de Estacionamento - Gerado automaticamente.</p>");
@@ -148,7 +184,31 @@ public class PersistenciaDados {
         }
     }
 
-    private static void exportarTXT(Estacionamento est, String arquivo) throws IOException {
+    private static void escreverTicketsHTML(PrintWriter out, List<Ticket> tickets) {
+        out.println("<h2>Histórico de Tickets</h2>");
+        out.println("<table>");
+        out.println("<tr><th>ID</th><th>Placa</th><th>Veículo</th><th>Entrada</th><th>Saída</th><th>Valor Pago</th><th>Status</th></tr>");
+        
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        for (Ticket t : tickets) {
+            String saida = t.isFechado() ? t.getHoraSaida().format(fmt) : "-";
+            String status = t.isFechado() ? "FECHADO" : "ABERTO";
+            String valor = Dinheiro.formatar(t.getValorPagoCentavos());
+            
+            out.println("<tr>");
+            out.println("<td>" + t.getId() + "</td>");
+            out.println("<td>" + t.getVeiculo().getPlaca() + "</td>");
+            out.println("<td>" + t.getVeiculo().getModelo() + " (" + t.getVeiculo().getCor() + ")</td>");
+            out.println("<td>" + t.getHoraEntrada().format(fmt) + "</td>");
+            out.println("<td>" + saida + "</td>");
+            out.println("<td>" + valor + "</td>");
+            out.println("<td>" + status + "</td>");
+            out.println("</tr>");
+        }
+        out.println("</table>");
+    }
+
+    private static void exportarTXT(Estacionamento est, String arquivo, List<Ticket> tickets) throws IOException {
         try (PrintWriter out = new PrintWriter(new FileWriter(arquivo))) {
             out.println("=== RELATÓRIO DE ESTACIONAMENTO ===");
             out.println("Data: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
@@ -156,42 +216,157 @@ public class PersistenciaDados {
             out.println("-----------------------------------");
             out.println("Vagas Totais: " + est.getVagas().size());
             out.println("Vagas Ocupadas: " + est.getVagasOcupadas());
-            out.println("Vagas Livres: " + est.getVagasLivres());
+            out.println("Vagas Livres: " + est.getVagasLivres() + " (" + est.getUnidadesLivres() + " unidades)");
             out.println("-----------------------------------");
-            out.println("LISTA DE TICKETS:");
-            for (Ticket t : est.getTickets()) {
-                out.println(t.toString());
-            }
+            escreverTicketsTXT(out, tickets);
             out.println("-----------------------------------");
             out.println("Fim do Relatório");
         }
     }
 
-    private static void exportarCSV(Estacionamento est, String arquivo) throws IOException {
+    private static void escreverTicketsTXT(PrintWriter out, List<Ticket> tickets) {
+        out.println("LISTA DE TICKETS:");
+        for (Ticket t : tickets) {
+            out.println(t.toString());
+        }
+    }
+
+    private static void exportarCSV(String arquivo, List<Ticket> tickets) throws IOException {
         try (PrintWriter out = new PrintWriter(new FileWriter(arquivo))) {
-            // Header compatível com Excel
-            out.println("ID;Placa;Modelo;Cor;Tipo;Entrada;Saida;Valor Pago;Status");
-            
-            DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-            
-            for (Ticket t : est.getTickets()) {
-                String saida = (t.getHoraSaida() != null) ? t.getHoraSaida().format(fmt) : "";
-                String status = (t.getHoraSaida() != null) ? "FECHADO" : "ABERTO";
-                String valor = String.format("%.2f", t.getValorPago()).replace(".", ","); // Excel BR usa vírgula
-                
-                out.printf("%d;%s;%s;%s;%s;%s;%s;%s;%s%n",
-                    t.getId(),
-                    t.getVeiculo().getPlaca(),
-                    t.getVeiculo().getModelo(),
-                    t.getVeiculo().getCor(),
-                    t.getVeiculo().getTipo(),
-                    t.getHoraEntrada().format(fmt),
-                    saida,
-                    valor,
-                    status
-                );
+            escreverTicketsCSV(out, tickets);
+        }
+    }
+
+    private static void escreverTicketsCSV(PrintWriter out, List<Ticket> tickets) {
+        // Header compatível com Excel
+        out.println(CABECALHO_CSV);
+        
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+        
+        for (Ticket t : tickets) {
+            escreverLinhaCSV(out, t, fmt);
+        }
+    }
+
+    private static void escreverLinhaCSV(PrintWriter out, Ticket t, DateTimeFormatter fmt) {
+        String saida = t.isFechado() ? t.getHoraSaida().format(fmt) : "";
+        String status = t.isFechado() ? "FECHADO" : "ABERTO";
+        String valor = Dinheiro.formatarDecimal(t.getValorPagoCentavos(), ','); // Excel BR usa vírgula
+        
+        out.printf("%d;%s;%s;%s;%s;%s;%s;%s;%s%n",
+            t.getId(),
+            t.getVeiculo().getPlaca(),
+            t.getVeiculo().getModelo(),
+            t.getVeiculo().getCor(),
+            t.getVeiculo().getTipo(),
+            t.getHoraEntrada().format(fmt),
+            saida,
+            valor,
+            status
+        );
+    }
+
+    /**
+     * Exporta apenas os tickets fechados desde a última exportação incremental.
+     * As linhas são acrescentadas sempre ao mesmo CSV (com as mesmas colunas da exportação
+     * completa) e cada execução registra no manifesto o intervalo de bytes e de tickets gravado,
+     * para que o sistema contábil leia somente o trecho novo.
+     *
+     * O ponto de controle guarda a sequência de fechamento do último ticket exportado (com a
+     * saída e o ID dele, que conferem se a sequência ainda vale para os dados carregados) e o
+     * tamanho do CSV naquele momento. Uma execução interrompida antes de gravá-lo é refeita
+     * por inteiro: o CSV é cortado de volta ao tamanho registrado antes de receber as linhas.
+     * O ponto de controle é gravado antes do manifesto, então uma linha do manifesto só
+     * existe para trechos já confirmados.
+     *
+     * @param est O estacionamento.
+     * @param dirRelatorios Diretório de saída.
+     * @return O caminho do CSV incremental.
+     * @throws IOException Se ocorrer erro de escrita.
+     */
+    static String exportarCSVIncremental(Estacionamento est, File dirRelatorios) throws IOException {
+        File arquivoDados = new File(dirRelatorios, ARQUIVO_INCREMENTAL);
+        File arquivoCheckpoint = new File(dirRelatorios, ARQUIVO_CHECKPOINT);
+        File arquivoManifesto = new File(dirRelatorios, ARQUIVO_MANIFESTO);
+
+        // 1. Lê o ponto de controle da última exportação
+        Properties checkpoint = new Properties();
+        if (arquivoCheckpoint.exists()) {
+            try (FileInputStream in = new FileInputStream(arquivoCheckpoint)) {
+                checkpoint.load(in);
+            }
+        }
+        // Pontos de controle antigos gravavam só (horário de saída, ID), que bastam como conferência
+        long ultimaSequencia = Long.parseLong(checkpoint.getProperty("ultimaSequencia", "0"));
+        String ultimaSaidaStr = checkpoint.getProperty("ultimaSaida");
+        LocalDateTime ultimaSaida = (ultimaSaidaStr != null) ? LocalDateTime.parse(ultimaSaidaStr) : null;
+        int ultimoId = Integer.parseInt(checkpoint.getProperty("ultimoId", "0"));
+
+        List<Ticket> novos = est.getTicketsFechadosApos(ultimaSequencia, ultimaSaida, ultimoId);
+
+        // 2. Descarta linhas de uma execução que não chegou a gravar o ponto de controle
+        String tamanhoConfirmadoStr = checkpoint.getProperty("tamanhoArquivo");
+        if (tamanhoConfirmadoStr != null) {
+            long tamanhoConfirmado = Long.parseLong(tamanhoConfirmadoStr);
+            if (arquivoDados.length() > tamanhoConfirmado) {
+                try (RandomAccessFile arquivo = new RandomAccessFile(arquivoDados, "rw")) {
+                    arquivo.setLength(tamanhoConfirmado);
+                }
+            }
+        }
+
+        // 3. Acrescenta as novas linhas ao CSV
+        boolean arquivoNovo = !arquivoDados.exists() || arquivoDados.length() == 0;
+        long offsetInicial = arquivoNovo ? 0 : arquivoDados.length();
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+        try (PrintWriter out = new PrintWriter(new FileWriter(arquivoDados, true))) {
+            if (arquivoNovo) {
+                out.println(CABECALHO_CSV);
+            }
+            for (Ticket t : novos) {
+                escreverLinhaCSV(out, t, fmt);
             }
         }
+        long offsetFinal = arquivoDados.length();
+
+        // 4. Avança o ponto de controle somente depois que os dados foram gravados
+        Ticket primeiro = novos.isEmpty() ? null : novos.get(0);
+        Ticket ultimo = novos.isEmpty() ? null : novos.get(novos.size() - 1);
+        if (ultimo != null || !String.valueOf(offsetFinal).equals(tamanhoConfirmadoStr)) {
+            if (ultimo != null) {
+                checkpoint.setProperty("ultimaSequencia", String.valueOf(ultimo.getSequenciaFechamento()));
+                checkpoint.setProperty("ultimaSaida", ultimo.getHoraSaida().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                checkpoint.setProperty("ultimoId", String.valueOf(ultimo.getId()));
+            }
+            checkpoint.setProperty("tamanhoArquivo", String.valueOf(offsetFinal));
+            File temporario = new File(dirRelatorios, ARQUIVO_CHECKPOINT + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temporario)) {
+                checkpoint.store(out, "Ponto de controle da exportação incremental");
+            }
+            Files.move(temporario.toPath(), arquivoCheckpoint.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // 5. Registra a execução no manifesto
+        boolean manifestoNovo = !arquivoManifesto.exists();
+        try (PrintWriter out = new PrintWriter(new FileWriter(arquivoManifesto, true))) {
+            if (manifestoNovo) {
+                out.println("DataExportacao;Arquivo;Tickets;PrimeiroId;UltimoId;SaidaInicial;SaidaFinal;OffsetInicial;OffsetFinal");
+            }
+            out.printf("%s;%s;%d;%s;%s;%s;%s;%d;%d%n",
+                LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                arquivoDados.getName(),
+                novos.size(),
+                (primeiro != null) ? String.valueOf(primeiro.getId()) : "",
+                (ultimo != null) ? String.valueOf(ultimo.getId()) : "",
+                (primeiro != null) ? primeiro.getHoraSaida().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "",
+                (ultimo != null) ? ultimo.getHoraSaida().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "",
+                offsetInicial,
+                offsetFinal
+            );
+        }
+
+        return arquivoDados.getPath();
     }
 
     // Adaptador para LocalDateTime (Gson não suporta nativamente Java 8 Time por padrão em versões antigas)
@@ -216,4 +391,57 @@ public class PersistenciaDados {
             return LocalDateTime.parse(in.nextString(), FORMATTER);
         }
     }
+
+    // Veículos do cadastro são gravados apenas pela placa; os dados completos ficam uma vez no
+    // cadastro e são religados por Estacionamento.vincularVeiculos() após a leitura
+    private static class VeiculoAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> tipo) {
+            if (tipo.getRawType() != Veiculo.class) {
+                return null;
+            }
+            TypeAdapter<Veiculo> completo = (TypeAdapter<Veiculo>) gson.getDelegateAdapter(this, tipo);
+            return (TypeAdapter<T>) new TypeAdapter<Veiculo>() {
+                @Override
+                public void write(JsonWriter out, Veiculo value) throws IOException {
+                    RegistroVeiculos registro = REGISTRO_EM_GRAVACAO.get();
+                    if (value != null && registro != null && registro.isCompartilhado(value)) {
+                        out.value(value.getPlaca());
+                    } else {
+                        completo.write(out, value);
+                    }
+                }
+
+                @Override
+                public Veiculo read(JsonReader in) throws IOException {
+                    if (in.peek() == com.google.gson.stream.JsonToken.STRING) {
+                        return new Veiculo(in.nextString(), null, null, null);
+                    }
+                    return completo.read(in);
+                }
+            };
+        }
+    }
+
+    // Adaptador para HyperLogLog: grava os registradores em Base64 em vez de um array JSON de bytes
+    private static class HyperLogLogAdapter extends TypeAdapter<HyperLogLog> {
+        @Override
+        public void write(JsonWriter out, HyperLogLog value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value.paraTexto());
+            }
+        }
+
+        @Override
+        public HyperLogLog read(JsonReader in) throws IOException {
+            if (in.peek() == com.google.gson.stream.JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return HyperLogLog.deTexto(in.nextString());
+        }
+    }
 }
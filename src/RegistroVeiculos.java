@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Cadastro dos veículos já vistos pelo estacionamento, um por placa.
+ *
+ * Clientes recorrentes passam a usar sempre o mesmo objeto {@link Veiculo}, referenciado
+ * por todos os seus tickets. Modelos e cores repetem muito ("Gol", "Preto"), então ficam em
+ * dicionários e cada veículo guarda apenas os códigos inteiros; as strings existem uma vez
+ * só na memória e no arquivo salvo. Os veículos são guardados em colunas (placa codificada,
+ * modelo, cor e tipo), que é o que vai para o snapshot; os objetos compartilhados são
+ * criados sob demanda.
+ *
+ * Se um veículo volta com outros dados (ex.: cor corrigida), o cadastro passa a apontar
+ * para os novos dados e os tickets antigos mantêm o objeto que já tinham.
+ */
+public class RegistroVeiculos {
+
+    private static final int SEM_TEXTO = -1;
+
+    private ArrayList<String> modelos = new ArrayList<>();
+    private ArrayList<String> cores = new ArrayList<>();
+    private long[] placas = new long[16];
+    private int[] modelosVeiculo = new int[16];
+    private int[] coresVeiculo = new int[16];
+    private byte[] tipos = new byte[16];
+    private int tamanho;
+
+    // Derivados das colunas; reconstruídos após um carregamento
+    private transient MapaPlacas<Integer> posicaoPorPlaca;
+    private transient HashMap<String, Integer> codigoModelo;
+    private transient HashMap<String, Integer> codigoCor;
+    private transient Veiculo[] veiculos;
+
+    /**
+     * Registra um veículo que está entrando e devolve o objeto compartilhado da placa.
+     * Se a placa já estiver cadastrada com os mesmos dados, o objeto existente é devolvido;
+     * caso contrário, o próprio veículo informado passa a ser o compartilhado.
+     * @param veiculo Veículo informado na entrada.
+     * @return O veículo a ser referenciado pelo ticket.
+     */
+    public synchronized Veiculo registrar(Veiculo veiculo) {
+        garantirIndices();
+        long placa = veiculo.getCodigoPlaca();
+        int modelo = codificar(veiculo.getModelo(), modelos, codigoModelo);
+        int cor = codificar(veiculo.getCor(), cores, codigoCor);
+        byte tipo = (byte) ((veiculo.getTipo() != null) ? veiculo.getTipo().ordinal() : -1);
+
+        Integer posicao = posicaoPorPlaca.get(placa);
+        if (posicao != null && modelosVeiculo[posicao] == modelo && coresVeiculo[posicao] == cor && tipos[posicao] == tipo) {
+            return getVeiculo(posicao);
+        }
+        if (posicao == null) {
+            posicao = tamanho++;
+            garantirCapacidade(tamanho);
+            posicaoPorPlaca.put(placa, posicao);
+        }
+        placas[posicao] = placa;
+        modelosVeiculo[posicao] = modelo;
+        coresVeiculo[posicao] = cor;
+        tipos[posicao] = tipo;
+
+        // O veículo informado vira o compartilhado, já com as strings dos dicionários
+        veiculo.setModelo(texto(modelos, modelo));
+        veiculo.setCor(texto(cores, cor));
+        veiculos[posicao] = veiculo;
+        return veiculo;
+    }
+
+    /**
+     * Obtém o veículo cadastrado com a placa.
+     * @param placa Código da placa ({@link CodecPlaca}).
+     * @return O veículo compartilhado ou null se a placa nunca foi registrada.
+     */
+    public synchronized Veiculo buscar(long placa) {
+        garantirIndices();
+        Integer posicao = posicaoPorPlaca.get(placa);
+        return (posicao != null) ? getVeiculo(posicao) : null;
+    }
+
+    /**
+     * Verifica se o objeto é o veículo compartilhado atual da sua placa
+     * (e pode, portanto, ser gravado apenas pela placa).
+     * @param veiculo O veículo.
+     * @return true se for o objeto do cadastro.
+     */
+    public synchronized boolean isCompartilhado(Veiculo veiculo) {
+        garantirIndices();
+        Integer posicao = posicaoPorPlaca.get(veiculo.getCodigoPlaca());
+        return posicao != null && veiculos[posicao] == veiculo;
+    }
+
+    /**
+     * Obtém a quantidade de veículos cadastrados.
+     * @return Placas distintas.
+     */
+    public synchronized int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Obtém a quantidade de modelos distintos no dicionário.
+     * @return Tamanho do dicionário de modelos.
+     */
+    public synchronized int getTotalModelos() {
+        return modelos.size();
+    }
+
+    /**
+     * Obtém a quantidade de cores distintas no dicionário.
+     * @return Tamanho do dicionário de cores.
+     */
+    public synchronized int getTotalCores() {
+        return cores.size();
+    }
+
+    /**
+     * Ajusta as colunas ao número de veículos antes de gravar o snapshot.
+     */
+    public synchronized void compactar() {
+        placas = Arrays.copyOf(placas, tamanho);
+        modelosVeiculo = Arrays.copyOf(modelosVeiculo, tamanho);
+        coresVeiculo = Arrays.copyOf(coresVeiculo, tamanho);
+        tipos = Arrays.copyOf(tipos, tamanho);
+        if (veiculos != null) {
+            veiculos = Arrays.copyOf(veiculos, tamanho);
+        }
+    }
+
+    /**
+     * Compara os dados de dois veículos (placa, modelo, cor e tipo).
+     * @param a Um veículo.
+     * @param b Outro veículo.
+     * @return true se todos os dados forem iguais.
+     */
+    public static boolean mesmosDados(Veiculo a, Veiculo b) {
+        return a.getCodigoPlaca() == b.getCodigoPlaca() && a.getTipo() == b.getTipo()
+                && Objects.equals(a.getModelo(), b.getModelo()) && Objects.equals(a.getCor(), b.getCor());
+    }
+
+    private Veiculo getVeiculo(int posicao) {
+        Veiculo v = veiculos[posicao];
+        if (v == null) {
+            byte tipo = tipos[posicao];
+            v = new Veiculo(CodecPlaca.decodificar(placas[posicao]), texto(modelos, modelosVeiculo[posicao]),
+                    texto(cores, coresVeiculo[posicao]), (tipo >= 0) ? TipoVeiculo.values()[tipo] : null);
+            veiculos[posicao] = v;
+        }
+        return v;
+    }
+
+    private static int codificar(String valor, ArrayList<String> dicionario, HashMap<String, Integer> codigos) {
+        if (valor == null) {
+            return SEM_TEXTO;
+        }
+        Integer codigo = codigos.get(valor);
+        if (codigo == null) {
+            codigo = dicionario.size();
+            dicionario.add(valor);
+            codigos.put(valor, codigo);
+        }
+        return codigo;
+    }
+
+    private static String texto(ArrayList<String> dicionario, int codigo) {
+        return (codigo == SEM_TEXTO) ? null : dicionario.get(codigo);
+    }
+
+    private void garantirCapacidade(int minimo) {
+        if (placas.length < minimo) {
+            int capacidade = Math.max(16, Math.max(minimo, placas.length + (placas.length >> 1)));
+            placas = Arrays.copyOf(placas, capacidade);
+            modelosVeiculo = Arrays.copyOf(modelosVeiculo, capacidade);
+            coresVeiculo = Arrays.copyOf(coresVeiculo, capacidade);
+            tipos = Arrays.copyOf(tipos, capacidade);
+        }
+        if (veiculos.length < placas.length) {
+            veiculos = Arrays.copyOf(veiculos, placas.length);
+        }
+    }
+
+    private void garantirIndices() {
+        if (posicaoPorPlaca != null) {
+            return;
+        }
+        posicaoPorPlaca = new MapaPlacas<>();
+        for (int i = 0; i < tamanho; i++) {
+            posicaoPorPlaca.put(placas[i], i);
+        }
+        codigoModelo = new HashMap<>();
+        for (int i = 0; i < modelos.size(); i++) {
+            codigoModelo.put(modelos.get(i), i);
+        }
+        codigoCor = new HashMap<>();
+        for (int i = 0; i < cores.size(); i++) {
+            codigoCor.put(cores.get(i), i);
+        }
+        veiculos = new Veiculo[placas.length];
+    }
+}
@@ -0,0 +1,17 @@
+import java.time.LocalDateTime;
+
+/**
+ * Fonte do horário atual usada pelo {@link Estacionamento} em entradas, saídas e na série de
+ * ocupação. Permite trocar o relógio do sistema por um relógio controlado (testes e simulações).
+ */
+public interface Relogio {
+
+    /** Relógio do sistema (horário local). */
+    Relogio SISTEMA = () -> Ticket.paraEpoch(LocalDateTime.now());
+
+    /**
+     * Obtém o instante atual.
+     * @return Segundos desde 1970-01-01T00:00 no horário local (ver {@link Ticket#paraEpoch}).
+     */
+    long agoraEpoch();
+}
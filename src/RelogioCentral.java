@@ -0,0 +1,122 @@
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relógio compartilhado pelas telas que exibem tempo e valor ao vivo de tickets em aberto.
+ *
+ * Um único timer atende todas as telas inscritas (em vez de um timer por diálogo). A cada
+ * segundo só é feita a conta dos minutos decorridos de cada ticket inscrito; a tela é avisada
+ * apenas quando o minuto muda (ou a tarifa é trocada), com o valor estimado pela tarifa
+ * vigente, o mesmo cálculo de custo constante usado na saída. O timer para sozinho quando
+ * não há inscritos.
+ *
+ * Deve ser usado na thread da interface (os avisos também são entregues nela).
+ */
+public final class RelogioCentral {
+
+    /**
+     * Tela que recebe o tempo e o valor estimado de um ticket.
+     */
+    public interface Assinante {
+        void tempoAtualizado(Ticket ticket, long minutosDecorridos, long valorEstimadoCentavos);
+    }
+
+    private static final int INTERVALO_MS = 1000;
+    private static final RelogioCentral INSTANCIA = new RelogioCentral();
+
+    private final List<Inscricao> inscricoes = new ArrayList<>();
+    private final Timer timer;
+
+    private RelogioCentral() {
+        timer = new Timer(INTERVALO_MS, e -> tique());
+    }
+
+    /**
+     * Obtém o relógio compartilhado.
+     * @return A instância única.
+     */
+    public static RelogioCentral getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Inscreve uma tela para acompanhar um ticket. O primeiro aviso é entregue imediatamente.
+     * @param assinante A tela.
+     * @param ticket Ticket em aberto.
+     * @param estacionamento Fonte da tarifa vigente.
+     */
+    public void inscrever(Assinante assinante, Ticket ticket, Estacionamento estacionamento) {
+        cancelar(assinante);
+        Inscricao inscricao = new Inscricao(assinante, ticket, estacionamento);
+        inscricoes.add(inscricao);
+        inscricao.atualizar(true);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Remove a inscrição de uma tela.
+     * @param assinante A tela.
+     */
+    public void cancelar(Assinante assinante) {
+        inscricoes.removeIf(i -> i.assinante == assinante);
+        if (inscricoes.isEmpty()) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Força o recálculo imediato do valor de uma tela (ex.: após aplicar desconto).
+     * @param assinante A tela.
+     */
+    public void recalcular(Assinante assinante) {
+        for (Inscricao i : inscricoes) {
+            if (i.assinante == assinante) {
+                i.atualizar(true);
+            }
+        }
+    }
+
+    /**
+     * Obtém quantas telas estão inscritas.
+     * @return Total de inscrições.
+     */
+    public int getTotalInscritos() {
+        return inscricoes.size();
+    }
+
+    private void tique() {
+        // Cópia: um assinante pode cancelar a inscrição durante o aviso
+        for (Inscricao i : new ArrayList<>(inscricoes)) {
+            i.atualizar(false);
+        }
+    }
+
+    private static final class Inscricao {
+        private final Assinante assinante;
+        private final Ticket ticket;
+        private final Estacionamento estacionamento;
+        private long ultimoMinuto = -1;
+        private Tarifa ultimaTarifa;
+
+        Inscricao(Assinante assinante, Ticket ticket, Estacionamento estacionamento) {
+            this.assinante = assinante;
+            this.ticket = ticket;
+            this.estacionamento = estacionamento;
+        }
+
+        void atualizar(boolean forcar) {
+            long agora = estacionamento.getRelogio().agoraEpoch();
+            long minutos = (agora - ticket.getEntradaEpoch()) / 60;
+            Tarifa tarifa = estacionamento.getTarifa();
+            if (!forcar && minutos == ultimoMinuto && tarifa == ultimaTarifa) {
+                return;
+            }
+            ultimoMinuto = minutos;
+            ultimaTarifa = tarifa;
+            assinante.tempoAtualizado(ticket, minutos, ticket.estimarCentavos(agora, tarifa));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import java.time.LocalDateTime;
+
+/**
+ * Relógio controlado manualmente: o tempo só anda quando mandado.
+ * Usado em testes e no {@link SimuladorTrafego} para reproduzir horas de movimento em segundos.
+ */
+public class RelogioSimulado implements Relogio {
+
+    private volatile long agoraEpoch;
+
+    /**
+     * Cria o relógio parado em um instante.
+     * @param inicio Instante inicial (horário local).
+     */
+    public RelogioSimulado(LocalDateTime inicio) {
+        this.agoraEpoch = Ticket.paraEpoch(inicio);
+    }
+
+    @Override
+    public long agoraEpoch() {
+        return agoraEpoch;
+    }
+
+    /**
+     * Avança o relógio.
+     * @param segundos Segundos a avançar.
+     * @throws IllegalArgumentException Se for negativo.
+     */
+    public void avancar(long segundos) {
+        if (segundos < 0) {
+            throw new IllegalArgumentException("O relógio simulado não volta no tempo.");
+        }
+        agoraEpoch += segundos;
+    }
+
+    /**
+     * Leva o relógio a um instante futuro.
+     * @param epoch Instante em segundos desde a época (horário local).
+     * @throws IllegalArgumentException Se o instante for anterior ao atual.
+     */
+    public void definir(long epoch) {
+        avancar(epoch - agoraEpoch);
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Série histórica da ocupação do estacionamento em três resoluções.
+ *
+ * As amostras entram em um anel por minuto; cada minuto fechado é consolidado (mínimo,
+ * máximo e média) no anel por hora, e cada hora no anel por dia. Minutos sem movimento
+ * repetem a última ocupação conhecida, então a série fica contínua sem precisar de um
+ * timer de amostragem. A memória é fixa: os anéis sobrescrevem os períodos mais antigos.
+ * Uma amostra atrasada (de um minuto já fechado) corrige também a hora e o dia que já
+ * tinham recebido aquele minuto.
+ *
+ * Os campos são simples (vetores de primitivos) para serem gravados junto com o estado.
+ */
+public class SerieOcupacao {
+
+    /** Minutos guardados na resolução por minuto (2 dias). */
+    public static final int CAPACIDADE_MINUTOS = 2 * 24 * 60;
+    /** Horas guardadas na resolução por hora (92 dias). */
+    public static final int CAPACIDADE_HORAS = 92 * 24;
+    /** Dias guardados na resolução diária (10 anos). */
+    public static final int CAPACIDADE_DIAS = 3660;
+
+    private Anel minutos;
+    private Anel horas;
+    private Anel dias;
+
+    /**
+     * Pontos de um trecho da série, em ordem cronológica.
+     */
+    public static final class Pontos {
+        private final int resolucao;
+        private final long[] inicios;
+        private final int[] minimos;
+        private final int[] maximos;
+        private final float[] medias;
+        private final int tamanho;
+
+        Pontos(int resolucao, long[] inicios, int[] minimos, int[] maximos, float[] medias, int tamanho) {
+            this.resolucao = resolucao;
+            this.inicios = inicios;
+            this.minimos = minimos;
+            this.maximos = maximos;
+            this.medias = medias;
+            this.tamanho = tamanho;
+        }
+
+        /** @return Duração de cada ponto em minutos (1, 60 ou 1440). */
+        public int getResolucao() {
+            return resolucao;
+        }
+
+        /** @return Quantidade de pontos. */
+        public int getTamanho() {
+            return tamanho;
+        }
+
+        /** @return Início do ponto (minutos desde a época). */
+        public long getInicio(int i) {
+            return inicios[i];
+        }
+
+        public int getMinimo(int i) {
+            return minimos[i];
+        }
+
+        public int getMaximo(int i) {
+            return maximos[i];
+        }
+
+        public float getMedia(int i) {
+            return medias[i];
+        }
+    }
+
+    /**
+     * Cria a série vazia.
+     */
+    public SerieOcupacao() {
+        dias = new Anel(24 * 60, CAPACIDADE_DIAS);
+        horas = new Anel(60, CAPACIDADE_HORAS);
+        minutos = new Anel(1, CAPACIDADE_MINUTOS);
+    }
+
+    // O encadeamento não é gravado (evita repetir os anéis no arquivo); é refeito a cada uso
+    private void ligarAneis() {
+        minutos.proximo = horas;
+        horas.proximo = dias;
+    }
+
+    /**
+     * Registra a ocupação observada em um instante.
+     * @param minuto Instante em minutos desde a época (horário local).
+     * @param ocupadas Vagas ocupadas.
+     */
+    public synchronized void registrar(long minuto, int ocupadas) {
+        ligarAneis();
+        minutos.registrar(minuto, ocupadas, ocupadas, ocupadas);
+    }
+
+    /**
+     * Estende a série até um instante sem registrar amostra: os minutos até ele passam a
+     * repetir a última ocupação, como faria a próxima amostra. Serve às leituras, que não
+     * devem alterar as médias.
+     * @param minuto Instante em minutos desde a época (horário local).
+     */
+    public synchronized void estender(long minuto) {
+        ligarAneis();
+        minutos.estender(minuto);
+    }
+
+    /**
+     * Indica se a série ainda não recebeu nenhuma amostra.
+     * @return true se estiver vazia.
+     */
+    public synchronized boolean isVazia() {
+        return minutos.ultimaFaixa < 0;
+    }
+
+    /**
+     * Obtém os pontos de um intervalo, na resolução mais fina que ainda cobre o início pedido.
+     * @param deMinuto Início (minutos desde a época), inclusive.
+     * @param ateMinuto Fim (minutos desde a época), inclusive.
+     * @return Pontos com dados dentro do intervalo.
+     */
+    public synchronized Pontos consultar(long deMinuto, long ateMinuto) {
+        Anel anel = dias;
+        if (minutos.cobre(deMinuto)) {
+            anel = minutos;
+        } else if (horas.cobre(deMinuto)) {
+            anel = horas;
+        }
+        return anel.extrair(deMinuto, ateMinuto);
+    }
+
+    /**
+     * Reduz os pontos a um par mínimo/máximo por coluna de pixels (downsampling por faixas),
+     * preservando picos e vales independentemente da quantidade de pontos.
+     * @param pontos Pontos de origem.
+     * @param deMinuto Início do eixo X.
+     * @param ateMinuto Fim do eixo X.
+     * @param colunas Largura em colunas (pixels).
+     * @return Vetor {minimos, maximos}; colunas sem dados valem -1.
+     */
+    public static int[][] reduzirPorColunas(Pontos pontos, long deMinuto, long ateMinuto, int colunas) {
+        int[] minimos = new int[colunas];
+        int[] maximos = new int[colunas];
+        java.util.Arrays.fill(minimos, -1);
+        java.util.Arrays.fill(maximos, -1);
+        double largura = Math.max(1, ateMinuto - deMinuto + 1);
+        for (int i = 0; i < pontos.tamanho; i++) {
+            int coluna = (int) ((pontos.inicios[i] - deMinuto) / largura * colunas);
+            if (coluna < 0 || coluna >= colunas) continue;
+            if (minimos[coluna] < 0 || pontos.minimos[i] < minimos[coluna]) minimos[coluna] = pontos.minimos[i];
+            if (pontos.maximos[i] > maximos[coluna]) maximos[coluna] = pontos.maximos[i];
+        }
+        return new int[][]{minimos, maximos};
+    }
+
+    // Anel de faixas de tempo de tamanho fixo; a faixa n ocupa a posição n % capacidade
+    private static final class Anel {
+        private final int resolucao;
+        private final int capacidade;
+        private transient Anel proximo;
+        private final int[] minimos;
+        private final int[] maximos;
+        private final float[] medias;
+        private final int[] contagens;
+        private long ultimaFaixa = -1;
+        private int ultimoValor;
+
+        Anel(int resolucao, int capacidade) {
+            this.resolucao = resolucao;
+            this.capacidade = capacidade;
+            this.minimos = new int[capacidade];
+            this.maximos = new int[capacidade];
+            this.medias = new float[capacidade];
+            this.contagens = new int[capacidade];
+        }
+
+        void registrar(long minuto, int minimo, int maximo, float media) {
+            long faixa = Math.floorDiv(minuto, resolucao);
+            if (ultimaFaixa < 0) {
+                limpar(faixa);
+                ultimaFaixa = faixa;
+            } else if (faixa > ultimaFaixa) {
+                avancar(faixa);
+            } else if (faixa <= ultimaFaixa - capacidade) {
+                return; // Mais antigo que o anel (ex.: ajuste de relógio)
+            } else if (faixa < ultimaFaixa) {
+                corrigirFechada(faixa, minimo, maximo, media);
+                return;
+            }
+            acumular(faixa, minimo, maximo, media);
+            if (faixa == ultimaFaixa) {
+                ultimoValor = maximo;
+            }
+        }
+
+        // Abre a faixa do instante sem acumular nada nela
+        void estender(long minuto) {
+            long faixa = Math.floorDiv(minuto, resolucao);
+            if (ultimaFaixa >= 0 && faixa > ultimaFaixa) {
+                avancar(faixa);
+            }
+        }
+
+        private void avancar(long faixa) {
+            if (contagens[posicao(ultimaFaixa)] == 0) {
+                // Faixa aberta por estender() sem amostras: a ocupação não mudou nela
+                acumular(ultimaFaixa, ultimoValor, ultimoValor, ultimoValor);
+            }
+            fechar(ultimaFaixa);
+            long k = ultimaFaixa + 1;
+            // Faixas que seriam sobrescritas de qualquer forma são repassadas direto ao próximo anel
+            if (faixa - k > capacidade) {
+                if (proximo != null) {
+                    for (long m = k * resolucao; m < (faixa - capacidade) * resolucao; m += proximo.resolucao) {
+                        proximo.registrar(m, ultimoValor, ultimoValor, ultimoValor);
+                    }
+                }
+                k = faixa - capacidade;
+            }
+            // Sem movimento: a ocupação continua igual à última conhecida
+            for (; k < faixa; k++) {
+                limpar(k);
+                acumular(k, ultimoValor, ultimoValor, ultimoValor);
+                fechar(k);
+            }
+            limpar(faixa);
+            ultimaFaixa = faixa;
+        }
+
+        // Amostra atrasada numa faixa já fechada: atualiza a faixa e o que já foi repassado dela
+        private void corrigirFechada(long faixa, int minimo, int maximo, float media) {
+            int p = posicao(faixa);
+            boolean repassada = contagens[p] > 0;
+            float mediaAnterior = medias[p];
+            acumular(faixa, minimo, maximo, media);
+            if (proximo == null) {
+                return;
+            }
+            if (repassada) {
+                proximo.corrigir(faixa * resolucao, minimos[p], maximos[p], medias[p] - mediaAnterior);
+            } else {
+                proximo.registrar(faixa * resolucao, minimos[p], maximos[p], medias[p]);
+            }
+        }
+
+        // Uma faixa do anel anterior, já somada aqui, mudou: inclui os novos extremos e desloca
+        // a média (média das faixas anteriores) pela diferença, repassando a correção adiante
+        void corrigir(long minuto, int minimo, int maximo, float diferencaMedia) {
+            long faixa = Math.floorDiv(minuto, resolucao);
+            if (ultimaFaixa < 0 || faixa > ultimaFaixa || faixa <= ultimaFaixa - capacidade) {
+                return;
+            }
+            int p = posicao(faixa);
+            if (contagens[p] == 0) {
+                return;
+            }
+            float mediaAnterior = medias[p];
+            minimos[p] = Math.min(minimos[p], minimo);
+            maximos[p] = Math.max(maximos[p], maximo);
+            medias[p] += diferencaMedia / contagens[p];
+            if (faixa < ultimaFaixa && proximo != null) {
+                proximo.corrigir(faixa * resolucao, minimos[p], maximos[p], medias[p] - mediaAnterior);
+            }
+        }
+
+        private void fechar(long faixa) {
+            int p = posicao(faixa);
+            if (proximo != null && contagens[p] > 0) {
+                proximo.registrar(faixa * resolucao, minimos[p], maximos[p], medias[p]);
+            }
+        }
+
+        private void limpar(long faixa) {
+            contagens[posicao(faixa)] = 0;
+        }
+
+        private void acumular(long faixa, int minimo, int maximo, float media) {
+            int p = posicao(faixa);
+            int n = ++contagens[p];
+            if (n == 1) {
+                minimos[p] = minimo;
+                maximos[p] = maximo;
+                medias[p] = media;
+            } else {
+                minimos[p] = Math.min(minimos[p], minimo);
+                maximos[p] = Math.max(maximos[p], maximo);
+                medias[p] += (media - medias[p]) / n;
+            }
+        }
+
+        private int posicao(long faixa) {
+            return (int) Math.floorMod(faixa, (long) capacidade);
+        }
+
+        boolean cobre(long minuto) {
+            return ultimaFaixa >= 0 && Math.floorDiv(minuto, resolucao) > ultimaFaixa - capacidade;
+        }
+
+        Pontos extrair(long deMinuto, long ateMinuto) {
+            if (ultimaFaixa < 0) {
+                return new Pontos(resolucao, new long[0], new int[0], new int[0], new float[0], 0);
+            }
+            long de = Math.max(Math.floorDiv(deMinuto, resolucao), ultimaFaixa - capacidade + 1);
+            long ate = Math.min(Math.floorDiv(ateMinuto, resolucao), ultimaFaixa);
+            int maximo = (int) Math.max(0, ate - de + 1);
+            long[] inicios = new long[maximo];
+            int[] mins = new int[maximo];
+            int[] maxs = new int[maximo];
+            float[] meds = new float[maximo];
+            int n = 0;
+            for (long f = de; f <= ate; f++) {
+                int p = posicao(f);
+                if (contagens[p] == 0) continue;
+                inicios[n] = f * resolucao;
+                mins[n] = minimos[p];
+                maxs[n] = maximos[p];
+                meds[n] = medias[p];
+                n++;
+            }
+            return new Pontos(resolucao, inicios, mins, maxs, meds, n);
+        }
+    }
+}
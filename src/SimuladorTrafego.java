@@ -0,0 +1,486 @@
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Simulador de movimento para dimensionar estacionamentos e testar mudanças no motor.
+ *
+ * Gera chegadas de cada {@link TipoVeiculo} como um processo de Poisson (com perfil por hora
+ * do dia) e permanências a partir de distribuições configuráveis, e executa entradas e saídas
+ * no {@link Estacionamento} real com um {@link RelogioSimulado}. O tempo simulado corre a uma
+ * velocidade fixa em relação ao tempo real (padrão 1000x: um dia em cerca de 86 segundos) ou
+ * o mais rápido possível. O resultado traz vazão, latência das operações, curva de ocupação,
+ * entradas recusadas e arrecadação.
+ *
+ * Uso: java SimuladorTrafego [vagas] [horas] [velocidade (0 = máxima)]
+ */
+public class SimuladorTrafego {
+
+    /** Velocidade padrão: segundos simulados por segundo real. */
+    public static final double VELOCIDADE_PADRAO = 1000;
+
+    /**
+     * Distribuição de uma grandeza aleatória (ex.: permanência em minutos).
+     */
+    public interface Distribuicao {
+        double amostrar(Random aleatorio);
+
+        /** Sempre o mesmo valor. */
+        static Distribuicao fixa(double valor) {
+            return aleatorio -> valor;
+        }
+
+        /** Exponencial com a média informada. */
+        static Distribuicao exponencial(double media) {
+            return aleatorio -> -media * Math.log(1 - aleatorio.nextDouble());
+        }
+
+        /** Normal truncada em zero. */
+        static Distribuicao normal(double media, double desvio) {
+            return aleatorio -> Math.max(0, media + desvio * aleatorio.nextGaussian());
+        }
+
+        /** Log-normal com a média e o desvio padrão informados (do resultado, não do logaritmo). */
+        static Distribuicao lognormal(double media, double desvio) {
+            double sigma2 = Math.log(1 + (desvio * desvio) / (media * media));
+            double mu = Math.log(media) - sigma2 / 2;
+            double sigma = Math.sqrt(sigma2);
+            return aleatorio -> Math.exp(mu + sigma * aleatorio.nextGaussian());
+        }
+    }
+
+    /**
+     * Fluxo de chegadas de um tipo de veículo.
+     */
+    public static final class Fluxo {
+        private final TipoVeiculo tipo;
+        private final double chegadasPorHora;
+        private final Distribuicao permanenciaMinutos;
+        private final double[] perfilHorario = new double[24];
+        private double maiorPeso;
+
+        /**
+         * Cria um fluxo com chegadas uniformes ao longo do dia.
+         * @param tipo Tipo dos veículos.
+         * @param chegadasPorHora Média de chegadas por hora (com peso 1 no perfil).
+         * @param permanenciaMinutos Distribuição da permanência, em minutos.
+         * @throws IllegalArgumentException Se os parâmetros forem inválidos.
+         */
+        public Fluxo(TipoVeiculo tipo, double chegadasPorHora, Distribuicao permanenciaMinutos) {
+            if (tipo == null || permanenciaMinutos == null) {
+                throw new IllegalArgumentException("Tipo e permanência do fluxo são obrigatórios.");
+            }
+            if (chegadasPorHora <= 0) {
+                throw new IllegalArgumentException("A taxa de chegadas deve ser positiva.");
+            }
+            this.tipo = tipo;
+            this.chegadasPorHora = chegadasPorHora;
+            this.permanenciaMinutos = permanenciaMinutos;
+            Arrays.fill(perfilHorario, 1.0);
+            this.maiorPeso = 1.0;
+        }
+
+        /**
+         * Define o peso de cada hora do dia sobre a taxa de chegadas (ex.: pico às 8h e às 18h).
+         * @param pesos 24 pesos não negativos, ao menos um positivo.
+         * @return O próprio fluxo.
+         * @throws IllegalArgumentException Se o perfil for inválido.
+         */
+        public Fluxo setPerfilHorario(double... pesos) {
+            if (pesos == null || pesos.length != 24) {
+                throw new IllegalArgumentException("O perfil horário deve ter 24 pesos.");
+            }
+            double maior = 0;
+            for (double p : pesos) {
+                if (p < 0) {
+                    throw new IllegalArgumentException("Os pesos do perfil não podem ser negativos.");
+                }
+                maior = Math.max(maior, p);
+            }
+            if (maior == 0) {
+                throw new IllegalArgumentException("O perfil precisa de ao menos uma hora com chegadas.");
+            }
+            System.arraycopy(pesos, 0, perfilHorario, 0, 24);
+            this.maiorPeso = maior;
+            return this;
+        }
+
+        // Próxima chegada por afinamento: candidatos na taxa máxima, aceitos pelo peso da hora
+        long proximaChegada(long depoisDe, Random aleatorio) {
+            double taxaMaximaPorSegundo = chegadasPorHora * maiorPeso / 3600.0;
+            double instante = depoisDe;
+            while (true) {
+                instante += -Math.log(1 - aleatorio.nextDouble()) / taxaMaximaPorSegundo;
+                double peso = perfilHorario[Ticket.horaDoDia((long) instante)];
+                if (aleatorio.nextDouble() * maiorPeso < peso) {
+                    return (long) Math.ceil(instante);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resultado de uma execução.
+     */
+    public static final class Resultado {
+        private final long segundosSimulados;
+        private final long nanosReais;
+        private final long[] latenciasEntrada;
+        private final long[] latenciasSaida;
+        private final Map<TipoVeiculo, int[]> porTipo;
+        private final long arrecadadoCentavos;
+        private final int estacionadosNoFim;
+        private final int minutosPorFaixa;
+        private final int[] ocupacaoMaxima;
+        private final float[] ocupacaoMedia;
+        private final int totalVagas;
+
+        Resultado(long segundosSimulados, long nanosReais, long[] latenciasEntrada, long[] latenciasSaida,
+                  Map<TipoVeiculo, int[]> porTipo, long arrecadadoCentavos, int estacionadosNoFim,
+                  int minutosPorFaixa, int[] ocupacaoMaxima, float[] ocupacaoMedia, int totalVagas) {
+            this.segundosSimulados = segundosSimulados;
+            this.nanosReais = nanosReais;
+            this.latenciasEntrada = latenciasEntrada;
+            this.latenciasSaida = latenciasSaida;
+            this.porTipo = porTipo;
+            this.arrecadadoCentavos = arrecadadoCentavos;
+            this.estacionadosNoFim = estacionadosNoFim;
+            this.minutosPorFaixa = minutosPorFaixa;
+            this.ocupacaoMaxima = ocupacaoMaxima;
+            this.ocupacaoMedia = ocupacaoMedia;
+            this.totalVagas = totalVagas;
+        }
+
+        /** @return Entradas aceitas de um tipo. */
+        public int getEntradas(TipoVeiculo tipo) {
+            return porTipo.get(tipo)[0];
+        }
+
+        /** @return Entradas recusadas (sem vaga) de um tipo. */
+        public int getRecusadas(TipoVeiculo tipo) {
+            return porTipo.get(tipo)[1];
+        }
+
+        /** @return Saídas de um tipo. */
+        public int getSaidas(TipoVeiculo tipo) {
+            return porTipo.get(tipo)[2];
+        }
+
+        /** @return Total de entradas recusadas. */
+        public int getTotalRecusadas() {
+            int total = 0;
+            for (int[] c : porTipo.values()) total += c[1];
+            return total;
+        }
+
+        /** @return Operações (entradas tentadas e saídas) por segundo de tempo real. */
+        public double getVazao() {
+            return (latenciasEntrada.length + latenciasSaida.length) / Math.max(1e-9, nanosReais / 1e9);
+        }
+
+        /**
+         * Obtém um percentil da latência das entradas.
+         * @param quantil Entre 0 e 1.
+         * @return Latência em nanossegundos.
+         */
+        public long getLatenciaEntrada(double quantil) {
+            return percentil(latenciasEntrada, quantil);
+        }
+
+        /**
+         * Obtém um percentil da latência das saídas.
+         * @param quantil Entre 0 e 1.
+         * @return Latência em nanossegundos.
+         */
+        public long getLatenciaSaida(double quantil) {
+            return percentil(latenciasSaida, quantil);
+        }
+
+        /** @return Total arrecadado no período, em centavos. */
+        public long getArrecadadoCentavos() {
+            return arrecadadoCentavos;
+        }
+
+        /** @return Ocupação máxima de cada faixa da curva (-1 sem dados). */
+        public int[] getOcupacaoMaxima() {
+            return ocupacaoMaxima.clone();
+        }
+
+        /** @return Duração de cada faixa da curva, em minutos. */
+        public int getMinutosPorFaixa() {
+            return minutosPorFaixa;
+        }
+
+        /**
+         * Imprime o relatório da simulação.
+         * @param out Destino.
+         */
+        public void imprimir(PrintStream out) {
+            out.println("=== Simulação de Tráfego ===");
+            out.println(String.format("Tempo simulado: %.1f h em %.2f s reais (%.0fx)",
+                    segundosSimulados / 3600.0, nanosReais / 1e9, segundosSimulados / Math.max(1e-9, nanosReais / 1e9)));
+            out.println(String.format("Vazão: %.0f operações/s", getVazao()));
+            out.println(String.format("Latência entrada (µs): p50 %.1f | p95 %.1f | p99 %.1f | máx %.1f",
+                    getLatenciaEntrada(0.5) / 1e3, getLatenciaEntrada(0.95) / 1e3,
+                    getLatenciaEntrada(0.99) / 1e3, getLatenciaEntrada(1.0) / 1e3));
+            out.println(String.format("Latência saída   (µs): p50 %.1f | p95 %.1f | p99 %.1f | máx %.1f",
+                    getLatenciaSaida(0.5) / 1e3, getLatenciaSaida(0.95) / 1e3,
+                    getLatenciaSaida(0.99) / 1e3, getLatenciaSaida(1.0) / 1e3));
+            out.println("Por tipo (entradas / recusadas / saídas):");
+            for (TipoVeiculo tipo : TipoVeiculo.values()) {
+                int[] c = porTipo.get(tipo);
+                if (c[0] + c[1] > 0) {
+                    out.println(String.format("  %-9s %7d / %7d / %7d", tipo, c[0], c[1], c[2]));
+                }
+            }
+            out.println("Ainda estacionados: " + estacionadosNoFim);
+            out.println("Arrecadado: " + Dinheiro.formatar(arrecadadoCentavos));
+
+            out.println("Ocupação (faixas de " + minutosPorFaixa + " min, máximo / média de " + totalVagas + " vagas):");
+            for (int i = 0; i < ocupacaoMaxima.length; i++) {
+                if (ocupacaoMaxima[i] < 0) continue;
+                int barra = (int) Math.round(40.0 * ocupacaoMaxima[i] / Math.max(1, totalVagas));
+                StringBuilder sb = new StringBuilder();
+                sb.append(String.format("  +%5dh ", (long) i * minutosPorFaixa / 60));
+                for (int b = 0; b < 40; b++) sb.append(b < barra ? '#' : '.');
+                sb.append(String.format(" %5d / %7.1f", ocupacaoMaxima[i], ocupacaoMedia[i]));
+                out.println(sb);
+            }
+        }
+
+        private static long percentil(long[] ordenado, double quantil) {
+            if (ordenado.length == 0) return 0;
+            int i = (int) Math.ceil(quantil * ordenado.length) - 1;
+            return ordenado[Math.max(0, Math.min(ordenado.length - 1, i))];
+        }
+    }
+
+    // Evento da simulação; a sequência desempata eventos no mesmo segundo
+    private static final class Evento implements Comparable<Evento> {
+        final long instante;
+        final long sequencia;
+        final Fluxo fluxo;
+        final String placa; // null = chegada
+
+        Evento(long instante, long sequencia, Fluxo fluxo, String placa) {
+            this.instante = instante;
+            this.sequencia = sequencia;
+            this.fluxo = fluxo;
+            this.placa = placa;
+        }
+
+        @Override
+        public int compareTo(Evento o) {
+            int cmp = Long.compare(instante, o.instante);
+            return (cmp != 0) ? cmp : Long.compare(sequencia, o.sequencia);
+        }
+    }
+
+    private final Estacionamento estacionamento;
+    private final RelogioSimulado relogio;
+    private final List<Fluxo> fluxos = new ArrayList<>();
+    private double velocidade = VELOCIDADE_PADRAO;
+    private long semente = 42;
+    private int proximaPlaca;
+
+    /**
+     * Cria um simulador. O relógio do estacionamento passa a ser o simulado.
+     * @param estacionamento Estacionamento a exercitar.
+     * @param inicio Instante simulado inicial.
+     */
+    public SimuladorTrafego(Estacionamento estacionamento, LocalDateTime inicio) {
+        this.estacionamento = estacionamento;
+        this.relogio = new RelogioSimulado(inicio);
+        estacionamento.setRelogio(relogio);
+    }
+
+    /**
+     * Acrescenta um fluxo de chegadas.
+     * @param fluxo O fluxo.
+     * @return O próprio simulador.
+     */
+    public SimuladorTrafego adicionarFluxo(Fluxo fluxo) {
+        fluxos.add(fluxo);
+        return this;
+    }
+
+    /**
+     * Define a velocidade do tempo simulado.
+     * @param velocidade Segundos simulados por segundo real; 0 executa o mais rápido possível.
+     * @throws IllegalArgumentException Se for negativa.
+     */
+    public void setVelocidade(double velocidade) {
+        if (velocidade < 0) {
+            throw new IllegalArgumentException("A velocidade não pode ser negativa.");
+        }
+        this.velocidade = velocidade;
+    }
+
+    /**
+     * Define a semente dos números aleatórios (mesma semente, mesma simulação).
+     * @param semente A semente.
+     */
+    public void setSemente(long semente) {
+        this.semente = semente;
+    }
+
+    /**
+     * Executa a simulação.
+     * @param horas Duração simulada.
+     * @return O resultado.
+     * @throws IllegalArgumentException Se a duração não for positiva ou não houver fluxos.
+     */
+    public Resultado executar(double horas) {
+        if (horas <= 0) {
+            throw new IllegalArgumentException("A duração da simulação deve ser positiva.");
+        }
+        if (fluxos.isEmpty()) {
+            throw new IllegalArgumentException("Adicione ao menos um fluxo de chegadas.");
+        }
+        Random aleatorio = new Random(semente);
+        long inicio = relogio.agoraEpoch();
+        long fim = inicio + (long) (horas * 3600);
+        long arrecadadoAntes = estacionamento.getTotalArrecadadoCentavos();
+
+        PriorityQueue<Evento> fila = new PriorityQueue<>();
+        long sequencia = 0;
+        for (Fluxo f : fluxos) {
+            fila.add(new Evento(f.proximaChegada(inicio, aleatorio), sequencia++, f, null));
+        }
+
+        Map<TipoVeiculo, int[]> porTipo = new EnumMap<>(TipoVeiculo.class);
+        for (TipoVeiculo tipo : TipoVeiculo.values()) {
+            porTipo.put(tipo, new int[3]);
+        }
+        long[] latEntradas = new long[1024];
+        long[] latSaidas = new long[1024];
+        int nEntradas = 0;
+        int nSaidas = 0;
+
+        // O motor avisa a cada entrada recusada; durante a simulação isso só atrapalha (e as
+        // recusas já entram no resultado). Só os avisos deste estacionamento são silenciados.
+        Consumer<String> avisosOriginais = estacionamento.getAvisos();
+        estacionamento.setAvisos(mensagem -> { });
+        long inicioReal = System.nanoTime();
+        try {
+            while (!fila.isEmpty() && fila.peek().instante <= fim) {
+                Evento e = fila.poll();
+                aguardar(inicioReal, e.instante - inicio);
+                relogio.definir(Math.max(e.instante, relogio.agoraEpoch()));
+                int[] contagem = porTipo.get(e.fluxo.tipo);
+
+                if (e.placa == null) {
+                    fila.add(new Evento(e.fluxo.proximaChegada(e.instante, aleatorio), sequencia++, e.fluxo, null));
+                    String placa = gerarPlaca();
+                    Veiculo veiculo = new Veiculo(placa, "Simulado", "-", e.fluxo.tipo);
+                    long t0 = System.nanoTime();
+                    Ticket ticket = estacionamento.registrarEntrada(veiculo);
+                    long latencia = System.nanoTime() - t0;
+                    if (nEntradas == latEntradas.length) latEntradas = Arrays.copyOf(latEntradas, nEntradas * 2);
+                    latEntradas[nEntradas++] = latencia;
+                    if (ticket == null) {
+                        contagem[1]++;
+                    } else {
+                        contagem[0]++;
+                        long permanencia = Math.max(60, Math.round(e.fluxo.permanenciaMinutos.amostrar(aleatorio) * 60));
+                        fila.add(new Evento(e.instante + permanencia, sequencia++, e.fluxo, placa));
+                    }
+                } else {
+                    long t0 = System.nanoTime();
+                    estacionamento.registrarSaida(e.placa);
+                    long latencia = System.nanoTime() - t0;
+                    if (nSaidas == latSaidas.length) latSaidas = Arrays.copyOf(latSaidas, nSaidas * 2);
+                    latSaidas[nSaidas++] = latencia;
+                    contagem[2]++;
+                }
+            }
+        } finally {
+            estacionamento.setAvisos(avisosOriginais);
+        }
+        long nanosReais = System.nanoTime() - inicioReal;
+        relogio.definir(Math.max(fim, relogio.agoraEpoch()));
+
+        latEntradas = Arrays.copyOf(latEntradas, nEntradas);
+        latSaidas = Arrays.copyOf(latSaidas, nSaidas);
+        Arrays.sort(latEntradas);
+        Arrays.sort(latSaidas);
+
+        // Curva de ocupação a partir da série histórica mantida pelo próprio estacionamento
+        SerieOcupacao.Pontos pontos = estacionamento.getSerieOcupacao().consultar(inicio / 60, fim / 60);
+        int minutosPorFaixa = Math.max(60, pontos.getResolucao());
+        int faixas = (int) ((fim - inicio) / 60 / minutosPorFaixa) + 1;
+        int[] maximos = new int[faixas];
+        float[] medias = new float[faixas];
+        int[] pontosPorFaixa = new int[faixas];
+        Arrays.fill(maximos, -1);
+        for (int i = 0; i < pontos.getTamanho(); i++) {
+            int f = (int) ((pontos.getInicio(i) - inicio / 60) / minutosPorFaixa);
+            if (f < 0 || f >= faixas) continue;
+            maximos[f] = Math.max(maximos[f], pontos.getMaximo(i));
+            medias[f] += pontos.getMedia(i);
+            pontosPorFaixa[f]++;
+        }
+        for (int f = 0; f < faixas; f++) {
+            if (pontosPorFaixa[f] > 0) medias[f] /= pontosPorFaixa[f];
+        }
+
+        return new Resultado(fim - inicio, nanosReais, latEntradas, latSaidas, porTipo,
+                estacionamento.getTotalArrecadadoCentavos() - arrecadadoAntes, estacionamento.getVagasOcupadas(),
+                minutosPorFaixa, maximos, medias, estacionamento.getVagas().size());
+    }
+
+    // Segura o evento até a hora real correspondente na velocidade configurada
+    private void aguardar(long inicioReal, long segundosSimulados) {
+        if (velocidade <= 0) {
+            return;
+        }
+        long alvo = inicioReal + (long) (segundosSimulados * 1e9 / velocidade);
+        long espera = alvo - System.nanoTime();
+        if (espera > 1_000_000) {
+            try {
+                Thread.sleep(espera / 1_000_000, (int) (espera % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Placas únicas no padrão Mercosul (ABC1D23)
+    private String gerarPlaca() {
+        int n = proximaPlaca++;
+        char[] placa = new char[7];
+        placa[6] = (char) ('0' + n % 10); n /= 10;
+        placa[5] = (char) ('0' + n % 10); n /= 10;
+        placa[4] = (char) ('A' + n % 26); n /= 26;
+        placa[3] = (char) ('0' + n % 10); n /= 10;
+        placa[2] = (char) ('A' + n % 26); n /= 26;
+        placa[1] = (char) ('A' + n % 26); n /= 26;
+        placa[0] = (char) ('A' + n % 26);
+        return new String(placa);
+    }
+
+    public static void main(String[] args) {
+        int vagas = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        double horas = (args.length > 1) ? Double.parseDouble(args[1]) : 24;
+        double velocidade = (args.length > 2) ? Double.parseDouble(args[2]) : VELOCIDADE_PADRAO;
+
+        // Dia útil típico: picos de chegada pela manhã e no fim da tarde
+        double[] perfil = {0.1, 0.05, 0.05, 0.05, 0.1, 0.3, 0.8, 1.5, 2.0, 1.5, 1.0, 1.0,
+                           1.2, 1.2, 1.0, 1.0, 1.1, 1.5, 1.8, 1.2, 0.8, 0.5, 0.3, 0.2};
+        Estacionamento estacionamento = new Estacionamento("Simulação", vagas, 10.0);
+        SimuladorTrafego simulador = new SimuladorTrafego(estacionamento, LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0));
+        simulador.setVelocidade(velocidade);
+        simulador.adicionarFluxo(new Fluxo(TipoVeiculo.CARRO, vagas * 0.25, Distribuicao.lognormal(150, 120)).setPerfilHorario(perfil));
+        simulador.adicionarFluxo(new Fluxo(TipoVeiculo.MOTO, vagas * 0.08, Distribuicao.exponencial(90)).setPerfilHorario(perfil));
+        simulador.adicionarFluxo(new Fluxo(TipoVeiculo.CAMINHAO, vagas * 0.02, Distribuicao.normal(60, 20)));
+
+        simulador.executar(horas).imprimir(System.out);
+    }
+}
@@ -1,10 +1,16 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.LinkedList;
-import java.util.Queue;
-
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notificações flutuantes no canto da tela.
+ *
+ * Pode ser chamado de qualquer thread: as notificações entram em uma {@link FilaNotificacoes}
+ * (agrupamento, limite de taxa e capacidade) e toda a parte visual roda na thread da interface.
+ * As janelas vêm de um pequeno conjunto reaproveitado e um único timer anima todas elas; o
+ * timer para quando não há nada visível nem pendente.
+ */
 public class SistemaNotificacoes {
 
     public enum TipoNotificacao {
@@ -23,66 +29,139 @@ public class SistemaNotificacoes {
     }
 
     private static final int MAX_SIMULTANEAS = 3;
-    private static final int DURACAO_MS = 3000;
+    private static final long DURACAO_NS = 3_000_000_000L;
     private static final int LARGURA = 300;
     private static final int ALTURA = 80;
     private static final int MARGEM = 10;
+    private static final int INTERVALO_ANIMACAO_MS = 15;
+    private static final int VELOCIDADE_SLIDE = 30;
+
+    private static final FilaNotificacoes fila = new FilaNotificacoes();
 
-    private static final Queue<NotificacaoDialog> ativas = new LinkedList<>();
-    private static final Queue<Runnable> filaEspera = new LinkedList<>();
+    // Estado visual: acessado apenas na thread da interface
+    private static final List<NotificacaoDialog> pool = new ArrayList<>();
+    private static final List<NotificacaoDialog> ativas = new ArrayList<>();
+    private static Timer timerAnimacao;
 
+    /**
+     * Exibe uma notificação. Mensagens idênticas pendentes são agrupadas com contador.
+     * @param mensagem Texto.
+     * @param tipo Tipo visual.
+     */
     public static void exibirNotificacao(String mensagem, TipoNotificacao tipo) {
-        if (ativas.size() >= MAX_SIMULTANEAS) {
-            filaEspera.add(() -> criarEExibir(mensagem, tipo));
+        exibirNotificacaoAgrupada(tipo + ":" + mensagem, mensagem, null, tipo);
+    }
+
+    /**
+     * Exibe uma notificação agrupável: ocorrências com a mesma chave, pendentes ou já na tela,
+     * viram uma única notificação com o resumo (ex.: "%d entradas registradas").
+     * @param chave Chave de agrupamento.
+     * @param mensagem Texto para uma única ocorrência.
+     * @param formatoResumo Texto com "%d" para várias ocorrências.
+     * @param tipo Tipo visual.
+     */
+    public static void exibirNotificacaoAgrupada(String chave, String mensagem, String formatoResumo, TipoNotificacao tipo) {
+        fila.publicar(new FilaNotificacoes.Notificacao(chave, mensagem, formatoResumo, tipo));
+        if (SwingUtilities.isEventDispatchThread()) {
+            iniciarAnimacao();
         } else {
-            criarEExibir(mensagem, tipo);
+            SwingUtilities.invokeLater(SistemaNotificacoes::iniciarAnimacao);
         }
     }
 
-    private static void criarEExibir(String mensagem, TipoNotificacao tipo) {
-        NotificacaoDialog dialog = new NotificacaoDialog(mensagem, tipo);
-        ativas.add(dialog);
-        reorganizarPosicoes();
-        dialog.animarEntrada();
+    /**
+     * Obtém quantas ocorrências foram descartadas por excesso na fila.
+     * @return Total descartado.
+     */
+    public static long getDescartadas() {
+        return fila.getDescartadas();
     }
 
-    private static void removerNotificacao(NotificacaoDialog dialog) {
-        ativas.remove(dialog);
-        dialog.dispose();
-        reorganizarPosicoes();
-        
-        if (!filaEspera.isEmpty()) {
-            filaEspera.poll().run();
+    private static void iniciarAnimacao() {
+        if (timerAnimacao == null) {
+            timerAnimacao = new Timer(INTERVALO_ANIMACAO_MS, e -> quadro());
+        }
+        if (!timerAnimacao.isRunning()) {
+            quadro();
+            timerAnimacao.start();
         }
     }
 
-    private static void reorganizarPosicoes() {
-        int index = 0;
+    // Um passo de todas as notificações: entrada, agrupamento, tempo de vida e saída
+    private static void quadro() {
+        long agora = System.nanoTime();
+
+        for (NotificacaoDialog dialog : ativas) {
+            if (dialog.estado != Estado.SAINDO) {
+                FilaNotificacoes.Notificacao extra = fila.retirarChave(dialog.notificacao.getChave());
+                if (extra != null) {
+                    dialog.agrupar(extra, agora);
+                }
+            }
+        }
+
+        while (ativas.size() < MAX_SIMULTANEAS) {
+            FilaNotificacoes.Notificacao proxima = fila.retirar(agora);
+            if (proxima == null) break;
+            NotificacaoDialog dialog = obterDoPool();
+            dialog.exibir(proxima, ativas.size());
+            ativas.add(dialog);
+        }
+
+        boolean removeu = false;
+        for (NotificacaoDialog dialog : new ArrayList<>(ativas)) {
+            if (dialog.avancar(agora)) {
+                ativas.remove(dialog);
+                dialog.setVisible(false);
+                pool.add(dialog);
+                removeu = true;
+            }
+        }
+        if (removeu) {
+            reorganizarPosicoes();
+        }
+
+        if (ativas.isEmpty() && fila.isVazia() && timerAnimacao != null) {
+            timerAnimacao.stop();
+        }
+    }
+
+    private static NotificacaoDialog obterDoPool() {
+        return pool.isEmpty() ? new NotificacaoDialog() : pool.remove(pool.size() - 1);
+    }
+
+    private static int posicaoY(int index) {
         Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-        int baseX = screenSize.width - LARGURA - MARGEM;
         int baseY = screenSize.height - MARGEM - 40; // 40px para barra de tarefas aprox.
+        return baseY - ((ALTURA + MARGEM) * (index + 1));
+    }
 
-        for (NotificacaoDialog dialog : ativas) {
-            int targetY = baseY - ((ALTURA + MARGEM) * (index + 1));
-            dialog.setLocation(baseX, targetY);
-            index++;
+    private static void reorganizarPosicoes() {
+        for (int i = 0; i < ativas.size(); i++) {
+            NotificacaoDialog dialog = ativas.get(i);
+            dialog.setLocation(dialog.getX(), posicaoY(i));
         }
     }
 
+    private enum Estado { ENTRANDO, VISIVEL, SAINDO }
+
     private static class NotificacaoDialog extends JDialog {
-        private Timer timerVida;
-        private Timer timerAnimacao;
-        private int targetX;
-        
-        public NotificacaoDialog(String mensagem, TipoNotificacao tipo) {
+        private final JPanel painelCor;
+        private final JLabel lblIcone;
+        private final JTextArea txtMsg;
+        private FilaNotificacoes.Notificacao notificacao;
+        private Estado estado;
+        private long visivelAte;
+
+        NotificacaoDialog() {
             setUndecorated(true);
             setAlwaysOnTop(true);
+            setFocusableWindowState(false);
             setSize(LARGURA, ALTURA);
             setLayout(new BorderLayout());
-            
+
             // Borda colorida à esquerda
-            JPanel painelCor = new JPanel();
-            painelCor.setBackground(tipo.cor);
+            painelCor = new JPanel();
             painelCor.setPreferredSize(new Dimension(10, ALTURA));
             add(painelCor, BorderLayout.WEST);
 
@@ -90,15 +169,14 @@ public class SistemaNotificacoes {
             JPanel painelConteudo = new JPanel(new BorderLayout(10, 0));
             painelConteudo.setBackground(Color.WHITE);
             painelConteudo.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-            
+
             // Ícone
-            JLabel lblIcone = new JLabel(tipo.icone);
+            lblIcone = new JLabel();
             lblIcone.setFont(new Font("Segoe UI", Font.BOLD, 24));
-            lblIcone.setForeground(tipo.cor);
             painelConteudo.add(lblIcone, BorderLayout.WEST);
 
             // Mensagem
-            JTextArea txtMsg = new JTextArea(mensagem);
+            txtMsg = new JTextArea();
             txtMsg.setWrapStyleWord(true);
             txtMsg.setLineWrap(true);
             txtMsg.setOpaque(false);
@@ -107,66 +185,59 @@ public class SistemaNotificacoes {
             painelConteudo.add(txtMsg, BorderLayout.CENTER);
 
             add(painelConteudo, BorderLayout.CENTER);
-            
+
             // Sombra simples (borda)
             getRootPane().setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
         }
 
-        public void animarEntrada() {
-            Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-            int finalX = screenSize.width - LARGURA - MARGEM;
-            int startX = screenSize.width;
-            
-            // Define posição Y inicial baseada na fila (será ajustada pelo reorganizarPosicoes, mas precisamos de um Y válido)
-            int index = ativas.size() - 1; // É o último adicionado
-            int baseY = screenSize.height - MARGEM - 40;
-            int y = baseY - ((ALTURA + MARGEM) * (index + 1));
-            
-            setLocation(startX, y);
-            setVisible(true);
+        // Reaproveita a janela para uma nova notificação, começando fora da tela
+        void exibir(FilaNotificacoes.Notificacao notificacao, int index) {
+            this.notificacao = notificacao;
+            TipoNotificacao tipo = notificacao.getTipo();
+            painelCor.setBackground(tipo.cor);
+            lblIcone.setText(tipo.icone);
+            lblIcone.setForeground(tipo.cor);
+            txtMsg.setText(notificacao.getTexto());
+            estado = Estado.ENTRANDO;
 
-            // Animação de slide
-            timerAnimacao = new Timer(10, new ActionListener() {
-                int currentX = startX;
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    if (currentX > finalX) {
-                        currentX -= 20; // Velocidade do slide
-                        setLocation(currentX, getY());
-                    } else {
-                        setLocation(finalX, getY());
-                        timerAnimacao.stop();
-                        iniciarTimerVida();
-                    }
-                }
-            });
-            timerAnimacao.start();
+            setLocation(Toolkit.getDefaultToolkit().getScreenSize().width, posicaoY(index));
+            setVisible(true);
         }
 
-        private void iniciarTimerVida() {
-            timerVida = new Timer(DURACAO_MS, e -> fecharComAnimacao());
-            timerVida.setRepeats(false);
-            timerVida.start();
+        void agrupar(FilaNotificacoes.Notificacao extra, long agora) {
+            notificacao.mesclar(extra);
+            txtMsg.setText(notificacao.getTexto());
+            if (estado == Estado.VISIVEL) {
+                visivelAte = agora + DURACAO_NS;
+            }
         }
 
-        private void fecharComAnimacao() {
-            // Animação de fade out (simulada com slide out para direita)
-            timerAnimacao = new Timer(10, new ActionListener() {
-                int currentX = getX();
-                int targetX = Toolkit.getDefaultToolkit().getScreenSize().width;
-                
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    if (currentX < targetX) {
-                        currentX += 20;
-                        setLocation(currentX, getY());
-                    } else {
-                        timerAnimacao.stop();
-                        SistemaNotificacoes.removerNotificacao(NotificacaoDialog.this);
+        /**
+         * Avança a animação desta janela.
+         * @return true quando a janela terminou de sair.
+         */
+        boolean avancar(long agora) {
+            int larguraTela = Toolkit.getDefaultToolkit().getScreenSize().width;
+            int finalX = larguraTela - LARGURA - MARGEM;
+            switch (estado) {
+                case ENTRANDO:
+                    int x = Math.max(finalX, getX() - VELOCIDADE_SLIDE);
+                    setLocation(x, getY());
+                    if (x == finalX) {
+                        estado = Estado.VISIVEL;
+                        visivelAte = agora + DURACAO_NS;
                     }
-                }
-            });
-            timerAnimacao.start();
+                    return false;
+                case VISIVEL:
+                    if (agora >= visivelAte) {
+                        estado = Estado.SAINDO;
+                    }
+                    return false;
+                default:
+                    // Saída simulada com slide para a direita
+                    setLocation(getX() + VELOCIDADE_SLIDE, getY());
+                    return getX() >= larguraTela;
+            }
         }
     }
 }
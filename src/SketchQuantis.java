@@ -0,0 +1,169 @@
+/**
+ * Estrutura de resumo para estimar quantis (p50, p90, p99...) de um fluxo de valores
+ * não negativos sem guardar os valores individuais.
+ *
+ * Os valores são agrupados em faixas logarítmicas (no estilo do DDSketch), o que garante
+ * erro relativo máximo igual à precisão configurada. A memória depende apenas da amplitude
+ * dos valores, não da quantidade, e dois resumos com a mesma precisão podem ser mesclados
+ * somando as contagens de cada faixa.
+ */
+public class SketchQuantis {
+
+    /** Precisão relativa padrão (1%). */
+    public static final double PRECISAO_PADRAO = 0.01;
+
+    // Valores abaixo deste limite são contados como zero
+    private static final double VALOR_MINIMO = 1e-9;
+
+    private double precisao;
+    private double logGama;
+    private long[] contagens;
+    private int indiceBase;
+    private long contagemZero;
+    private long total;
+    private double soma;
+    private double minimo;
+    private double maximo;
+
+    /**
+     * Cria um resumo com a precisão padrão.
+     */
+    public SketchQuantis() {
+        this(PRECISAO_PADRAO);
+    }
+
+    /**
+     * Cria um resumo com precisão relativa definida.
+     * @param precisao Erro relativo máximo aceito (entre 0 e 1, exclusive).
+     * @throws IllegalArgumentException Se a precisão for inválida.
+     */
+    public SketchQuantis(double precisao) {
+        if (precisao <= 0 || precisao >= 1) {
+            throw new IllegalArgumentException("A precisão deve estar entre 0 e 1.");
+        }
+        this.precisao = precisao;
+        this.logGama = Math.log((1 + precisao) / (1 - precisao));
+        this.contagens = new long[0];
+    }
+
+    /**
+     * Registra um valor no resumo.
+     * @param valor Valor não negativo.
+     * @throws IllegalArgumentException Se o valor for negativo.
+     */
+    public void adicionar(double valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("O resumo de quantis aceita apenas valores não negativos.");
+        }
+        // Mínimo e máximo só valem com dados (infinitos não são aceitos pelo JSON do snapshot)
+        minimo = (total == 0) ? valor : Math.min(minimo, valor);
+        maximo = (total == 0) ? valor : Math.max(maximo, valor);
+        total++;
+        soma += valor;
+
+        if (valor < VALOR_MINIMO) {
+            contagemZero++;
+            return;
+        }
+        int indice = (int) Math.ceil(Math.log(valor) / logGama);
+        garantirIndice(indice, indice);
+        contagens[indice - indiceBase]++;
+    }
+
+    /**
+     * Soma ao resumo atual as contagens de outro resumo.
+     * @param outro Resumo com a mesma precisão.
+     * @throws IllegalArgumentException Se as precisões forem diferentes.
+     */
+    public void mesclar(SketchQuantis outro) {
+        if (outro.precisao != precisao) {
+            throw new IllegalArgumentException("Só é possível mesclar resumos com a mesma precisão.");
+        }
+        if (outro.total == 0) {
+            return;
+        }
+        if (outro.contagens.length > 0) {
+            garantirIndice(outro.indiceBase, outro.indiceBase + outro.contagens.length - 1);
+            int deslocamento = outro.indiceBase - indiceBase;
+            for (int i = 0; i < outro.contagens.length; i++) {
+                contagens[deslocamento + i] += outro.contagens[i];
+            }
+        }
+        minimo = (total == 0) ? outro.minimo : Math.min(minimo, outro.minimo);
+        maximo = (total == 0) ? outro.maximo : Math.max(maximo, outro.maximo);
+        contagemZero += outro.contagemZero;
+        total += outro.total;
+        soma += outro.soma;
+    }
+
+    /**
+     * Estima o quantil informado.
+     * O custo depende apenas do número de faixas ocupadas, nunca da quantidade de valores.
+     * @param quantil Valor entre 0 e 1 (ex.: 0.9 para p90).
+     * @return Estimativa do quantil ou NaN se o resumo estiver vazio.
+     */
+    public double getQuantil(double quantil) {
+        if (quantil < 0 || quantil > 1) {
+            throw new IllegalArgumentException("O quantil deve estar entre 0 e 1.");
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long posicao = (long) Math.floor(quantil * (total - 1));
+        long acumulado = contagemZero;
+        if (posicao < acumulado) {
+            return 0.0;
+        }
+        for (int i = 0; i < contagens.length; i++) {
+            acumulado += contagens[i];
+            if (posicao < acumulado) {
+                // Ponto médio (em escala relativa) da faixa
+                double estimativa = 2 * Math.exp((indiceBase + i) * logGama) / (Math.exp(logGama) + 1);
+                return Math.max(minimo, Math.min(maximo, estimativa));
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Obtém a quantidade de valores registrados.
+     * @return Total de valores.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Obtém a média exata dos valores registrados.
+     * @return A média ou NaN se vazio.
+     */
+    public double getMedia() {
+        return (total == 0) ? Double.NaN : soma / total;
+    }
+
+    /**
+     * Obtém o maior valor registrado.
+     * @return O máximo ou NaN se vazio.
+     */
+    public double getMaximo() {
+        return (total == 0) ? Double.NaN : maximo;
+    }
+
+    private void garantirIndice(int menor, int maior) {
+        if (contagens.length == 0) {
+            contagens = new long[maior - menor + 1];
+            indiceBase = menor;
+            return;
+        }
+        int topo = indiceBase + contagens.length - 1;
+        if (menor >= indiceBase && maior <= topo) {
+            return;
+        }
+        int novaBase = Math.min(indiceBase, menor);
+        int novoTopo = Math.max(topo, maior);
+        long[] novas = new long[novoTopo - novaBase + 1];
+        System.arraycopy(contagens, 0, novas, indiceBase - novaBase, contagens.length);
+        contagens = novas;
+        indiceBase = novaBase;
+    }
+}
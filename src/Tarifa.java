@@ -0,0 +1,360 @@
+import java.time.LocalDateTime;
+
+/**
+ * Tabela de preços compilada a partir de um conjunto de {@link Regras} e do valor da hora.
+ *
+ * A compilação calcula, para cada tipo de veículo, o preço de cada hora da semana (com os
+ * adicionais noturno e de fim de semana) e guarda somas acumuladas: o custo de qualquer
+ * sequência de horas e de qualquer quantidade de diárias sai de poucas consultas às tabelas.
+ * O cálculo de um valor não cria objetos e tem custo constante, independente da permanência.
+ * As tabelas guardam os preços sem arredondar (em frações de centavo) e cada cálculo arredonda
+ * uma única vez, no total: três horas de R$ 5,005 custam R$ 15,02, não 3 × R$ 5,01.
+ *
+ * Regras de cobrança:
+ * <ul>
+ *   <li>Permanência até a tolerância é gratuita; acima dela é cobrada desde a entrada.</li>
+ *   <li>Cada hora é cobrada cheia, pelo preço da hora do relógio em que começa.</li>
+ *   <li>A primeira hora pode ser cobrada em frações (ex.: blocos de 15 minutos).</li>
+ *   <li>Cada período de 24 horas desde a entrada é limitado ao teto diário, se houver.</li>
+ * </ul>
+ *
+ * Instâncias são imutáveis; para trocar a tarifa em uso basta compilar outra e substituir a
+ * referência (ver {@link Estacionamento#setRegrasTarifa}).
+ */
+public final class Tarifa {
+
+    private static final int HORAS_SEMANA = 7 * 24;
+    private static final int MINUTOS_DIA = 24 * 60;
+    private static final int DIAS_SEMANA = 7;
+    // Frações de centavo por centavo nas tabelas (preços exatos até 1/10000 de centavo)
+    private static final long ESCALA = 10_000;
+
+    /**
+     * Regras configuráveis da tarifa. Os valores padrão reproduzem a cobrança por hora cheia.
+     */
+    public static final class Regras {
+        private int toleranciaMinutos = 0;
+        private int fracaoPrimeiraHoraMinutos = 60;
+        private long tetoDiarioCentavos = 0;
+        private double adicionalNoturno = 0.0;
+        private int inicioNoturno = 22;
+        private int fimNoturno = 6;
+        private double adicionalFimDeSemana = 0.0;
+
+        /**
+         * Cria as regras padrão (hora cheia, sem tolerância, teto ou adicionais).
+         */
+        public Regras() {
+        }
+
+        /**
+         * Cria uma cópia das regras.
+         * @param outras Regras de origem.
+         */
+        public Regras(Regras outras) {
+            this.toleranciaMinutos = outras.toleranciaMinutos;
+            this.fracaoPrimeiraHoraMinutos = outras.fracaoPrimeiraHoraMinutos;
+            this.tetoDiarioCentavos = outras.tetoDiarioCentavos;
+            this.adicionalNoturno = outras.adicionalNoturno;
+            this.inicioNoturno = outras.inicioNoturno;
+            this.fimNoturno = outras.fimNoturno;
+            this.adicionalFimDeSemana = outras.adicionalFimDeSemana;
+        }
+
+        public int getToleranciaMinutos() {
+            return toleranciaMinutos;
+        }
+
+        /**
+         * Define a permanência máxima gratuita.
+         * @param minutos Minutos de tolerância (0 a 1440).
+         * @throws IllegalArgumentException Se estiver fora do intervalo.
+         */
+        public void setToleranciaMinutos(int minutos) {
+            if (minutos < 0 || minutos > MINUTOS_DIA) {
+                throw new IllegalArgumentException("A tolerância deve ser entre 0 e " + MINUTOS_DIA + " minutos.");
+            }
+            this.toleranciaMinutos = minutos;
+        }
+
+        public int getFracaoPrimeiraHoraMinutos() {
+            return fracaoPrimeiraHoraMinutos;
+        }
+
+        /**
+         * Define o tamanho das frações da primeira hora (60 cobra a primeira hora cheia).
+         * @param minutos Divisor de 60 (1, 2, 3, 4, 5, 6, 10, 12, 15, 20, 30 ou 60).
+         * @throws IllegalArgumentException Se não dividir a hora em partes iguais.
+         */
+        public void setFracaoPrimeiraHoraMinutos(int minutos) {
+            if (minutos <= 0 || minutos > 60 || 60 % minutos != 0) {
+                throw new IllegalArgumentException("A fração da primeira hora deve dividir 60 minutos em partes iguais.");
+            }
+            this.fracaoPrimeiraHoraMinutos = minutos;
+        }
+
+        public long getTetoDiarioCentavos() {
+            return tetoDiarioCentavos;
+        }
+
+        /**
+         * Define o valor máximo cobrado a cada 24 horas, antes do fator do tipo de veículo.
+         * @param centavos Teto em centavos (0 para não limitar).
+         * @throws IllegalArgumentException Se for negativo.
+         */
+        public void setTetoDiarioCentavos(long centavos) {
+            if (centavos < 0) {
+                throw new IllegalArgumentException("O teto diário não pode ser negativo.");
+            }
+            this.tetoDiarioCentavos = centavos;
+        }
+
+        public double getAdicionalNoturno() {
+            return adicionalNoturno;
+        }
+
+        /**
+         * Define o adicional sobre as horas noturnas.
+         * @param percentual Percentual (pode ser negativo para desconto, mínimo -100).
+         * @throws IllegalArgumentException Se for menor que -100.
+         */
+        public void setAdicionalNoturno(double percentual) {
+            if (percentual < -100) {
+                throw new IllegalArgumentException("O adicional noturno não pode ser menor que -100%.");
+            }
+            this.adicionalNoturno = percentual;
+        }
+
+        public int getInicioNoturno() {
+            return inicioNoturno;
+        }
+
+        public int getFimNoturno() {
+            return fimNoturno;
+        }
+
+        /**
+         * Define o horário noturno. Início igual ao fim desativa o adicional.
+         * @param inicio Hora de início (0 a 23), inclusive.
+         * @param fim Hora de término (0 a 23), exclusive; pode ser menor que o início (vira o dia).
+         * @throws IllegalArgumentException Se alguma hora for inválida.
+         */
+        public void setHorarioNoturno(int inicio, int fim) {
+            if (inicio < 0 || inicio > 23 || fim < 0 || fim > 23) {
+                throw new IllegalArgumentException("O horário noturno deve usar horas entre 0 e 23.");
+            }
+            this.inicioNoturno = inicio;
+            this.fimNoturno = fim;
+        }
+
+        public double getAdicionalFimDeSemana() {
+            return adicionalFimDeSemana;
+        }
+
+        /**
+         * Define o adicional sobre as horas de sábado e domingo.
+         * @param percentual Percentual (pode ser negativo para desconto, mínimo -100).
+         * @throws IllegalArgumentException Se for menor que -100.
+         */
+        public void setAdicionalFimDeSemana(double percentual) {
+            if (percentual < -100) {
+                throw new IllegalArgumentException("O adicional de fim de semana não pode ser menor que -100%.");
+            }
+            this.adicionalFimDeSemana = percentual;
+        }
+
+        boolean isNoturna(int hora) {
+            if (inicioNoturno == fimNoturno) return false;
+            return (inicioNoturno < fimNoturno)
+                    ? hora >= inicioNoturno && hora < fimNoturno
+                    : hora >= inicioNoturno || hora < fimNoturno;
+        }
+    }
+
+    // Última tarifa padrão compilada, reaproveitada por quem só informa o valor da hora
+    private static volatile Tarifa ultimaSimples;
+
+    private final long valorHoraCentavos;
+    private final Regras regras;
+    // Valores das tabelas abaixo em 1/ESCALA de centavo, sem arredondamento
+    // [tipo]: teto diário já com o fator do tipo (0 = sem teto)
+    private final long[] tetoPorTipo;
+    // [tipo][h]: soma dos preços das horas 0..h-1 a partir de segunda 00h, em duas semanas seguidas
+    private final long[][] acumuladoHoras;
+    // [tipo][h * 8 + d]: custo de d diárias (0 a 7) começando na hora h da semana, já com teto
+    private final long[][] custoDiarias;
+
+    private Tarifa(long valorHoraCentavos, Regras regras) {
+        this.valorHoraCentavos = valorHoraCentavos;
+        this.regras = new Regras(regras);
+        TipoVeiculo[] tipos = TipoVeiculo.values();
+        this.acumuladoHoras = new long[tipos.length][2 * HORAS_SEMANA + 1];
+        this.custoDiarias = new long[tipos.length][HORAS_SEMANA * (DIAS_SEMANA + 1)];
+        this.tetoPorTipo = new long[tipos.length];
+
+        for (TipoVeiculo tipo : tipos) {
+            int t = tipo.ordinal();
+            long[] acumulado = acumuladoHoras[t];
+            for (int h = 0; h < 2 * HORAS_SEMANA; h++) {
+                acumulado[h + 1] = acumulado[h] + precoHora(tipo, h % HORAS_SEMANA);
+            }
+            long tetoTipo = Math.round(this.regras.tetoDiarioCentavos * tipo.getFator()) * ESCALA;
+            tetoPorTipo[t] = tetoTipo;
+            for (int h = 0; h < HORAS_SEMANA; h++) {
+                long soma = 0;
+                for (int d = 1; d <= DIAS_SEMANA; d++) {
+                    int inicio = (h + (d - 1) * 24) % HORAS_SEMANA;
+                    soma += limitar(acumulado[inicio + 24] - acumulado[inicio], tetoTipo);
+                    custoDiarias[t][h * (DIAS_SEMANA + 1) + d] = soma;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compila uma tarifa.
+     * @param valorHoraCentavos Valor base da hora em centavos.
+     * @param regras Regras de cobrança (são copiadas).
+     * @return A tarifa pronta para uso.
+     * @throws IllegalArgumentException Se o valor da hora for negativo ou as regras nulas.
+     */
+    public static Tarifa compilar(long valorHoraCentavos, Regras regras) {
+        if (valorHoraCentavos < 0) {
+            throw new IllegalArgumentException("O valor por hora não pode ser negativo.");
+        }
+        if (regras == null) {
+            throw new IllegalArgumentException("As regras da tarifa não podem ser nulas.");
+        }
+        return new Tarifa(valorHoraCentavos, regras);
+    }
+
+    /**
+     * Obtém a tarifa com as regras padrão (hora cheia) para um valor da hora.
+     * A última compilada é reaproveitada enquanto o valor não mudar.
+     * @param valorHoraCentavos Valor base da hora em centavos.
+     * @return A tarifa padrão.
+     */
+    public static Tarifa simples(long valorHoraCentavos) {
+        Tarifa tarifa = ultimaSimples;
+        if (tarifa == null || tarifa.valorHoraCentavos != valorHoraCentavos) {
+            tarifa = compilar(valorHoraCentavos, new Regras());
+            ultimaSimples = tarifa;
+        }
+        return tarifa;
+    }
+
+    /**
+     * Calcula o valor de uma permanência.
+     * @param tipo Tipo do veículo (null é cobrado como carro).
+     * @param minutos Duração da permanência em minutos.
+     * @param horaDaSemana Hora da semana da entrada (0 = segunda 00h, 167 = domingo 23h).
+     * @return Valor em centavos, sem desconto.
+     */
+    public long calcularCentavos(TipoVeiculo tipo, long minutos, int horaDaSemana) {
+        if (minutos <= 0 || minutos <= regras.toleranciaMinutos) {
+            return 0;
+        }
+        int t = (tipo != null) ? tipo.ordinal() : TipoVeiculo.CARRO.ordinal();
+        long diarias = minutos / MINUTOS_DIA;
+        long resto = minutos - diarias * MINUTOS_DIA;
+
+        long total = 0;
+        if (diarias > 0) {
+            int base = horaDaSemana * (DIAS_SEMANA + 1);
+            total = (diarias / DIAS_SEMANA) * custoDiarias[t][base + DIAS_SEMANA]
+                    + custoDiarias[t][base + (int) (diarias % DIAS_SEMANA)];
+        }
+        if (resto > 0) {
+            int inicio = (int) ((horaDaSemana + diarias * 24) % HORAS_SEMANA);
+            long[] acumulado = acumuladoHoras[t];
+            long parcial;
+            int fracao = regras.fracaoPrimeiraHoraMinutos;
+            if (diarias == 0 && resto < 60 && fracao < 60) {
+                long blocos = (resto + fracao - 1) / fracao;
+                parcial = (acumulado[inicio + 1] - acumulado[inicio]) * blocos * fracao / 60;
+            } else {
+                long horas = (resto + 59) / 60;
+                parcial = acumulado[inicio + (int) horas] - acumulado[inicio];
+            }
+            total += limitar(parcial, tetoPorTipo[t]);
+        }
+        // Único arredondamento do cálculo (meio centavo para cima; preços nunca são negativos)
+        return (total + ESCALA / 2) / ESCALA;
+    }
+
+    /**
+     * Calcula o valor de uma permanência já com desconto.
+     * @param tipo Tipo do veículo.
+     * @param entrada Instante de entrada.
+     * @param saida Instante de saída (ou o momento atual, para estimativas).
+     * @param desconto Percentual de desconto (0 a 100).
+     * @return O valor em centavos.
+     */
+    public long calcularCentavos(TipoVeiculo tipo, LocalDateTime entrada, LocalDateTime saida, double desconto) {
+        return calcularCentavos(tipo, Ticket.paraEpoch(entrada), Ticket.paraEpoch(saida), desconto);
+    }
+
+    /**
+     * Calcula o valor de uma permanência já com desconto, a partir dos horários em segundos.
+     * @param tipo Tipo do veículo.
+     * @param entradaEpoch Entrada em segundos desde a época (horário local).
+     * @param saidaEpoch Saída (ou o momento atual) em segundos desde a época (horário local).
+     * @param desconto Percentual de desconto (0 a 100).
+     * @return O valor em centavos.
+     */
+    public long calcularCentavos(TipoVeiculo tipo, long entradaEpoch, long saidaEpoch, double desconto) {
+        long centavos = calcularCentavos(tipo, (saidaEpoch - entradaEpoch) / 60, horaDaSemana(entradaEpoch));
+        return Dinheiro.aplicarDesconto(centavos, desconto);
+    }
+
+    /**
+     * Converte um instante na hora da semana usada pelas tabelas.
+     * @param dataHora O instante.
+     * @return 0 (segunda 00h) a 167 (domingo 23h).
+     */
+    public static int horaDaSemana(LocalDateTime dataHora) {
+        return (dataHora.getDayOfWeek().getValue() - 1) * 24 + dataHora.getHour();
+    }
+
+    /**
+     * Converte um instante em segundos (horário local) na hora da semana usada pelas tabelas.
+     * @param epoch Segundos desde 1970-01-01T00:00, uma quinta-feira.
+     * @return 0 (segunda 00h) a 167 (domingo 23h).
+     */
+    public static int horaDaSemana(long epoch) {
+        int diaDaSemana = (int) Math.floorMod(Ticket.diaEpoch(epoch) + 3, 7L);
+        return diaDaSemana * 24 + Ticket.horaDoDia(epoch);
+    }
+
+    /**
+     * Obtém o valor base da hora usado na compilação.
+     * @return Valor em centavos.
+     */
+    public long getValorHoraCentavos() {
+        return valorHoraCentavos;
+    }
+
+    /**
+     * Obtém uma cópia das regras usadas na compilação.
+     * @return As regras.
+     */
+    public Regras getRegras() {
+        return new Regras(regras);
+    }
+
+    // Preço de uma hora em 1/ESCALA de centavo
+    private long precoHora(TipoVeiculo tipo, int horaDaSemana) {
+        double multiplicador = 1.0;
+        if (regras.isNoturna(horaDaSemana % 24)) {
+            multiplicador *= 1 + regras.adicionalNoturno / 100.0;
+        }
+        if (horaDaSemana >= 5 * 24) {
+            multiplicador *= 1 + regras.adicionalFimDeSemana / 100.0;
+        }
+        return Math.round(valorHoraCentavos * tipo.getFator() * multiplicador * ESCALA);
+    }
+
+    private static long limitar(long valor, long teto) {
+        return (teto > 0) ? Math.min(valor, teto) : valor;
+    }
+}
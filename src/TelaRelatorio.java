@@ -1,8 +1,9 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -11,11 +12,12 @@ public class TelaRelatorio extends JFrame {
     private Estacionamento estacionamento;
     private JTextArea areaRelatorioGeral;
     private JTable tabelaHistorico;
-    private DefaultTableModel modeloHistorico;
-    private JPanel painelGrafico;
+    private ModeloTabelaTickets modeloHistorico;
+    private PainelGraficoOcupacao painelGrafico;
     private JTextArea areaEstatisticasAvancadas;
+    private JComboBox<String> cmbPeriodo;
 
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final String[] PERIODOS = {"Todo o histórico", "Hoje", "Ontem", "Últimos 7 dias", "Mês anterior"};
 
     public TelaRelatorio(Estacionamento estacionamento) {
         this.estacionamento = estacionamento;
@@ -26,6 +28,14 @@ public class TelaRelatorio extends JFrame {
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setLayout(new BorderLayout());
 
+        // Seleção de período
+        JPanel painelPeriodo = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        cmbPeriodo = new JComboBox<>(PERIODOS);
+        cmbPeriodo.addActionListener(e -> atualizarDados());
+        painelPeriodo.add(new JLabel("Período:"));
+        painelPeriodo.add(cmbPeriodo);
+        add(painelPeriodo, BorderLayout.NORTH);
+
         // Abas
         JTabbedPane tabbedPane = new JTabbedPane();
 
@@ -41,11 +51,33 @@ public class TelaRelatorio extends JFrame {
         tabbedPane.addTab("Gráfico de Ocupação", painelGrafico);
 
         // Aba 3: Histórico de Tickets
-        String[] colunas = {"ID", "Placa", "Entrada", "Saída", "Valor Pago", "Status"};
-        modeloHistorico = new DefaultTableModel(colunas, 0);
+        // O modelo lê direto da lista de tickets; ordenação e filtro são feitos por índices
+        modeloHistorico = new ModeloTabelaTickets(estacionamento);
         tabelaHistorico = new JTable(modeloHistorico);
         tabelaHistorico.setRowHeight(25);
-        tabbedPane.addTab("Histórico de Tickets", new JScrollPane(tabelaHistorico));
+        tabelaHistorico.getTableHeader().addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                int coluna = tabelaHistorico.columnAtPoint(e.getPoint());
+                if (coluna >= 0) {
+                    modeloHistorico.ordenarPor(tabelaHistorico.convertColumnIndexToModel(coluna));
+                }
+            }
+        });
+
+        JPanel painelHistorico = new JPanel(new BorderLayout());
+        JPanel painelFiltro = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField txtFiltro = new JTextField(15);
+        txtFiltro.setToolTipText("Placa (ou parte dela), ABERTO ou FECHADO");
+        txtFiltro.addActionListener(e -> modeloHistorico.filtrar(txtFiltro.getText()));
+        JButton btnFiltrar = new JButton("Filtrar");
+        btnFiltrar.addActionListener(e -> modeloHistorico.filtrar(txtFiltro.getText()));
+        painelFiltro.add(new JLabel("Filtro:"));
+        painelFiltro.add(txtFiltro);
+        painelFiltro.add(btnFiltrar);
+        painelHistorico.add(painelFiltro, BorderLayout.NORTH);
+        painelHistorico.add(new JScrollPane(tabelaHistorico), BorderLayout.CENTER);
+        tabbedPane.addTab("Histórico de Tickets", painelHistorico);
 
         // Aba 4: Estatísticas Avançadas
         areaEstatisticasAvancadas = new JTextArea();
@@ -60,16 +92,19 @@ public class TelaRelatorio extends JFrame {
         JPanel painelBotoes = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton btnExportarPDF = new JButton("Exportar PDF");
         JButton btnExportarExcel = new JButton("Exportar Excel");
+        JButton btnExportarColunar = new JButton("Exportar Colunar");
         JButton btnImprimir = new JButton("Imprimir");
         JButton btnAtualizar = new JButton("Atualizar");
 
         btnExportarPDF.addActionListener(e -> exportarArquivo("PDF"));
         btnExportarExcel.addActionListener(e -> exportarArquivo("EXCEL"));
+        btnExportarColunar.addActionListener(e -> exportarArquivo("COLUNAR"));
         btnImprimir.addActionListener(e -> imprimirRelatorio());
         btnAtualizar.addActionListener(e -> atualizarDados());
 
         painelBotoes.add(btnExportarPDF);
         painelBotoes.add(btnExportarExcel);
+        painelBotoes.add(btnExportarColunar);
         painelBotoes.add(btnImprimir);
         painelBotoes.add(btnAtualizar);
 
@@ -79,12 +114,24 @@ public class TelaRelatorio extends JFrame {
         atualizarDados();
     }
 
+    /**
+     * Exibe a tela com os dados atualizados. A mesma instância é reaproveitada a cada abertura.
+     */
+    public void exibir() {
+        atualizarDados();
+        setVisible(true);
+        toFront();
+    }
+
     private void exportarArquivo(String formato) {
         try {
-            String caminho = PersistenciaDados.exportarRelatorio(estacionamento, formato);
+            LocalDate[] periodo = periodoSelecionado();
+            String caminho = PersistenciaDados.exportarRelatorio(estacionamento, formato, periodo[0], periodo[1]);
             String msg = "Relatório " + formato + " exportado com sucesso!\nLocal: " + caminho;
             if (formato.equals("PDF")) {
                 msg += "\n\n(O arquivo HTML foi gerado. Abra no navegador e use 'Imprimir > Salvar como PDF')";
+            } else if (formato.equals("COLUNAR")) {
+                msg += "\n\n(Arquivo binário para análise. Use 'java LeitorColunar <arquivo>' para consultá-lo)";
             }
             
             int op = JOptionPane.showConfirmDialog(this, msg + "\n\nDeseja abrir o arquivo agora?", "Sucesso", JOptionPane.YES_NO_OPTION);
@@ -118,101 +165,213 @@ public class TelaRelatorio extends JFrame {
         }
     }
 
+    /**
+     * Converte a opção do combo de período em datas de início e fim.
+     * @return Vetor {inicio, fim}; ambos null para todo o histórico.
+     */
+    private LocalDate[] periodoSelecionado() {
+        LocalDate hoje = hoje();
+        switch (cmbPeriodo.getSelectedIndex()) {
+            case 1:
+                return new LocalDate[]{hoje, hoje};
+            case 2:
+                return new LocalDate[]{hoje.minusDays(1), hoje.minusDays(1)};
+            case 3:
+                return new LocalDate[]{hoje.minusDays(6), hoje};
+            case 4:
+                LocalDate inicioMes = hoje.withDayOfMonth(1).minusMonths(1);
+                return new LocalDate[]{inicioMes, inicioMes.withDayOfMonth(inicioMes.lengthOfMonth())};
+            default:
+                return new LocalDate[]{null, null};
+        }
+    }
+
+    // Data atual pelo relógio do estacionamento (o mesmo das entradas e saídas)
+    private LocalDate hoje() {
+        return LocalDate.ofEpochDay(Ticket.diaEpoch(estacionamento.getRelogio().agoraEpoch()));
+    }
+
     private void atualizarDados() {
-        // 1. Relatório Geral
+        LocalDate[] periodo = periodoSelecionado();
+        LocalDate inicio = periodo[0];
+        LocalDate fim = periodo[1];
+
+        // 1. Relatório Geral (ocupação é sempre atual; o financeiro vem do cache do período)
         StringBuilder sb = new StringBuilder();
         sb.append("=== RELATÓRIO GERAL ===\n\n");
         sb.append("Estacionamento: ").append(estacionamento.getNome()).append("\n");
         sb.append("Total de Vagas: ").append(estacionamento.getVagas().size()).append("\n");
-        sb.append("Vagas Livres:   ").append(estacionamento.getVagasLivres()).append("\n");
+        sb.append("Vagas Livres:   ").append(estacionamento.getVagasLivres())
+          .append(" (").append(estacionamento.getUnidadesLivres()).append(" unidades)\n");
         sb.append("Vagas Ocupadas: ").append(estacionamento.getVagasOcupadas()).append("\n");
-        sb.append("Valor Hora:     R$ ").append(String.format("%.2f", estacionamento.getValorHora())).append("\n\n");
-        
-        double totalArrecadado = estacionamento.getTickets().stream()
-                .mapToDouble(Ticket::getValorPago).sum();
-        sb.append("Total Arrecadado: R$ ").append(String.format("%.2f", totalArrecadado)).append("\n");
+        sb.append("Valor Hora:     ");
+        Dinheiro.formatar(sb, estacionamento.getValorHoraCentavos()).append("\n\n");
+        // Arrecadação pela data de saída (quando o valor é pago), somada nas colunas do armazém
+        sb.append(estacionamento.obterRelatorio("GERAL", inicio, fim, "TEXTO", () ->
+                "Total Arrecadado: " + Dinheiro.formatar(estacionamento.somarArrecadado(inicio, fim)) + "\n"));
         
         areaRelatorioGeral.setText(sb.toString());
 
-        // 2. Gráfico (Repaint forçará o desenho com dados novos se passarmos o estacionamento para o painel)
-        painelGrafico.repaint();
+        // 2. Gráfico (ocupação atual e série histórica do período)
+        painelGrafico.atualizarSerie(inicio, fim);
 
-        // 3. Histórico
-        modeloHistorico.setRowCount(0);
-        List<Ticket> tickets = estacionamento.getTickets();
-        for (Ticket t : tickets) {
-            String saida = (t.getHoraSaida() != null) ? t.getHoraSaida().format(FORMATTER) : "-";
-            String status = (t.getHoraSaida() != null) ? "Fechado" : "Aberto";
-            
-            Object[] linha = {
-                t.getId(),
-                t.getVeiculo().getPlaca(),
-                t.getHoraEntrada().format(FORMATTER),
-                saida,
-                String.format("R$ %.2f", t.getValorPago()),
-                status
-            };
-            modeloHistorico.addRow(linha);
-        }
+        // 3. Histórico (só as linhas novas/alteradas são anunciadas à tabela)
+        modeloHistorico.sincronizar();
 
         // 4. Estatísticas Avançadas
-        long totalCarros = tickets.stream().filter(t -> t.getVeiculo().getTipo() == TipoVeiculo.CARRO).count();
-        long totalMotos = tickets.stream().filter(t -> t.getVeiculo().getTipo() == TipoVeiculo.MOTO).count();
-        long totalCaminhoes = tickets.stream().filter(t -> t.getVeiculo().getTipo() == TipoVeiculo.CAMINHAO).count();
+        // O mês corrente muda com o relógio, não com o período: fica fora do texto em cache
+        LocalDate hoje = hoje();
+        StringBuilder sbAdv = new StringBuilder(estacionamento.obterRelatorio("AVANCADO", inicio, fim, "TEXTO",
+                () -> gerarEstatisticasAvancadas(inicio, fim)));
+        sbAdv.append("\nVeículos Únicos Neste Mês (estimativa): ")
+             .append(estacionamento.getEstatisticasVisitantes().estimarVeiculosUnicos(hoje.withDayOfMonth(1), hoje))
+             .append("\n");
+        areaEstatisticasAvancadas.setText(sbAdv.toString());
+    }
+
+    private String gerarEstatisticasAvancadas(LocalDate inicio, LocalDate fim) {
+        // Contagens e somas feitas nas colunas dos tickets fechados (período pela data de saída)
+        int[] porTipo = estacionamento.contarSaidasPorTipo(inicio, fim);
+        int totalSaidas = 0;
+        for (int quantidade : porTipo) {
+            totalSaidas += quantidade;
+        }
 
         StringBuilder sbAdv = new StringBuilder();
-        sbAdv.append("Distribuição por Tipo de Veículo:\n");
-        sbAdv.append("- Carros: ").append(totalCarros).append("\n");
-        sbAdv.append("- Motos: ").append(totalMotos).append("\n");
-        sbAdv.append("- Caminhões: ").append(totalCaminhoes).append("\n\n");
+        sbAdv.append("Distribuição por Tipo de Veículo (saídas no período):\n");
+        sbAdv.append("- Carros: ").append(porTipo[TipoVeiculo.CARRO.ordinal()]).append("\n");
+        sbAdv.append("- Motos: ").append(porTipo[TipoVeiculo.MOTO.ordinal()]).append("\n");
+        sbAdv.append("- Caminhões: ").append(porTipo[TipoVeiculo.CAMINHAO.ordinal()]).append("\n\n");
         
-        if (!tickets.isEmpty()) {
-            double mediaValor = totalArrecadado / tickets.size();
-            sbAdv.append("Ticket Médio: R$ ").append(String.format("%.2f", mediaValor)).append("\n");
+        if (totalSaidas > 0) {
+            long totalArrecadado = estacionamento.somarArrecadado(inicio, fim);
+            long mediaValor = Math.round((double) totalArrecadado / totalSaidas);
+            sbAdv.append("Ticket Médio: ");
+            Dinheiro.formatar(sbAdv, mediaValor).append("\n");
         }
 
-        areaEstatisticasAvancadas.setText(sbAdv.toString());
+        // Percentis a partir dos resumos mantidos a cada saída (período considera a data de saída)
+        EstatisticasQuantis quantis = estacionamento.getEstatisticasQuantis();
+        sbAdv.append("\nPermanência (minutos):\n");
+        sbAdv.append("- Geral: ").append(EstatisticasQuantis.formatarQuantis(quantis.getPermanencia(null, inicio, fim), "%.0f")).append("\n");
+        for (TipoVeiculo tipo : TipoVeiculo.values()) {
+            sbAdv.append("- ").append(tipo).append(": ")
+                 .append(EstatisticasQuantis.formatarQuantis(quantis.getPermanencia(tipo, inicio, fim), "%.0f")).append("\n");
+        }
+        sbAdv.append("\nValor Pago (R$):\n");
+        sbAdv.append("- Geral: ").append(EstatisticasQuantis.formatarQuantis(quantis.getValor(null, inicio, fim), "%.2f")).append("\n");
+        for (TipoVeiculo tipo : TipoVeiculo.values()) {
+            sbAdv.append("- ").append(tipo).append(": ")
+                 .append(EstatisticasQuantis.formatarQuantis(quantis.getValor(tipo, inicio, fim), "%.2f")).append("\n");
+        }
+
+        // Visitantes (estimativas probabilísticas, período considera a data de entrada)
+        EstatisticasVisitantes visitantes = estacionamento.getEstatisticasVisitantes();
+        sbAdv.append("\nVeículos Únicos no Período (estimativa): ")
+             .append(visitantes.estimarVeiculosUnicos(inicio, fim)).append("\n");
+        sbAdv.append("\nPlacas Mais Recorrentes:\n");
+        List<TopFrequentes.Contador> recorrentes = visitantes.getPlacasRecorrentes(inicio, fim, 10);
+        if (recorrentes.isEmpty()) {
+            sbAdv.append("- sem dados\n");
+        }
+        for (TopFrequentes.Contador c : recorrentes) {
+            sbAdv.append("- ").append(c.getElemento()).append(": ").append(c.getContagem()).append(" visitas");
+            if (c.getErro() > 0) {
+                sbAdv.append(" (±").append(c.getErro()).append(")");
+            }
+            sbAdv.append("\n");
+        }
+
+        return sbAdv.toString();
     }
 
     // Classe interna para o gráfico customizado
+    /**
+     * Ocupação atual e histórico de ocupação do período selecionado.
+     * O histórico é reduzido a um par mínimo/máximo por coluna de pixels, então o custo
+     * de desenho depende da largura do painel e não da quantidade de amostras.
+     */
     private class PainelGraficoOcupacao extends JPanel {
+        private static final int MARGEM_ESQUERDA = 60;
+        private static final int MARGEM_DIREITA = 20;
+        private static final int TOPO = 60;
+        private static final int BASE = 50;
+
+        private SerieOcupacao.Pontos pontos;
+        private long deMinuto;
+        private long ateMinuto;
+
+        PainelGraficoOcupacao() {
+            setBackground(Color.WHITE);
+        }
+
+        // Busca os pontos do período; a redução para a largura é feita ao desenhar
+        void atualizarSerie(LocalDate inicio, LocalDate fim) {
+            LocalDateTime agora = Ticket.deEpoch(estacionamento.getRelogio().agoraEpoch());
+            LocalDateTime de = (inicio != null) ? inicio.atStartOfDay() : agora.minusDays(365);
+            LocalDateTime ate = (fim != null) ? fim.plusDays(1).atStartOfDay().minusMinutes(1) : agora;
+            deMinuto = Estacionamento.paraMinutoSerie(de);
+            ateMinuto = Estacionamento.paraMinutoSerie(ate.isAfter(agora) ? agora : ate);
+            pontos = estacionamento.getSerieOcupacao().consultar(deMinuto, ateMinuto);
+            repaint();
+        }
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            
+            Graphics2D g2d = (Graphics2D) g;
+
             int total = estacionamento.getVagas().size();
             int ocupadas = estacionamento.getVagasOcupadas();
-            int livres = estacionamento.getVagasLivres();
-            
-            if (total == 0) return;
-
-            int larguraBarra = 100;
-            int alturaMax = 300;
-            int baseY = 350;
-            int startX = 150;
-
-            // Título
-            g.setFont(new Font("Segoe UI", Font.BOLD, 16));
-            g.drawString("Ocupação Atual", 50, 30);
-
-            // Barra Ocupadas
-            int alturaOcupadas = (int) ((double) ocupadas / total * alturaMax);
-            g.setColor(Color.RED);
-            g.fillRect(startX, baseY - alturaOcupadas, larguraBarra, alturaOcupadas);
-            g.setColor(Color.BLACK);
-            g.drawRect(startX, baseY - alturaOcupadas, larguraBarra, alturaOcupadas);
-            g.drawString("Ocupadas: " + ocupadas, startX + 10, baseY + 20);
-
-            // Barra Livres
-            int alturaLivres = (int) ((double) livres / total * alturaMax);
-            g.setColor(Color.GREEN);
-            g.fillRect(startX + 150, baseY - alturaLivres, larguraBarra, alturaLivres);
-            g.setColor(Color.BLACK);
-            g.drawRect(startX + 150, baseY - alturaLivres, larguraBarra, alturaLivres);
-            g.drawString("Livres: " + livres, startX + 160, baseY + 20);
-            
-            // Eixo
-            g.drawLine(50, baseY, 500, baseY);
+
+            // Título com a ocupação atual
+            g2d.setColor(Color.BLACK);
+            g2d.setFont(new Font("Segoe UI", Font.BOLD, 16));
+            g2d.drawString(String.format("Ocupação Atual: %d de %d vagas (%.1f%%)",
+                    ocupadas, total, total > 0 ? 100.0 * ocupadas / total : 0), 20, 30);
+
+            int largura = getWidth() - MARGEM_ESQUERDA - MARGEM_DIREITA;
+            int altura = getHeight() - TOPO - BASE;
+            if (largura <= 0 || altura <= 0 || total == 0) return;
+            int baseY = TOPO + altura;
+
+            // Eixos e marcações de 0%, 50% e 100%
+            g2d.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+            for (int pct = 0; pct <= 100; pct += 50) {
+                int y = baseY - altura * pct / 100;
+                g2d.setColor(new Color(230, 230, 230));
+                g2d.drawLine(MARGEM_ESQUERDA, y, MARGEM_ESQUERDA + largura, y);
+                g2d.setColor(Color.DARK_GRAY);
+                g2d.drawString(pct + "%", MARGEM_ESQUERDA - 40, y + 4);
+            }
+            g2d.drawLine(MARGEM_ESQUERDA, TOPO, MARGEM_ESQUERDA, baseY);
+
+            if (pontos == null || pontos.getTamanho() == 0) {
+                g2d.drawString("Sem histórico de ocupação no período.", MARGEM_ESQUERDA + 10, TOPO + 20);
+                return;
+            }
+
+            // Uma faixa vertical (mínimo a máximo) por coluna de pixels
+            int[][] faixas = SerieOcupacao.reduzirPorColunas(pontos, deMinuto, ateMinuto, largura);
+            g2d.setColor(new Color(220, 60, 60));
+            for (int x = 0; x < largura; x++) {
+                if (faixas[1][x] < 0) continue;
+                int yMin = baseY - (int) ((long) altura * faixas[0][x] / total);
+                int yMax = baseY - (int) ((long) altura * faixas[1][x] / total);
+                g2d.drawLine(MARGEM_ESQUERDA + x, yMin, MARGEM_ESQUERDA + x, yMax);
+            }
+
+            // Datas das extremidades e resolução usada
+            g2d.setColor(Color.DARK_GRAY);
+            DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM HH:mm");
+            String textoDe = LocalDateTime.ofEpochSecond(deMinuto * 60, 0, java.time.ZoneOffset.UTC).format(formato);
+            String textoAte = LocalDateTime.ofEpochSecond(ateMinuto * 60, 0, java.time.ZoneOffset.UTC).format(formato);
+            FontMetrics fm = g2d.getFontMetrics();
+            g2d.drawString(textoDe, MARGEM_ESQUERDA, baseY + 18);
+            g2d.drawString(textoAte, MARGEM_ESQUERDA + largura - fm.stringWidth(textoAte), baseY + 18);
+            String resolucao = pontos.getResolucao() == 1 ? "por minuto" : pontos.getResolucao() == 60 ? "por hora" : "por dia";
+            String legenda = "Faixa mínima/máxima de ocupação (" + pontos.getTamanho() + " pontos " + resolucao + ")";
+            g2d.drawString(legenda, MARGEM_ESQUERDA + (largura - fm.stringWidth(legenda)) / 2, baseY + 36);
         }
     }
 }
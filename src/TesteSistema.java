@@ -1,4 +1,5 @@
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Classe de testes automatizados para o Sistema de Estacionamento.
@@ -14,6 +15,26 @@ public class TesteSistema {
         testarVeiculoJaEstacionado();
         testarSaidaVeiculoInexistente();
         testarCalculoValores();
+        testarCacheRelatorios();
+        testarSketchQuantis();
+        testarEstatisticasVisitantes();
+        testarBuscaIndexada();
+        testarFilaNotificacoes();
+        testarTarifas();
+        testarDinheiro();
+        testarArmazemColunar();
+        testarCodecPlaca();
+        testarRegistroVeiculos();
+        testarCategoriasVagas();
+        testarVagaMaisProxima();
+        testarMotosCompartilhandoVaga();
+        testarArmazemNoEstacionamento();
+        testarExportacaoIncremental();
+        testarRelogioSimulado();
+        testarSimuladorTrafego();
+        testarFormatoColunar();
+        testarSerieOcupacao();
+        testarCargaDadosLegados();
 
         System.out.println("\n=== TESTES FINALIZADOS ===");
     }
@@ -72,21 +93,872 @@ public class TesteSistema {
 
     private static void testarCalculoValores() {
         System.out.print("Teste 5: Cálculo de Valores (Simulado)... ");
-        // Como o cálculo depende de LocalDateTime.now(), é difícil testar exato sem mock.
-        // Vamos testar a lógica básica de criação e fechamento.
+        // Relógio simulado: 30 minutos de permanência sem depender do horário real
         Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        RelogioSimulado relogio = new RelogioSimulado(java.time.LocalDateTime.of(2024, 3, 6, 10, 0));
+        est.setRelogio(relogio);
         est.registrarEntrada(new Veiculo("AAA1111", "Modelo", "Cor", TipoVeiculo.CARRO));
-        
-        // Simula um pequeno delay se possível, ou apenas fecha
-        try { Thread.sleep(10); } catch (InterruptedException e) {}
+        relogio.avancar(30 * 60);
         
         Ticket t = est.registrarSaida("AAA1111");
         
         // Mínimo de 1 hora cobrada = 10.0 * 1.0 (fator carro) = 10.0
-        if (t != null && t.getValorPago() >= 10.0) {
+        if (t != null && t.getValorPagoCentavos() == 1000 && t.getSegundosEstacionado(0) == 30 * 60) {
             System.out.println("PASSOU");
         } else {
             System.out.println("FALHOU (Valor: " + (t != null ? t.getValorPago() : "null") + ")");
         }
     }
+
+    private static void testarCacheRelatorios() {
+        System.out.print("Teste 6: Cache de Relatórios... ");
+        Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        int[] geracoes = {0};
+        java.util.function.Supplier<String> gerador = () -> "gerado " + (++geracoes[0]);
+
+        est.obterRelatorio("GERAL", null, null, "TXT", gerador);
+        est.obterRelatorio("GERAL", null, null, "TXT", gerador); // Deve vir do cache
+        est.registrarEntrada(new Veiculo("AAA1111", "Modelo", "Cor", TipoVeiculo.CARRO));
+        est.obterRelatorio("GERAL", null, null, "TXT", gerador); // Versão mudou: recalcula
+
+        java.time.LocalDate ontem = java.time.LocalDate.now().minusDays(1);
+        est.obterRelatorio("GERAL", ontem, ontem, "TXT", gerador);
+        est.registrarSaida("AAA1111");
+        est.obterRelatorio("GERAL", ontem, ontem, "TXT", gerador); // Período fechado: cache
+        est.restaurarEstado(est.getVagas(), est.getTickets(), est.gerarProximoIdTicket());
+        est.obterRelatorio("GERAL", ontem, ontem, "TXT", gerador); // Estado restaurado: recalcula
+
+        if (geracoes[0] == 4) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Gerações: " + geracoes[0] + ")");
+        }
+    }
+
+    private static void testarSketchQuantis() {
+        System.out.print("Teste 7: Quantis Aproximados... ");
+        SketchQuantis a = new SketchQuantis();
+        SketchQuantis b = new SketchQuantis();
+        for (int i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? a : b).adicionar(i);
+        }
+        a.mesclar(b);
+
+        double p50 = a.getQuantil(0.50);
+        double p99 = a.getQuantil(0.99);
+        if (a.getTotal() == 1000 && Math.abs(p50 - 500) <= 500 * 0.02 && Math.abs(p99 - 990) <= 990 * 0.02) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (p50: " + p50 + ", p99: " + p99 + ")");
+        }
+    }
+
+    private static void testarEstatisticasVisitantes() {
+        System.out.print("Teste 8: Veículos Únicos e Recorrentes... ");
+        EstatisticasVisitantes visitantes = new EstatisticasVisitantes();
+        java.time.LocalDate hoje = java.time.LocalDate.now();
+        for (int i = 0; i < 5000; i++) {
+            visitantes.registrarEntrada(String.format("ABC%04d", i), hoje.minusDays(i % 2));
+        }
+        for (int i = 0; i < 50; i++) {
+            visitantes.registrarEntrada("FRE1Q23", hoje);
+        }
+
+        long unicos = visitantes.estimarVeiculosUnicos(hoje.minusDays(1), hoje);
+        String maisFrequente = visitantes.getPlacasRecorrentes(hoje.minusDays(1), hoje, 1).get(0).getElemento();
+        if (Math.abs(unicos - 5001) <= 5001 * 0.08 && maisFrequente.equals("FRE1Q23")) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Únicos: " + unicos + ", Top: " + maisFrequente + ")");
+        }
+    }
+
+    private static void testarBuscaIndexada() {
+        System.out.print("Teste 9: Busca Indexada de Veículos... ");
+        Estacionamento est = new Estacionamento("Teste", 10, 5.0);
+        RelogioSimulado relogio = new RelogioSimulado(LocalDateTime.of(2024, 3, 6, 10, 0));
+        est.setRelogio(relogio);
+        est.registrarEntrada(new Veiculo("ABC1234", "Gol", "Prata", TipoVeiculo.CARRO));
+        est.registrarEntrada(new Veiculo("XYZ9876", "Golf", "Preto", TipoVeiculo.CARRO));
+        est.registrarEntrada(new Veiculo("ABD5555", "CG 160", "Vermelha", TipoVeiculo.MOTO));
+        est.registrarSaida("XYZ9876");
+        relogio.avancar(90 * 60);
+
+        int porModelo = est.pesquisarVeiculos("gol").size();
+        int porPlaca = est.pesquisarVeiculos("AB").size();
+        int porCor = est.pesquisarVeiculos("verm").size();
+        // Termos longos: interseção dos trigramas e confirmação do trecho
+        boolean longo = est.pesquisarVeiculos("abd555").size() == 1 && est.pesquisarVeiculos("GOLF").isEmpty()
+                && est.pesquisarVeiculos("rmelha").size() == 1;
+        boolean ticketAtivo = est.buscarTicketAtivo("abc1234") != null && est.buscarTicketAtivo("XYZ9876") == null;
+        // Vaga e duração já vêm copiadas no registro da pesquisa
+        IndiceVeiculos.Registro r = est.pesquisarVeiculos("ABC").get(0);
+        boolean copia = r.getNumeroVaga() == 1 && "1 horas e 30 minutos".equals(r.getDuracao());
+        if (porModelo == 1 && porPlaca == 2 && porCor == 1 && longo && ticketAtivo && copia) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Modelo: " + porModelo + ", Placa: " + porPlaca + ", Cor: " + porCor
+                    + ", Longo: " + longo + ", Cópia: " + copia + ")");
+        }
+    }
+
+    private static void testarFilaNotificacoes() {
+        System.out.print("Teste 10: Fila de Notificações... ");
+        FilaNotificacoes fila = new FilaNotificacoes(2, 2);
+        long agora = System.nanoTime();
+        for (int i = 0; i < 12; i++) {
+            fila.publicar(new FilaNotificacoes.Notificacao("ENTRADA", "Entrada " + i, "%d entradas registradas",
+                    SistemaNotificacoes.TipoNotificacao.SUCESSO));
+        }
+        String agrupada = fila.retirar(agora).getTexto();
+
+        // Fila cheia: a informação mais antiga é descartada, o erro permanece
+        fila.publicar(new FilaNotificacoes.Notificacao("E1", "Erro", null, SistemaNotificacoes.TipoNotificacao.ERRO));
+        fila.publicar(new FilaNotificacoes.Notificacao("I1", "Info", null, SistemaNotificacoes.TipoNotificacao.INFO));
+        fila.publicar(new FilaNotificacoes.Notificacao("I2", "Info 2", null, SistemaNotificacoes.TipoNotificacao.INFO));
+        String proxima = fila.retirar(agora).getTexto();
+        boolean limitada = fila.retirar(agora) == null;
+
+        if (agrupada.equals("12 entradas registradas") && proxima.equals("Erro") && limitada && fila.getDescartadas() == 1) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Agrupada: " + agrupada + ", Próxima: " + proxima + ", Descartadas: " + fila.getDescartadas() + ")");
+        }
+    }
+
+    private static void testarTarifas() {
+        System.out.print("Teste 11: Tarifas Compiladas... ");
+        // Segunda-feira 10h: sem adicionais de horário
+        LocalDateTime entrada = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Tarifa padrao = Tarifa.simples(1000);
+        boolean horaCheia = padrao.calcularCentavos(TipoVeiculo.CARRO, entrada, entrada.plusMinutes(61), 0) == 2000
+                && padrao.calcularCentavos(TipoVeiculo.MOTO, entrada, entrada.plusMinutes(61), 0) == 1000
+                && padrao.calcularCentavos(TipoVeiculo.CAMINHAO, entrada, entrada.plusMinutes(61), 50) == 2000;
+
+        Tarifa.Regras regras = new Tarifa.Regras();
+        regras.setToleranciaMinutos(10);
+        regras.setFracaoPrimeiraHoraMinutos(15);
+        regras.setTetoDiarioCentavos(5000);
+        regras.setAdicionalNoturno(50);
+        regras.setAdicionalFimDeSemana(100);
+        Tarifa tarifa = Tarifa.compilar(1000, regras);
+        boolean tolerancia = tarifa.calcularCentavos(TipoVeiculo.CARRO, entrada, entrada.plusMinutes(10), 0) == 0;
+        boolean fracao = tarifa.calcularCentavos(TipoVeiculo.CARRO, entrada, entrada.plusMinutes(20), 0) == 500;
+        // 27 horas: as primeiras 24 limitadas a 50, mais 3 horas diurnas de terça
+        boolean teto = tarifa.calcularCentavos(TipoVeiculo.CARRO, entrada, entrada.plusHours(27), 0) == 8000;
+        // Sábado 23h: hora noturna de fim de semana (10 x 1,5 x 2)
+        LocalDateTime sabado = LocalDateTime.of(2024, 1, 6, 23, 0);
+        boolean adicionais = tarifa.calcularCentavos(TipoVeiculo.CARRO, sabado, sabado.plusMinutes(60), 0) == 3000;
+        // Arredondamento único no total: 3 horas de moto a R$ 10,01 x 0,5 = R$ 15,015 -> R$ 15,02
+        boolean arredondamento = Tarifa.simples(1001).calcularCentavos(TipoVeiculo.MOTO, entrada, entrada.plusHours(3), 0) == 1502;
+
+        // Troca da tarifa em uso sem recriar o estacionamento
+        Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        Tarifa antes = est.getTarifa();
+        est.setRegrasTarifa(regras);
+        boolean trocada = est.getTarifa() != antes && est.getTarifa().getRegras().getToleranciaMinutos() == 10;
+
+        if (horaCheia && tolerancia && fracao && teto && adicionais && arredondamento && trocada) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Hora cheia: " + horaCheia + ", Tolerância: " + tolerancia + ", Fração: " + fracao
+                    + ", Teto: " + teto + ", Adicionais: " + adicionais + ", Arredondamento: " + arredondamento
+                    + ", Troca: " + trocada + ")");
+        }
+    }
+
+    private static void testarDinheiro() {
+        System.out.print("Teste 12: Valores em Centavos... ");
+        // Um milhão de tickets de R$ 0,10: em double a soma se desvia, em centavos é exata
+        long totalCentavos = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            totalCentavos += Dinheiro.deReais(0.10);
+        }
+        boolean somaExata = totalCentavos == 10_000_000L;
+        boolean formato = Dinheiro.formatar(123456789).equals("R$ 1.234.567,89")
+                && Dinheiro.formatar(-5).equals("-R$ 0,05")
+                && Dinheiro.formatarDecimal(100000, ',').equals("1000,00");
+        boolean desconto = Dinheiro.aplicarDesconto(999, 12.5) == 874;
+
+        if (somaExata && formato && desconto) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Soma: " + totalCentavos + ", Formato: " + formato + ", Desconto: " + desconto + ")");
+        }
+    }
+
+    private static void testarArmazemColunar() {
+        System.out.print("Teste 13: Armazém Colunar de Tickets... ");
+        // Mais linhas que um bloco, com uma placa recorrente a cada 100 tickets
+        ArmazemTickets armazem = new ArmazemTickets();
+        long base = Ticket.paraEpoch(LocalDateTime.of(2024, 1, 1, 0, 0));
+        int total = ArmazemTickets.LINHAS_POR_BLOCO + 500;
+        long somaDia2 = 0;
+        for (int i = 0; i < total; i++) {
+            String placa = (i % 100 == 0) ? "REC1234" : String.format("AB%c%04d", (char) ('A' + i % 26), i);
+            Veiculo v = new Veiculo(placa, "Modelo", "Cor", (i % 2 == 0) ? TipoVeiculo.CARRO : TipoVeiculo.MOTO);
+            long entrada = base + i * 60L;
+            Ticket t = new Ticket(i + 1, v, entrada);
+            t.registrarSaida(entrada + 3600);
+            t.calcularValor(10.0);
+            armazem.adicionar(t);
+            if (Ticket.diaEpoch(entrada + 3600) == Ticket.diaEpoch(base) + 1) somaDia2 += t.getValorPagoCentavos();
+        }
+        long inicioDia2 = base + 86400;
+        boolean soma = armazem.somarCentavos(inicioDia2, inicioDia2 + 86399) == somaDia2;
+        int[] porTipo = armazem.contarPorTipo(Long.MIN_VALUE, Long.MAX_VALUE);
+        boolean tipos = porTipo[TipoVeiculo.CARRO.ordinal()] + porTipo[TipoVeiculo.MOTO.ordinal()] == total;
+        boolean placa = armazem.buscarPorPlaca("rec1234").length == (total + 99) / 100;
+
+        Ticket visto = armazem.getTicket(total - 1);
+        boolean visao = visto.getId() == total && visto.isFechado() && visto.getValorPagoCentavos() == 500
+                && visto.getVeiculo().getTipo() == TipoVeiculo.MOTO;
+
+        if (armazem.getTamanho() == total && soma && tipos && placa && visao) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Soma: " + soma + ", Tipos: " + tipos + ", Placa: " + placa + ", Visão: " + visao + ")");
+        }
+    }
+
+    private static void testarCodecPlaca() {
+        System.out.print("Teste 14: Codificação de Placas... ");
+        boolean validacao = CodecPlaca.isValida("ABC1234") && CodecPlaca.isValida(" abc1d23 ")
+                && !CodecPlaca.isValida("AB12345") && !CodecPlaca.isValida("ABC12D3")
+                && !CodecPlaca.isValida("ABC123") && !CodecPlaca.isValida("ÁBC1234") && !CodecPlaca.isValida(null)
+                && !CodecPlaca.isValida("") && !CodecPlaca.isValida("       ");
+        // Placa vazia ou só com espaços é rejeitada pelo codec, sem validação à parte no veículo
+        for (String vazia : new String[]{"", "   ", "       "}) {
+            try {
+                new Veiculo(vazia, "Modelo", "Cor", TipoVeiculo.CARRO);
+                validacao = false;
+            } catch (IllegalArgumentException e) {
+                // esperado
+            }
+        }
+        long antiga = CodecPlaca.codificar("abc1234");
+        long mercosul = CodecPlaca.codificar("ABC1D23");
+        boolean ida = CodecPlaca.decodificar(antiga).equals("ABC1234") && CodecPlaca.isMercosul(mercosul)
+                && !CodecPlaca.isMercosul(antiga) && (antiga < mercosul) == ("ABC1234".compareTo("ABC1D23") < 0);
+
+        // Inclusões e remoções intercaladas mantêm todas as placas restantes acessíveis
+        MapaPlacas<Integer> mapa = new MapaPlacas<>();
+        for (int i = 0; i < 2000; i++) {
+            mapa.put(CodecPlaca.codificar(String.format("XYZ%04d", i)), i);
+        }
+        for (int i = 0; i < 2000; i += 3) {
+            mapa.remover(CodecPlaca.codificar(String.format("XYZ%04d", i)));
+        }
+        boolean mapaOk = mapa.getTamanho() == 2000 - 667;
+        for (int i = 0; i < 2000 && mapaOk; i++) {
+            Integer v = mapa.get(CodecPlaca.codificar(String.format("XYZ%04d", i)));
+            mapaOk = (i % 3 == 0) ? v == null : (v != null && v == i);
+        }
+
+        Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        est.registrarEntrada(new Veiculo("abc1d23", "Modelo", "Cor", TipoVeiculo.CARRO));
+        boolean indice = est.buscarTicketAtivo("ABC1D23") != null && est.registrarSaida(" abc1d23") != null
+                && est.buscarTicketAtivo("ABC1D23") == null;
+
+        if (validacao && ida && mapaOk && indice) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Validação: " + validacao + ", Código: " + ida + ", Mapa: " + mapaOk + ", Índice: " + indice + ")");
+        }
+    }
+
+    private static void testarRegistroVeiculos() {
+        System.out.print("Teste 15: Cadastro de Veículos Recorrentes... ");
+        Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        // O mesmo cliente volta três vezes; na última, com a cor corrigida
+        for (int i = 0; i < 2; i++) {
+            est.registrarEntrada(new Veiculo("AAA1111", "Gol", "Preto", TipoVeiculo.CARRO));
+            est.registrarSaida("AAA1111");
+        }
+        est.registrarEntrada(new Veiculo("BBB2222", "Gol", "Preto", TipoVeiculo.CARRO));
+        est.registrarEntrada(new Veiculo("AAA1111", "Gol", "Prata", TipoVeiculo.CARRO));
+
+        java.util.List<Ticket> tickets = est.getTickets();
+        boolean compartilhado = tickets.get(0).getVeiculo() == tickets.get(1).getVeiculo();
+        boolean historico = tickets.get(3).getVeiculo() != tickets.get(0).getVeiculo()
+                && tickets.get(0).getVeiculo().getCor().equals("Preto") && tickets.get(3).getVeiculo().getCor().equals("Prata");
+        boolean dicionario = tickets.get(2).getVeiculo().getModelo() == tickets.get(0).getVeiculo().getModelo();
+        RegistroVeiculos registro = est.getRegistroVeiculos();
+        boolean tamanhos = registro.getTamanho() == 2 && registro.getTotalModelos() == 1 && registro.getTotalCores() == 2;
+
+        if (compartilhado && historico && dicionario && tamanhos) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Compartilhado: " + compartilhado + ", Histórico: " + historico
+                    + ", Dicionário: " + dicionario + ", Tamanhos: " + tamanhos + ")");
+        }
+    }
+
+    private static void testarCategoriasVagas() {
+        System.out.print("Teste 16: Vagas por Categoria... ");
+        Estacionamento est = new Estacionamento("Teste", 6, 10.0);
+        // Vaga 1 VIP, 2-3 carro, 4 caminhão, 5-6 moto
+        est.distribuirCategorias(1, 1, 2);
+        Ticket caminhao1 = est.registrarEntrada(new Veiculo("CAM1111", "FH", "Branco", TipoVeiculo.CAMINHAO));
+        Ticket caminhao2 = est.registrarEntrada(new Veiculo("CAM2222", "FH", "Branco", TipoVeiculo.CAMINHAO));
+        Ticket moto1 = est.registrarEntrada(new Veiculo("MOT1111", "CG", "Preta", TipoVeiculo.MOTO));
+        Ticket moto2 = est.registrarEntrada(new Veiculo("MOT2222", "CG", "Preta", TipoVeiculo.MOTO));
+        Ticket moto3 = est.registrarEntrada(new Veiculo("MOT3333", "CG", "Preta", TipoVeiculo.MOTO));
+
+        boolean preferencia = vagaDo(est, caminhao1).getCategoria() == CategoriaVaga.CAMINHAO
+                && vagaDo(est, moto1).getCategoria() == CategoriaVaga.MOTO
+                && vagaDo(est, moto2).getCategoria() == CategoriaVaga.MOTO;
+        boolean alternativa = vagaDo(est, caminhao2).getCategoria() == CategoriaVaga.CARRO
+                && vagaDo(est, moto3).getCategoria() == CategoriaVaga.CARRO;
+
+        // Só resta a VIP, que não é oferecida a carros; vaga de moto liberada também não serve
+        est.registrarSaida("MOT1111");
+        boolean semVaga = est.registrarEntrada(new Veiculo("CAR1111", "Gol", "Prata", TipoVeiculo.CARRO)) == null
+                && est.getVagasLivres(CategoriaVaga.MOTO) == 1 && est.getVagasLivres(CategoriaVaga.VIP) == 1;
+
+        AlocadorVagas.Regras regras = est.getRegrasAlocacao();
+        regras.setOrdem(TipoVeiculo.CARRO, AlocadorVagas.Regras.interpretar("carro, vip"));
+        est.setRegrasAlocacao(regras);
+        Ticket carro = est.registrarEntrada(new Veiculo("CAR1111", "Gol", "Prata", TipoVeiculo.CARRO));
+        boolean regrasNovas = carro != null && vagaDo(est, carro).getCategoria() == CategoriaVaga.VIP;
+
+        boolean invalida = false;
+        try {
+            AlocadorVagas.Regras.interpretar("CARRO, BARCO");
+        } catch (IllegalArgumentException e) {
+            invalida = true;
+        }
+
+        // Redistribuição em lote: uma única notificação e contadores/alocador coerentes
+        int[] notificacoes = new int[2];
+        est.adicionarOuvinte(new OuvinteEstacionamento() {
+            @Override
+            public void vagaAlterada(Vaga vaga) {
+                notificacoes[0]++;
+            }
+
+            @Override
+            public void estadoAlterado() {
+                notificacoes[1]++;
+            }
+        });
+        est.distribuirCategorias(0, 0, 0);
+        boolean lote = notificacoes[0] == 0 && notificacoes[1] == 1
+                && est.contarVagas(CategoriaVaga.CARRO) == 6 && est.getVagasLivres(CategoriaVaga.CARRO) == 1
+                && est.getVagasVipLivres() == 0
+                && est.registrarEntrada(new Veiculo("CAR2222", "Uno", "Branco", TipoVeiculo.CARRO)) != null
+                && est.getVagasLivres() == 0;
+
+        if (preferencia && alternativa && semVaga && regrasNovas && invalida && lote) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Preferência: " + preferencia + ", Alternativa: " + alternativa
+                    + ", Sem vaga: " + semVaga + ", Regras: " + regrasNovas + ", Inválida: " + invalida
+                    + ", Lote: " + lote + ")");
+        }
+    }
+
+    private static void testarVagaMaisProxima() {
+        System.out.print("Teste 17: Vaga Mais Próxima da Saída... ");
+        Estacionamento est = new Estacionamento("Teste", 10, 10.0);
+        est.setDistanciasVagas(new int[]{9, 8, 1, 6, 5, 4, 0, 2, 3, 7});
+        est.setEstrategiaAlocacao(EstrategiaAlocacao.MAIS_PROXIMA);
+        Ticket t1 = est.registrarEntrada(new Veiculo("PRX1111", "Gol", "Prata", TipoVeiculo.CARRO));
+        Ticket t2 = est.registrarEntrada(new Veiculo("PRX2222", "Gol", "Prata", TipoVeiculo.CARRO));
+        boolean ordem = vagaDo(est, t1).getNumero() == 7 && vagaDo(est, t2).getNumero() == 3;
+        est.registrarSaida("PRX1111");
+        // Distância alterada numa vaga livre passa a valer na próxima escolha
+        est.setDistanciaVaga(10, 0);
+        Ticket t3 = est.registrarEntrada(new Veiculo("PRX3333", "Gol", "Prata", TipoVeiculo.CARRO));
+        boolean alterada = vagaDo(est, t3).getNumero() == 7 || vagaDo(est, t3).getNumero() == 10;
+        Ticket t4 = est.registrarEntrada(new Veiculo("PRX4444", "Gol", "Prata", TipoVeiculo.CARRO));
+        alterada = alterada && vagaDo(est, t3).getNumero() + vagaDo(est, t4).getNumero() == 17;
+
+        // Movimento aleatório: o heap deve sempre oferecer a mesma vaga que uma varredura completa
+        java.util.List<Vaga> vagas = new java.util.ArrayList<>();
+        java.util.Random aleatorio = new java.util.Random(7);
+        for (int i = 1; i <= 200; i++) {
+            Vaga v = new Vaga(i);
+            v.setDistancia(aleatorio.nextInt(50));
+            vagas.add(v);
+        }
+        AlocadorVagas alocador = new AlocadorVagas(vagas, EstrategiaAlocacao.MAIS_PROXIMA);
+        AlocadorVagas.Regras regras = new AlocadorVagas.Regras();
+        Veiculo veiculo = new Veiculo("PRX5555", "Gol", "Prata", TipoVeiculo.CARRO);
+        boolean consistente = true;
+        for (int op = 0; op < 5000 && consistente; op++) {
+            Vaga v = vagas.get(aleatorio.nextInt(vagas.size()));
+            alocador.retirar(v);
+            if (v.isOcupada()) v.liberarVaga(); else v.ocuparVaga(veiculo);
+            if (aleatorio.nextInt(4) == 0) v.setDistancia(aleatorio.nextInt(50));
+            alocador.devolver(v);
+
+            Vaga esperada = null;
+            for (Vaga candidata : vagas) {
+                if (!candidata.isOcupada() && (esperada == null || candidata.getDistancia() < esperada.getDistancia())) esperada = candidata;
+            }
+            consistente = alocador.buscar(TipoVeiculo.CARRO, regras) == esperada;
+        }
+
+        if (ordem && alterada && consistente) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Ordem: " + ordem + ", Distância alterada: " + alterada + ", Consistente: " + consistente + ")");
+        }
+    }
+
+    private static void testarMotosCompartilhandoVaga() {
+        System.out.print("Teste 18: Motos Dividindo Vagas... ");
+        Estacionamento est = new Estacionamento("Teste", 3, 10.0);
+        Ticket m1 = est.registrarEntrada(new Veiculo("MOT1111", "CG", "Preta", TipoVeiculo.MOTO));
+        Ticket m2 = est.registrarEntrada(new Veiculo("MOT2222", "CG", "Preta", TipoVeiculo.MOTO));
+        Ticket carro = est.registrarEntrada(new Veiculo("CAR1111", "Gol", "Prata", TipoVeiculo.CARRO));
+        Ticket m3 = est.registrarEntrada(new Veiculo("MOT3333", "CG", "Preta", TipoVeiculo.MOTO));
+        boolean empacotadas = vagaDo(est, m1).getNumero() == 1 && vagaDo(est, m2).getNumero() == 1
+                && vagaDo(est, carro).getNumero() == 2 && vagaDo(est, m3).getNumero() == 3;
+        boolean contagem = est.getVagasLivres() == 0 && est.getUnidadesLivres() == 1 && est.getUnidadesTotais() == 6;
+
+        // A outra moto continua na vaga quando a primeira sai
+        est.registrarSaida("MOT1111");
+        Vaga vaga1 = est.getVagas().get(0);
+        boolean saida = vaga1.getQuantidadeVeiculos() == 1 && vaga1.getVeiculo().getPlaca().equals("MOT2222")
+                && est.buscarTicketAtivo("MOT2222") == m2 && est.getUnidadesLivres() == 2;
+        boolean carroRecusado = est.registrarEntrada(new Veiculo("CAR2222", "Gol", "Prata", TipoVeiculo.CARRO)) == null;
+
+        // Best-fit: a moto vai para a vaga parcial com menos unidades livres
+        java.util.List<Vaga> vagas = new java.util.ArrayList<>();
+        for (int i = 1; i <= 3; i++) vagas.add(new Vaga(i));
+        vagas.get(0).setCapacidade(3);
+        vagas.get(0).ocuparVaga(new Veiculo("MOT4444", "CG", "Preta", TipoVeiculo.MOTO));
+        vagas.get(1).ocuparVaga(new Veiculo("MOT5555", "CG", "Preta", TipoVeiculo.MOTO));
+        AlocadorVagas alocador = new AlocadorVagas(vagas);
+        boolean melhorEncaixe = alocador.buscar(TipoVeiculo.MOTO, new AlocadorVagas.Regras()) == vagas.get(1)
+                && alocador.buscar(TipoVeiculo.CARRO, new AlocadorVagas.Regras()) == vagas.get(2);
+
+        // A categoria vem antes do best-fit: vaga de moto vazia ganha da vaga de carro quase cheia
+        vagas.get(2).setCategoria(CategoriaVaga.MOTO);
+        alocador = new AlocadorVagas(vagas);
+        boolean categoriaPrimeiro = alocador.buscar(TipoVeiculo.MOTO, new AlocadorVagas.Regras()) == vagas.get(2);
+
+        // Entradas e saídas repetidas numa vaga de 4 unidades mantêm a ordem de chegada
+        Vaga grande = new Vaga(9);
+        grande.setCapacidade(Vaga.CAPACIDADE_MAXIMA);
+        Veiculo[] motos = new Veiculo[Vaga.CAPACIDADE_MAXIMA + 1];
+        for (int i = 0; i < motos.length; i++) {
+            motos[i] = new Veiculo("MOT" + i + "A00", "CG", "Preta", TipoVeiculo.MOTO);
+        }
+        boolean ciclo = true;
+        for (int rodada = 0; rodada < 3; rodada++) {
+            for (int i = 0; i < Vaga.CAPACIDADE_MAXIMA; i++) ciclo &= grande.ocuparVaga(motos[i]);
+            ciclo &= !grande.ocuparVaga(motos[Vaga.CAPACIDADE_MAXIMA]);
+            ciclo &= grande.liberarVaga(motos[0]) && grande.getVeiculo() == motos[1]
+                    && grande.getVeiculos().equals(java.util.Arrays.asList(motos[1], motos[2], motos[3]));
+            ciclo &= grande.liberarVaga(motos[2]) && grande.getQuantidadeVeiculos() == 2;
+            grande.liberarVaga();
+            ciclo &= grande.getQuantidadeVeiculos() == 0 && !grande.isOcupada();
+        }
+
+        if (empacotadas && contagem && saida && carroRecusado && melhorEncaixe && categoriaPrimeiro && ciclo) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Empacotadas: " + empacotadas + ", Contagem: " + contagem + ", Saída: " + saida
+                    + ", Carro recusado: " + carroRecusado + ", Best-fit: " + melhorEncaixe
+                    + ", Categoria primeiro: " + categoriaPrimeiro + ", Ciclo: " + ciclo + ")");
+        }
+    }
+
+    private static Vaga vagaDo(Estacionamento est, Ticket ticket) {
+        for (Vaga v : est.getVagas()) {
+            for (Veiculo veiculo : v.getVeiculos()) {
+                if (veiculo.getPlaca().equals(ticket.getVeiculo().getPlaca())) return v;
+            }
+        }
+        return null;
+    }
+
+    private static void testarArmazemNoEstacionamento() {
+        System.out.print("Teste 19: Armazém Colunar no Estacionamento... ");
+        // Saídas em dois dias; totais e contagens vêm das colunas e sobrevivem a um carregamento
+        Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        RelogioSimulado relogio = new RelogioSimulado(LocalDateTime.of(2024, 3, 6, 10, 0));
+        est.setRelogio(relogio);
+        for (int i = 0; i < 3; i++) {
+            est.registrarEntrada(new Veiculo("REC1234", "Gol", "Prata", TipoVeiculo.CARRO));
+            est.registrarEntrada(new Veiculo("MOT" + i + "A00", "CG", "Preta", TipoVeiculo.MOTO));
+            relogio.avancar(2 * 3600);
+            est.registrarSaida("REC1234");
+            est.registrarSaida("MOT" + i + "A00");
+            relogio.avancar(12 * 3600);
+        }
+        est.registrarEntrada(new Veiculo("ABE1234", "Uno", "Branco", TipoVeiculo.CARRO));
+
+        java.time.LocalDate dia1 = java.time.LocalDate.of(2024, 3, 6);
+        ArmazemTickets armazem = est.getArmazemFechados();
+        boolean tamanho = armazem.getTamanho() == 6;
+        boolean total = est.somarArrecadado(null, null) == est.getTotalArrecadadoCentavos()
+                && est.getTotalArrecadadoCentavos() == 3 * 2000 + 3 * 1000;
+        int[] dia1PorTipo = est.contarSaidasPorTipo(dia1, dia1);
+        boolean periodo = est.somarArrecadado(dia1, dia1) == 2000 + 1000
+                && dia1PorTipo[TipoVeiculo.CARRO.ordinal()] == 1 && dia1PorTipo[TipoVeiculo.MOTO.ordinal()] == 1;
+
+        int[] linhas = armazem.buscarPorPlaca("REC1234");
+        boolean compartilhado = armazem.getTicket(linhas[0]).getVeiculo() == armazem.getTicket(linhas[2]).getVeiculo();
+
+        long antes = est.getEstatisticasQuantis().getValor(null, null, null).getTotal();
+        est.restaurarEstado(est.getVagas(), est.getTickets(), est.gerarProximoIdTicket());
+        boolean recarregado = est.getArmazemFechados() != armazem && est.getArmazemFechados().getTamanho() == 6
+                && est.getTotalArrecadadoCentavos() == 3 * 2000 + 3 * 1000
+                && est.getEstatisticasQuantis().getValor(null, null, null).getTotal() == antes && antes == 6;
+
+        if (tamanho && total && periodo && compartilhado && recarregado) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Tamanho: " + tamanho + ", Total: " + total + ", Período: " + periodo
+                    + ", Compartilhado: " + compartilhado + ", Recarregado: " + recarregado + ")");
+        }
+    }
+
+    private static void testarExportacaoIncremental() {
+        System.out.print("Teste 20: Exportação Incremental... ");
+        try {
+            java.io.File dir = java.nio.file.Files.createTempDirectory("incremental").toFile();
+            java.io.File csv = new java.io.File(dir, "tickets_incremental.csv");
+            java.io.File manifesto = new java.io.File(dir, "exportacao_manifesto.csv");
+            Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+            est.setRelogio(new RelogioSimulado(LocalDateTime.of(2024, 3, 6, 10, 0)));
+            est.registrarEntrada(new Veiculo("AAA1111", "Gol", "Prata", TipoVeiculo.CARRO));
+            est.registrarEntrada(new Veiculo("BBB2222", "Uno", "Branco", TipoVeiculo.CARRO));
+
+            // 1ª execução: o ticket 2 sai primeiro
+            est.registrarSaida("BBB2222");
+            PersistenciaDados.exportarCSVIncremental(est, dir);
+            int linhas1 = contarLinhas(csv);
+
+            // 2ª execução: o ticket 1 sai no mesmo segundo, depois da exportação
+            est.registrarSaida("AAA1111");
+            PersistenciaDados.exportarCSVIncremental(est, dir);
+            int linhas2 = contarLinhas(csv);
+            long tamanho = csv.length();
+
+            // 3ª execução sem saídas novas, após uma gravação interrompida deixar lixo no CSV
+            try (java.io.FileWriter lixo = new java.io.FileWriter(csv, true)) {
+                lixo.write("linha incompleta");
+            }
+            PersistenciaDados.exportarCSVIncremental(est, dir);
+            boolean semMudanca = contarLinhas(csv) == linhas2 && csv.length() == tamanho;
+
+            // Manifesto: cabeçalho + 3 execuções com intervalos de bytes contíguos
+            List<String> registros = java.nio.file.Files.readAllLines(manifesto.toPath());
+            String[] r1 = registros.get(1).split(";", -1);
+            String[] r2 = registros.get(2).split(";", -1);
+            String[] r3 = registros.get(3).split(";", -1);
+            boolean intervalos = registros.size() == 4
+                    && r1[2].equals("1") && r1[3].equals("2") && r1[7].equals("0")
+                    && r2[2].equals("1") && r2[3].equals("1") && r2[7].equals(r1[8])
+                    && r3[2].equals("0") && r3[7].equals(r2[8]) && r3[8].equals(String.valueOf(tamanho));
+
+            // Snapshot gravado aqui; depois dele um fechamento é exportado mas o estado não é salvo
+            java.io.File snapshot = new java.io.File(dir, "estado.json");
+            PersistenciaDados.salvarEstado(est, snapshot.getPath());
+            RelogioSimulado relogio = new RelogioSimulado(LocalDateTime.of(2024, 3, 6, 11, 0));
+            est.setRelogio(relogio);
+            est.registrarEntrada(new Veiculo("CCC3333", "Palio", "Preto", TipoVeiculo.CARRO));
+            est.registrarSaida("CCC3333");
+            PersistenciaDados.exportarCSVIncremental(est, dir);
+
+            // O snapshot antigo volta: o próximo fechamento reutiliza a sequência (e o ID) já exportados
+            Estacionamento recarregado = PersistenciaDados.carregarEstado(snapshot.getPath());
+            relogio.avancar(3600);
+            recarregado.setRelogio(relogio);
+            recarregado.registrarEntrada(new Veiculo("DDD4444", "Fox", "Azul", TipoVeiculo.CARRO));
+            recarregado.registrarSaida("DDD4444");
+            PersistenciaDados.exportarCSVIncremental(recarregado, dir);
+            List<String> linhas = java.nio.file.Files.readAllLines(csv.toPath());
+            boolean aposRecarga = linhas.size() == 5 && linhas.get(3).contains("CCC3333")
+                    && linhas.get(4).contains("DDD4444");
+
+            if (linhas1 == 2 && linhas2 == 3 && semMudanca && intervalos && aposRecarga) {
+                System.out.println("PASSOU");
+            } else {
+                System.out.println("FALHOU (Linhas: " + linhas1 + "/" + linhas2 + ", Sem mudança: " + semMudanca
+                        + ", Intervalos: " + intervalos + ", Após recarga: " + aposRecarga + ")");
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("FALHOU (" + e.getMessage() + ")");
+        }
+    }
+
+    private static int contarLinhas(java.io.File arquivo) throws java.io.IOException {
+        return java.nio.file.Files.readAllLines(arquivo.toPath()).size();
+    }
+
+    private static void testarRelogioSimulado() {
+        System.out.print("Teste 21: Relógio Simulado... ");
+        RelogioSimulado relogio = new RelogioSimulado(LocalDateTime.of(2024, 3, 6, 23, 30));
+        long inicio = relogio.agoraEpoch();
+        relogio.avancar(45 * 60);
+        boolean avancou = relogio.agoraEpoch() == inicio + 45 * 60
+                && Ticket.deEpoch(relogio.agoraEpoch()).equals(LocalDateTime.of(2024, 3, 7, 0, 15));
+        relogio.definir(inicio + 3600);
+        boolean definiu = relogio.agoraEpoch() == inicio + 3600;
+
+        boolean recusouVolta = false;
+        try {
+            relogio.definir(inicio);
+        } catch (IllegalArgumentException e) {
+            recusouVolta = relogio.agoraEpoch() == inicio + 3600;
+        }
+
+        if (avancou && definiu && recusouVolta) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Avançou: " + avancou + ", Definiu: " + definiu + ", Recusou volta: " + recusouVolta + ")");
+        }
+    }
+
+    private static void testarSimuladorTrafego() {
+        System.out.print("Teste 22: Simulador de Tráfego... ");
+        // Mais chegadas que vagas: há recusas, e os avisos delas não podem vazar do simulador
+        LocalDateTime inicio = LocalDateTime.of(2024, 3, 6, 8, 0);
+        List<String> avisos = new java.util.ArrayList<>();
+        java.util.function.Consumer<String> destino = avisos::add;
+        Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        est.setAvisos(destino);
+        SimuladorTrafego.Resultado r = simular(est, inicio);
+        SimuladorTrafego.Resultado repetido = simular(new Estacionamento("Teste", 5, 10.0), inicio);
+
+        int entradas = r.getEntradas(TipoVeiculo.CARRO);
+        int saidas = r.getSaidas(TipoVeiculo.CARRO);
+        boolean contagens = entradas > 0 && r.getTotalRecusadas() > 0 && saidas > 0 && saidas <= entradas
+                && est.getVagasOcupadas() == entradas - saidas;
+        // Permanência fixa de 1 hora: cada saída paga uma hora de carro
+        boolean arrecadacao = r.getArrecadadoCentavos() == saidas * 1000L
+                && r.getArrecadadoCentavos() == est.getTotalArrecadadoCentavos();
+        boolean relogio = est.getRelogio().agoraEpoch() == Ticket.paraEpoch(inicio) + 2 * 3600;
+        boolean silencioso = avisos.isEmpty() && est.getAvisos() == destino;
+        boolean deterministico = repetido.getEntradas(TipoVeiculo.CARRO) == entradas
+                && repetido.getTotalRecusadas() == r.getTotalRecusadas()
+                && repetido.getArrecadadoCentavos() == r.getArrecadadoCentavos();
+
+        if (contagens && arrecadacao && relogio && silencioso && deterministico) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Contagens: " + contagens + ", Arrecadação: " + arrecadacao + ", Relógio: " + relogio
+                    + ", Silencioso: " + silencioso + ", Determinístico: " + deterministico + ")");
+        }
+    }
+
+    private static SimuladorTrafego.Resultado simular(Estacionamento est, LocalDateTime inicio) {
+        SimuladorTrafego simulador = new SimuladorTrafego(est, inicio);
+        simulador.setVelocidade(0);
+        simulador.setSemente(7);
+        simulador.adicionarFluxo(new SimuladorTrafego.Fluxo(TipoVeiculo.CARRO, 30,
+                SimuladorTrafego.Distribuicao.fixa(60)));
+        return simulador.executar(2);
+    }
+
+    private static void testarFormatoColunar() {
+        System.out.print("Teste 23: Exportação e Leitura Colunar... ");
+        // Um ticket por minuto em ordem de entrada: mais de um bloco, cada bloco cobre poucos dias
+        int total = ExportadorColunar.LINHAS_POR_BLOCO * 2 + 500;
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Ticket> tickets = new java.util.ArrayList<>(total);
+        long somaValores = 0;
+        for (int i = 0; i < total; i++) {
+            // Placa recorrente só nas primeiras linhas do arquivo
+            String placa = (i < 300 && i % 100 == 0) ? "REC1234" : String.format("AB%c%04d", (char) ('A' + i % 26), i);
+            Ticket t = new Ticket(i + 1, new Veiculo(placa, "Modelo", "Cor", TipoVeiculo.CARRO), Ticket.paraEpoch(base.plusMinutes(i)));
+            t.registrarSaida(t.getEntradaEpoch() + 3600);
+            t.calcularValor(10.0);
+            somaValores += t.getValorPagoCentavos();
+            tickets.add(t);
+        }
+        try {
+            java.io.File arquivo = java.io.File.createTempFile("tickets", ".col");
+            arquivo.deleteOnExit();
+            ExportadorColunar.exportar(tickets, arquivo.getPath());
+            LeitorColunar leitor = new LeitorColunar(arquivo.getPath());
+
+            long[] soma = {0};
+            long todas = leitor.varrer(Long.MIN_VALUE, Long.MAX_VALUE, null, (id, placa, tipo, entrada, saida, valor) -> soma[0] += valor);
+            boolean completo = todas == total && leitor.getTotalLinhas() == total && soma[0] == somaValores
+                    && leitor.getBlocosDescartados() == 0;
+
+            // Último dia com entradas: os blocos anteriores são descartados pelas estatísticas
+            // Os horários lidos estão no mesmo eixo local dos tickets (Ticket.paraEpoch)
+            LocalDateTime ultima = base.plusMinutes(total - 1);
+            long de = Ticket.paraEpoch(ultima.toLocalDate().atStartOfDay());
+            long ate = Ticket.paraEpoch(ultima.toLocalDate().plusDays(1).atStartOfDay()) - 1;
+            int[] primeiroId = {Integer.MAX_VALUE};
+            long[] primeiraEntrada = {Long.MAX_VALUE};
+            long doDia = leitor.varrer(de, ate, null, (id, placa, tipo, entrada, saida, valor) -> {
+                primeiroId[0] = Math.min(primeiroId[0], id);
+                primeiraEntrada[0] = Math.min(primeiraEntrada[0], entrada);
+            });
+            int antesDoDia = (int) java.time.Duration.between(base, ultima.toLocalDate().atStartOfDay()).toMinutes();
+            boolean porData = doDia == total - antesDoDia && primeiroId[0] == antesDoDia + 1
+                    && primeiraEntrada[0] == tickets.get(antesDoDia).getEntradaEpoch()
+                    && leitor.getBlocosDescartados() > 0;
+
+            long[] placaLida = {0};
+            long recorrente = leitor.varrer(Long.MIN_VALUE, Long.MAX_VALUE, "rec1234",
+                    (id, placa, tipo, entrada, saida, valor) -> placaLida[0] = placa);
+            boolean porPlaca = recorrente == 3 && CodecPlaca.decodificar(placaLida[0]).equals("REC1234")
+                    && leitor.getBlocosDescartados() == leitor.getBlocosLidos() - 1;
+
+            if (completo && porData && porPlaca) {
+                System.out.println("PASSOU");
+            } else {
+                System.out.println("FALHOU (Completo: " + completo + ", Por data: " + porData + ", Por placa: " + porPlaca
+                        + ", Descartados: " + leitor.getBlocosDescartados() + ")");
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("FALHOU (" + e.getMessage() + ")");
+        }
+    }
+
+    private static void testarSerieOcupacao() {
+        System.out.print("Teste 24: Série de Ocupação... ");
+        long dia = 20000L * 24 * 60; // Início de um dia, em minutos desde a época
+        long antigo = dia - 100L * 24 * 60; // Antes do anel de horas: força a resolução diária
+
+        // Intervalo de vários dias sem amostras: as faixas repetem a última ocupação
+        SerieOcupacao lacuna = new SerieOcupacao();
+        lacuna.registrar(dia, 5);
+        lacuna.registrar(dia + 3 * 24 * 60, 2);
+        SerieOcupacao.Pontos horas = lacuna.consultar(dia, dia + 3 * 24 * 60 - 1);
+        SerieOcupacao.Pontos dias = lacuna.consultar(antigo, dia + 3 * 24 * 60 - 1);
+        boolean continua = horas.getResolucao() == 60 && horas.getTamanho() == 72
+                && dias.getResolucao() == 24 * 60 && dias.getTamanho() == 3;
+        for (int i = 0; i < horas.getTamanho(); i++) {
+            continua &= horas.getMinimo(i) == 5 && horas.getMaximo(i) == 5 && horas.getInicio(i) == dia + i * 60L;
+        }
+        for (int i = 0; i < dias.getTamanho(); i++) {
+            continua &= dias.getMinimo(i) == 5 && dias.getMaximo(i) == 5;
+        }
+
+        // Minutos somados em horas e horas em dias: meia hora a 10, meia hora a 20, vale de 0 no fim do dia
+        SerieOcupacao serie = new SerieOcupacao();
+        serie.registrar(dia, 10);
+        serie.registrar(dia + 30, 20);
+        serie.registrar(dia + 60, 15);
+        serie.registrar(dia + 23 * 60 + 59, 0);
+        serie.registrar(dia + 25 * 60, 0); // Fecha a última hora do dia e, com ela, o dia
+        SerieOcupacao.Pontos porMinuto = serie.consultar(dia, dia + 59);
+        SerieOcupacao.Pontos porHora = serie.consultar(dia - 3 * 24 * 60, dia + 59);
+        SerieOcupacao.Pontos porDia = serie.consultar(antigo, dia);
+        boolean agregada = porMinuto.getResolucao() == 1 && porMinuto.getTamanho() == 60
+                && porHora.getResolucao() == 60 && porHora.getTamanho() == 1
+                && porHora.getMinimo(0) == 10 && porHora.getMaximo(0) == 20
+                && Math.abs(porHora.getMedia(0) - 15f) < 0.01f
+                && porDia.getResolucao() == 24 * 60 && porDia.getTamanho() == 1
+                && porDia.getMinimo(0) == 0 && porDia.getMaximo(0) == 20;
+
+        // Redução por colunas: o pico e o vale de minutos isolados continuam visíveis
+        SerieOcupacao oscilante = new SerieOcupacao();
+        for (int m = 0; m < 60; m++) {
+            oscilante.registrar(dia + m, m == 33 ? 50 : (m == 7 ? 0 : 3 + m % 5));
+        }
+        oscilante.registrar(dia + 60, 3);
+        SerieOcupacao.Pontos pontos = oscilante.consultar(dia, dia + 59);
+        int[][] colunas = SerieOcupacao.reduzirPorColunas(pontos, dia, dia + 59, 4);
+        boolean reduzida = colunas[0][0] == 0 && colunas[1][0] == 7 && colunas[1][2] == 50
+                && colunas[0][1] == 3 && colunas[1][3] == 7;
+
+        // Amostra atrasada num minuto já fechado chega também à hora e ao dia
+        SerieOcupacao atrasada = new SerieOcupacao();
+        for (int m = 10; m <= 70; m++) {
+            atrasada.registrar(dia + m, 5);
+        }
+        atrasada.registrar(dia + 20, 40);
+        SerieOcupacao.Pontos minuto = atrasada.consultar(dia + 20, dia + 20);
+        SerieOcupacao.Pontos hora = atrasada.consultar(dia - 3 * 24 * 60, dia + 59);
+        SerieOcupacao.Pontos doDia = atrasada.consultar(antigo, dia);
+        boolean corrigida = minuto.getTamanho() == 1 && minuto.getMaximo(0) == 40
+                && hora.getTamanho() == 1 && hora.getMaximo(0) == 40 && hora.getMinimo(0) == 5
+                && Math.abs(hora.getMedia(0) - (5f + 17.5f / 50)) < 0.01f
+                && doDia.getTamanho() == 1 && doDia.getMaximo(0) == 40;
+
+        // Ler a série (abrir o relatório) não acrescenta amostras nem muda as médias
+        Estacionamento est = new Estacionamento("Teste", 5, 10.0);
+        RelogioSimulado relogio = new RelogioSimulado(LocalDateTime.of(2024, 5, 2, 10, 0));
+        est.setRelogio(relogio);
+        est.registrarEntrada(new Veiculo("AAA1111", "Gol", "Prata", TipoVeiculo.CARRO));
+        relogio.avancar(10 * 60);
+        for (int i = 0; i < 3; i++) {
+            est.getSerieOcupacao();
+        }
+        est.registrarSaida("AAA1111");
+        relogio.avancar(60 * 60);
+        long dezHoras = Estacionamento.paraMinutoSerie(LocalDateTime.of(2024, 5, 2, 10, 0));
+        SerieOcupacao lida = est.getSerieOcupacao();
+        SerieOcupacao.Pontos saida = lida.consultar(dezHoras + 10, dezHoras + 10);
+        SerieOcupacao.Pontos horaLida = lida.consultar(dezHoras - 3 * 24 * 60, dezHoras + 59);
+        boolean somenteLeitura = saida.getTamanho() == 1 && saida.getMaximo(0) == 0
+                && horaLida.getTamanho() == 1 && Math.abs(horaLida.getMedia(0) - 10f / 60) < 0.01f;
+
+        if (continua && agregada && reduzida && corrigida && somenteLeitura) {
+            System.out.println("PASSOU");
+        } else {
+            System.out.println("FALHOU (Lacuna: " + continua + ", Agregação: " + agregada
+                    + ", Colunas: " + reduzida + ", Atrasada: " + corrigida + ", Leitura: " + somenteLeitura + ")");
+        }
+    }
+
+    private static void testarCargaDadosLegados() {
+        System.out.print("Teste 25: Carga de Dados Legados... ");
+        // Arquivo no formato da primeira versão: horários LocalDateTime e valor pago em reais
+        String json = "{\n"
+                + "  \"nome\": \"Legado\",\n"
+                + "  \"vagas\": [\n"
+                + "    {\"numero\": 1, \"ocupada\": true, \"vip\": false,\n"
+                + "     \"veiculo\": {\"placa\": \"BBB2222\", \"modelo\": \"Uno\", \"cor\": \"Branco\", \"tipo\": \"CARRO\"}},\n"
+                + "    {\"numero\": 2, \"ocupada\": false, \"vip\": false}\n"
+                + "  ],\n"
+                + "  \"tickets\": [\n"
+                + "    {\"id\": 1, \"veiculo\": {\"placa\": \"AAA1111\", \"modelo\": \"Gol\", \"cor\": \"Prata\", \"tipo\": \"CARRO\"},\n"
+                + "     \"horaEntrada\": \"2024-01-10T08:00:00\", \"horaSaida\": \"2024-01-10T10:30:00\",\n"
+                + "     \"valorPago\": 25.5, \"desconto\": 0.0},\n"
+                + "    {\"id\": 2, \"veiculo\": {\"placa\": \"BBB2222\", \"modelo\": \"Uno\", \"cor\": \"Branco\", \"tipo\": \"CARRO\"},\n"
+                + "     \"horaEntrada\": \"2024-01-10T09:15:00\", \"valorPago\": 0.0, \"desconto\": 0.0}\n"
+                + "  ],\n"
+                + "  \"valorHora\": 10.0,\n"
+                + "  \"proximoIdTicket\": 3\n"
+                + "}\n";
+        try {
+            java.io.File arquivo = java.io.File.createTempFile("legado", ".json");
+            arquivo.deleteOnExit();
+            java.nio.file.Files.write(arquivo.toPath(), json.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            Estacionamento est = PersistenciaDados.carregarEstado(arquivo.getPath());
+
+            Ticket fechado = est.getTickets().get(0);
+            Ticket aberto = est.getTickets().get(1);
+            boolean migrado = fechado.getEntradaEpoch() == Ticket.paraEpoch(LocalDateTime.of(2024, 1, 10, 8, 0))
+                    && fechado.getSaidaEpoch() == Ticket.paraEpoch(LocalDateTime.of(2024, 1, 10, 10, 30))
+                    && fechado.getValorPagoCentavos() == 2550
+                    && aberto.getEntradaEpoch() == Ticket.paraEpoch(LocalDateTime.of(2024, 1, 10, 9, 15))
+                    && aberto.getSaidaEpoch() == Ticket.SEM_SAIDA && !aberto.isFechado()
+                    && est.getTotalArrecadadoCentavos() == 2550
+                    && est.buscarTicketAtivo("BBB2222") == aberto;
+
+            // Regravado, o arquivo já sai com os horários em epoch e continua legível
+            PersistenciaDados.salvarEstado(est, arquivo.getPath());
+            String regravado = new String(java.nio.file.Files.readAllBytes(arquivo.toPath()), java.nio.charset.StandardCharsets.UTF_8);
+            Estacionamento relido = PersistenciaDados.carregarEstado(arquivo.getPath());
+            Ticket abertoRelido = relido.getTickets().get(1);
+            boolean formatoNovo = !regravado.contains("horaEntrada") && regravado.contains("entradaEpoch")
+                    && relido.getTickets().get(0).getEntradaEpoch() == fechado.getEntradaEpoch()
+                    && relido.getTickets().get(0).getValorPagoCentavos() == 2550
+                    && abertoRelido.getEntradaEpoch() == aberto.getEntradaEpoch() && !abertoRelido.isFechado()
+                    && relido.getTotalArrecadadoCentavos() == 2550;
+
+            if (migrado && formatoNovo) {
+                System.out.println("PASSOU");
+            } else {
+                System.out.println("FALHOU (Migrado: " + migrado + ", Formato novo: " + formatoNovo + ")");
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("FALHOU (" + e.getMessage() + ")");
+        }
+    }
 }
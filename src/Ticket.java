@@ -1,18 +1,35 @@
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Representa o comprovante de estacionamento de um veículo.
  * Registra horários de entrada e saída, calcula valores e armazena informações financeiras.
+ *
+ * Os horários são guardados como segundos desde 1970-01-01T00:00 no horário local (sem fuso),
+ * o que deixa contas de duração, agrupamento por dia/hora e comparações em aritmética de
+ * {@code long}. {@link LocalDateTime} aparece apenas nos métodos de consulta para exibição.
  */
 public class Ticket {
+    /** Valor de {@link #getSaidaEpoch()} enquanto o ticket está em aberto. */
+    public static final long SEM_SAIDA = Long.MIN_VALUE;
+
+    private static final int SEGUNDOS_DIA = 24 * 60 * 60;
+
     private int id;
     private Veiculo veiculo;
+    private long entradaEpoch;
+    private long saidaEpoch;
+    // Legado: snapshots antigos gravavam os horários como LocalDateTime; convertidos na primeira leitura
     private LocalDateTime horaEntrada;
     private LocalDateTime horaSaida;
-    private double valorPago;
+    private long valorPagoCentavos;
     private double desconto;
+    // Legado: snapshots antigos gravavam o valor em reais; convertido na primeira leitura
+    private Double valorPago;
+    // Ordem de fechamento atribuída pelo estacionamento; 0 enquanto aberto (ou em snapshots antigos)
+    private long sequenciaFechamento;
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
 
@@ -24,12 +41,88 @@ public class Ticket {
      * @param veiculo O veículo associado ao ticket.
      */
     public Ticket(int id, Veiculo veiculo) {
+        this(id, veiculo, agoraEpoch());
+    }
+
+    /**
+     * Construtor com a hora de entrada informada (relógio injetado, simulações).
+     * 
+     * @param id Identificador único do ticket.
+     * @param veiculo O veículo associado ao ticket.
+     * @param entradaEpoch Hora de entrada em segundos desde a época (horário local).
+     */
+    public Ticket(int id, Veiculo veiculo, long entradaEpoch) {
         this.id = id;
         this.veiculo = veiculo;
-        this.horaEntrada = LocalDateTime.now();
+        this.entradaEpoch = entradaEpoch;
+        this.saidaEpoch = SEM_SAIDA;
         this.desconto = 0.0;
     }
 
+    // Reconstrói um ticket fechado a partir de dados já calculados (ex.: ArmazemTickets)
+    Ticket(int id, Veiculo veiculo, long entradaEpoch, long saidaEpoch, long valorPagoCentavos, double desconto) {
+        this.id = id;
+        this.veiculo = veiculo;
+        this.entradaEpoch = entradaEpoch;
+        this.saidaEpoch = saidaEpoch;
+        this.valorPagoCentavos = valorPagoCentavos;
+        this.desconto = desconto;
+    }
+
+    /**
+     * Converte um horário local em segundos desde a época (horário local, sem fuso).
+     * @param dataHora Horário local.
+     * @return Segundos desde 1970-01-01T00:00.
+     */
+    public static long paraEpoch(LocalDateTime dataHora) {
+        return dataHora.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Converte segundos desde a época (horário local) de volta em {@link LocalDateTime}.
+     * @param epoch Segundos desde 1970-01-01T00:00.
+     * @return Horário local.
+     */
+    public static LocalDateTime deEpoch(long epoch) {
+        return LocalDateTime.ofEpochSecond(epoch, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Obtém o instante atual em segundos desde a época (horário local).
+     * @return Segundos desde 1970-01-01T00:00.
+     */
+    public static long agoraEpoch() {
+        return paraEpoch(LocalDateTime.now());
+    }
+
+    /**
+     * Obtém o dia de um instante, no mesmo eixo de {@link java.time.LocalDate#toEpochDay()}.
+     * @param epoch Segundos desde a época (horário local).
+     * @return Dias desde 1970-01-01.
+     */
+    public static long diaEpoch(long epoch) {
+        return Math.floorDiv(epoch, SEGUNDOS_DIA);
+    }
+
+    /**
+     * Obtém a hora do dia de um instante.
+     * @param epoch Segundos desde a época (horário local).
+     * @return Hora entre 0 e 23.
+     */
+    public static int horaDoDia(long epoch) {
+        return (int) (Math.floorMod(epoch, (long) SEGUNDOS_DIA) / 3600);
+    }
+
+    // Converte os horários de snapshots antigos para segundos
+    private void migrarHorarios() {
+        if (horaEntrada != null) {
+            entradaEpoch = paraEpoch(horaEntrada);
+            saidaEpoch = (horaSaida != null) ? paraEpoch(horaSaida) : SEM_SAIDA;
+            horaEntrada = null;
+            horaSaida = null;
+        }
+    }
+
     /**
      * Aplica um percentual de desconto ao valor do ticket.
      * @param percentual Valor entre 0 e 100.
@@ -46,7 +139,19 @@ public class Ticket {
      * Registra o horário de saída como o momento atual.
      */
     public void registrarSaida() {
-        this.horaSaida = LocalDateTime.now();
+        registrarSaida(agoraEpoch());
+    }
+
+    /**
+     * Registra o horário de saída informado.
+     * @param saidaEpoch Hora de saída em segundos desde a época (horário local).
+     * @throws IllegalArgumentException Se a saída for anterior à entrada.
+     */
+    public void registrarSaida(long saidaEpoch) {
+        if (saidaEpoch < getEntradaEpoch()) {
+            throw new IllegalArgumentException("A saída não pode ser anterior à entrada.");
+        }
+        this.saidaEpoch = saidaEpoch;
     }
 
     /**
@@ -57,28 +162,44 @@ public class Ticket {
      * @throws IllegalStateException Se a saída ainda não tiver sido registrada.
      */
     public void calcularValor(double valorHora) {
-        if (this.horaSaida == null) {
+        calcularValor(Tarifa.simples(Dinheiro.deReais(valorHora)));
+    }
+
+    /**
+     * Calcula o valor a ser pago segundo uma tarifa (tolerância, frações, teto e adicionais).
+     * 
+     * @param tarifa A tarifa vigente.
+     * @throws IllegalStateException Se a saída ainda não tiver sido registrada.
+     */
+    public void calcularValor(Tarifa tarifa) {
+        if (!isFechado()) {
             throw new IllegalStateException("É necessário registrar a saída antes de calcular o valor.");
         }
 
-        Duration duracao = Duration.between(horaEntrada, horaSaida);
-        long minutos = duracao.toMinutes();
-        
-        long horasCobrar = (long) Math.ceil(minutos / 60.0);
-        if (horasCobrar == 0 && minutos > 0) {
-            horasCobrar = 1;
-        }
+        this.valorPagoCentavos = estimarCentavos(saidaEpoch, tarifa);
+        this.valorPago = null;
+    }
 
-        double valorBase = horasCobrar * valorHora;
-        
-        // Aplica fator do tipo de veículo
-        if (veiculo.getTipo() != null) {
-            valorBase *= veiculo.getTipo().getFator();
-        }
-        
-        // Aplica desconto
-        double valorDesconto = valorBase * (desconto / 100.0);
-        this.valorPago = valorBase - valorDesconto;
+    /**
+     * Calcula o valor devido caso o veículo saísse no instante informado, sem fechar o ticket.
+     * É o mesmo cálculo usado em {@link #calcularValor(Tarifa)}, incluindo fator do tipo e desconto.
+     * @param ateEpoch Instante de saída considerado, em segundos desde a época (horário local).
+     * @param tarifa A tarifa vigente.
+     * @return O valor em centavos.
+     */
+    public long estimarCentavos(long ateEpoch, Tarifa tarifa) {
+        return tarifa.calcularCentavos(veiculo.getTipo(), getEntradaEpoch(), ateEpoch, desconto);
+    }
+
+    /**
+     * Obtém a duração da estadia em segundos.
+     * Se o veículo ainda estiver estacionado, calcula até o instante informado.
+     * @param agoraEpoch Instante atual em segundos desde a época (horário local).
+     * @return Segundos decorridos.
+     */
+    public long getSegundosEstacionado(long agoraEpoch) {
+        long fim = isFechado() ? saidaEpoch : agoraEpoch;
+        return fim - entradaEpoch;
     }
 
     /**
@@ -87,8 +208,7 @@ public class Ticket {
      * @return Objeto Duration representando o tempo decorrido.
      */
     public Duration getTempoEstacionado() {
-        LocalDateTime fim = (horaSaida != null) ? horaSaida : LocalDateTime.now();
-        return Duration.between(horaEntrada, fim);
+        return Duration.ofSeconds(getSegundosEstacionado(isFechado() ? saidaEpoch : agoraEpoch()));
     }
 
     /**
@@ -96,8 +216,16 @@ public class Ticket {
      * @return String no formato "X horas e Y minutos".
      */
     public String formatarDuracao() {
-        Duration d = getTempoEstacionado();
-        long totalMinutos = d.toMinutes();
+        return formatarDuracao(agoraEpoch());
+    }
+
+    /**
+     * Formata a duração da estadia até um instante informado (relógio injetado).
+     * @param agoraEpoch Momento atual em segundos desde a época; ignorado se o ticket estiver fechado.
+     * @return String no formato "X horas e Y minutos".
+     */
+    public String formatarDuracao(long agoraEpoch) {
+        long totalMinutos = getSegundosEstacionado(agoraEpoch) / 60;
         long horas = totalMinutos / 60;
         long minutos = totalMinutos % 60;
         return String.format("%d horas e %d minutos", horas, minutos);
@@ -119,28 +247,95 @@ public class Ticket {
         return veiculo;
     }
 
+    // Troca pelo veículo compartilhado do cadastro (mesma placa) após um carregamento
+    void substituirVeiculo(Veiculo veiculo) {
+        this.veiculo = veiculo;
+    }
+
     /**
      * Obtém a hora de entrada.
-     * @return LocalDateTime da entrada.
+     * @return LocalDateTime da entrada (novo objeto a cada chamada).
      */
     public LocalDateTime getHoraEntrada() {
-        return horaEntrada;
+        return deEpoch(getEntradaEpoch());
     }
 
     /**
      * Obtém a hora de saída.
-     * @return LocalDateTime da saída ou null se ainda estiver estacionado.
+     * @return LocalDateTime da saída (novo objeto a cada chamada) ou null se ainda estiver estacionado.
      */
     public LocalDateTime getHoraSaida() {
-        return horaSaida;
+        return isFechado() ? deEpoch(saidaEpoch) : null;
+    }
+
+    /**
+     * Obtém a hora de entrada sem criar objetos.
+     * @return Segundos desde a época (horário local).
+     */
+    public long getEntradaEpoch() {
+        migrarHorarios();
+        return entradaEpoch;
+    }
+
+    /**
+     * Obtém a hora de saída sem criar objetos.
+     * @return Segundos desde a época (horário local) ou {@link #SEM_SAIDA} se estiver em aberto.
+     */
+    public long getSaidaEpoch() {
+        migrarHorarios();
+        return saidaEpoch;
+    }
+
+    /**
+     * Obtém a posição do ticket na ordem em que os tickets foram fechados.
+     * Ao contrário do horário de saída, não se repete nem volta atrás, por isso serve de
+     * ponto de controle para exportações incrementais.
+     * @return Número de sequência (a partir de 1) ou 0 se ainda não foi atribuído.
+     */
+    public long getSequenciaFechamento() {
+        return sequenciaFechamento;
+    }
+
+    // Atribuído pelo estacionamento ao registrar a saída (ou ao migrar snapshots antigos)
+    void setSequenciaFechamento(long sequenciaFechamento) {
+        this.sequenciaFechamento = sequenciaFechamento;
+    }
+
+    /**
+     * Verifica se a saída já foi registrada.
+     * @return true se o ticket estiver fechado.
+     */
+    public boolean isFechado() {
+        return getSaidaEpoch() != SEM_SAIDA;
+    }
+
+    /**
+     * Obtém o percentual de desconto aplicado.
+     * @return Percentual entre 0 e 100.
+     */
+    public double getDesconto() {
+        return desconto;
     }
 
     /**
      * Obtém o valor final pago.
+     * @return O valor em centavos.
+     */
+    public long getValorPagoCentavos() {
+        if (valorPago != null) {
+            valorPagoCentavos = Dinheiro.deReais(valorPago);
+            valorPago = null;
+        }
+        return valorPagoCentavos;
+    }
+
+    /**
+     * Obtém o valor final pago em reais (para exibição e estatísticas aproximadas).
+     * Somas devem usar {@link #getValorPagoCentavos()}.
      * @return O valor em reais.
      */
     public double getValorPago() {
-        return valorPago;
+        return Dinheiro.paraReais(getValorPagoCentavos());
     }
 
     /**
@@ -149,12 +344,12 @@ public class Ticket {
      */
     @Override
     public String toString() {
-        String saidaStr = (horaSaida != null) ? horaSaida.format(FORMATTER) : "Em aberto";
-        String valorStr = (horaSaida != null) ? String.format("R$ %.2f", valorPago) : "A calcular";
+        String saidaStr = isFechado() ? getHoraSaida().format(FORMATTER) : "Em aberto";
+        String valorStr = isFechado() ? Dinheiro.formatar(getValorPagoCentavos()) : "A calcular";
         
         return String.format(
             "Ticket #%d | Veículo: %s | Entrada: %s | Saída: %s | Valor: %s",
-            id, veiculo.getPlaca(), horaEntrada.format(FORMATTER), saidaStr, valorStr
+            id, veiculo.getPlaca(), getHoraEntrada().format(FORMATTER), saidaStr, valorStr
         );
     }
 }
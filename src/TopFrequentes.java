@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumo dos elementos mais frequentes de um fluxo (algoritmo Space-Saving).
+ * Mantém no máximo {@code capacidade} contadores; quando um elemento novo chega com o
+ * resumo cheio, ele assume o contador de menor valor, herdando essa contagem como erro.
+ * Qualquer elemento com frequência acima de total/capacidade está garantidamente no resumo.
+ */
+public class TopFrequentes {
+
+    /** Quantidade padrão de contadores mantidos. */
+    public static final int CAPACIDADE_PADRAO = 32;
+
+    private int capacidade;
+    private ArrayList<Contador> contadores;
+
+    /**
+     * Cria um resumo com a capacidade padrão.
+     */
+    public TopFrequentes() {
+        this(CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * Cria um resumo com a capacidade informada.
+     * @param capacidade Quantidade máxima de contadores.
+     * @throws IllegalArgumentException Se a capacidade não for positiva.
+     */
+    public TopFrequentes(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade deve ser positiva.");
+        }
+        this.capacidade = capacidade;
+        this.contadores = new ArrayList<>(capacidade);
+    }
+
+    /**
+     * Registra uma ocorrência do elemento.
+     * @param elemento O elemento (ex.: uma placa).
+     */
+    public void adicionar(String elemento) {
+        adicionar(elemento, 1, 0);
+    }
+
+    /**
+     * Incorpora outro resumo ao atual.
+     * Elementos ausentes em um dos lados recebem como limite de erro o menor contador
+     * daquele lado (quando cheio), como no algoritmo de mesclagem de resumos Space-Saving.
+     * @param outro Resumo a mesclar.
+     */
+    public void mesclar(TopFrequentes outro) {
+        long minimoAtual = contadores.size() < capacidade ? 0 : menorContagem();
+        long minimoOutro = outro.contadores.size() < outro.capacidade ? 0 : outro.menorContagem();
+
+        ArrayList<Contador> combinados = new ArrayList<>(contadores.size() + outro.contadores.size());
+        for (Contador c : contadores) {
+            Contador doOutro = outro.buscar(c.elemento);
+            long extra = (doOutro != null) ? doOutro.contagem : minimoOutro;
+            long erroExtra = (doOutro != null) ? doOutro.erro : minimoOutro;
+            combinados.add(new Contador(c.elemento, c.contagem + extra, c.erro + erroExtra));
+        }
+        for (Contador c : outro.contadores) {
+            if (buscar(c.elemento) == null) {
+                combinados.add(new Contador(c.elemento, c.contagem + minimoAtual, c.erro + minimoAtual));
+            }
+        }
+        combinados.sort((a, b) -> Long.compare(b.contagem, a.contagem));
+        contadores = new ArrayList<>(combinados.subList(0, Math.min(capacidade, combinados.size())));
+    }
+
+    /**
+     * Obtém os elementos mais frequentes em ordem decrescente de contagem.
+     * @param limite Quantidade máxima de elementos retornados.
+     * @return Lista de contadores (contagem estimada e erro máximo).
+     */
+    public List<Contador> getMaisFrequentes(int limite) {
+        ArrayList<Contador> ordenados = new ArrayList<>(contadores);
+        ordenados.sort((a, b) -> Long.compare(b.contagem, a.contagem));
+        return ordenados.subList(0, Math.min(limite, ordenados.size()));
+    }
+
+    private void adicionar(String elemento, long contagem, long erro) {
+        Contador existente = buscar(elemento);
+        if (existente != null) {
+            existente.contagem += contagem;
+            return;
+        }
+        if (contadores.size() < capacidade) {
+            contadores.add(new Contador(elemento, contagem, erro));
+            return;
+        }
+        // Substitui o menor contador, herdando sua contagem como erro
+        Contador menor = contadores.get(0);
+        for (Contador c : contadores) {
+            if (c.contagem < menor.contagem) {
+                menor = c;
+            }
+        }
+        menor.erro = menor.contagem;
+        menor.contagem += contagem;
+        menor.elemento = elemento;
+    }
+
+    private Contador buscar(String elemento) {
+        for (Contador c : contadores) {
+            if (c.elemento.equals(elemento)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    private long menorContagem() {
+        long menor = Long.MAX_VALUE;
+        for (Contador c : contadores) {
+            menor = Math.min(menor, c.contagem);
+        }
+        return contadores.isEmpty() ? 0 : menor;
+    }
+
+    /**
+     * Contador de um elemento monitorado.
+     */
+    public static class Contador {
+        private String elemento;
+        private long contagem;
+        private long erro;
+
+        Contador(String elemento, long contagem, long erro) {
+            this.elemento = elemento;
+            this.contagem = contagem;
+            this.erro = erro;
+        }
+
+        public String getElemento() {
+            return elemento;
+        }
+
+        /** @return Contagem estimada (pode superestimar em até {@link #getErro()}). */
+        public long getContagem() {
+            return contagem;
+        }
+
+        /** @return Erro máximo da contagem. */
+        public long getErro() {
+            return erro;
+        }
+    }
+}
@@ -1,12 +1,37 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Representa uma vaga física no estacionamento.
- * Pode estar livre ou ocupada por um veículo, e pode ser marcada como VIP.
+ * Pode estar livre ou ocupada por um veículo e pertence a uma {@link CategoriaVaga}
+ * (moto, carro, caminhão ou VIP). A distância até a saída orienta a escolha da vaga
+ * quando o estacionamento usa {@link EstrategiaAlocacao#MAIS_PROXIMA}.
+ *
+ * A capacidade é medida em unidades: uma moto ocupa uma unidade e divide a vaga com outras
+ * motos; carros e caminhões ocupam a vaga inteira. Uma vaga comum recebe duas motos.
  */
 public class Vaga {
+    /** Capacidade padrão, em unidades, das vagas que não são de moto: duas motos. */
+    public static final int CAPACIDADE_PADRAO = 2;
+    /** Maior capacidade aceita por vaga. */
+    public static final int CAPACIDADE_MAXIMA = 4;
+    /** Unidades ocupadas por uma moto. */
+    public static final int UNIDADES_MOTO = 1;
+
     private int numero;
     private boolean ocupada;
+    // Legado: snapshots antigos marcavam apenas se a vaga era VIP; mantido em sincronia com a categoria
     private boolean vip;
+    private CategoriaVaga categoria;
+    private int distancia;
+    // Unidades de capacidade; 0 em snapshots antigos (vale o padrão da categoria)
+    private int capacidade;
     private Veiculo veiculo;
+    // Demais motos dividindo a vaga com o primeiro veículo: vetor de tamanho fixo, criado na
+    // primeira divisão e reaproveitado (null enquanto a vaga nunca foi dividida)
+    private Veiculo[] adicionais;
+    private int quantidadeAdicionais;
 
     /**
      * Construtor da classe Vaga.
@@ -16,15 +41,20 @@ public class Vaga {
         this.numero = numero;
         this.ocupada = false;
         this.vip = false;
+        this.categoria = CategoriaVaga.CARRO;
         this.veiculo = null;
     }
 
     /**
      * Define se a vaga é VIP.
-     * @param vip true para VIP, false para comum.
+     * @param vip true para VIP, false para comum (carro).
      */
     public void setVip(boolean vip) {
-        this.vip = vip;
+        if (vip) {
+            setCategoria(CategoriaVaga.VIP);
+        } else if (isVip()) {
+            setCategoria(CategoriaVaga.CARRO);
+        }
     }
 
     /**
@@ -32,37 +62,225 @@ public class Vaga {
      * @return true se for VIP, false caso contrário.
      */
     public boolean isVip() {
-        return vip;
+        return getCategoria() == CategoriaVaga.VIP;
+    }
+
+    /**
+     * Obtém a categoria da vaga.
+     * @return A categoria (vagas de snapshots antigos são VIP ou carro).
+     */
+    public CategoriaVaga getCategoria() {
+        if (categoria == null) {
+            categoria = vip ? CategoriaVaga.VIP : CategoriaVaga.CARRO;
+        }
+        return categoria;
+    }
+
+    /**
+     * Define a categoria da vaga. Um veículo já estacionado permanece na vaga.
+     * @param categoria A nova categoria.
+     * @throws IllegalArgumentException Se a categoria for nula.
+     */
+    public void setCategoria(CategoriaVaga categoria) {
+        if (categoria == null) {
+            throw new IllegalArgumentException("A categoria da vaga é obrigatória.");
+        }
+        this.categoria = categoria;
+        this.vip = (categoria == CategoriaVaga.VIP);
+    }
+
+    /**
+     * Obtém a distância da vaga até a saída (ou elevador), usada pela estratégia
+     * {@link EstrategiaAlocacao#MAIS_PROXIMA}.
+     * @return A distância, em unidade definida pelo operador (0 se não configurada).
+     */
+    public int getDistancia() {
+        return distancia;
+    }
+
+    /**
+     * Define a distância da vaga até a saída (ou elevador).
+     * @param distancia Distância não negativa (ex.: metros).
+     * @throws IllegalArgumentException Se a distância for negativa.
+     */
+    public void setDistancia(int distancia) {
+        if (distancia < 0) {
+            throw new IllegalArgumentException("A distância da vaga não pode ser negativa.");
+        }
+        this.distancia = distancia;
+    }
+
+    /**
+     * Obtém a capacidade da vaga em unidades (uma moto ocupa uma unidade).
+     * @return Unidades configuradas ou, se não configuradas, 1 para vagas de moto e
+     *         {@link #CAPACIDADE_PADRAO} para as demais.
+     */
+    public int getCapacidade() {
+        if (capacidade > 0) {
+            return capacidade;
+        }
+        return (getCategoria() == CategoriaVaga.MOTO) ? UNIDADES_MOTO : CAPACIDADE_PADRAO;
+    }
+
+    /**
+     * Define a capacidade da vaga em unidades. Veículos já estacionados permanecem.
+     * @param capacidade Unidades entre 1 e {@link #CAPACIDADE_MAXIMA}.
+     * @throws IllegalArgumentException Se a capacidade estiver fora do intervalo.
+     */
+    public void setCapacidade(int capacidade) {
+        if (capacidade < 1 || capacidade > CAPACIDADE_MAXIMA) {
+            throw new IllegalArgumentException("A capacidade da vaga deve ficar entre 1 e " + CAPACIDADE_MAXIMA + " unidades.");
+        }
+        this.capacidade = capacidade;
+    }
+
+    /**
+     * Obtém as unidades em uso: uma por moto; qualquer outro veículo ocupa a vaga inteira.
+     * @return Unidades ocupadas.
+     */
+    public int getUnidadesOcupadas() {
+        if (veiculo == null) {
+            return 0;
+        }
+        if (!isMoto(veiculo)) {
+            return getCapacidade();
+        }
+        return Math.min(getCapacidade(), getQuantidadeVeiculos() * UNIDADES_MOTO);
+    }
+
+    /**
+     * Obtém as unidades ainda disponíveis na vaga.
+     * @return Unidades livres.
+     */
+    public int getUnidadesLivres() {
+        return getCapacidade() - getUnidadesOcupadas();
     }
 
     /**
-     * Tenta ocupar a vaga com um veículo.
+     * Verifica se um veículo do tipo informado cabe na vaga agora.
+     * Vaga vazia recebe qualquer veículo; vaga com motos recebe outra moto enquanto houver unidade livre.
+     * @param tipo Tipo do veículo.
+     * @return true se o veículo cabe.
+     */
+    public boolean podeReceber(TipoVeiculo tipo) {
+        if (veiculo == null) {
+            return true;
+        }
+        return tipo == TipoVeiculo.MOTO && isMoto(veiculo) && getUnidadesLivres() >= UNIDADES_MOTO;
+    }
+
+    /**
+     * Verifica se a vaga já tem motos e ainda cabe outra.
+     * @return true se estiver parcialmente ocupada.
+     */
+    public boolean isParcial() {
+        return veiculo != null && podeReceber(TipoVeiculo.MOTO);
+    }
+
+    /**
+     * Tenta ocupar a vaga com um veículo. Motos dividem a vaga enquanto houver unidades livres.
      * @param v O veículo a ser estacionado.
-     * @return true se a vaga foi ocupada com sucesso, false se já estava ocupada.
+     * @return true se a vaga foi ocupada com sucesso, false se o veículo não cabe.
      */
     public boolean ocuparVaga(Veiculo v) {
-        if (this.ocupada) {
+        if (!podeReceber(v.getTipo())) {
             return false;
         }
-        this.veiculo = v;
-        this.ocupada = true;
+        if (this.veiculo == null) {
+            this.veiculo = v;
+            this.ocupada = true;
+        } else {
+            migrarAdicionais();
+            if (adicionais == null) {
+                // Uma unidade é do primeiro veículo; cada moto adicional usa ao menos uma das demais
+                adicionais = new Veiculo[CAPACIDADE_MAXIMA - 1];
+            }
+            adicionais[quantidadeAdicionais++] = v;
+        }
         return true;
     }
 
+    // Snapshots gravados antes do contador tinham o vetor do tamanho exato, sem lacunas
+    private void migrarAdicionais() {
+        if (quantidadeAdicionais > 0 || adicionais == null || adicionais.length == 0 || adicionais[0] == null) {
+            return;
+        }
+        int n = 0;
+        while (n < adicionais.length && adicionais[n] != null) n++;
+        if (adicionais.length != CAPACIDADE_MAXIMA - 1) {
+            adicionais = Arrays.copyOf(adicionais, CAPACIDADE_MAXIMA - 1);
+        }
+        quantidadeAdicionais = n;
+    }
+
+    // Troca pelo veículo compartilhado do cadastro (mesma placa) após um carregamento
+    void substituirVeiculo(Veiculo v) {
+        if (veiculo != null && veiculo.getCodigoPlaca() == v.getCodigoPlaca()) {
+            veiculo = v;
+            return;
+        }
+        migrarAdicionais();
+        for (int i = 0; i < quantidadeAdicionais; i++) {
+            if (adicionais[i].getCodigoPlaca() == v.getCodigoPlaca()) {
+                adicionais[i] = v;
+            }
+        }
+    }
+
     /**
-     * Libera a vaga, removendo o veículo e marcando como livre.
+     * Libera a vaga, removendo todos os veículos e marcando como livre.
      */
     public void liberarVaga() {
         this.veiculo = null;
+        if (adicionais != null) {
+            Arrays.fill(adicionais, null);
+        }
+        this.quantidadeAdicionais = 0;
         this.ocupada = false;
     }
 
+    /**
+     * Retira um veículo da vaga; os demais (motos dividindo a vaga) permanecem.
+     * @param v O veículo que está saindo (comparado pela placa).
+     * @return true se o veículo estava na vaga.
+     */
+    public boolean liberarVaga(Veiculo v) {
+        if (veiculo == null) {
+            return false;
+        }
+        migrarAdicionais();
+        long placa = v.getCodigoPlaca();
+        int n = quantidadeAdicionais;
+        if (veiculo.getCodigoPlaca() == placa) {
+            if (n == 0) {
+                liberarVaga();
+                return true;
+            }
+            // A moto que chegou em seguida passa a ser a primeira (ordem de chegada mantida)
+            veiculo = adicionais[0];
+            System.arraycopy(adicionais, 1, adicionais, 0, n - 1);
+            adicionais[--quantidadeAdicionais] = null;
+            return true;
+        }
+        for (int i = 0; i < n; i++) {
+            if (adicionais[i].getCodigoPlaca() == placa) {
+                adicionais[i] = adicionais[n - 1];
+                adicionais[--quantidadeAdicionais] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Obtém o status textual da vaga.
-     * @return "OCUPADA" ou "LIVRE".
+     * @return "OCUPADA", "LIVRE" ou "PARCIAL" (motos dividindo a vaga, com unidade livre).
      */
     public String getStatus() {
-        return this.ocupada ? "OCUPADA" : "LIVRE";
+        if (!this.ocupada) {
+            return "LIVRE";
+        }
+        return isParcial() ? "PARCIAL" : "OCUPADA";
     }
 
     /**
@@ -82,22 +300,56 @@ public class Vaga {
     }
 
     /**
-     * Obtém o veículo estacionado na vaga, se houver.
+     * Obtém o (primeiro) veículo estacionado na vaga, se houver.
      * @return O objeto Veiculo ou null se estiver livre.
      */
     public Veiculo getVeiculo() {
         return veiculo;
     }
 
+    /**
+     * Obtém todos os veículos estacionados na vaga.
+     * @return Nova lista (vazia se a vaga estiver livre).
+     */
+    public List<Veiculo> getVeiculos() {
+        List<Veiculo> lista = new ArrayList<>(getQuantidadeVeiculos());
+        if (veiculo != null) {
+            lista.add(veiculo);
+        }
+        for (int i = 0; i < quantidadeAdicionais; i++) {
+            lista.add(adicionais[i]);
+        }
+        return lista;
+    }
+
+    /**
+     * Obtém a quantidade de veículos estacionados na vaga.
+     * @return 0 se livre; mais de 1 quando motos dividem a vaga.
+     */
+    public int getQuantidadeVeiculos() {
+        if (veiculo == null) {
+            return 0;
+        }
+        migrarAdicionais();
+        return 1 + quantidadeAdicionais;
+    }
+
+    private static boolean isMoto(Veiculo v) {
+        return v.getTipo() == TipoVeiculo.MOTO;
+    }
+
     /**
      * Retorna uma representação em string da vaga.
-     * Inclui número, status VIP, status de ocupação e placa do veículo (se houver).
+     * Inclui número, categoria (quando não for a comum), status de ocupação e placas dos veículos (se houver).
      * @return String formatada.
      */
     @Override
     public String toString() {
-        String infoVeiculo = (veiculo != null) ? " - " + veiculo.getPlaca() : "";
-        String tipoVaga = vip ? " [VIP]" : "";
+        StringBuilder infoVeiculo = new StringBuilder();
+        for (Veiculo v : getVeiculos()) {
+            infoVeiculo.append((infoVeiculo.length() == 0) ? " - " : ", ").append(v.getPlaca());
+        }
+        String tipoVaga = (getCategoria() != CategoriaVaga.CARRO) ? " [" + getCategoria().getDescricao() + "]" : "";
         return String.format("Vaga %d%s [%s]%s", numero, tipoVaga, getStatus(), infoVeiculo);
     }
 }
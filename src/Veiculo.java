@@ -7,6 +7,7 @@ public class Veiculo {
     private String modelo;
     private String cor;
     private TipoVeiculo tipo;
+    private transient long codigoPlaca;
 
     /**
      * Construtor da classe Veiculo.
@@ -56,20 +57,31 @@ public class Veiculo {
      * @throws IllegalArgumentException Se a placa for nula, vazia ou estiver fora do padrão.
      */
     public void setPlaca(String placa) {
-        if (placa == null || placa.trim().isEmpty()) {
+        if (placa == null) {
             throw new IllegalArgumentException("A placa não pode ser vazia ou nula.");
         }
         
-        String placaUpper = placa.toUpperCase().trim();
-        // Validação básica: 3 letras + 4 números (ABC1234) ou Mercosul (ABC1D23)
-        String padraoAntigo = "[A-Z]{3}[0-9]{4}";
-        String padraoMercosul = "[A-Z]{3}[0-9][A-Z][0-9]{2}";
-        
-        if (!placaUpper.matches(padraoAntigo) && !placaUpper.matches(padraoMercosul)) {
+        // Validação: 3 letras + 4 números (ABC1234) ou Mercosul (ABC1D23); o codec também
+        // rejeita texto vazio ou só com espaços, sem criar cópias da string
+        long codigo = CodecPlaca.codificar(placa);
+        if (codigo == CodecPlaca.INVALIDA) {
              throw new IllegalArgumentException("Placa inválida. Use o formato ABC1234 ou ABC1D23.");
         }
         
-        this.placa = placaUpper;
+        this.placa = CodecPlaca.isCanonica(placa, codigo) ? placa : CodecPlaca.decodificar(codigo);
+        this.codigoPlaca = codigo;
+    }
+
+    /**
+     * Obtém a placa codificada, usada como chave nos índices.
+     * @return Código da placa ({@link CodecPlaca}).
+     */
+    public long getCodigoPlaca() {
+        if (codigoPlaca == CodecPlaca.INVALIDA) {
+            // Veículos carregados de arquivo chegam sem o campo transiente
+            codigoPlaca = CodecPlaca.codificar(placa);
+        }
+        return codigoPlaca;
     }
 
     /**